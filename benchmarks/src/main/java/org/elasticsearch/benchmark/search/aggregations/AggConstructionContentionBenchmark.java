@@ -67,6 +67,7 @@ import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -304,6 +305,21 @@ public class AggConstructionContentionBenchmark {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public int releasableCount() {
+            return releaseMe.size();
+        }
+
+        @Override
+        public void releaseAfter(int count) {
+            List<Releasable> toRelease = releaseMe.subList(count, releaseMe.size());
+            try {
+                Releasables.close(toRelease);
+            } finally {
+                toRelease.clear();
+            }
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
@@ -354,6 +370,16 @@ public class AggConstructionContentionBenchmark {
             return true;
         }
 
+        @Override
+        public long termsSpillThreshold() {
+            return -1;
+        }
+
+        @Override
+        public Path termsSpillPath() {
+            return null;
+        }
+
         @Override
         public void close() {
             List<Releasable> releaseMe = new ArrayList<>(this.releaseMe);
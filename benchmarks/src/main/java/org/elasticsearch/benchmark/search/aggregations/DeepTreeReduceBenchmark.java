@@ -0,0 +1,176 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.InternalTDigestPercentiles;
+import org.elasticsearch.search.aggregations.metrics.TDigestState;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Like {@link TermsReduceBenchmark} but for the final reduce of deep trees of aggregations, {@code terms} over
+ * {@code histogram} over {@code percentiles}, optionally with many sibling trees, on one or many threads.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class DeepTreeReduceBenchmark {
+    private static final double[] PERCENTS = new double[] { 50, 95, 99 };
+
+    @Param({ "1600172297" })
+    long seed;
+
+    @Param({ "16", "64" })
+    int numShards;
+
+    @Param({ "20" })
+    int topNSize;
+
+    @Param({ "10" })
+    int cardinalityFactor;
+
+    @Param({ "24" })
+    int histogramBuckets;
+
+    @Param({ "1", "3" })
+    int siblings;
+
+    @Param({ "1", "4", "8" })
+    int parallelism;
+
+    private List<InternalAggregations> aggsList;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(seed);
+        BytesRef[] dict = new BytesRef[cardinalityFactor * topNSize];
+        for (int i = 0; i < dict.length; i++) {
+            dict[i] = new BytesRef(Long.toString(rand.nextLong()));
+        }
+        aggsList = new ArrayList<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            List<InternalAggregation> trees = new ArrayList<>(siblings);
+            for (int s = 0; s < siblings; s++) {
+                trees.add(newTerms("terms_" + s, rand, dict));
+            }
+            aggsList.add(InternalAggregations.from(trees));
+        }
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private StringTerms newTerms(String name, Random rand, BytesRef[] dict) {
+        Set<BytesRef> randomTerms = new HashSet<>();
+        for (int i = 0; i < topNSize; i++) {
+            randomTerms.add(dict[rand.nextInt(dict.length)]);
+        }
+        List<StringTerms.Bucket> buckets = new ArrayList<>();
+        for (BytesRef term : randomTerms) {
+            InternalAggregations subAggs = InternalAggregations.from(Collections.singletonList(newHistogram(rand)));
+            buckets.add(new StringTerms.Bucket(term, rand.nextInt(10000), subAggs, true, 0L, DocValueFormat.RAW));
+        }
+        Collections.sort(buckets, (a, b) -> a.compareKey(b));
+        return new StringTerms(
+            name,
+            BucketOrder.key(true),
+            BucketOrder.count(false),
+            topNSize,
+            1,
+            Collections.emptyMap(),
+            DocValueFormat.RAW,
+            numShards,
+            true,
+            0,
+            buckets,
+            null
+        );
+    }
+
+    private InternalHistogram newHistogram(Random rand) {
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>(histogramBuckets);
+        for (int i = 0; i < histogramBuckets; i++) {
+            TDigestState state = new TDigestState(100);
+            for (int v = 0; v < 10; v++) {
+                state.add(rand.nextDouble() * 1000);
+            }
+            InternalAggregations subAggs = InternalAggregations.from(
+                Collections.singletonList(
+                    new InternalTDigestPercentiles("percentiles", PERCENTS, state, true, DocValueFormat.RAW, Collections.emptyMap())
+                )
+            );
+            buckets.add(new InternalHistogram.Bucket(i, 1 + rand.nextInt(100), true, DocValueFormat.RAW, subAggs));
+        }
+        return new InternalHistogram(
+            "histogram",
+            buckets,
+            BucketOrder.key(true),
+            1,
+            null,
+            DocValueFormat.RAW,
+            true,
+            Collections.emptyMap()
+        );
+    }
+
+    @Benchmark
+    public InternalAggregations reduceAggs() {
+        MultiBucketConsumerService.MultiBucketConsumer bucketConsumer = new MultiBucketConsumerService.MultiBucketConsumer(
+            Integer.MAX_VALUE,
+            new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
+        );
+        InternalAggregation.ReduceContext context = InternalAggregation.ReduceContext.forFinalReduction(
+            null,
+            null,
+            bucketConsumer,
+            PipelineAggregator.PipelineTree.EMPTY,
+            () -> false,
+            executor,
+            parallelism
+        );
+        return InternalAggregations.topLevelReduce(aggsList, context);
+    }
+}
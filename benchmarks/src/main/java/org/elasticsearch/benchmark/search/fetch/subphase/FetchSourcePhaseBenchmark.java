@@ -1,5 +1,11 @@
 package org.elasticsearch.benchmark.search.fetch.subphase;
 
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -27,6 +33,8 @@ import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -42,6 +50,7 @@ public class FetchSourcePhaseBenchmark {
     private Set<String> includesSet;
     private Set<String> excludesSet;
     private XContentParserConfiguration parserConfig;
+    private LeafReader docValuesReader;
 
     @Param({ "tiny", "short", "one_4k_field", "one_4m_field" })
     private String source;
@@ -76,6 +85,23 @@ public class FetchSourcePhaseBenchmark {
         includesSet = Set.of(fetchContext.includes());
         excludesSet = Set.of(fetchContext.excludes());
         parserConfig = XContentParserConfiguration.EMPTY.withFiltering(includesSet, excludesSet);
+        docValuesReader = buildDocValuesReader();
+    }
+
+    /**
+     * Indexes the included fields of the source as doc values, like a keyword field would.
+     */
+    private LeafReader buildDocValuesReader() {
+        SourceLookup lookup = new SourceLookup();
+        lookup.setSource(sourceBytes);
+        MemoryIndex index = new MemoryIndex();
+        for (String field : fetchContext.includes()) {
+            Object value = lookup.extractValue(field, null);
+            if (value != null) {
+                index.addField(new SortedSetDocValuesField(field, new BytesRef(value.toString())), null);
+            }
+        }
+        return index.createSearcher().getIndexReader().leaves().get(0).reader();
     }
 
     private BytesReference read300BytesExample() throws IOException {
@@ -96,6 +122,22 @@ public class FetchSourcePhaseBenchmark {
         return FetchSourcePhase.objectToBytes(value, XContentType.JSON, Math.min(1024, lookup.internalSourceRef().length()));
     }
 
+    /**
+     * Rebuilds the filtered source from doc values, which is what the fetch phase does with
+     * {@code index.fetch.source_from_doc_values} instead of loading and filtering the source.
+     */
+    @Benchmark
+    public BytesReference fromDocValues() throws IOException {
+        Map<String, Object> value = new HashMap<>();
+        for (String field : fetchContext.includes()) {
+            SortedSetDocValues docValues = DocValues.getSortedSet(docValuesReader, field);
+            if (docValues.advanceExact(0)) {
+                value.put(field, docValues.lookupOrd(docValues.nextOrd()).utf8ToString());
+            }
+        }
+        return FetchSourcePhase.objectToBytes(value, XContentType.JSON, 128);
+    }
+
     @Benchmark
     public BytesReference filterXContentOnParser() throws IOException {
         BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, sourceBytes.length()));
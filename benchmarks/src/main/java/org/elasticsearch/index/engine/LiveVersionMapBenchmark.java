@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of indexing into, looking up in and refreshing the {@link LiveVersionMap} for the different values of
+ * {@link EngineConfig#INDEX_VERSION_MAP_STORAGE_SETTING}.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Fork(value = 1)
+public class LiveVersionMapBenchmark {
+
+    @Param({ EngineConfig.VERSION_MAP_STORAGE_HASH, EngineConfig.VERSION_MAP_STORAGE_PAGED })
+    private String storage;
+
+    @Param({ "50000" })
+    private int numDocs;
+
+    private BytesRef[] uids;
+
+    private LiveVersionMap versionMap;
+
+    @Setup
+    public void setup() {
+        uids = new BytesRef[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            uids[i] = new BytesRef(Integer.toString(i));
+        }
+        if (EngineConfig.VERSION_MAP_STORAGE_PAGED.equals(storage)) {
+            BigArrays bigArrays = new BigArrays(
+                new PageCacheRecycler(Settings.EMPTY),
+                new NoneCircuitBreakerService(),
+                CircuitBreaker.REQUEST
+            );
+            versionMap = new LiveVersionMap(bigArrays);
+        } else {
+            versionMap = new LiveVersionMap();
+        }
+        // lookups only hit the version map in safe access mode
+        versionMap.enforceSafeAccess();
+        putAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        versionMap.clear();
+    }
+
+    /**
+     * Updates every document once, which is what the map sees between two refreshes of an update heavy index.
+     */
+    @Benchmark
+    public LiveVersionMap put() {
+        putAll();
+        return versionMap;
+    }
+
+    @Benchmark
+    public long get() {
+        long sum = 0;
+        for (BytesRef uid : uids) {
+            try (Releasable ignored = versionMap.acquireLock(uid)) {
+                sum += versionMap.getUnderLock(uid).version;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Moves the populated map out of the way and drops it like a refresh does, then re-populates the map so that every invocation
+     * refreshes the same number of entries.
+     */
+    @Benchmark
+    public LiveVersionMap refresh() throws IOException {
+        versionMap.beforeRefresh();
+        versionMap.afterRefresh(true);
+        versionMap.enforceSafeAccess();
+        putAll();
+        return versionMap;
+    }
+
+    private void putAll() {
+        for (int i = 0; i < uids.length; i++) {
+            try (Releasable ignored = versionMap.acquireLock(uids[i])) {
+                versionMap.putIndexUnderLock(uids[i], new IndexVersionValue(new Translog.Location(1, i, 32), i, i, 1));
+            }
+        }
+    }
+}
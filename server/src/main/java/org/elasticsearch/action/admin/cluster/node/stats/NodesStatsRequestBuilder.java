@@ -153,6 +153,14 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<
         return this;
     }
 
+    /**
+     * Should I/O budget statistics be returned
+     */
+    public NodesStatsRequestBuilder setIoBudget(boolean ioBudget) {
+        addOrRemoveMetric(ioBudget, NodesStatsRequest.Metric.IO_BUDGET);
+        return this;
+    }
+
     /**
      * Helper method for adding metrics to a request
      */
@@ -18,6 +18,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.bulk.stats.BulkStats;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.cache.request.RequestCacheStats;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCacheStats;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.flush.FlushStats;
@@ -100,6 +101,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
     @Nullable
     public ShardCountStats shards;
 
+    @Nullable
+    public StoredFieldsCacheStats storedFieldsCache;
+
     public CommonStats() {
         this(CommonStatsFlags.NONE);
     }
@@ -163,6 +167,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
                 case Shards:
                     shards = new ShardCountStats();
                     break;
+                case StoredFieldsCache:
+                    storedFieldsCache = new StoredFieldsCacheStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -229,6 +236,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
                         // Setting to 1 because the single IndexShard passed to this method implies 1 shard
                         shards = new ShardCountStats(1);
                         break;
+                    case StoredFieldsCache:
+                        storedFieldsCache = indexShard.storedFieldsCache().stats();
+                        break;
                     default:
                         throw new IllegalStateException("Unknown Flag: " + flag);
                 }
@@ -259,6 +269,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
             bulk = in.readOptionalWriteable(BulkStats::new);
         }
         shards = in.readOptionalWriteable(ShardCountStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            storedFieldsCache = in.readOptionalWriteable(StoredFieldsCacheStats::new);
+        }
     }
 
     @Override
@@ -283,6 +296,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
             out.writeOptionalWriteable(bulk);
         }
         out.writeOptionalWriteable(shards);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeOptionalWriteable(storedFieldsCache);
+        }
     }
 
     public void add(CommonStats stats) {
@@ -430,6 +446,14 @@ public class CommonStats implements Writeable, ToXContentFragment {
                 shards = shards.add(stats.shards);
             }
         }
+        if (storedFieldsCache == null) {
+            if (stats.getStoredFieldsCache() != null) {
+                storedFieldsCache = new StoredFieldsCacheStats();
+                storedFieldsCache.add(stats.getStoredFieldsCache());
+            }
+        } else {
+            storedFieldsCache.add(stats.getStoredFieldsCache());
+        }
     }
 
     @Nullable
@@ -522,6 +546,11 @@ public class CommonStats implements Writeable, ToXContentFragment {
         return shards;
     }
 
+    @Nullable
+    public StoredFieldsCacheStats getStoredFieldsCache() {
+        return storedFieldsCache;
+    }
+
     /**
      * Utility method which computes total memory by adding
      * FieldData, PercolatorCache, Segments (index writer, version map)
@@ -563,7 +592,8 @@ public class CommonStats implements Writeable, ToXContentFragment {
                 translog,
                 requestCache,
                 recoveryStats,
-                bulk }
+                bulk,
+                storedFieldsCache }
         ).filter(Objects::nonNull);
         for (ToXContent toXContent : ((Iterable<ToXContent>) stream::iterator)) {
             toXContent.toXContent(builder, params);
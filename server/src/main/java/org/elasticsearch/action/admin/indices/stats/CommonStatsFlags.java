@@ -214,7 +214,8 @@ public class CommonStatsFlags implements Writeable, Cloneable {
         RequestCache("request_cache", 15),
         Recovery("recovery", 16),
         Bulk("bulk", 17),
-        Shards("shard_stats", 18);
+        Shards("shard_stats", 18),
+        StoredFieldsCache("stored_fields_cache", 19);
 
         private final String restName;
         private final int index;
@@ -256,6 +256,15 @@ public class IndicesStatsRequest extends BroadcastRequest<IndicesStatsRequest> {
         return flags.isSet(Flag.Bulk);
     }
 
+    public IndicesStatsRequest storedFieldsCache(boolean storedFieldsCache) {
+        flags.set(Flag.StoredFieldsCache, storedFieldsCache);
+        return this;
+    }
+
+    public boolean storedFieldsCache() {
+        return flags.isSet(Flag.StoredFieldsCache);
+    }
+
     public boolean includeSegmentFileSizes() {
         return flags.includeSegmentFileSizes();
     }
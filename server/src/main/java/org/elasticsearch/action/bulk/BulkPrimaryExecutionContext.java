@@ -11,6 +11,7 @@ package org.elasticsearch.action.bulk;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
@@ -18,7 +19,9 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is a utility class that holds the per request state needed to perform bulk operations on the primary.
@@ -166,6 +169,28 @@ class BulkPrimaryExecutionContext {
         return locationToSync;
     }
 
+    /**
+     * returns the current item request and the item requests directly following it for as long as they are index requests with
+     * auto-generated ids that are not retries and have not been executed yet, i.e. the requests that can be executed as an
+     * append-only batch
+     */
+    public List<IndexRequest> getAppendOnlyIndexRequests() {
+        assert assertInvariants(ItemProcessingState.INITIAL);
+        final List<IndexRequest> indexRequests = new ArrayList<>();
+        for (int i = currentIndex; i < request.items().length; i++) {
+            final BulkItemRequest item = request.items()[i];
+            if (item.getPrimaryResponse() != null || item.request() instanceof IndexRequest == false) {
+                break;
+            }
+            final IndexRequest indexRequest = (IndexRequest) item.request();
+            if (indexRequest.getAutoGeneratedTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP || indexRequest.isRetry()) {
+                break;
+            }
+            indexRequests.add(indexRequest);
+        }
+        return indexRequests;
+    }
+
     private BulkItemRequest getCurrentItem() {
         return request.items()[currentIndex];
     }
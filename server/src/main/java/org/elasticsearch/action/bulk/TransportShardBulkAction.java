@@ -42,6 +42,7 @@ import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
@@ -61,6 +62,8 @@ import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -182,6 +185,9 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    if (executeAppendOnlyBatch(context) > 0) {
+                        continue;
+                    }
                     if (executeBulkItemRequest(
                         context,
                         updateHelper,
@@ -250,6 +256,45 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Executes the current bulk item request together with the append-only index requests directly following it as a single batch on
+     * the primary, see {@link IndexShard#applyAppendOnlyIndexOperationsOnPrimary}.
+     * @return the number of bulk item requests that were executed and completed, {@code 0} if the current request has to be executed
+     *         on its own through {@link #executeBulkItemRequest}
+     */
+    static int executeAppendOnlyBatch(BulkPrimaryExecutionContext context) throws Exception {
+        final List<IndexRequest> requests = context.getAppendOnlyIndexRequests();
+        if (requests.size() < 2) {
+            return 0;
+        }
+        final List<SourceToParse> sources = new ArrayList<>(requests.size());
+        final long[] versions = new long[requests.size()];
+        final VersionType[] versionTypes = new VersionType[requests.size()];
+        final long[] autoGeneratedTimestamps = new long[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            final IndexRequest request = requests.get(i);
+            sources.add(
+                new SourceToParse(
+                    request.id(),
+                    request.source(),
+                    request.getContentType(),
+                    request.routing(),
+                    request.getDynamicTemplates()
+                )
+            );
+            versions[i] = request.version();
+            versionTypes[i] = request.versionType();
+            autoGeneratedTimestamps[i] = request.getAutoGeneratedTimestamp();
+        }
+        final List<Engine.IndexResult> results = context.getPrimary()
+            .applyAppendOnlyIndexOperationsOnPrimary(sources, versions, versionTypes, autoGeneratedTimestamps);
+        for (Engine.IndexResult result : results) {
+            context.setRequestToExecute(context.getCurrent());
+            onComplete(result, context, null);
+        }
+        return results.size();
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
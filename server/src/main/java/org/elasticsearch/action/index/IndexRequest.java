@@ -121,7 +121,12 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         }
         id = in.readOptionalString();
         routing = in.readOptionalString();
-        source = in.readBytesReference();
+        if (shardId != null) {
+            // read as part of a BulkShardRequest, which retains the source without copying it and releases it once it is done
+            source = in.readReleasableBytesReference();
+        } else {
+            source = in.readBytesReference();
+        }
         opType = OpType.fromId(in.readByte());
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
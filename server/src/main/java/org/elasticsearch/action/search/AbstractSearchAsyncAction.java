@@ -25,6 +25,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.shard.ShardId;
@@ -366,6 +367,29 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * Takes a permit to send a request to the given node on top of the requests of this phase, for instance to hedge a shard request
+     * that is late, so that it counts against the maximum number of concurrent shard requests per node.
+     *
+     * @return the permit to release once the request completed, or {@code null} if the node has no room for another request
+     */
+    @Nullable
+    final Releasable tryAcquireShardRequestPermit(String nodeId) {
+        if (throttleConcurrentRequests == false) {
+            // there are no more shards than requests allowed per node, and a node never gets more than one request per shard
+            return () -> {};
+        }
+        final PendingExecutions pendingExecutions = pendingExecutionsPerNode.computeIfAbsent(
+            nodeId,
+            n -> new PendingExecutions(maxConcurrentRequestsPerNode)
+        );
+        if (pendingExecutions.tryAcquire() == false) {
+            return null;
+        }
+        final Thread thread = Thread.currentThread();
+        return Releasables.releaseOnce(() -> executeNext(pendingExecutions, thread));
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -849,6 +873,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             return tryQueue(null);
         }
 
+        /**
+         * Takes a permit unless they are all taken or requests are already waiting for one.
+         */
+        synchronized boolean tryAcquire() {
+            if (permitsTaken < permits && queue.isEmpty()) {
+                permitsTaken++;
+                return true;
+            }
+            return false;
+        }
+
         void tryRun(Runnable runnable) {
             Runnable r = tryQueue(runnable);
             if (r != null) {
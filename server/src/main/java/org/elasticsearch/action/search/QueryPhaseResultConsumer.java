@@ -11,6 +11,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -49,6 +50,9 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * Top docs are merged in a bounded queue as soon as each shard result is consumed, so that only the top N
+ * docs are retained regardless of the number of shards. Their memory is accounted in the same circuit breaker.
+ * Collapsed top docs are merged with the aggregations in partial reduces instead.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -160,27 +164,26 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private MergeResult partialReduce(
         QuerySearchResult[] toConsume,
         List<SearchShard> emptyResults,
-        TopDocsStats topDocsStats,
         MergeResult lastMerge,
         int numReducePhases
     ) {
         // ensure consistent ordering
         Arrays.sort(toConsume, Comparator.comparingInt(QuerySearchResult::getShardIndex));
 
-        for (QuerySearchResult result : toConsume) {
-            topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
-        }
-
+        // top docs stats are merged as the results are consumed and so are the top docs unless they are collapsed,
+        // see PendingMerges#consume
         final TopDocs newTopDocs;
         if (hasTopDocs) {
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (lastMerge != null) {
+            if (lastMerge != null && lastMerge.reducedTopDocs != null) {
                 topDocsList.add(lastMerge.reducedTopDocs);
             }
             for (QuerySearchResult result : toConsume) {
-                TopDocsAndMaxScore topDocs = result.consumeTopDocs();
-                setShardIndex(topDocs.topDocs, result.getShardIndex());
-                topDocsList.add(topDocs.topDocs);
+                if (result.hasConsumedTopDocs() == false) {
+                    TopDocsAndMaxScore topDocs = result.consumeTopDocs();
+                    setShardIndex(topDocs.topDocs, result.getShardIndex());
+                    topDocsList.add(topDocs.topDocs);
+                }
             }
             newTopDocs = mergeTopDocs(
                 topDocsList,
@@ -213,7 +216,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             SearchShardTarget target = result.getSearchShardTarget();
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
-        progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+        progressListener.notifyPartialReduce(processedShards, pendingMerges.getTotalHits(), newAggs, numReducePhases);
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
         long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
@@ -239,6 +242,11 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private final AtomicReference<Exception> failure = new AtomicReference<>();
 
         private final TopDocsStats topDocsStats;
+        // the top N docs of the consumed results, merged as they are consumed
+        private final TopDocsQueue topDocsQueue;
+        private boolean hasQueuedTopDocs;
+        // the memory that is accounted in the circuit breaker for the queued top docs
+        private long topDocsBreakerBytes;
         private volatile MergeResult mergeResult;
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
@@ -246,6 +254,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         PendingMerges(int batchReduceSize, int trackTotalHitsUpTo) {
             this.batchReduceSize = batchReduceSize;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
+            this.topDocsQueue = new TopDocsQueue(topNSize);
         }
 
         @Override
@@ -261,6 +270,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 circuitBreaker.addWithoutBreaking(-circuitBreakerBytes);
                 circuitBreakerBytes = 0;
             });
+            toRelease.add(() -> {
+                circuitBreaker.addWithoutBreaking(-topDocsBreakerBytes);
+                topDocsBreakerBytes = 0;
+            });
 
             Releasables.close(toRelease);
 
@@ -332,6 +345,19 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         emptyResults.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
                     }
                 } else {
+                    topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+                    if (hasTopDocs && TopDocsQueue.supports(result.topDocs().topDocs)) {
+                        try {
+                            queueTopDocs(result);
+                        } catch (Exception exc) {
+                            result.releaseAggs();
+                            buffer.forEach(QuerySearchResult::releaseAggs);
+                            buffer.clear();
+                            onMergeFailure(exc);
+                            next.run();
+                            return;
+                        }
+                    }
                     if (hasAggs) {
                         long aggsSize = ramBytesUsedQueryResult(result);
                         try {
@@ -367,6 +393,27 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
         }
 
+        /**
+         * Adds the top docs of the given result to the queue of the top N docs consumed so far and
+         * accounts for the memory that the queue retains.
+         */
+        private void queueTopDocs(QuerySearchResult result) {
+            assert Thread.holdsLock(this);
+            TopDocsAndMaxScore topDocs = result.consumeTopDocs();
+            setShardIndex(topDocs.topDocs, result.getShardIndex());
+            topDocsQueue.add(topDocs.topDocs);
+            hasQueuedTopDocs = true;
+            long newBytes = topDocsQueue.ramBytesUsed();
+            if (newBytes > topDocsBreakerBytes) {
+                circuitBreaker.addEstimateBytesAndMaybeBreak(newBytes - topDocsBreakerBytes, "<reduce_top_docs>");
+                topDocsBreakerBytes = newBytes;
+            }
+        }
+
+        synchronized TotalHits getTotalHits() {
+            return topDocsStats.getTotalHits();
+        }
+
         private synchronized void onMergeFailure(Exception exc) {
             if (hasFailure()) {
                 assert circuitBreakerBytes == 0;
@@ -441,7 +488,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         addEstimateAndMaybeBreak(estimatedMergeSize);
                         estimatedTotalSize += estimatedMergeSize;
                         ++numReducePhases;
-                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
+                        newMerge = partialReduce(toConsume, task.emptyResults, thisMergeResult, numReducePhases);
                     } catch (Exception t) {
                         for (QuerySearchResult result : toConsume) {
                             result.releaseAggs();
@@ -461,9 +508,6 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         }
 
         public synchronized TopDocsStats consumeTopDocsStats() {
-            for (QuerySearchResult result : buffer) {
-                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
-            }
             return topDocsStats;
         }
 
@@ -472,13 +516,19 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 return Collections.emptyList();
             }
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (mergeResult != null) {
+            if (hasQueuedTopDocs) {
+                topDocsList.add(topDocsQueue.pop());
+                hasQueuedTopDocs = false;
+            }
+            if (mergeResult != null && mergeResult.reducedTopDocs != null) {
                 topDocsList.add(mergeResult.reducedTopDocs);
             }
             for (QuerySearchResult result : buffer) {
-                TopDocsAndMaxScore topDocs = result.consumeTopDocs();
-                setShardIndex(topDocs.topDocs, result.getShardIndex());
-                topDocsList.add(topDocs.topDocs);
+                if (result.hasConsumedTopDocs() == false) {
+                    TopDocsAndMaxScore topDocs = result.consumeTopDocs();
+                    setShardIndex(topDocs.topDocs, result.getShardIndex());
+                    topDocsList.add(topDocs.topDocs);
+                }
             }
             return topDocsList;
         }
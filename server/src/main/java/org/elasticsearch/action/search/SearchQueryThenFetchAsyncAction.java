@@ -13,6 +13,7 @@ import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
@@ -31,6 +32,8 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
 
     private final SearchPhaseController searchPhaseController;
     private final SearchProgressListener progressListener;
+    @Nullable
+    private final ShardRequestHedger hedger;
 
     // informations to track the best bottom top doc globally.
     private final int topDocsSize;
@@ -52,7 +55,8 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         final TransportSearchAction.SearchTimeProvider timeProvider,
         ClusterState clusterState,
         SearchTask task,
-        SearchResponse.Clusters clusters
+        SearchResponse.Clusters clusters,
+        @Nullable ShardRequestHedger hedger
     ) {
         super(
             "query",
@@ -76,6 +80,8 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         this.trackTotalHitsUpTo = request.resolveTrackTotalHitsUpTo();
         this.searchPhaseController = searchPhaseController;
         this.progressListener = task.getProgressListener();
+        // scrolls and point in time searches must keep using the reader context they started with
+        this.hedger = request.scroll() == null && request.pointInTimeBuilder() == null ? hedger : null;
 
         // register the release of the query consumer to free up the circuit breaker memory
         // at the end of the search
@@ -95,10 +101,42 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         final SearchShardTarget shard,
         final SearchActionListener<SearchPhaseResult> listener
     ) {
+        if (hedger == null) {
+            sendExecuteQuery(shardIt, shard, listener);
+        } else {
+            hedger.execute(
+                shardIt,
+                shard,
+                listener,
+                (target, l) -> sendExecuteQuery(shardIt, target, l),
+                this::releaseHedgedResult,
+                this::tryAcquireShardRequestPermit
+            );
+        }
+    }
+
+    private void sendExecuteQuery(SearchShardIterator shardIt, SearchShardTarget shard, SearchActionListener<SearchPhaseResult> listener) {
+        // built for each copy of the shard, since requests to the local node aren't serialized and may be modified while executing
         ShardSearchRequest request = rewriteShardSearchRequest(super.buildShardSearchRequest(shardIt, listener.requestIndex));
         getSearchTransport().sendExecuteQuery(getConnection(shard.getClusterAlias(), shard.getNodeId()), request, getTask(), listener);
     }
 
+    /**
+     * Releases the reader context of the response of a hedged shard request that came after the response of another copy of the shard.
+     */
+    private void releaseHedgedResult(SearchPhaseResult result) {
+        QuerySearchResult queryResult = result.queryResult();
+        if (queryResult != null && queryResult.hasSearchContext()) {
+            try {
+                SearchShardTarget shardTarget = result.getSearchShardTarget();
+                Transport.Connection connection = getConnection(shardTarget.getClusterAlias(), shardTarget.getNodeId());
+                sendReleaseSearchContext(result.getContextId(), connection, getOriginalIndices(result.getShardIndex()));
+            } catch (Exception e) {
+                getLogger().trace("failed to release context", e);
+            }
+        }
+    }
+
     @Override
     protected void onShardGroupFailure(int shardIndex, SearchShardTarget shardTarget, Exception exc) {
         progressListener.notifyQueryFailure(shardIndex, shardTarget, exc);
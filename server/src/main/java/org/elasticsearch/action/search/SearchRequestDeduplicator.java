@@ -0,0 +1,343 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskAwareRequest;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.action.search.TransportSearchAction.DEDUPLICATE_REQUESTS_SETTING;
+import static org.elasticsearch.action.search.TransportSearchAction.RESULT_CACHE_TTL_SETTING;
+
+/**
+ * Lets identical search requests that are executing at the same time on a coordinating node share a single execution, and
+ * optionally caches their responses for a short time.
+ * <p>
+ * Two requests are identical if they serialize to the same bytes and carry the same request headers, which include the credentials of
+ * the user, so that responses are never shared between users. Requests that keep state on the shards (scrolls and point in time
+ * searches) or that report their progress (async searches) are always executed on their own. Cached responses are keyed on the
+ * version of the cluster metadata too, so that changes to the mappings, aliases or indices that a request targets are picked up right
+ * away. Changes to the documents are only picked up once a cached response expires.
+ * <p>
+ * A shared execution runs under a task of its own rather than under the task of one of its callers. Cancelling a caller only fails
+ * that caller, and the shared execution is cancelled once all of its callers are. Each caller gets the response with the time it
+ * took for that caller.
+ */
+final class SearchRequestDeduplicator {
+
+    // responses aren't cheap to weigh, so we bound the number of cached responses instead
+    static final int MAX_CACHED_RESPONSES = 100;
+
+    private final ClusterService clusterService;
+    private final ThreadContext threadContext;
+    private final TaskManager taskManager;
+    private final ConcurrentMap<Key, SharedExecution> executions = ConcurrentCollections.newConcurrentMap();
+
+    private volatile boolean enabled;
+    @Nullable
+    private volatile Cache<Key, SearchResponse> cache;
+
+    SearchRequestDeduplicator(ClusterService clusterService, ThreadContext threadContext, TaskManager taskManager) {
+        this.clusterService = clusterService;
+        this.threadContext = threadContext;
+        this.taskManager = taskManager;
+        this.enabled = DEDUPLICATE_REQUESTS_SETTING.get(clusterService.getSettings());
+        setResultCacheTtl(RESULT_CACHE_TTL_SETTING.get(clusterService.getSettings()));
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(DEDUPLICATE_REQUESTS_SETTING, this::setEnabled);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(RESULT_CACHE_TTL_SETTING, this::setResultCacheTtl);
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled == false) {
+            setResultCacheTtl(TimeValue.ZERO);
+        } else {
+            setResultCacheTtl(clusterService.getClusterSettings().get(RESULT_CACHE_TTL_SETTING));
+        }
+    }
+
+    private void setResultCacheTtl(TimeValue ttl) {
+        if (enabled && ttl.nanos() > 0) {
+            this.cache = CacheBuilder.<Key, SearchResponse>builder()
+                .setExpireAfterWrite(ttl)
+                .setMaximumWeight(MAX_CACHED_RESPONSES)
+                .build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Executes the given request through the given execution under the given task, unless an identical request is already executing
+     * or a response to an identical request is cached, in which case the listener is completed with the response to that request.
+     * Shared executions run under a task of their own, which is passed to the execution instead.
+     */
+    void execute(
+        SearchTask task,
+        SearchRequest request,
+        ActionListener<SearchResponse> listener,
+        BiConsumer<SearchTask, ActionListener<SearchResponse>> execution
+    ) {
+        if (enabled == false || canDeduplicate(task, request) == false) {
+            execution.accept(task, listener);
+            return;
+        }
+        final Caller caller = new Caller(task, System.nanoTime(), listener);
+        final Key key = new Key(request, threadContext.getHeaders(), clusterService.state().metadata().version());
+        final Cache<Key, SearchResponse> cache = request.requestCache() == Boolean.FALSE ? null : this.cache;
+        if (cache != null) {
+            final SearchResponse cached = cache.get(key);
+            if (cached != null) {
+                caller.onResponse(cached);
+                return;
+            }
+        }
+        while (true) {
+            final SharedExecution created = new SharedExecution(key, cache);
+            final SharedExecution existing = executions.putIfAbsent(key, created);
+            if (existing == null) {
+                created.addCaller(caller);
+                created.start(request, execution);
+                task.addCancellationListener(() -> created.onCallerCancelled(caller));
+                return;
+            }
+            if (existing.addCaller(caller)) {
+                task.addCancellationListener(() -> existing.onCallerCancelled(caller));
+                return;
+            }
+            // the execution completed or all of its callers were cancelled in the meantime
+            executions.remove(key, existing);
+        }
+    }
+
+    static boolean canDeduplicate(SearchTask task, SearchRequest request) {
+        return request.scroll() == null
+            && request.pointInTimeBuilder() == null
+            && task.getProgressListener() == SearchProgressListener.NOOP;
+    }
+
+    private static boolean isCacheable(SearchResponse response) {
+        return response.getFailedShards() == 0 && response.isTimedOut() == false;
+    }
+
+    /**
+     * The number of requests that are executing on behalf of identical requests.
+     */
+    int inFlight() {
+        return executions.size();
+    }
+
+    /**
+     * A request that waits for the response of a shared execution.
+     */
+    private static final class Caller {
+        private final SearchTask task;
+        private final long startNanos;
+        private final ActionListener<SearchResponse> listener;
+
+        Caller(SearchTask task, long startNanos, ActionListener<SearchResponse> listener) {
+            this.task = task;
+            this.startNanos = startNanos;
+            this.listener = listener;
+        }
+
+        /**
+         * Completes the caller with the given response, with the time it took since this caller started.
+         */
+        void onResponse(SearchResponse response) {
+            final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            listener.onResponse(
+                new SearchResponse(
+                    response.getInternalResponse(),
+                    response.getScrollId(),
+                    response.getTotalShards(),
+                    response.getSuccessfulShards(),
+                    response.getSkippedShards(),
+                    tookInMillis,
+                    response.getShardFailures(),
+                    response.getClusters(),
+                    response.pointInTimeId()
+                )
+            );
+        }
+    }
+
+    /**
+     * An execution that is shared by identical requests, which runs under a task of its own.
+     */
+    private final class SharedExecution implements ActionListener<SearchResponse> {
+        private final Key key;
+        @Nullable
+        private final Cache<Key, SearchResponse> cache;
+        private final List<Caller> callers = new ArrayList<>();
+        private SearchTask task;
+        private boolean closed;
+
+        SharedExecution(Key key, @Nullable Cache<Key, SearchResponse> cache) {
+            this.key = key;
+            this.cache = cache;
+        }
+
+        /**
+         * Adds a caller to this execution.
+         * @return {@code false} if this execution can't take callers anymore because it completed or was cancelled
+         */
+        synchronized boolean addCaller(Caller caller) {
+            if (closed) {
+                return false;
+            }
+            callers.add(caller);
+            return true;
+        }
+
+        void start(SearchRequest request, BiConsumer<SearchTask, ActionListener<SearchResponse>> execution) {
+            final SearchTask sharedTask = (SearchTask) taskManager.register("transport", SearchAction.NAME, new TaskAwareRequest() {
+                @Override
+                public void setParentTask(TaskId taskId) {
+                    throw new UnsupportedOperationException("shared searches have no parent task");
+                }
+
+                @Override
+                public TaskId getParentTask() {
+                    return TaskId.EMPTY_TASK_ID;
+                }
+
+                @Override
+                public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+                    return new SearchTask(id, type, action, () -> "shared " + request.buildDescription(), parentTaskId, headers);
+                }
+            });
+            synchronized (this) {
+                task = sharedTask;
+            }
+            try {
+                execution.accept(sharedTask, this);
+            } catch (Exception e) {
+                onFailure(e);
+            }
+        }
+
+        /**
+         * Fails the given caller, and cancels this execution if it was the last caller that waits for it.
+         */
+        void onCallerCancelled(Caller caller) {
+            final SearchTask taskToCancel;
+            synchronized (this) {
+                if (closed || callers.remove(caller) == false) {
+                    return;
+                }
+                if (callers.isEmpty()) {
+                    closed = true;
+                    taskToCancel = task;
+                } else {
+                    taskToCancel = null;
+                }
+            }
+            if (taskToCancel != null) {
+                executions.remove(key, this);
+                taskManager.cancelTaskAndDescendants(
+                    taskToCancel,
+                    "all callers of the shared search were cancelled",
+                    false,
+                    ActionListener.wrap(() -> {})
+                );
+            }
+            caller.task.notifyIfCancelled(caller.listener);
+        }
+
+        @Override
+        public void onResponse(SearchResponse response) {
+            if (cache != null && isCacheable(response)) {
+                cache.put(key, response);
+            }
+            for (Caller caller : complete()) {
+                caller.onResponse(response);
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            ActionListener.onFailure(complete().stream().map(caller -> caller.listener).collect(Collectors.toList()), e);
+        }
+
+        private List<Caller> complete() {
+            final List<Caller> toComplete;
+            final SearchTask sharedTask;
+            synchronized (this) {
+                closed = true;
+                toComplete = new ArrayList<>(callers);
+                callers.clear();
+                sharedTask = task;
+            }
+            executions.remove(key, this);
+            taskManager.unregister(sharedTask);
+            return toComplete;
+        }
+    }
+
+    private static final class Key {
+        private final BytesReference request;
+        private final Map<String, String> headers;
+        private final long metadataVersion;
+        private final int hashCode;
+
+        Key(SearchRequest request, Map<String, String> headers, long metadataVersion) {
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                request.writeTo(out);
+                this.request = out.bytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // these headers are unique to each request, but don't change its response
+            final Map<String, String> filteredHeaders = new HashMap<>(headers);
+            filteredHeaders.remove(Task.X_OPAQUE_ID);
+            filteredHeaders.remove(Task.TRACE_PARENT);
+            filteredHeaders.remove(Task.TRACE_ID);
+            this.headers = filteredHeaders;
+            this.metadataVersion = metadataVersion;
+            this.hashCode = Objects.hash(this.request, this.headers, metadataVersion);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return metadataVersion == key.metadataVersion && request.equals(key.request) && headers.equals(key.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
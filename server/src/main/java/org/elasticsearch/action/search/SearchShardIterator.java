@@ -105,6 +105,17 @@ public final class SearchShardIterator implements Comparable<SearchShardIterator
         return targetNodesIterator.remaining();
     }
 
+    /**
+     * Returns the id of the node of the next copy of the shard without moving on to it, or null if there are no copies left.
+     */
+    String peekNodeIdOrNull() {
+        final int remaining = targetNodesIterator.remaining();
+        if (remaining == 0) {
+            return null;
+        }
+        return targetNodesIterator.asList().get(targetNodesIterator.size() - remaining);
+    }
+
     /**
      * Returns a non-null value if this request should use a specific search context instead of the latest one.
      */
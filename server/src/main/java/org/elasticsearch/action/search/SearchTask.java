@@ -11,6 +11,8 @@ package org.elasticsearch.action.search;
 import org.elasticsearch.tasks.CancellableTask;
 import org.elasticsearch.tasks.TaskId;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -21,6 +23,7 @@ public class SearchTask extends CancellableTask {
     // generating description in a lazy way since source can be quite big
     private final Supplier<String> descriptionSupplier;
     private SearchProgressListener progressListener = SearchProgressListener.NOOP;
+    private final List<Runnable> cancellationListeners = new ArrayList<>();
 
     public SearchTask(
         long id,
@@ -53,4 +56,27 @@ public class SearchTask extends CancellableTask {
         return progressListener;
     }
 
+    /**
+     * Runs the given listener once this task is cancelled, or right away if it already is.
+     */
+    final void addCancellationListener(Runnable listener) {
+        synchronized (cancellationListeners) {
+            if (isCancelled() == false) {
+                cancellationListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    @Override
+    protected void onCancelled() {
+        final List<Runnable> listeners;
+        synchronized (cancellationListeners) {
+            listeners = new ArrayList<>(cancellationListeners);
+            cancellationListeners.clear();
+        }
+        listeners.forEach(Runnable::run);
+    }
+
 }
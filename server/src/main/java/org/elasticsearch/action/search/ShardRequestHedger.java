@@ -0,0 +1,225 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Hedges shard requests whose response is late with a duplicate request to the next copy of the shard, and uses the response that
+ * comes first. A request is late once it took longer than the tail of the recent response times of the node it was sent to, and the
+ * number of hedged requests is capped by the budget of the {@link ResponseCollectorService}. Hedged requests count against the maximum
+ * number of concurrent shard requests per node of the search, and a request isn't hedged if the node of the next copy of the shard
+ * has no room left for it.
+ */
+final class ShardRequestHedger {
+
+    private final ResponseCollectorService collector;
+    private final ThreadPool threadPool;
+
+    ShardRequestHedger(ResponseCollectorService collector, ThreadPool threadPool) {
+        this.collector = collector;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Sends a request to the given shard with the given function, and hedges it if it is late.
+     *
+     * @param shardIt        the iterator of the copies of the shard, the copy a hedged request is sent to is taken out of it
+     * @param shard          the copy of the shard to send the request to
+     * @param listener       the listener to notify with the first response, or the last failure if all requests fail
+     * @param sendRequest    sends a request to the given copy of the shard
+     * @param releaseResult  releases the resources held by a response that came too late to be used
+     * @param tryAcquirePermit takes a permit to send a request to the node with the given id, or returns {@code null} if the node
+     *                         already has as many concurrent shard requests as the search allows for
+     */
+    <T extends SearchPhaseResult> void execute(
+        SearchShardIterator shardIt,
+        SearchShardTarget shard,
+        SearchActionListener<T> listener,
+        BiConsumer<SearchShardTarget, SearchActionListener<T>> sendRequest,
+        Consumer<T> releaseResult,
+        Function<String, Releasable> tryAcquirePermit
+    ) {
+        collector.onShardRequest();
+        final long delayNanos = shardIt.remaining() > 0 ? collector.getHedgeDelayNanos(shard.getNodeId()) : -1;
+        if (delayNanos < 0) {
+            sendRequest.accept(shard, listener);
+            return;
+        }
+        new HedgedRequest<>(shardIt, listener, sendRequest, releaseResult, tryAcquirePermit).start(
+            shard,
+            TimeValue.timeValueNanos(delayNanos)
+        );
+    }
+
+    private class HedgedRequest<T extends SearchPhaseResult> {
+        private final SearchShardIterator shardIt;
+        private final SearchActionListener<T> listener;
+        private final BiConsumer<SearchShardTarget, SearchActionListener<T>> sendRequest;
+        private final Consumer<T> releaseResult;
+        private final Function<String, Releasable> tryAcquirePermit;
+
+        // guarded by this
+        private int pendingRequests;
+        private boolean completed;
+        private Exception failure;
+        private Scheduler.ScheduledCancellable hedgeTimer;
+        // the permit of the hedged request, held until both requests completed so that the search doesn't have more requests in flight
+        // than it allows for even though the permit of the request that was hedged is released as soon as the first response comes
+        private Releasable hedgePermit;
+
+        HedgedRequest(
+            SearchShardIterator shardIt,
+            SearchActionListener<T> listener,
+            BiConsumer<SearchShardTarget, SearchActionListener<T>> sendRequest,
+            Consumer<T> releaseResult,
+            Function<String, Releasable> tryAcquirePermit
+        ) {
+            this.shardIt = shardIt;
+            this.listener = listener;
+            this.sendRequest = sendRequest;
+            this.releaseResult = releaseResult;
+            this.tryAcquirePermit = tryAcquirePermit;
+        }
+
+        void start(SearchShardTarget shard, TimeValue delay) {
+            synchronized (this) {
+                pendingRequests = 1;
+            }
+            // connection errors are thrown to the caller, which moves on to the next copy of the shard
+            sendRequest.accept(shard, newListener(shard, false));
+            final Scheduler.ScheduledCancellable timer = threadPool.schedule(this::hedge, delay, ThreadPool.Names.SEARCH_COORDINATION);
+            synchronized (this) {
+                if (completed) {
+                    timer.cancel();
+                } else {
+                    hedgeTimer = timer;
+                }
+            }
+        }
+
+        private void hedge() {
+            final SearchShardTarget hedgeShard;
+            synchronized (this) {
+                final String hedgeNodeId = shardIt.peekNodeIdOrNull();
+                if (completed || hedgeNodeId == null) {
+                    return;
+                }
+                // leave the copy to fail over to if the node has no room for another request
+                final Releasable permit = tryAcquirePermit.apply(hedgeNodeId);
+                if (permit == null) {
+                    return;
+                }
+                if (collector.tryHedge() == false) {
+                    permit.close();
+                    return;
+                }
+                hedgeShard = shardIt.nextOrNull();
+                hedgePermit = permit;
+                pendingRequests++;
+            }
+            try {
+                sendRequest.accept(hedgeShard, newListener(hedgeShard, true));
+            } catch (Exception e) {
+                onFailure(e);
+            }
+        }
+
+        private SearchActionListener<T> newListener(SearchShardTarget shard, boolean hedge) {
+            return new SearchActionListener<>(shard, listener.requestIndex) {
+                @Override
+                protected void innerOnResponse(T result) {
+                    HedgedRequest.this.onResponse(result, hedge);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    HedgedRequest.this.onFailure(e);
+                }
+            };
+        }
+
+        private void onResponse(T result, boolean hedge) {
+            final boolean first;
+            synchronized (this) {
+                pendingRequests--;
+                first = completed == false;
+                if (first) {
+                    complete();
+                }
+            }
+            maybeReleasePermit();
+            if (first) {
+                if (hedge) {
+                    collector.onHedgeWon();
+                }
+                // the result already carries the target of the copy that responded
+                listener.innerOnResponse(result);
+            } else {
+                releaseResult.accept(result);
+            }
+        }
+
+        private void onFailure(Exception e) {
+            final Exception failure;
+            synchronized (this) {
+                pendingRequests--;
+                if (completed) {
+                    failure = null;
+                } else {
+                    if (this.failure != null) {
+                        e.addSuppressed(this.failure);
+                    }
+                    this.failure = e;
+                    if (pendingRequests == 0) {
+                        complete();
+                        failure = this.failure;
+                    } else {
+                        // the other request may still succeed
+                        failure = null;
+                    }
+                }
+            }
+            maybeReleasePermit();
+            if (failure != null) {
+                listener.onFailure(failure);
+            }
+        }
+
+        private void maybeReleasePermit() {
+            final Releasable permit;
+            synchronized (this) {
+                if (pendingRequests > 0 || hedgePermit == null) {
+                    return;
+                }
+                permit = hedgePermit;
+                hedgePermit = null;
+            }
+            permit.close();
+        }
+
+        private void complete() {
+            assert Thread.holdsLock(this);
+            completed = true;
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.lucene.grouping.TopFieldGroups;
+
+import java.util.PriorityQueue;
+
+import static org.elasticsearch.core.Types.forciblyCast;
+
+/**
+ * Merges the top docs of shard results into the global top N as the results are consumed.
+ * Only the N most competitive docs are retained in a bounded priority queue. The docs of a shard are
+ * already sorted so they are inserted in order and the insertion stops at the first doc that cannot
+ * compete, which is where the cursor of that shard stops.
+ * Ties are broken on the shard index and then on the doc id like {@link TopDocs#merge} does.
+ * This doesn't support collapsed top docs ({@link TopFieldGroups}) since they need to be deduplicated
+ * by group value.
+ */
+final class TopDocsQueue {
+    private final int topN;
+    private final PriorityQueue<ScoreDoc> queue;
+
+    private SortField[] sortFields;
+    private FieldComparator<?>[] comparators;
+    private int[] reverseMuls;
+
+    private long totalHits;
+    private TotalHits.Relation totalHitsRelation = TotalHits.Relation.EQUAL_TO;
+    // the estimated size of a single doc, computed from the first one that is inserted
+    private long docBytes = -1;
+
+    TopDocsQueue(int topN) {
+        this.topN = topN;
+        // the least competitive doc is at the head of the queue
+        this.queue = new PriorityQueue<>((a, b) -> compare(b, a));
+    }
+
+    static boolean supports(TopDocs topDocs) {
+        return topDocs instanceof TopFieldGroups == false;
+    }
+
+    /**
+     * Adds the docs of a shard result. The shard index of the docs must be set.
+     */
+    void add(TopDocs topDocs) {
+        assert supports(topDocs) : "collapsed top docs must be merged with TopFieldGroups#merge";
+        totalHits += topDocs.totalHits.value;
+        if (topDocs.totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO) {
+            totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+        }
+        if (sortFields == null && topDocs instanceof TopFieldDocs) {
+            setSortFields(((TopFieldDocs) topDocs).fields);
+        }
+        for (ScoreDoc doc : topDocs.scoreDocs) {
+            if (comparators != null && ((FieldDoc) doc).fields == null) {
+                throw new IllegalArgumentException("shard [" + doc.shardIndex + "] did not set sort field values");
+            }
+            if (docBytes == -1) {
+                docBytes = ramBytesUsed(doc);
+            }
+            if (queue.size() < topN) {
+                queue.add(doc);
+            } else if (topN > 0 && compare(doc, queue.peek()) < 0) {
+                queue.poll();
+                queue.add(doc);
+            } else {
+                // the next docs of this shard are even less competitive
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns an estimation of the memory retained by the queue, assuming that all of the docs have
+     * the same size as the first one.
+     */
+    long ramBytesUsed() {
+        return queue.size() * (RamUsageEstimator.NUM_BYTES_OBJECT_REF + Math.max(docBytes, 0));
+    }
+
+    /**
+     * Returns the merged top docs, sorted from the most competitive to the least competitive one.
+     * This empties the queue.
+     */
+    TopDocs pop() {
+        ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            scoreDocs[i] = queue.poll();
+        }
+        TotalHits hits = new TotalHits(totalHits, totalHitsRelation);
+        return sortFields == null ? new TopDocs(hits, scoreDocs) : new TopFieldDocs(hits, scoreDocs, sortFields);
+    }
+
+    private void setSortFields(SortField[] sortFields) {
+        this.sortFields = sortFields;
+        this.comparators = new FieldComparator<?>[sortFields.length];
+        this.reverseMuls = new int[sortFields.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            comparators[i] = sortFields[i].getComparator(1, i);
+            reverseMuls[i] = sortFields[i].getReverse() ? -1 : 1;
+        }
+    }
+
+    /**
+     * Returns a negative value if the first doc is more competitive than the second one.
+     */
+    private int compare(ScoreDoc first, ScoreDoc second) {
+        int cmp = 0;
+        if (comparators == null) {
+            cmp = Float.compare(second.score, first.score);
+        } else {
+            Object[] firstFields = ((FieldDoc) first).fields;
+            Object[] secondFields = ((FieldDoc) second).fields;
+            for (int i = 0; i < comparators.length && cmp == 0; i++) {
+                cmp = reverseMuls[i] * comparators[i].compareValues(forciblyCast(firstFields[i]), forciblyCast(secondFields[i]));
+            }
+        }
+        if (cmp == 0) {
+            cmp = Integer.compare(first.shardIndex, second.shardIndex);
+        }
+        if (cmp == 0) {
+            cmp = Integer.compare(first.doc, second.doc);
+        }
+        return cmp;
+    }
+
+    private static long ramBytesUsed(ScoreDoc scoreDoc) {
+        long size = RamUsageEstimator.shallowSizeOf(scoreDoc);
+        if (scoreDoc instanceof FieldDoc && ((FieldDoc) scoreDoc).fields != null) {
+            Object[] fields = ((FieldDoc) scoreDoc).fields;
+            size += RamUsageEstimator.shallowSizeOf(fields);
+            for (Object field : fields) {
+                size += RamUsageEstimator.sizeOfObject(field);
+            }
+        }
+        return size;
+    }
+}
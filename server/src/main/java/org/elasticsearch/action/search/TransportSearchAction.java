@@ -49,6 +49,7 @@ import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -118,6 +119,24 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /** Whether identical searches that execute at the same time on this node share a single execution. */
+    public static final Setting<Boolean> DEDUPLICATE_REQUESTS_SETTING = Setting.boolSetting(
+        "action.search.deduplicate_requests",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /** How long the responses of deduplicated searches are cached for, or {@code 0} to not cache them. */
+    public static final Setting<TimeValue> RESULT_CACHE_TTL_SETTING = Setting.timeSetting(
+        "action.search.result_cache.ttl",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueMinutes(1),
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -129,6 +148,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final CircuitBreaker circuitBreaker;
     private final ExecutorSelector executorSelector;
     private final int defaultPreFilterShardSize;
+    private final SearchRequestDeduplicator requestDeduplicator;
 
     @Inject
     public TransportSearchAction(
@@ -157,6 +177,11 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.executorSelector = executorSelector;
         this.defaultPreFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE.get(clusterService.getSettings());
+        this.requestDeduplicator = new SearchRequestDeduplicator(
+            clusterService,
+            threadPool.getThreadContext(),
+            transportService.getTaskManager()
+        );
     }
 
     private Map<String, OriginalIndices> buildPerIndexOriginalIndices(
@@ -280,7 +305,13 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
 
     @Override
     protected void doExecute(Task task, SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
-        executeRequest((SearchTask) task, searchRequest, this::searchAsyncAction, listener);
+        final SearchTask searchTask = (SearchTask) task;
+        requestDeduplicator.execute(
+            searchTask,
+            searchRequest,
+            listener,
+            (t, l) -> executeRequest(t, searchRequest, this::searchAsyncAction, l)
+        );
     }
 
     public interface SinglePhaseSearchAction {
@@ -1226,7 +1257,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         timeProvider,
                         clusterState,
                         task,
-                        clusters
+                        clusters,
+                        shardRequestHedger(threadPool)
                     );
                     break;
                 default:
@@ -1236,6 +1268,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         }
     }
 
+    @Nullable
+    private ShardRequestHedger shardRequestHedger(ThreadPool threadPool) {
+        final ResponseCollectorService responseCollectorService = searchService.getResponseCollectorService();
+        return responseCollectorService == null ? null : new ShardRequestHedger(responseCollectorService, threadPool);
+    }
+
     private static void validateAndResolveWaitForCheckpoint(
         ClusterState clusterState,
         IndexNameExpressionResolver resolver,
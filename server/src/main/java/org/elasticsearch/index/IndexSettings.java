@@ -99,6 +99,16 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * Whether operations written to the translog are LZ4 compressed. Readers handle compressed and uncompressed operations alike, so
+     * changing this setting only affects operations that are written afterwards.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_COMPRESS_SETTING = Setting.boolSetting(
+        "index.translog.compress",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING = Setting.boolSetting(
         "index.warmer.enabled",
         true,
@@ -242,6 +252,18 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * Index setting that lets the fetch phase rebuild a filtered {@code _source} from doc values rather than loading and parsing the
+     * stored {@code _source}, when every field that the filter includes is a plain field with doc values. Values that are read from doc
+     * values are formatted like {@code docvalue_fields} and arrays come back sorted and, for set-valued doc values like {@code keyword},
+     * deduplicated, so this is opt-in.
+     */
+    public static final Setting<Boolean> FETCH_SOURCE_FROM_DOC_VALUES_SETTING = Setting.boolSetting(
+        "index.fetch.source_from_doc_values",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     /**
      * Index setting describing the maximum size of the rescore window. Defaults to {@link #MAX_RESULT_WINDOW_SETTING}
      * because they both do the same thing: control the size of the heap of hits.
@@ -261,6 +283,59 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * If enabled, scheduled refreshes of shards that are indexing but that haven't been searched since their last refresh are spaced
+     * out further and further, up to {@link #INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING}. The next search brings the interval back
+     * down to {@link #INDEX_REFRESH_INTERVAL_SETTING}.
+     */
+    public static final Setting<Boolean> INDEX_REFRESH_ADAPTIVE_SETTING = Setting.boolSetting(
+        "index.refresh.adaptive.enabled",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * The longest interval adaptive refresh scheduling spaces scheduled refreshes to. Must not be shorter than
+     * {@link #INDEX_REFRESH_INTERVAL_SETTING} which it spaces them from while {@link #INDEX_REFRESH_ADAPTIVE_SETTING} is enabled.
+     */
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING = new Setting<>(
+        "index.refresh.adaptive.max_interval",
+        TimeValue.timeValueSeconds(30).getStringRep(),
+        s -> TimeValue.parseTimeValue(s, "index.refresh.adaptive.max_interval"),
+        new Setting.Validator<>() {
+            @Override
+            public void validate(TimeValue value) {
+                if (value.millis() < 0) {
+                    throw new IllegalArgumentException(
+                        "failed to parse value [" + value + "] for setting [index.refresh.adaptive.max_interval], must be >= [0ms]"
+                    );
+                }
+            }
+
+            @Override
+            public void validate(TimeValue value, Map<Setting<?>, Object> settings) {
+                final boolean adaptive = (boolean) settings.get(INDEX_REFRESH_ADAPTIVE_SETTING);
+                final TimeValue refreshInterval = (TimeValue) settings.get(INDEX_REFRESH_INTERVAL_SETTING);
+                if (adaptive && refreshInterval.millis() > 0 && value.compareTo(refreshInterval) < 0) {
+                    throw new IllegalArgumentException(
+                        "index.refresh.adaptive.max_interval ["
+                            + value
+                            + "] must be greater than or equal to index.refresh_interval ["
+                            + refreshInterval
+                            + "]"
+                    );
+                }
+            }
+
+            @Override
+            public Iterator<Setting<?>> settings() {
+                final List<Setting<?>> settings = List.of(INDEX_REFRESH_ADAPTIVE_SETTING, INDEX_REFRESH_INTERVAL_SETTING);
+                return settings.iterator();
+            }
+        },
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<ByteSizeValue> INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING = Setting.byteSizeSetting(
         "index.translog.flush_threshold_size",
         new ByteSizeValue(512, ByteSizeUnit.MB),
@@ -441,6 +516,17 @@ public final class IndexSettings {
         Property.Dynamic
     );
 
+    /**
+     * Whether the documents of the append-only index requests of a bulk shard request are parsed in parallel on the write thread pool
+     * before they are handed to the engine in their original order.
+     */
+    public static final Setting<Boolean> INDEX_BULK_PARALLEL_PARSING_SETTING = Setting.boolSetting(
+        "index.bulk.parallel_parsing",
+        false,
+        Property.IndexScope,
+        Property.Dynamic
+    );
+
     /**
      * Determines a balance between file-based and operations-based peer recoveries. The number of operations that will be used in an
      * operations-based peer recovery is limited to this proportion of the total number of documents in the shard (including deleted
@@ -569,8 +655,11 @@ public final class IndexSettings {
     private final boolean queryStringAllowLeadingWildcard;
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
+    private volatile boolean translogCompressed;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
+    private volatile boolean adaptiveRefresh;
+    private volatile TimeValue adaptiveRefreshMaxInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
@@ -602,6 +691,7 @@ public final class IndexSettings {
     private volatile int maxInnerResultWindow;
     private volatile int maxRescoreWindow;
     private volatile int maxDocvalueFields;
+    private volatile boolean fetchSourceFromDocValues;
     private volatile int maxScriptFields;
     private volatile int maxTokenCount;
     private volatile int maxNgramDiff;
@@ -612,6 +702,7 @@ public final class IndexSettings {
     private volatile String defaultPipeline;
     private volatile String requiredPipeline;
     private volatile boolean searchThrottled;
+    private volatile boolean bulkParallelParsing;
     private volatile long mappingNestedFieldsLimit;
     private volatile long mappingNestedDocsLimit;
     private volatile long mappingTotalFieldsLimit;
@@ -704,14 +795,18 @@ public final class IndexSettings {
         timeSeriesStartTime = TIME_SERIES_START_TIME.get(settings).toEpochMilli();
         timeSeriesEndTime = TIME_SERIES_END_TIME.get(settings).toEpochMilli();
         this.searchThrottled = INDEX_SEARCH_THROTTLED.get(settings);
+        this.bulkParallelParsing = scopedSettings.get(INDEX_BULK_PARALLEL_PARSING_SETTING);
         this.queryStringLenient = QUERY_STRING_LENIENT_SETTING.get(settings);
         this.queryStringAnalyzeWildcard = QUERY_STRING_ANALYZE_WILDCARD.get(nodeSettings);
         this.queryStringAllowLeadingWildcard = QUERY_STRING_ALLOW_LEADING_WILDCARD.get(nodeSettings);
         this.defaultAllowUnmappedFields = scopedSettings.get(ALLOW_UNMAPPED);
         this.durability = scopedSettings.get(INDEX_TRANSLOG_DURABILITY_SETTING);
+        this.translogCompressed = scopedSettings.get(INDEX_TRANSLOG_COMPRESS_SETTING);
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
+        adaptiveRefresh = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_SETTING);
+        adaptiveRefreshMaxInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
@@ -726,6 +821,7 @@ public final class IndexSettings {
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
         maxDocvalueFields = scopedSettings.get(MAX_DOCVALUE_FIELDS_SEARCH_SETTING);
+        fetchSourceFromDocValues = scopedSettings.get(FETCH_SOURCE_FROM_DOC_VALUES_SETTING);
         maxScriptFields = scopedSettings.get(MAX_SCRIPT_FIELDS_SETTING);
         maxTokenCount = scopedSettings.get(MAX_TOKEN_COUNT_SETTING);
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
@@ -772,6 +868,10 @@ public final class IndexSettings {
             MergePolicyConfig.INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING,
             mergePolicyConfig::setSegmentsPerTier
         );
+        scopedSettings.addSettingsUpdateConsumer(
+            MergePolicyConfig.INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING,
+            mergePolicyConfig::setMergeFactor
+        );
 
         scopedSettings.addSettingsUpdateConsumer(
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
@@ -780,11 +880,13 @@ public final class IndexSettings {
         );
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.AUTO_THROTTLE_SETTING, mergeSchedulerConfig::setAutoThrottle);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DURABILITY_SETTING, this::setTranslogDurability);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_COMPRESS_SETTING, this::setTranslogCompressed);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_SYNC_INTERVAL_SETTING, this::setTranslogSyncInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_DOCVALUE_FIELDS_SEARCH_SETTING, this::setMaxDocvalueFields);
+        scopedSettings.addSettingsUpdateConsumer(FETCH_SOURCE_FROM_DOC_VALUES_SETTING, this::setFetchSourceFromDocValues);
         scopedSettings.addSettingsUpdateConsumer(MAX_SCRIPT_FIELDS_SETTING, this::setMaxScriptFields);
         scopedSettings.addSettingsUpdateConsumer(MAX_TOKEN_COUNT_SETTING, this::setMaxTokenCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
@@ -795,6 +897,8 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING, this::setGenerationThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_SETTING, this::setAdaptiveRefresh);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING, this::setAdaptiveRefreshMaxInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
@@ -806,6 +910,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(FINAL_PIPELINE, this::setRequiredPipeline);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING, this::setSoftDeleteRetentionOperations);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_THROTTLED, this::setSearchThrottled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_PARALLEL_PARSING_SETTING, this::setBulkParallelParsing);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING, this::setRetentionLeaseMillis);
         scopedSettings.addSettingsUpdateConsumer(INDEX_MAPPING_NESTED_FIELDS_LIMIT_SETTING, this::setMappingNestedFieldsLimit);
         scopedSettings.addSettingsUpdateConsumer(INDEX_MAPPING_NESTED_DOCS_LIMIT_SETTING, this::setMappingNestedDocsLimit);
@@ -842,6 +947,14 @@ public final class IndexSettings {
         this.refreshInterval = timeValue;
     }
 
+    private void setAdaptiveRefresh(boolean adaptiveRefresh) {
+        this.adaptiveRefresh = adaptiveRefresh;
+    }
+
+    private void setAdaptiveRefreshMaxInterval(TimeValue adaptiveRefreshMaxInterval) {
+        this.adaptiveRefreshMaxInterval = adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the settings for this index. These settings contain the node and index level settings where
      * settings that are specified on both index and node level are overwritten by the index settings.
@@ -986,6 +1099,17 @@ public final class IndexSettings {
         this.durability = durability;
     }
 
+    /**
+     * Returns true if operations should be compressed when they are written to the translog.
+     */
+    public boolean isTranslogCompressed() {
+        return translogCompressed;
+    }
+
+    private void setTranslogCompressed(boolean translogCompressed) {
+        this.translogCompressed = translogCompressed;
+    }
+
     /**
      * Returns true if index warmers are enabled, otherwise <code>false</code>
      */
@@ -1016,6 +1140,20 @@ public final class IndexSettings {
         return refreshInterval;
     }
 
+    /**
+     * Returns <code>true</code> if scheduled refreshes adapt their interval to the search activity of each shard.
+     */
+    public boolean isAdaptiveRefresh() {
+        return adaptiveRefresh;
+    }
+
+    /**
+     * Returns the longest interval adaptive refresh scheduling may space scheduled refreshes of a shard to.
+     */
+    public TimeValue getAdaptiveRefreshMaxInterval() {
+        return adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the transaction log threshold size when to forcefully flush the index and clear the transaction log.
      */
@@ -1094,6 +1232,17 @@ public final class IndexSettings {
         this.maxDocvalueFields = maxDocvalueFields;
     }
 
+    /**
+     * Returns <code>true</code> if a filtered _source may be rebuilt from doc values
+     */
+    public boolean isFetchSourceFromDocValues() {
+        return this.fetchSourceFromDocValues;
+    }
+
+    private void setFetchSourceFromDocValues(boolean fetchSourceFromDocValues) {
+        this.fetchSourceFromDocValues = fetchSourceFromDocValues;
+    }
+
     /**
      * Returns the maximum number of tokens that can be produced
      */
@@ -1282,6 +1431,17 @@ public final class IndexSettings {
         this.searchThrottled = searchThrottled;
     }
 
+    /**
+     * Returns true if the append-only index requests of bulk shard requests should be parsed in parallel
+     */
+    public boolean isBulkParallelParsing() {
+        return bulkParallelParsing;
+    }
+
+    private void setBulkParallelParsing(boolean bulkParallelParsing) {
+        this.bulkParallelParsing = bulkParallelParsing;
+    }
+
     public long getMappingNestedFieldsLimit() {
         return mappingNestedFieldsLimit;
     }
@@ -9,6 +9,7 @@
 package org.elasticsearch.index;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.TieredMergePolicy;
@@ -18,6 +19,11 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.SuppressForbidden;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * A shard in elasticsearch is a Lucene index, and a Lucene index is broken
  * down into segments. Segments are internal storage elements in the index
@@ -98,12 +104,26 @@ import org.elasticsearch.core.SuppressForbidden;
  * indices segments API to see the segments that an index has, and
  * possibly either increase the <code>max_merged_segment</code> or issue an optimize
  * call for the index (try and aim to issue it on a low traffic time).
+ *
+ * <p>
+ * Indices can opt into a log byte size merge policy instead through
+ * <code>index.merge.policy.type</code>. It only ever merges adjacent segments,
+ * which keeps the <code>@timestamp</code> ranges of segments of time-based
+ * indices from overlapping so that range queries can skip more of them. The
+ * number of segments it merges at once is set through
+ * <code>index.merge.policy.merge_factor</code>. The
+ * <code>floor_segment</code> and <code>max_merged_segment</code> settings apply
+ * to both policies, the latter as the size above which segments are no longer
+ * merged. The log byte size policy doesn't reclaim deletes on its own, so
+ * <code>deletes_pct_allowed</code> is rejected alongside it.
  */
 
 public final class MergePolicyConfig {
     private final EsTieredMergePolicy mergePolicy = new EsTieredMergePolicy();
+    private final LogByteSizeMergePolicy logByteSizeMergePolicy = new LogByteSizeMergePolicy();
     private final Logger logger;
     private final boolean mergesEnabled;
+    private final Type mergePolicyType;
 
     public static final double DEFAULT_EXPUNGE_DELETES_ALLOWED = 10d;
     public static final ByteSizeValue DEFAULT_FLOOR_SEGMENT = new ByteSizeValue(2, ByteSizeUnit.MB);
@@ -111,6 +131,50 @@ public final class MergePolicyConfig {
     public static final ByteSizeValue DEFAULT_MAX_MERGED_SEGMENT = new ByteSizeValue(5, ByteSizeUnit.GB);
     public static final double DEFAULT_SEGMENTS_PER_TIER = 10.0d;
     public static final double DEFAULT_DELETES_PCT_ALLOWED = 33.0d;
+    // a bit higher than max_merge_at_once since the policy can't pick the cheapest segments to merge, only adjacent ones
+    public static final int DEFAULT_MERGE_FACTOR = 16;
+
+    public enum Type {
+        TIERED,
+        LOG_BYTE_SIZE;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public static final Setting<Type> INDEX_MERGE_POLICY_TYPE_SETTING = Setting.enumSetting(
+        Type.class,
+        "index.merge.policy.type",
+        Type.TIERED,
+        new Setting.Validator<>() {
+            @Override
+            public void validate(Type value) {}
+
+            @Override
+            public void validate(Type value, Map<Setting<?>, Object> settings) {
+                // the log byte size merge policy has no notion of a deletes budget, reject rather than silently ignore it
+                final double deletesPctAllowed = (double) settings.get(INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING);
+                if (value == Type.LOG_BYTE_SIZE && deletesPctAllowed != DEFAULT_DELETES_PCT_ALLOWED) {
+                    throw new IllegalArgumentException(
+                        "["
+                            + INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING.getKey()
+                            + "] is not supported by the ["
+                            + value
+                            + "] merge policy"
+                    );
+                }
+            }
+
+            @Override
+            public Iterator<Setting<?>> settings() {
+                final List<Setting<?>> settings = List.of(INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING);
+                return settings.iterator();
+            }
+        },
+        Property.IndexScope
+    );
     public static final Setting<Double> INDEX_COMPOUND_FORMAT_SETTING = new Setting<>(
         "index.compound_format",
         Double.toString(TieredMergePolicy.DEFAULT_NO_CFS_RATIO),
@@ -168,6 +232,13 @@ public final class MergePolicyConfig {
         Property.Dynamic,
         Property.IndexScope
     );
+    public static final Setting<Integer> INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING = Setting.intSetting(
+        "index.merge.policy.merge_factor",
+        DEFAULT_MERGE_FACTOR,
+        2,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     // don't convert to Setting<> and register... we only set this in tests and register via a plugin
     public static final String INDEX_MERGE_ENABLED = "index.merge.enabled";
 
@@ -181,6 +252,8 @@ public final class MergePolicyConfig {
         ByteSizeValue maxMergedSegment = indexSettings.getValue(INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING);
         double segmentsPerTier = indexSettings.getValue(INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING);
         double deletesPctAllowed = indexSettings.getValue(INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING);
+        int mergeFactor = indexSettings.getValue(INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING);
+        this.mergePolicyType = indexSettings.getValue(INDEX_MERGE_POLICY_TYPE_SETTING);
         this.mergesEnabled = indexSettings.getSettings().getAsBoolean(INDEX_MERGE_ENABLED, true);
         if (mergesEnabled == false) {
             logger.warn(
@@ -196,16 +269,22 @@ public final class MergePolicyConfig {
         mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
         mergePolicy.setSegmentsPerTier(segmentsPerTier);
         mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+        logByteSizeMergePolicy.setNoCFSRatio(indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING));
+        logByteSizeMergePolicy.setMinMergeMB(floorSegment.getMbFrac());
+        logByteSizeMergePolicy.setMaxMergeMB(maxMergedSegment.getMbFrac());
+        logByteSizeMergePolicy.setMergeFactor(mergeFactor);
         logger.trace(
-            "using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}],"
+            "using [{}] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}],"
                 + " max_merge_at_once[{}], max_merged_segment[{}], segments_per_tier[{}],"
-                + " deletes_pct_allowed[{}]",
+                + " deletes_pct_allowed[{}], merge_factor[{}]",
+            mergePolicyType,
             forceMergeDeletesPctAllowed,
             floorSegment,
             maxMergeAtOnce,
             maxMergedSegment,
             segmentsPerTier,
-            deletesPctAllowed
+            deletesPctAllowed,
+            mergeFactor
         );
     }
 
@@ -215,6 +294,7 @@ public final class MergePolicyConfig {
 
     void setMaxMergedSegment(ByteSizeValue maxMergedSegment) {
         mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        logByteSizeMergePolicy.setMaxMergeMB(maxMergedSegment.getMbFrac());
     }
 
     void setMaxMergesAtOnce(Integer maxMergeAtOnce) {
@@ -223,6 +303,7 @@ public final class MergePolicyConfig {
 
     void setFloorSegmentSetting(ByteSizeValue floorSegementSetting) {
         mergePolicy.setFloorSegmentMB(floorSegementSetting.getMbFrac());
+        logByteSizeMergePolicy.setMinMergeMB(floorSegementSetting.getMbFrac());
     }
 
     void setExpungeDeletesAllowed(Double value) {
@@ -231,12 +312,17 @@ public final class MergePolicyConfig {
 
     void setNoCFSRatio(Double noCFSRatio) {
         mergePolicy.setNoCFSRatio(noCFSRatio);
+        logByteSizeMergePolicy.setNoCFSRatio(noCFSRatio);
     }
 
     void setDeletesPctAllowed(Double deletesPctAllowed) {
         mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
     }
 
+    void setMergeFactor(Integer mergeFactor) {
+        logByteSizeMergePolicy.setMergeFactor(mergeFactor);
+    }
+
     private int adjustMaxMergeAtOnceIfNeeded(int maxMergeAtOnce, double segmentsPerTier) {
         // fixing maxMergeAtOnce, see TieredMergePolicy#setMaxMergeAtOnce
         if (segmentsPerTier < maxMergeAtOnce) {
@@ -258,7 +344,13 @@ public final class MergePolicyConfig {
 
     @SuppressForbidden(reason = "we always use an appropriate merge scheduler alongside this policy so NoMergePolic#INSTANCE is ok")
     MergePolicy getMergePolicy() {
-        return mergesEnabled ? mergePolicy : NoMergePolicy.INSTANCE;
+        if (mergesEnabled == false) {
+            return NoMergePolicy.INSTANCE;
+        }
+        return switch (mergePolicyType) {
+            case TIERED -> mergePolicy;
+            case LOG_BYTE_SIZE -> logByteSizeMergePolicy;
+        };
     }
 
     private static double parseNoCFSRatio(String noCFSRatio) {
@@ -8,11 +8,13 @@
 
 package org.elasticsearch.index.cache;
 
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.cache.query.QueryCache;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCache;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -21,11 +23,19 @@ public class IndexCache extends AbstractIndexComponent implements Closeable {
 
     private final QueryCache queryCache;
     private final BitsetFilterCache bitsetFilterCache;
+    @Nullable
+    private final StoredFieldsCache storedFieldsCache;
 
-    public IndexCache(IndexSettings indexSettings, QueryCache queryCache, BitsetFilterCache bitsetFilterCache) {
+    public IndexCache(
+        IndexSettings indexSettings,
+        QueryCache queryCache,
+        BitsetFilterCache bitsetFilterCache,
+        @Nullable StoredFieldsCache storedFieldsCache
+    ) {
         super(indexSettings);
         this.queryCache = queryCache;
         this.bitsetFilterCache = bitsetFilterCache;
+        this.storedFieldsCache = storedFieldsCache;
     }
 
     public QueryCache query() {
@@ -39,14 +49,25 @@ public class IndexCache extends AbstractIndexComponent implements Closeable {
         return bitsetFilterCache;
     }
 
+    /**
+     * Return the {@link StoredFieldsCache} for this index, if any.
+     */
+    @Nullable
+    public StoredFieldsCache storedFields() {
+        return storedFieldsCache;
+    }
+
     @Override
     public void close() throws IOException {
-        IOUtils.close(queryCache, bitsetFilterCache);
+        IOUtils.close(queryCache, bitsetFilterCache, storedFieldsCache);
     }
 
     public void clear(String reason) {
         queryCache.clear(reason);
         bitsetFilterCache.clear(reason);
+        if (storedFieldsCache != null) {
+            storedFieldsCache.clear(reason);
+        }
     }
 
 }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -16,6 +17,8 @@ import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class RequestCacheStats implements Writeable, ToXContentFragment {
 
@@ -23,21 +26,35 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long evictions;
     private long hitCount;
     private long missCount;
+    // the stats of each mode of the request cache, which add up to the stats above
+    private final Map<String, RequestCacheStats> modes;
 
-    public RequestCacheStats() {}
+    public RequestCacheStats() {
+        this.modes = new TreeMap<>();
+    }
 
     public RequestCacheStats(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            modes = new TreeMap<>(in.readMap(StreamInput::readString, RequestCacheStats::new));
+        } else {
+            modes = new TreeMap<>();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, Map.of());
+    }
+
+    public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount, Map<String, RequestCacheStats> modes) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.modes = new TreeMap<>(modes);
     }
 
     public void add(RequestCacheStats stats) {
@@ -45,6 +62,9 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        for (Map.Entry<String, RequestCacheStats> entry : stats.modes.entrySet()) {
+            modes.computeIfAbsent(entry.getKey(), k -> new RequestCacheStats()).add(entry.getValue());
+        }
     }
 
     public long getMemorySizeInBytes() {
@@ -67,23 +87,46 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The stats of each mode of the request cache, keyed by the name of the mode.
+     */
+    public Map<String, RequestCacheStats> getModes() {
+        return modes;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeMap(modes, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.REQUEST_CACHE_STATS);
+        innerToXContent(builder);
+        if (modes.isEmpty() == false) {
+            builder.startObject(Fields.MODES);
+            for (Map.Entry<String, RequestCacheStats> entry : modes.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().innerToXContent(builder);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    private void innerToXContent(XContentBuilder builder) throws IOException {
         builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getMemorySize());
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
-        builder.endObject();
-        return builder;
     }
 
     static final class Fields {
@@ -93,5 +136,6 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String MODES = "modes";
     }
 }
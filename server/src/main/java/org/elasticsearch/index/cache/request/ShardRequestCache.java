@@ -11,36 +11,58 @@ package org.elasticsearch.index.cache.request;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.indices.IndicesRequestCache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Tracks the portion of the request cache in use for a particular shard.
+ * Tracks the portion of the request cache in use for a particular shard, per {@link IndicesRequestCache.Mode}.
  */
 public final class ShardRequestCache {
 
-    final CounterMetric evictionsMetric = new CounterMetric();
-    final CounterMetric totalMetric = new CounterMetric();
-    final CounterMetric hitCount = new CounterMetric();
-    final CounterMetric missCount = new CounterMetric();
+    private final Map<IndicesRequestCache.Mode, ModeMetrics> modes = new EnumMap<>(IndicesRequestCache.Mode.class);
+
+    public ShardRequestCache() {
+        for (IndicesRequestCache.Mode mode : IndicesRequestCache.Mode.values()) {
+            modes.put(mode, new ModeMetrics());
+        }
+    }
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        long memorySize = 0;
+        long evictions = 0;
+        long hitCount = 0;
+        long missCount = 0;
+        final Map<String, RequestCacheStats> modeStats = new TreeMap<>();
+        for (Map.Entry<IndicesRequestCache.Mode, ModeMetrics> entry : modes.entrySet()) {
+            final RequestCacheStats stats = entry.getValue().stats();
+            memorySize += stats.getMemorySizeInBytes();
+            evictions += stats.getEvictions();
+            hitCount += stats.getHitCount();
+            missCount += stats.getMissCount();
+            modeStats.put(entry.getKey().displayName(), stats);
+        }
+        return new RequestCacheStats(memorySize, evictions, hitCount, missCount, modeStats);
     }
 
-    public void onHit() {
-        hitCount.inc();
+    public void onHit(IndicesRequestCache.Mode mode) {
+        modes.get(mode).hitCount.inc();
     }
 
-    public void onMiss() {
-        missCount.inc();
+    public void onMiss(IndicesRequestCache.Mode mode) {
+        modes.get(mode).missCount.inc();
     }
 
-    public void onCached(Accountable key, BytesReference value) {
-        totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
+    public void onCached(IndicesRequestCache.Mode mode, Accountable key, BytesReference value) {
+        modes.get(mode).totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
     }
 
-    public void onRemoval(Accountable key, BytesReference value, boolean evicted) {
+    public void onRemoval(IndicesRequestCache.Mode mode, Accountable key, BytesReference value, boolean evicted) {
+        final ModeMetrics metrics = modes.get(mode);
         if (evicted) {
-            evictionsMetric.inc();
+            metrics.evictionsMetric.inc();
         }
         long dec = 0;
         if (key != null) {
@@ -49,6 +71,17 @@ public final class ShardRequestCache {
         if (value != null) {
             dec += value.ramBytesUsed();
         }
-        totalMetric.dec(dec);
+        metrics.totalMetric.dec(dec);
+    }
+
+    private static final class ModeMetrics {
+        final CounterMetric evictionsMetric = new CounterMetric();
+        final CounterMetric totalMetric = new CounterMetric();
+        final CounterMetric hitCount = new CounterMetric();
+        final CounterMetric missCount = new CounterMetric();
+
+        RequestCacheStats stats() {
+            return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        }
     }
 }
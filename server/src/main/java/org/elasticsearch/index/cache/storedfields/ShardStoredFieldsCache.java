@@ -0,0 +1,45 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.storedfields;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+/**
+ * Tracks the portion of the {@link StoredFieldsCache} of an index in use for a particular shard.
+ */
+public final class ShardStoredFieldsCache {
+
+    private final CounterMetric evictionsMetric = new CounterMetric();
+    private final CounterMetric totalMetric = new CounterMetric();
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+
+    public StoredFieldsCacheStats stats() {
+        return new StoredFieldsCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+    }
+
+    void onHit() {
+        hitCount.inc();
+    }
+
+    void onMiss() {
+        missCount.inc();
+    }
+
+    void onCached(long ramBytesUsed) {
+        totalMetric.inc(ramBytesUsed);
+    }
+
+    void onRemoval(long ramBytesUsed, boolean evicted) {
+        if (evicted) {
+            evictionsMetric.inc();
+        }
+        totalMetric.dec(ramBytesUsed);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.storedfields;
+
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.AbstractIndexComponent;
+import org.elasticsearch.index.IndexSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of the stored fields of the documents of an index, for indices that load the same few documents over and over again, for
+ * instance to get them by id. Reading the stored fields of a document decompresses the whole block of stored fields it belongs to, so
+ * a hit in this cache saves decompressing a block to read a single document.
+ * <p>
+ * The cache is bounded by {@link #INDEX_STORED_FIELDS_CACHE_SIZE_SETTING} and disabled by default. The documents of a segment are
+ * removed from the cache once the segment is closed, and cached documents are accounted to the request circuit breaker. A document
+ * isn't cached if that would trip the breaker. The cache sits underneath any reader wrapper that filters stored fields, so that cached
+ * documents hold all of their stored fields and can be shared. The cache is shared by the shards of the index, each of which tracks
+ * its own usage of the cache in a {@link ShardStoredFieldsCache}.
+ */
+public final class StoredFieldsCache extends AbstractIndexComponent
+    implements
+        IndexReader.ClosedListener,
+        RemovalListener<StoredFieldsCache.Key, StoredFieldsCache.CachedDocument>,
+        Closeable {
+
+    public static final Setting<ByteSizeValue> INDEX_STORED_FIELDS_CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        "index.stored_fields_cache.size",
+        ByteSizeValue.ZERO,
+        Property.IndexScope
+    );
+
+    private final CircuitBreaker breaker;
+    private final Cache<Key, CachedDocument> cache;
+    // the cached documents of each segment, so that they can be dropped without scanning the cache once the segment is closed
+    private final Map<IndexReader.CacheKey, Set<Key>> keysByCoreKey = ConcurrentCollections.newConcurrentMap();
+
+    public StoredFieldsCache(IndexSettings indexSettings, CircuitBreaker breaker) {
+        super(indexSettings);
+        this.breaker = breaker;
+        final long maxWeight = indexSettings.getValue(INDEX_STORED_FIELDS_CACHE_SIZE_SETTING).getBytes();
+        this.cache = maxWeight <= 0
+            ? null
+            : CacheBuilder.<Key, CachedDocument>builder()
+                .setMaximumWeight(maxWeight)
+                .weigher((key, document) -> document.ramBytesUsed)
+                .removalListener(this)
+                .build();
+    }
+
+    /**
+     * Wraps the given reader of a shard so that it reads stored fields through this cache, unless the cache is disabled.
+     */
+    public DirectoryReader wrap(DirectoryReader reader, ShardStoredFieldsCache shardCache) throws IOException {
+        return cache == null ? reader : new CachingDirectoryReader(reader, this, shardCache);
+    }
+
+    void document(LeafReader reader, int docId, StoredFieldVisitor visitor, ShardStoredFieldsCache shardCache) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            reader.document(docId, visitor);
+            return;
+        }
+        final Key key = new Key(cacheHelper.getKey(), docId, shardCache);
+        CachedDocument document = cache.get(key);
+        if (document != null) {
+            shardCache.onHit();
+        } else {
+            shardCache.onMiss();
+            final CachedDocument.Builder builder = new CachedDocument.Builder();
+            reader.document(docId, builder);
+            document = builder.build();
+            Set<Key> keys = keysByCoreKey.get(key.coreKey);
+            if (keys == null) {
+                final Set<Key> newKeys = ConcurrentCollections.newConcurrentSet();
+                keys = keysByCoreKey.putIfAbsent(key.coreKey, newKeys);
+                if (keys == null) {
+                    keys = newKeys;
+                    cacheHelper.addClosedListener(this);
+                }
+            }
+            try {
+                breaker.addEstimateBytesAndMaybeBreak(document.ramBytesUsed, "<stored_fields_cache>");
+                keys.add(key);
+                shardCache.onCached(document.ramBytesUsed);
+                cache.put(key, document);
+            } catch (CircuitBreakingException e) {
+                logger.trace("not caching stored fields of doc [{}], would trip the request circuit breaker", docId);
+            }
+        }
+        document.visit(visitor);
+    }
+
+    @Override
+    public void onClose(IndexReader.CacheKey ownerCoreCacheKey) {
+        final Set<Key> keys = keysByCoreKey.remove(ownerCoreCacheKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, CachedDocument> notification) {
+        final Key key = notification.getKey();
+        final long ramBytesUsed = notification.getValue().ramBytesUsed;
+        breaker.addWithoutBreaking(-ramBytesUsed);
+        key.shardCache.onRemoval(ramBytesUsed, notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED);
+        if (notification.getRemovalReason() != RemovalNotification.RemovalReason.REPLACED) {
+            // a replaced document was cached again under the same key, which must stay in the index
+            final Set<Key> keys = keysByCoreKey.get(key.coreKey);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        clear("close");
+    }
+
+    public void clear(String reason) {
+        if (cache != null) {
+            logger.debug("clearing all cached stored fields because [{}]", reason);
+            cache.invalidateAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public long getMemorySizeInBytes() {
+        return cache == null ? 0 : cache.weight();
+    }
+
+    static final class Key {
+        final IndexReader.CacheKey coreKey;
+        final int docId;
+        // the shard the segment belongs to, which isn't part of the identity of the key since the core key already is per shard
+        final ShardStoredFieldsCache shardCache;
+
+        Key(IndexReader.CacheKey coreKey, int docId, ShardStoredFieldsCache shardCache) {
+            this.coreKey = coreKey;
+            this.docId = docId;
+            this.shardCache = shardCache;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return docId == key.docId && coreKey == key.coreKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(coreKey) + docId;
+        }
+    }
+
+    /**
+     * All of the stored fields of a document, in the order in which they were stored.
+     */
+    static final class CachedDocument {
+        private final FieldInfo[] fieldInfos;
+        private final Object[] values;
+        private final long ramBytesUsed;
+
+        private CachedDocument(FieldInfo[] fieldInfos, Object[] values, long ramBytesUsed) {
+            this.fieldInfos = fieldInfos;
+            this.values = values;
+            this.ramBytesUsed = ramBytesUsed;
+        }
+
+        void visit(StoredFieldVisitor visitor) throws IOException {
+            for (int i = 0; i < fieldInfos.length; i++) {
+                final FieldInfo fieldInfo = fieldInfos[i];
+                switch (visitor.needsField(fieldInfo)) {
+                    case YES:
+                        final Object value = values[i];
+                        if (value instanceof byte[]) {
+                            // visitors may hold on to the bytes, so they get their own copy
+                            visitor.binaryField(fieldInfo, ((byte[]) value).clone());
+                        } else if (value instanceof String) {
+                            visitor.stringField(fieldInfo, (String) value);
+                        } else if (value instanceof Integer) {
+                            visitor.intField(fieldInfo, (Integer) value);
+                        } else if (value instanceof Long) {
+                            visitor.longField(fieldInfo, (Long) value);
+                        } else if (value instanceof Float) {
+                            visitor.floatField(fieldInfo, (Float) value);
+                        } else {
+                            visitor.doubleField(fieldInfo, (Double) value);
+                        }
+                        break;
+                    case NO:
+                        break;
+                    case STOP:
+                        return;
+                }
+            }
+        }
+
+        private static final class Builder extends StoredFieldVisitor {
+            private final List<FieldInfo> fieldInfos = new ArrayList<>();
+            private final List<Object> values = new ArrayList<>();
+            private long ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(CachedDocument.class);
+
+            @Override
+            public Status needsField(FieldInfo fieldInfo) {
+                return Status.YES;
+            }
+
+            private void add(FieldInfo fieldInfo, Object value, long valueBytes) {
+                fieldInfos.add(fieldInfo);
+                values.add(value);
+                ramBytesUsed += 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + valueBytes;
+            }
+
+            @Override
+            public void binaryField(FieldInfo fieldInfo, byte[] value) {
+                add(fieldInfo, value, RamUsageEstimator.sizeOf(value));
+            }
+
+            @Override
+            public void stringField(FieldInfo fieldInfo, String value) {
+                add(fieldInfo, value, RamUsageEstimator.sizeOf(value));
+            }
+
+            @Override
+            public void intField(FieldInfo fieldInfo, int value) {
+                add(fieldInfo, value, Integer.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER);
+            }
+
+            @Override
+            public void longField(FieldInfo fieldInfo, long value) {
+                add(fieldInfo, value, Long.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER);
+            }
+
+            @Override
+            public void floatField(FieldInfo fieldInfo, float value) {
+                add(fieldInfo, value, Float.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER);
+            }
+
+            @Override
+            public void doubleField(FieldInfo fieldInfo, double value) {
+                add(fieldInfo, value, Double.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER);
+            }
+
+            CachedDocument build() {
+                return new CachedDocument(fieldInfos.toArray(new FieldInfo[0]), values.toArray(), ramBytesUsed);
+            }
+        }
+    }
+
+    private static final class CachingDirectoryReader extends FilterDirectoryReader {
+        private final StoredFieldsCache cache;
+        private final ShardStoredFieldsCache shardCache;
+
+        CachingDirectoryReader(DirectoryReader in, StoredFieldsCache cache, ShardStoredFieldsCache shardCache) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    return new CachingLeafReader(reader, cache, shardCache);
+                }
+            });
+            this.cache = cache;
+            this.shardCache = shardCache;
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new CachingDirectoryReader(in, cache, shardCache);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+
+    private static final class CachingLeafReader extends SequentialStoredFieldsLeafReader {
+        private final StoredFieldsCache cache;
+        private final ShardStoredFieldsCache shardCache;
+
+        CachingLeafReader(LeafReader in, StoredFieldsCache cache, ShardStoredFieldsCache shardCache) {
+            super(in);
+            this.cache = cache;
+            this.shardCache = shardCache;
+        }
+
+        @Override
+        public void document(int docID, StoredFieldVisitor visitor) throws IOException {
+            cache.document(in, docID, visitor, shardCache);
+        }
+
+        @Override
+        protected StoredFieldsReader doGetSequentialStoredFieldsReader(StoredFieldsReader reader) {
+            // sequential reads decompress each block once anyway, so they bypass the cache
+            return reader;
+        }
+
+        @Override
+        public CacheHelper getCoreCacheHelper() {
+            return in.getCoreCacheHelper();
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+}
@@ -108,6 +108,32 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    public static final String VERSION_MAP_STORAGE_HASH = "hash";
+    public static final String VERSION_MAP_STORAGE_PAGED = "paged";
+
+    /**
+     * Index setting to select how the live version map stores the versions of documents that were changed since the last refresh.
+     * {@code hash} keeps one object per entry in concurrent hash maps while {@code paged} keeps the entries in paged arrays that
+     * are accounted for in the circuit breaker, which reduces garbage collection churn for update heavy workloads.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<String> INDEX_VERSION_MAP_STORAGE_SETTING = new Setting<>(
+        "index.version_map.storage",
+        VERSION_MAP_STORAGE_HASH,
+        s -> {
+            switch (s) {
+                case VERSION_MAP_STORAGE_HASH:
+                case VERSION_MAP_STORAGE_PAGED:
+                    return s;
+                default:
+                    throw new IllegalArgumentException(
+                        "unknown value for [index.version_map.storage] must be one of [hash, paged] but was: " + s
+                    );
+            }
+        },
+        Property.IndexScope
+    );
+
     private final TranslogConfig translogConfig;
 
     /**
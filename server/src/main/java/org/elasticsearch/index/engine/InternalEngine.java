@@ -58,6 +58,7 @@ import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -87,8 +88,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -129,7 +132,7 @@ public class InternalEngine extends Engine {
 
     // A uid (in the form of BytesRef) to the version map
     // we use the hashed variant since we iterate over it and check removal and additions on existing keys
-    private final LiveVersionMap versionMap = new LiveVersionMap();
+    private final LiveVersionMap versionMap;
 
     private volatile SegmentInfos lastCommittedSegmentInfos;
 
@@ -194,6 +197,7 @@ public class InternalEngine extends Engine {
     InternalEngine(EngineConfig engineConfig, int maxDocs, BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier) {
         super(engineConfig);
         this.maxDocs = maxDocs;
+        this.versionMap = newLiveVersionMap(engineConfig);
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -285,6 +289,15 @@ public class InternalEngine extends Engine {
         logger.trace("created new InternalEngine");
     }
 
+    private static LiveVersionMap newLiveVersionMap(EngineConfig engineConfig) {
+        final String storage = engineConfig.getIndexSettings().getValue(EngineConfig.INDEX_VERSION_MAP_STORAGE_SETTING);
+        if (EngineConfig.VERSION_MAP_STORAGE_PAGED.equals(storage)) {
+            return new LiveVersionMap(engineConfig.getTranslogConfig().getBigArrays());
+        }
+        assert EngineConfig.VERSION_MAP_STORAGE_HASH.equals(storage) : storage;
+        return new LiveVersionMap();
+    }
+
     private LocalCheckpointTracker createLocalCheckpointTracker(
         BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier
     ) throws IOException {
@@ -967,20 +980,7 @@ public class InternalEngine extends Engine {
                 } else {
                     // generate or register sequence number
                     if (index.origin() == Operation.Origin.PRIMARY) {
-                        index = new Index(
-                            index.uid(),
-                            index.parsedDoc(),
-                            generateSeqNoForOperationOnPrimary(index),
-                            index.primaryTerm(),
-                            index.version(),
-                            index.versionType(),
-                            index.origin(),
-                            index.startTime(),
-                            index.getAutoGeneratedIdTimestamp(),
-                            index.isRetry(),
-                            index.getIfSeqNo(),
-                            index.getIfPrimaryTerm()
-                        );
+                        index = withSeqNo(index, generateSeqNoForOperationOnPrimary(index));
 
                         final boolean toAppend = plan.indexIntoLucene && plan.useLuceneUpdateDocument == false;
                         if (toAppend == false) {
@@ -1055,6 +1055,206 @@ public class InternalEngine extends Engine {
         }
     }
 
+    /**
+     * Indexes a batch of operations on the primary. If all operations are non-retried appends with auto-generated ids, the documents
+     * of all operations that can be appended are written with a single {@link IndexWriter#addDocuments} call and all operations are
+     * written to the translog at once. If Lucene rejects the batch due to a document failure, its operations are retried one by one
+     * so that only the offending operations fail. Any other batch is executed operation by operation.
+     */
+    @Override
+    public List<IndexResult> indexBatch(List<Index> operations) throws IOException {
+        if (operations.size() < 2 || canIndexAsAppendOnlyBatch(operations) == false) {
+            return super.indexBatch(operations);
+        }
+        final Index[] indices = operations.toArray(new Index[0]);
+        try (ReleasableLock releasableLock = readLock.acquire()) {
+            ensureOpen();
+            final List<Releasable> uidLocks = new ArrayList<>(indices.length);
+            int reservedDocs = 0;
+            try {
+                // acquire the uid locks in a consistent order so that concurrent batches can't deadlock
+                final BytesRef[] uids = new BytesRef[indices.length];
+                for (int i = 0; i < indices.length; i++) {
+                    assert assertIncomingSequenceNumber(indices[i].origin(), indices[i].seqNo());
+                    uids[i] = indices[i].uid().bytes();
+                }
+                Arrays.sort(uids);
+                for (BytesRef uid : uids) {
+                    uidLocks.add(versionMap.acquireLock(uid));
+                }
+                uidLocks.add(throttle.acquireThrottle());
+                lastWriteNanos = indices[0].startTime();
+
+                final IndexingStrategy[] plans = new IndexingStrategy[indices.length];
+                final IndexResult[] results = new IndexResult[indices.length];
+                final List<LuceneDocument> appendedDocs = new ArrayList<>();
+                for (int i = 0; i < indices.length; i++) {
+                    final IndexingStrategy plan = indexingStrategyForOperation(indices[i]);
+                    plans[i] = plan;
+                    reservedDocs += plan.reservedDocs;
+                    if (plan.earlyResultOnPreFlightError.isPresent()) {
+                        results[i] = plan.earlyResultOnPreFlightError.get();
+                        assert results[i].getResultType() == Result.Type.FAILURE : results[i].getResultType();
+                        continue;
+                    }
+                    final Index index = withSeqNo(indices[i], generateSeqNoForOperationOnPrimary(indices[i]));
+                    indices[i] = index;
+                    if (plan.indexIntoLucene && plan.useLuceneUpdateDocument == false) {
+                        assert assertDocDoesNotExist(index, canOptimizeAddDocument(index) == false);
+                        index.parsedDoc().updateSeqID(index.seqNo(), index.primaryTerm());
+                        index.parsedDoc().version().setLongValue(plan.versionForIndexing);
+                        appendedDocs.addAll(index.docs());
+                    } else {
+                        // a concurrent retry made us lose the append-only optimization, uids are unique within the batch so we can
+                        // still safely update the document on its own
+                        advanceMaxSeqNoOfUpdatesOnPrimary(index.seqNo());
+                        if (plan.indexIntoLucene || plan.addStaleOpToLucene) {
+                            results[i] = indexIntoLucene(index, plan);
+                        } else {
+                            results[i] = new IndexResult(
+                                plan.versionForIndexing,
+                                index.primaryTerm(),
+                                index.seqNo(),
+                                plan.currentNotFoundOrDeleted
+                            );
+                        }
+                    }
+                }
+                final boolean appendedAll = appendDocsToLucene(appendedDocs);
+                for (int i = 0; i < indices.length; i++) {
+                    if (results[i] == null) {
+                        final IndexingStrategy plan = plans[i];
+                        if (appendedAll == false && (plan.indexIntoLucene || plan.addStaleOpToLucene)) {
+                            results[i] = indexIntoLucene(indices[i], plan);
+                        } else {
+                            results[i] = new IndexResult(
+                                plan.versionForIndexing,
+                                indices[i].primaryTerm(),
+                                indices[i].seqNo(),
+                                plan.currentNotFoundOrDeleted
+                            );
+                        }
+                    }
+                }
+
+                final List<Translog.Index> translogOps = new ArrayList<>(indices.length);
+                final List<IndexResult> translogResults = new ArrayList<>(indices.length);
+                for (int i = 0; i < indices.length; i++) {
+                    final IndexResult indexResult = results[i];
+                    if (indexResult.getResultType() == Result.Type.SUCCESS) {
+                        translogOps.add(new Translog.Index(indices[i], indexResult));
+                        translogResults.add(indexResult);
+                    } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                        // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
+                        final NoOp noOp = new NoOp(
+                            indexResult.getSeqNo(),
+                            indices[i].primaryTerm(),
+                            indices[i].origin(),
+                            indices[i].startTime(),
+                            indexResult.getFailure().toString()
+                        );
+                        indexResult.setTranslogLocation(innerNoOp(noOp).getTranslogLocation());
+                    }
+                }
+                if (translogOps.isEmpty() == false) {
+                    final Translog.Location[] locations = translog.add(translogOps);
+                    for (int i = 0; i < locations.length; i++) {
+                        translogResults.get(i).setTranslogLocation(locations[i]);
+                    }
+                }
+
+                for (int i = 0; i < indices.length; i++) {
+                    final Index index = indices[i];
+                    final IndexResult indexResult = results[i];
+                    if (plans[i].indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
+                        final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
+                        versionMap.maybePutIndexUnderLock(
+                            index.uid().bytes(),
+                            new IndexVersionValue(translogLocation, plans[i].versionForIndexing, index.seqNo(), index.primaryTerm())
+                        );
+                    }
+                    localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
+                    if (indexResult.getTranslogLocation() == null) {
+                        // the op does not have a sequence number
+                        assert indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
+                        localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+                    }
+                    indexResult.setTook(System.nanoTime() - index.startTime());
+                    indexResult.freeze();
+                }
+                return Arrays.asList(results);
+            } finally {
+                releaseInFlightDocs(reservedDocs);
+                Releasables.close(uidLocks);
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("index batch of [" + indices.length + "] operations", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the given operations can be indexed by {@link #indexBatch}, i.e. they are all first attempts of appends with
+     * auto-generated ids on the primary that still need a sequence number and don't share any uid.
+     */
+    private boolean canIndexAsAppendOnlyBatch(List<Index> operations) {
+        final Set<BytesRef> uids = new HashSet<>();
+        for (Index operation : operations) {
+            if (operation.origin() != Operation.Origin.PRIMARY
+                || operation.seqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO
+                || operation.getAutoGeneratedIdTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP
+                || operation.isRetry()
+                || uids.add(operation.uid().bytes()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the documents of a batch of operations to Lucene with a single call.
+     *
+     * @return <code>true</code> if the documents were added, <code>false</code> if Lucene rejected the batch due to a document failure
+     */
+    private boolean appendDocsToLucene(List<LuceneDocument> docs) throws IOException {
+        if (docs.isEmpty()) {
+            return true;
+        }
+        try {
+            indexWriter.addDocuments(docs);
+            numDocAppends.inc(docs.size());
+            return true;
+        } catch (Exception ex) {
+            if (ex instanceof AlreadyClosedException == false && indexWriter.getTragicException() == null) {
+                // a document failure, the documents of the batch were not added so we can retry them individually
+                logger.trace("failed to append a batch of documents, falling back to appending them one by one", ex);
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    private static Index withSeqNo(Index index, long seqNo) {
+        return new Index(
+            index.uid(),
+            index.parsedDoc(),
+            seqNo,
+            index.primaryTerm(),
+            index.version(),
+            index.versionType(),
+            index.origin(),
+            index.startTime(),
+            index.getAutoGeneratedIdTimestamp(),
+            index.isRetry(),
+            index.getIfSeqNo(),
+            index.getIfPrimaryTerm()
+        );
+    }
+
     protected final IndexingStrategy planIndexingAsNonPrimary(Index index) throws IOException {
         assert assertNonPrimaryOrigin(index);
         // needs to maintain the auto_id timestamp in case this replica becomes primary
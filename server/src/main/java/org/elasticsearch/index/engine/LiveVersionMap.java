@@ -12,6 +12,7 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.core.Releasable;
@@ -21,6 +22,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /** Maps _uid value to its version information. */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
@@ -57,6 +59,26 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             this.map = map;
         }
 
+        /**
+         * Returns the bytes used by this lookup. Maps that track their own memory usage, like the {@link PagedVersionMap}, are asked
+         * directly, for all other maps we rely on the per-entry estimates that {@link Maps} accounts for.
+         */
+        long ramBytesUsed() {
+            if (map instanceof Accountable) {
+                return ((Accountable) map).ramBytesUsed();
+            }
+            return ramBytesUsed.get();
+        }
+
+        /**
+         * Releases the resources held by this lookup once it is no longer reachable through the current {@link Maps}.
+         */
+        void release() {
+            if (map instanceof Releasable) {
+                ((Releasable) map).close();
+            }
+        }
+
         VersionValue get(BytesRef key) {
             return map.get(key);
         }
@@ -104,15 +126,22 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // have the volatile read of the Maps reference to make it visible even across threads.
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
-
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        private final IntFunction<Map<BytesRef, VersionValue>> lookupMapFactory;
+
+        Maps(
+            VersionLookup current,
+            VersionLookup old,
+            boolean previousMapsNeededSafeAccess,
+            IntFunction<Map<BytesRef, VersionValue>> lookupMapFactory
+        ) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.lookupMapFactory = lookupMapFactory;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+        Maps(IntFunction<Map<BytesRef, VersionValue>> lookupMapFactory) {
+            this(new VersionLookup(lookupMapFactory.apply(16)), VersionLookup.EMPTY, false, lookupMapFactory);
         }
 
         boolean isSafeAccessMode() {
@@ -131,9 +160,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          */
         Maps buildTransitionMap() {
             return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
+                new VersionLookup(lookupMapFactory.apply(current.size())),
                 current,
-                shouldInheritSafeAccess()
+                shouldInheritSafeAccess(),
+                lookupMapFactory
             );
         }
 
@@ -141,7 +171,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, lookupMapFactory);
         }
 
         void put(BytesRef uid, VersionValue version) {
@@ -181,10 +211,36 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap = new Maps(LiveVersionMap::newHashLookupMap);
+
+    /**
+     * Creates a version map that keeps its entries in {@link java.util.concurrent.ConcurrentHashMap}s.
+     */
+    LiveVersionMap() {
+        this(LiveVersionMap::newHashLookupMap);
+    }
+
+    /**
+     * Creates a version map that keeps the entries that are pending a refresh in {@link PagedVersionMap}s allocated from the given
+     * {@link BigArrays}. Tombstones are kept on heap regardless since they are retained across refreshes.
+     */
+    LiveVersionMap(BigArrays bigArrays) {
+        this(expectedSize -> new PagedVersionMap(bigArrays, expectedSize));
+    }
+
+    /**
+     * @param lookupMapFactory creates the maps that back each {@link VersionLookup}, the argument is a hint for the number of entries
+     */
+    private LiveVersionMap(IntFunction<Map<BytesRef, VersionValue>> lookupMapFactory) {
+        this.maps = new Maps(lookupMapFactory);
+    }
+
+    private static Map<BytesRef, VersionValue> newHashLookupMap(int expectedSize) {
+        return ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -247,7 +303,9 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact
         // reflected in the previous reader. We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
 
-        maps = maps.invalidateOldMap();
+        final Maps previousMaps = maps;
+        maps = previousMaps.invalidateOldMap();
+        previousMaps.old.release();
         assert (unsafeKeysMap = unsafeKeysMap.invalidateOldMap()) != null;
 
     }
@@ -287,6 +345,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         return maps.current.isUnsafe() || maps.old.isUnsafe();
     }
 
+    // visible for testing
+    boolean usesPagedLookupMaps() {
+        return maps.current.map instanceof PagedVersionMap;
+    }
+
     void enforceSafeAccess() {
         maps.needsSafeAccess = true;
     }
@@ -405,7 +468,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        final Maps previousMaps = maps;
+        // keep the same kind of lookup maps, a paged map only allocates pages on its first put so it holds nothing once the index is closed
+        maps = new Maps(previousMaps.lookupMapFactory);
+        previousMaps.current.release();
+        previousMaps.old.release();
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -415,7 +482,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -423,7 +490,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     /**
@@ -431,7 +498,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * except does not include tombstones because they don't clear on refresh.
      */
     long getRefreshingBytes() {
-        return maps.old.ramBytesUsed.get();
+        return maps.old.ramBytesUsed();
     }
 
     @Override
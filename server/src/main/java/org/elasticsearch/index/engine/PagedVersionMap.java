@@ -0,0 +1,481 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArray;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A map from _uid to {@link VersionValue} that keeps its entries in paged arrays instead of one {@link BytesRef} key, one
+ * {@link VersionValue} and one hash entry per document. The uids live in an open addressing table that maps them to ordinals,
+ * and the version, seqNo, term and translog location of each ordinal live in primitive arrays, so an entry doesn't hold on to any
+ * object until the next refresh. {@link #get} builds a short-lived {@link VersionValue} from these arrays.
+ *
+ * The map is split into stripes. Writes to a stripe hold its write lock, reads are optimistic and only fall back to the read lock
+ * if a write happened concurrently. Optimistic reads may see arrays that are being modified or were released, so they bound every
+ * probe and every array access and only trust their result once the read was validated.
+ *
+ * Entries are never physically removed, {@link #remove} only marks them as absent. This is fine since a map only lives for a
+ * single refresh cycle. A stripe only allocates its arrays on the first {@link #put}, an empty map holds no pages at all. Once
+ * {@link #close() closed} the map behaves as if it was empty, which allows readers that still hold a reference to a map that was
+ * dropped on refresh to fall through to the tombstones and the Lucene index.
+ */
+final class PagedVersionMap extends AbstractMap<BytesRef, VersionValue> implements Accountable, Releasable {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int NUM_STRIPES = 1 << STRIPE_BITS;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    // the type of the entry of an ordinal
+    private static final byte ABSENT = 0;
+    private static final byte INDEX = 1;
+    private static final byte INDEX_WITH_LOCATION = 2;
+    private static final byte DELETE = 3;
+
+    private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong ramBytesUsed = new AtomicLong();
+
+    PagedVersionMap(BigArrays bigArrays, int expectedSize) {
+        final int stripeCapacity = Math.max(INITIAL_STRIPE_CAPACITY, expectedSize / NUM_STRIPES);
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe(bigArrays, stripeCapacity);
+        }
+    }
+
+    private static int hash(BytesRef uid) {
+        return BitMixer.mix32(uid.hashCode());
+    }
+
+    private Stripe stripe(int hash) {
+        // the stripes use the high bits of the hash and their tables the low bits
+        return stripes[hash >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = hash(uid);
+        return stripe(hash).get(uid, hash);
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        final int hash = hash(uid);
+        return stripe(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = hash(uid);
+        return stripe(hash).remove(uid, hash);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * Returns a point in time copy of the entries of this map. This is expensive and only meant for tests and assertions.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(copy);
+        }
+        return copy.entrySet();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed.get();
+    }
+
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            stripe.close();
+        }
+    }
+
+    private static long get(LongArray array, long index) {
+        return index < array.size() ? array.get(index) : 0L;
+    }
+
+    private final class Stripe implements Releasable {
+
+        private final BigArrays bigArrays;
+        private final int capacity;
+        private final StampedLock lock = new StampedLock();
+        // the arrays are null until the first put, they are only modified under the write lock
+        private LongArray slots; // one plus the ordinal of the uid in each slot of the table, 0 for an empty slot
+        private IntArray hashes; // the hash of the uid of each ordinal, to rebuild the table when it grows
+        private LongArray keyOffsets; // the start offset of the uid of each ordinal in keyBytes, followed by the end of the last one
+        private ByteArray keyBytes;
+        private ByteArray types;
+        private LongArray versions;
+        private LongArray seqNos;
+        private LongArray terms;
+        private LongArray generationsOrTimes; // the translog generation of an index or the time of a delete
+        private LongArray translogOffsets;
+        private IntArray translogSizes;
+        private long numOrdinals;
+        private boolean closed;
+
+        Stripe(BigArrays bigArrays, int capacity) {
+            this.bigArrays = bigArrays;
+            this.capacity = capacity;
+        }
+
+        VersionValue get(BytesRef uid, int hash) {
+            final long optimisticStamp = lock.tryOptimisticRead();
+            if (optimisticStamp != 0L) {
+                try {
+                    final VersionValue value = read(uid, hash);
+                    if (lock.validate(optimisticStamp)) {
+                        return value;
+                    }
+                } catch (RuntimeException e) {
+                    // a concurrent write left the arrays in an inconsistent state, real failures reproduce under the read lock
+                }
+            }
+            final long stamp = lock.readLock();
+            try {
+                return read(uid, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            final long stamp = lock.writeLock();
+            try {
+                if (closed) {
+                    // the map was dropped, nobody will ever read this value
+                    return null;
+                }
+                if (slots == null) {
+                    allocate();
+                }
+                final long arraysRamBytesBefore = arraysRamBytesUsed();
+                try {
+                    long ordinal = find(uid, hash);
+                    final VersionValue previous;
+                    if (ordinal < 0) {
+                        ordinal = add(uid, hash);
+                        previous = null;
+                    } else {
+                        previous = valueAt(ordinal);
+                    }
+                    write(ordinal, value);
+                    if (previous == null) {
+                        size.incrementAndGet();
+                    }
+                    return previous;
+                } finally {
+                    ramBytesUsed.addAndGet(arraysRamBytesUsed() - arraysRamBytesBefore);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        VersionValue remove(BytesRef uid, int hash) {
+            final long stamp = lock.writeLock();
+            try {
+                if (closed || slots == null) {
+                    return null;
+                }
+                final long ordinal = find(uid, hash);
+                if (ordinal < 0) {
+                    return null;
+                }
+                final VersionValue previous = valueAt(ordinal);
+                if (previous != null) {
+                    types.set(ordinal, ABSENT);
+                    size.decrementAndGet();
+                }
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void copyTo(Map<BytesRef, VersionValue> copy) {
+            final long stamp = lock.readLock();
+            try {
+                if (closed || slots == null) {
+                    return;
+                }
+                for (long ordinal = 0; ordinal < numOrdinals; ordinal++) {
+                    final VersionValue value = valueAt(ordinal);
+                    if (value != null) {
+                        final long start = keyOffsets.get(ordinal);
+                        final BytesRef uid = new BytesRef((int) (keyOffsets.get(ordinal + 1) - start));
+                        uid.length = uid.bytes.length;
+                        for (int i = 0; i < uid.length; i++) {
+                            uid.bytes[i] = keyBytes.get(start + i);
+                        }
+                        copy.put(uid, value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Looks up the value of the given uid. This may run concurrently with a write when called optimistically, so it must not
+         * loop forever or read out of bounds on inconsistent arrays, its result is only trusted once the read was validated.
+         */
+        private VersionValue read(BytesRef uid, int hash) {
+            if (closed || slots == null) {
+                return null;
+            }
+            final long ordinal = find(uid, hash);
+            return ordinal < 0 ? null : valueAt(ordinal);
+        }
+
+        private long find(BytesRef uid, int hash) {
+            final LongArray slots = this.slots;
+            final LongArray keyOffsets = this.keyOffsets;
+            final ByteArray keyBytes = this.keyBytes;
+            if (slots == null || keyOffsets == null || keyBytes == null) {
+                return -1L;
+            }
+            final long mask = slots.size() - 1;
+            long slot = hash & mask;
+            for (long probes = 0; probes <= mask; probes++) {
+                final long ordinal = slots.get(slot) - 1;
+                if (ordinal < 0) {
+                    return -1L;
+                }
+                if (ordinal < keyOffsets.size() - 1) {
+                    final long start = keyOffsets.get(ordinal);
+                    final long end = keyOffsets.get(ordinal + 1);
+                    if (end - start == uid.length && start >= 0 && end <= keyBytes.size() && keyEquals(keyBytes, start, uid)) {
+                        return ordinal;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1L;
+        }
+
+        private boolean keyEquals(ByteArray keyBytes, long start, BytesRef uid) {
+            for (int i = 0; i < uid.length; i++) {
+                if (keyBytes.get(start + i) != uid.bytes[uid.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private VersionValue valueAt(long ordinal) {
+            final ByteArray types = this.types;
+            if (types == null || ordinal >= types.size()) {
+                return null;
+            }
+            final byte type = types.get(ordinal);
+            if (type == ABSENT) {
+                return null;
+            }
+            final long version = get(versions, ordinal);
+            final long seqNo = get(seqNos, ordinal);
+            final long term = get(terms, ordinal);
+            final long generationOrTime = get(generationsOrTimes, ordinal);
+            switch (type) {
+                case DELETE:
+                    return new DeleteVersionValue(version, seqNo, term, generationOrTime);
+                case INDEX_WITH_LOCATION:
+                    final IntArray translogSizes = this.translogSizes;
+                    final Translog.Location location = new Translog.Location(
+                        generationOrTime,
+                        get(translogOffsets, ordinal),
+                        ordinal < translogSizes.size() ? translogSizes.get(ordinal) : 0
+                    );
+                    return new IndexVersionValue(location, version, seqNo, term);
+                default:
+                    return new IndexVersionValue(null, version, seqNo, term);
+            }
+        }
+
+        private void write(long ordinal, VersionValue value) {
+            versions.set(ordinal, value.version);
+            seqNos.set(ordinal, value.seqNo);
+            terms.set(ordinal, value.term);
+            if (value.isDelete()) {
+                generationsOrTimes.set(ordinal, ((DeleteVersionValue) value).time);
+                types.set(ordinal, DELETE);
+            } else {
+                final Translog.Location location = value.getLocation();
+                if (location == null) {
+                    types.set(ordinal, INDEX);
+                } else {
+                    generationsOrTimes.set(ordinal, location.generation);
+                    translogOffsets.set(ordinal, location.translogLocation);
+                    translogSizes.set(ordinal, location.size);
+                    types.set(ordinal, INDEX_WITH_LOCATION);
+                }
+            }
+        }
+
+        /**
+         * Adds a new uid and returns its ordinal. Everything that may trip the circuit breaker happens before the uid becomes
+         * visible in the table.
+         */
+        private long add(BytesRef uid, int hash) {
+            if (numOrdinals >= slots.size() / 2) {
+                growTable();
+            }
+            final long ordinal = numOrdinals;
+            hashes = bigArrays.grow(hashes, ordinal + 1);
+            keyOffsets = bigArrays.grow(keyOffsets, ordinal + 2);
+            types = bigArrays.grow(types, ordinal + 1);
+            versions = bigArrays.grow(versions, ordinal + 1);
+            seqNos = bigArrays.grow(seqNos, ordinal + 1);
+            terms = bigArrays.grow(terms, ordinal + 1);
+            generationsOrTimes = bigArrays.grow(generationsOrTimes, ordinal + 1);
+            translogOffsets = bigArrays.grow(translogOffsets, ordinal + 1);
+            translogSizes = bigArrays.grow(translogSizes, ordinal + 1);
+            final long start = keyOffsets.get(ordinal);
+            keyBytes = bigArrays.grow(keyBytes, start + uid.length);
+
+            keyBytes.set(start, uid.bytes, uid.offset, uid.length);
+            keyOffsets.set(ordinal + 1, start + uid.length);
+            hashes.set(ordinal, hash);
+            types.set(ordinal, ABSENT);
+            insert(slots, hash, ordinal);
+            numOrdinals++;
+            return ordinal;
+        }
+
+        private void growTable() {
+            final LongArray newSlots = bigArrays.newLongArray(slots.size() << 1);
+            boolean success = false;
+            try {
+                for (long ordinal = 0; ordinal < numOrdinals; ordinal++) {
+                    insert(newSlots, hashes.get(ordinal), ordinal);
+                }
+                success = true;
+            } finally {
+                if (success == false) {
+                    newSlots.close();
+                }
+            }
+            // optimistic readers may still probe the old table, they bound their probes and fail validation
+            final LongArray oldSlots = slots;
+            slots = newSlots;
+            oldSlots.close();
+        }
+
+        private void insert(LongArray slots, int hash, long ordinal) {
+            final long mask = slots.size() - 1;
+            long slot = hash & mask;
+            while (slots.get(slot) != 0L) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, ordinal + 1);
+        }
+
+        private void allocate() {
+            assert lock.isWriteLocked();
+            boolean success = false;
+            try {
+                // a power of two that keeps the table at most half full until the stripe outgrows its capacity
+                slots = bigArrays.newLongArray(Long.highestOneBit((long) capacity * 2 - 1) << 1);
+                hashes = bigArrays.newIntArray(capacity);
+                keyOffsets = bigArrays.newLongArray(capacity + 1);
+                keyBytes = bigArrays.newByteArray(capacity * 16L);
+                types = bigArrays.newByteArray(capacity);
+                versions = bigArrays.newLongArray(capacity);
+                seqNos = bigArrays.newLongArray(capacity);
+                terms = bigArrays.newLongArray(capacity);
+                generationsOrTimes = bigArrays.newLongArray(capacity);
+                translogOffsets = bigArrays.newLongArray(capacity);
+                translogSizes = bigArrays.newIntArray(capacity);
+                success = true;
+            } finally {
+                if (success == false) {
+                    releaseArrays();
+                    slots = null;
+                }
+            }
+            ramBytesUsed.addAndGet(arraysRamBytesUsed());
+        }
+
+        private long arraysRamBytesUsed() {
+            long ramBytesUsed = 0;
+            for (BigArray array : arrays()) {
+                ramBytesUsed += array.ramBytesUsed();
+            }
+            return ramBytesUsed;
+        }
+
+        private BigArray[] arrays() {
+            return new BigArray[] {
+                slots,
+                hashes,
+                keyOffsets,
+                keyBytes,
+                types,
+                versions,
+                seqNos,
+                terms,
+                generationsOrTimes,
+                translogOffsets,
+                translogSizes };
+        }
+
+        private void releaseArrays() {
+            Releasables.close(arrays());
+        }
+
+        @Override
+        public void close() {
+            final long stamp = lock.writeLock();
+            try {
+                if (closed == false) {
+                    closed = true;
+                    if (slots != null) {
+                        releaseArrays();
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
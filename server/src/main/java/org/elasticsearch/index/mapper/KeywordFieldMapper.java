@@ -399,6 +399,13 @@ public final class KeywordFieldMapper extends FieldMapper {
             return normalizer;
         }
 
+        /**
+         * @return true if the values of this field are normalized before they are indexed
+         */
+        public boolean hasNormalizer() {
+            return normalizer != Lucene.KEYWORD_ANALYZER;
+        }
+
         @Override
         public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> searchLookup) {
             failIfNoDocValues();
@@ -99,6 +99,8 @@ public class SearchExecutionContext extends QueryRewriteContext {
     private final IndexSearcher searcher;
     private boolean cacheable = true;
     private final SetOnce<Boolean> frozen = new SetOnce<>();
+    private long nowRoundingInMillis = 0;
+    private boolean usesRoundedNow = false;
 
     private final Index fullyQualifiedIndex;
     private final Predicate<String> indexNameMatcher;
@@ -187,6 +189,7 @@ public class SearchExecutionContext extends QueryRewriteContext {
             source.runtimeMappings,
             source.allowedFields
         );
+        this.nowRoundingInMillis = source.nowRoundingInMillis;
     }
 
     private SearchExecutionContext(
@@ -608,8 +611,45 @@ public class SearchExecutionContext extends QueryRewriteContext {
         return shardRequestIndex;
     }
 
+    /**
+     * Rounds {@link #nowInMillis()} down to the given granularity, so that using it doesn't prevent the request from being cached.
+     * Must be set before the context is used, {@code 0} disables rounding.
+     */
+    public void setNowRounding(long nowRoundingInMillis) {
+        assert frozen.get() == null : "now rounding must be set before the context is frozen";
+        this.nowRoundingInMillis = nowRoundingInMillis;
+    }
+
+    /**
+     * Returns <code>true</code> iff the rounded {@link #nowInMillis()} was used, in which case it must be part of the cache key.
+     */
+    public final boolean usesRoundedNow() {
+        return usesRoundedNow;
+    }
+
+    /**
+     * Marks this context as using the rounded {@link #nowInMillis()} if the given copy of it did, for instance the copy the request
+     * was rewritten with, since the rewritten request then depends on the rounded now too.
+     */
+    public void addRoundedNowUsage(SearchExecutionContext copy) {
+        assert copy.nowRoundingInMillis == nowRoundingInMillis : "the copy must round now the same way";
+        if (copy.usesRoundedNow && usesRoundedNow == false) {
+            assert frozen.get() == null : "the rounded now must be used before the context is frozen";
+            usesRoundedNow = true;
+        }
+    }
+
     @Override
     public final long nowInMillis() {
+        if (nowRoundingInMillis > 0) {
+            if (usesRoundedNow == false && frozen.get() == Boolean.TRUE) {
+                // the cache key has been computed without the rounded now already
+                failIfFrozen();
+            }
+            usesRoundedNow = true;
+            final long now = super.nowInMillis();
+            return now - Math.floorMod(now, nowRoundingInMillis);
+        }
         failIfFrozen();
         return super.nowInMillis();
     }
@@ -34,6 +34,16 @@ public class RefreshStats implements Writeable, ToXContentFragment {
      */
     private int listeners;
 
+    /**
+     * Number of scheduled refreshes skipped by adaptive refresh scheduling.
+     */
+    private long adaptiveSkipped;
+
+    /**
+     * The longest interval scheduled refreshes are currently spaced to by adaptive refresh scheduling.
+     */
+    private long adaptiveIntervalInMillis;
+
     public RefreshStats() {}
 
     public RefreshStats(StreamInput in) throws IOException {
@@ -44,6 +54,10 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             externalTotalTimeInMillis = in.readVLong();
         }
         listeners = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            adaptiveSkipped = in.readVLong();
+            adaptiveIntervalInMillis = in.readVLong();
+        }
     }
 
     @Override
@@ -55,14 +69,32 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             out.writeVLong(externalTotalTimeInMillis);
         }
         out.writeVInt(listeners);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(adaptiveSkipped);
+            out.writeVLong(adaptiveIntervalInMillis);
+        }
     }
 
     public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners) {
+        this(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners, 0, 0);
+    }
+
+    public RefreshStats(
+        long total,
+        long totalTimeInMillis,
+        long externalTotal,
+        long externalTotalTimeInMillis,
+        int listeners,
+        long adaptiveSkipped,
+        long adaptiveIntervalInMillis
+    ) {
         this.total = total;
         this.totalTimeInMillis = totalTimeInMillis;
         this.externalTotal = externalTotal;
         this.externalTotalTimeInMillis = externalTotalTimeInMillis;
         this.listeners = listeners;
+        this.adaptiveSkipped = adaptiveSkipped;
+        this.adaptiveIntervalInMillis = adaptiveIntervalInMillis;
     }
 
     public void add(RefreshStats refreshStats) {
@@ -78,6 +110,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         this.externalTotal += refreshStats.externalTotal;
         this.externalTotalTimeInMillis += refreshStats.externalTotalTimeInMillis;
         this.listeners += refreshStats.listeners;
+        this.adaptiveSkipped += refreshStats.adaptiveSkipped;
+        this.adaptiveIntervalInMillis = Math.max(this.adaptiveIntervalInMillis, refreshStats.adaptiveIntervalInMillis);
     }
 
     /**
@@ -129,6 +163,27 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         return listeners;
     }
 
+    /**
+     * The number of scheduled refreshes skipped by adaptive refresh scheduling.
+     */
+    public long getAdaptiveSkipped() {
+        return adaptiveSkipped;
+    }
+
+    /**
+     * The longest interval scheduled refreshes are currently spaced to by adaptive refresh scheduling (in milliseconds).
+     */
+    public long getAdaptiveIntervalInMillis() {
+        return adaptiveIntervalInMillis;
+    }
+
+    /**
+     * The longest interval scheduled refreshes are currently spaced to by adaptive refresh scheduling.
+     */
+    public TimeValue getAdaptiveInterval() {
+        return new TimeValue(adaptiveIntervalInMillis);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("refresh");
@@ -137,6 +192,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         builder.field("external_total", externalTotal);
         builder.humanReadableField("external_total_time_in_millis", "external_total_time", getExternalTotalTime());
         builder.field("listeners", listeners);
+        builder.field("adaptive_skipped", adaptiveSkipped);
+        builder.humanReadableField("adaptive_interval_in_millis", "adaptive_interval", getAdaptiveInterval());
         builder.endObject();
         return builder;
     }
@@ -151,11 +208,21 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             && totalTimeInMillis == rhs.totalTimeInMillis
             && externalTotal == rhs.externalTotal
             && externalTotalTimeInMillis == rhs.externalTotalTimeInMillis
-            && listeners == rhs.listeners;
+            && listeners == rhs.listeners
+            && adaptiveSkipped == rhs.adaptiveSkipped
+            && adaptiveIntervalInMillis == rhs.adaptiveIntervalInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners);
+        return Objects.hash(
+            total,
+            totalTimeInMillis,
+            externalTotal,
+            externalTotalTimeInMillis,
+            listeners,
+            adaptiveSkipped,
+            adaptiveIntervalInMillis
+        );
     }
 }
@@ -58,6 +58,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.Booleans;
@@ -83,6 +84,8 @@ import org.elasticsearch.index.bulk.stats.ShardBulkStats;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.cache.storedfields.ShardStoredFieldsCache;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.Engine;
@@ -133,6 +136,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -181,6 +185,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
 import java.util.function.Supplier;
@@ -189,6 +194,7 @@ import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.metadata.DataStream.TIMESERIES_LEAF_READERS_SORTER;
 import static org.elasticsearch.index.seqno.RetentionLeaseActions.RETAIN_ALL;
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 
 public class IndexShard extends AbstractIndexShardComponent implements IndicesClusterStateService.Shard {
@@ -205,6 +211,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final ShardGetService getService;
     private final ShardIndexWarmerService shardWarmerService;
     private final ShardRequestCache requestCacheStats;
+    private final ShardStoredFieldsCache storedFieldsCacheStats;
     private final ShardFieldData shardFieldData;
     private final ShardBitsetFilterCache shardBitsetFilterCache;
     private final Object mutex = new Object();
@@ -286,6 +293,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    private final CounterMetric adaptiveSkippedRefreshMetric = new CounterMetric();
+    // the interval adaptive refresh scheduling currently spaces scheduled refreshes to, 0 if they aren't spaced out
+    private volatile long adaptiveRefreshIntervalMillis;
+    private volatile long lastScheduledRefreshMillis;
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private final RefreshPendingLocationListener refreshPendingLocationListener;
     private volatile boolean useRetentionLeasesInPeerRecovery;
@@ -311,7 +322,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final Runnable globalCheckpointSyncer,
         final RetentionLeaseSyncer retentionLeaseSyncer,
         final CircuitBreakerService circuitBreakerService,
-        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier
+        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+        final TranslogSyncCoordinator.SyncGroup translogSyncGroup
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -344,6 +356,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.getService = new ShardGetService(indexSettings, this, mapperService);
         this.shardWarmerService = new ShardIndexWarmerService(shardId, indexSettings);
         this.requestCacheStats = new ShardRequestCache();
+        this.storedFieldsCacheStats = new ShardStoredFieldsCache();
         this.shardFieldData = new ShardFieldData();
         this.shardBitsetFilterCache = new ShardBitsetFilterCache(shardId, indexSettings);
         state = IndexShardState.CREATED;
@@ -353,7 +366,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         logger.debug("state: [CREATED]");
 
         this.checkIndexOnStartup = indexSettings.getValue(IndexSettings.INDEX_CHECK_ON_STARTUP);
-        this.translogConfig = new TranslogConfig(shardId, shardPath().resolveTranslog(), indexSettings, bigArrays);
+        this.translogConfig = new TranslogConfig(shardId, shardPath().resolveTranslog(), indexSettings, bigArrays, translogSyncGroup);
         final String aId = shardRouting.allocationId().getId();
         final long primaryTerm = indexSettings.getIndexMetadata().primaryTerm(shardId.id());
         this.pendingPrimaryTerm = primaryTerm;
@@ -452,6 +465,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return this.requestCacheStats;
     }
 
+    public ShardStoredFieldsCache storedFieldsCache() {
+        return this.storedFieldsCacheStats;
+    }
+
     public ShardFieldData fieldData() {
         return this.shardFieldData;
     }
@@ -903,6 +920,142 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         );
     }
 
+    /**
+     * Indexes a batch of append-only operations, i.e. operations with auto-generated ids that are not retries, on the primary. The
+     * sources are parsed, in parallel if {@link IndexSettings#INDEX_BULK_PARALLEL_PARSING_SETTING} is enabled, and the longest prefix
+     * that parses without requiring a mapping update is handed to the engine as a single batch. If that prefix ends with a source
+     * that fails to parse, the failure is reported as the last result. The remaining sources are left to be executed one by one through
+     * {@link #applyIndexOperationOnPrimary}, which keeps mapping updates serialized.
+     *
+     * @return the results of the indexed prefix followed by the failure of the source that ended it if it failed to parse, in the
+     *         order of the given sources
+     */
+    public List<Engine.IndexResult> applyAppendOnlyIndexOperationsOnPrimary(
+        List<SourceToParse> sources,
+        long[] versions,
+        VersionType[] versionTypes,
+        long[] autoGeneratedTimestamps
+    ) throws IOException {
+        assert sources.size() == versions.length : sources.size() + " != " + versions.length;
+        assert sources.size() == versionTypes.length : sources.size() + " != " + versionTypes.length;
+        assert sources.size() == autoGeneratedTimestamps.length : sources.size() + " != " + autoGeneratedTimestamps.length;
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        final Engine engine = getEngine();
+        final Engine.Index[] parsed = new Engine.Index[sources.size()];
+        final Exception[] failures = new Exception[sources.size()];
+        final long opPrimaryTerm = getOperationPrimaryTerm();
+        // returns whether the operation can be part of the batch, so that parsing stops at the first one that can't
+        final IntPredicate parser = i -> {
+            assert versionTypes[i].validateVersionForWrites(versions[i]);
+            try {
+                parsed[i] = prepareIndex(
+                    mapperService,
+                    sources.get(i),
+                    UNASSIGNED_SEQ_NO,
+                    opPrimaryTerm,
+                    versions[i],
+                    versionTypes[i],
+                    Engine.Operation.Origin.PRIMARY,
+                    autoGeneratedTimestamps[i],
+                    false,
+                    UNASSIGNED_SEQ_NO,
+                    UNASSIGNED_PRIMARY_TERM
+                );
+            } catch (Exception e) {
+                failures[i] = e;
+                return false;
+            }
+            return parsed[i].parsedDoc().dynamicMappingsUpdate() == null;
+        };
+        if (indexSettings.isBulkParallelParsing() && sources.size() > PARALLEL_PARSING_CHUNK_SIZE) {
+            parseInParallel(sources.size(), parser);
+        } else {
+            for (int i = 0; i < sources.size(); i++) {
+                if (parser.test(i) == false) {
+                    break;
+                }
+            }
+        }
+        final List<Engine.Index> operations = new ArrayList<>(sources.size());
+        Engine.IndexResult failure = null;
+        for (int i = 0; i < parsed.length; i++) {
+            if (failures[i] != null) {
+                // report the failure like applyIndexOperation does rather than parsing the source again on its own
+                verifyNotClosed(failures[i]);
+                failure = new Engine.IndexResult(failures[i], versions[i], opPrimaryTerm, UNASSIGNED_SEQ_NO);
+                break;
+            }
+            if (parsed[i].parsedDoc().dynamicMappingsUpdate() != null) {
+                break;
+            }
+            operations.add(parsed[i]);
+        }
+        final List<Engine.IndexResult> results = new ArrayList<>(operations.size() + 1);
+        if (operations.isEmpty() == false) {
+            results.addAll(index(engine, operations));
+        }
+        if (failure != null) {
+            results.add(failure);
+        }
+        return results;
+    }
+
+    private static final int PARALLEL_PARSING_CHUNK_SIZE = 64;
+
+    /**
+     * Runs the given parser for every index in {@code [0, size)} up to and including the first one it returns {@code false} for,
+     * split into chunks that are processed by the calling thread and by tasks forked to the write thread pool. Chunks are claimed
+     * through a shared counter so that the calling thread only ever waits for chunks that are already being processed by another
+     * thread, which keeps this safe to call from a write thread. Chunks that start after an index the parser returned {@code false}
+     * for are skipped, so sources beyond the end of the batch are mostly left alone for the next batch to parse.
+     */
+    private void parseInParallel(int size, IntPredicate parser) {
+        final int numChunks = (size + PARALLEL_PARSING_CHUNK_SIZE - 1) / PARALLEL_PARSING_CHUNK_SIZE;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final AtomicInteger stoppedAt = new AtomicInteger(size);
+        final AtomicReference<Error> error = new AtomicReference<>();
+        final CountDownLatch parsedChunks = new CountDownLatch(numChunks);
+        final Runnable parseChunks = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+                try {
+                    final int end = Math.min(size, (chunk + 1) * PARALLEL_PARSING_CHUNK_SIZE);
+                    for (int i = chunk * PARALLEL_PARSING_CHUNK_SIZE; i < end && i < stoppedAt.get(); i++) {
+                        if (parser.test(i) == false) {
+                            stoppedAt.accumulateAndGet(i, Math::min);
+                            break;
+                        }
+                    }
+                } catch (Error e) {
+                    error.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    parsedChunks.countDown();
+                }
+            }
+        };
+        final int forks = Math.min(numChunks, threadPool.info(ThreadPool.Names.WRITE).getMax()) - 1;
+        final Executor executor = threadPool.executor(ThreadPool.Names.WRITE);
+        try {
+            for (int i = 0; i < forks; i++) {
+                executor.execute(threadPool.getThreadContext().preserveContext(parseChunks));
+            }
+        } catch (EsRejectedExecutionException e) {
+            // the remaining chunks are parsed by the calling thread
+            logger.trace("rejected forking parsing of bulk items", e);
+        }
+        parseChunks.run();
+        try {
+            parsedChunks.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while parsing bulk items", e);
+        }
+        if (error.get() != null) {
+            throw new IllegalStateException("failed to parse bulk items", error.get());
+        }
+    }
+
     public Engine.IndexResult applyIndexOperationOnReplica(
         long seqNo,
         long opPrimaryTerm,
@@ -1075,6 +1228,47 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return result;
     }
 
+    private List<Engine.IndexResult> index(Engine engine, List<Engine.Index> operations) throws IOException {
+        active.set(true);
+        final List<Engine.Index> indices = new ArrayList<>(operations.size());
+        for (Engine.Index operation : operations) {
+            indices.add(indexingOperationListeners.preIndex(shardId, operation));
+        }
+        final List<Engine.IndexResult> results;
+        try {
+            if (logger.isTraceEnabled()) {
+                logger.trace(
+                    "index batch of [{}] operations allocation-id [{}] operationPrimaryTerm [{}]",
+                    indices.size(),
+                    routingEntry().allocationId(),
+                    getOperationPrimaryTerm()
+                );
+            }
+            results = engine.indexBatch(indices);
+        } catch (Exception e) {
+            if (logger.isTraceEnabled()) {
+                logger.trace(
+                    new ParameterizedMessage(
+                        "index-fail batch of [{}] operations allocation-id [{}] operationPrimaryTerm [{}]",
+                        indices.size(),
+                        routingEntry().allocationId(),
+                        getOperationPrimaryTerm()
+                    ),
+                    e
+                );
+            }
+            for (Engine.Index index : indices) {
+                indexingOperationListeners.postIndex(shardId, index, e);
+            }
+            throw e;
+        }
+        assert results.size() == indices.size() : results.size() + " != " + indices.size();
+        for (int i = 0; i < indices.size(); i++) {
+            indexingOperationListeners.postIndex(shardId, indices.get(i), results.get(i));
+        }
+        return results;
+    }
+
     public Engine.NoOpResult markSeqNoAsNoop(long seqNo, long opPrimaryTerm, String reason) throws IOException {
         return markSeqNoAsNoop(getEngine(), seqNo, opPrimaryTerm, reason, Engine.Operation.Origin.REPLICA);
     }
@@ -1228,7 +1422,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()),
             externalRefreshMetric.count(),
             TimeUnit.NANOSECONDS.toMillis(externalRefreshMetric.sum()),
-            listeners
+            listeners,
+            adaptiveSkippedRefreshMetric.count(),
+            adaptiveRefreshIntervalMillis
         );
     }
 
@@ -1503,7 +1699,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             : "DirectoryReader must be an instance or ElasticsearchDirectoryReader";
         boolean success = false;
         try {
-            final Engine.Searcher newSearcher = wrapSearcher(searcher, fieldUsageTracker.createSession(), readerWrapper);
+            final Engine.Searcher newSearcher = wrapSearcher(
+                searcher,
+                fieldUsageTracker.createSession(),
+                readerWrapper,
+                indexCache != null ? indexCache.storedFields() : null,
+                storedFieldsCacheStats
+            );
             assert newSearcher != null;
             success = true;
             return newSearcher;
@@ -1520,6 +1722,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Engine.Searcher engineSearcher,
         ShardFieldUsageTracker.FieldUsageStatsTrackingSession fieldUsageStatsTrackingSession,
         @Nullable CheckedFunction<DirectoryReader, DirectoryReader, IOException> readerWrapper
+    ) throws IOException {
+        return wrapSearcher(engineSearcher, fieldUsageStatsTrackingSession, readerWrapper, null, null);
+    }
+
+    static Engine.Searcher wrapSearcher(
+        Engine.Searcher engineSearcher,
+        ShardFieldUsageTracker.FieldUsageStatsTrackingSession fieldUsageStatsTrackingSession,
+        @Nullable CheckedFunction<DirectoryReader, DirectoryReader, IOException> readerWrapper,
+        @Nullable StoredFieldsCache storedFieldsCache,
+        @Nullable ShardStoredFieldsCache shardStoredFieldsCache
     ) throws IOException {
         final ElasticsearchDirectoryReader elasticsearchDirectoryReader = ElasticsearchDirectoryReader.getElasticsearchDirectoryReader(
             engineSearcher.getDirectoryReader()
@@ -1530,7 +1742,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         if (readerWrapper == null) {
             readerWrapper = r -> r;
         }
-        NonClosingReaderWrapper nonClosingReaderWrapper = new NonClosingReaderWrapper(engineSearcher.getDirectoryReader());
+        DirectoryReader nonClosingReaderWrapper = new NonClosingReaderWrapper(engineSearcher.getDirectoryReader());
+        if (storedFieldsCache != null) {
+            // the cache goes underneath all other wrappers so that it caches all stored fields and the wrappers can filter them
+            nonClosingReaderWrapper = storedFieldsCache.wrap(nonClosingReaderWrapper, shardStoredFieldsCache);
+        }
         // first apply field usage stats wrapping before applying other wrappers so that it can track the effects of these wrappers
         DirectoryReader reader = readerWrapper.apply(
             new FieldUsageTrackingDirectoryReader(nonClosingReaderWrapper, fieldUsageStatsTrackingSession)
@@ -3769,6 +3985,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
                 setRefreshPending(engine);
                 return false;
+            } else if (listenerNeedsRefresh == false && skipAdaptiveRefresh()) {
+                // like above, the next searcher access registers a refreshListener for the pending location so that it doesn't
+                // wait for the widened interval to elapse
+                adaptiveSkippedRefreshMetric.inc();
+                setRefreshPending(getEngine());
+                return false;
             } else {
                 if (logger.isTraceEnabled()) {
                     logger.trace("refresh with source [schedule]");
@@ -3781,6 +4003,37 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return false;
     }
 
+    /**
+     * Decides whether adaptive refresh scheduling skips the current scheduled refresh. Every scheduled refresh that happens without a
+     * search having been seen since the previous one doubles the interval to the next one, starting at the refresh interval and up to
+     * the configured maximum. The first search that comes in brings the interval back down to the refresh interval.
+     */
+    private boolean skipAdaptiveRefresh() {
+        if (indexSettings.isAdaptiveRefresh() == false) {
+            adaptiveRefreshIntervalMillis = 0;
+            return false;
+        }
+        final long now = threadPool.relativeTimeInMillis();
+        if (lastSearcherAccess.get() >= lastScheduledRefreshMillis) {
+            adaptiveRefreshIntervalMillis = 0;
+        } else if (now - lastScheduledRefreshMillis < adaptiveRefreshIntervalMillis) {
+            return true;
+        } else {
+            final long minInterval = Math.max(0L, indexSettings.getRefreshInterval().millis());
+            final long maxInterval = indexSettings.getAdaptiveRefreshMaxInterval().millis();
+            adaptiveRefreshIntervalMillis = Math.min(maxInterval, Math.max(minInterval, adaptiveRefreshIntervalMillis * 2));
+        }
+        lastScheduledRefreshMillis = now;
+        return false;
+    }
+
+    /**
+     * Returns the interval adaptive refresh scheduling currently spaces scheduled refreshes of this shard to, 0 if they aren't spaced out.
+     */
+    final long getAdaptiveRefreshIntervalMillis() {
+        return adaptiveRefreshIntervalMillis;
+    }
+
     /**
      * Returns true if this shards is search idle
      */
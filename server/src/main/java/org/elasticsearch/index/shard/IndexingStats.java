@@ -12,6 +12,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.mapper.MapperService;
@@ -36,6 +37,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long sourceCopiedInBytes;
 
         Stats() {}
 
@@ -50,6 +52,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+                sourceCopiedInBytes = in.readVLong();
+            }
         }
 
         public Stats(
@@ -62,7 +67,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             long deleteCurrent,
             long noopUpdateCount,
             boolean isThrottled,
-            long throttleTimeInMillis
+            long throttleTimeInMillis,
+            long sourceCopiedInBytes
         ) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
@@ -74,6 +80,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.sourceCopiedInBytes = sourceCopiedInBytes;
         }
 
         public void add(Stats stats) {
@@ -91,6 +98,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; // When combining if one is throttled set result to throttled.
             }
+            sourceCopiedInBytes += stats.sourceCopiedInBytes;
         }
 
         /**
@@ -160,6 +168,14 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             return noopUpdateCount;
         }
 
+        /**
+         * Returns the number of {@code _source} bytes of indexed documents that had to be copied into a contiguous array in order to be
+         * stored, because they were not read into a single contiguous buffer.
+         */
+        public ByteSizeValue getSourceCopied() {
+            return new ByteSizeValue(sourceCopiedInBytes);
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeVLong(indexCount);
@@ -172,7 +188,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+                out.writeVLong(sourceCopiedInBytes);
+            }
         }
 
         @Override
@@ -190,6 +208,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
 
             builder.field(Fields.IS_THROTTLED, isThrottled);
             builder.humanReadableField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, getThrottleTime());
+            builder.humanReadableField(Fields.SOURCE_COPIED_IN_BYTES, Fields.SOURCE_COPIED, getSourceCopied());
             return builder;
         }
     }
@@ -264,6 +283,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         static final String IS_THROTTLED = "is_throttled";
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
+        static final String SOURCE_COPIED_IN_BYTES = "source_copied_in_bytes";
+        static final String SOURCE_COPIED = "source_copied";
     }
 
     @Override
@@ -48,6 +48,10 @@ final class InternalIndexingStats implements IndexingOperationListener {
                     long took = result.getTook();
                     totalStats.indexMetric.inc(took);
                     totalStats.indexCurrent.dec();
+                    if (index.source().hasArray() == false) {
+                        // the source spans several buffers, storing it required copying it into a single array
+                        totalStats.sourceCopied.inc(index.source().length());
+                    }
                 }
                 break;
             case FAILURE:
@@ -111,6 +115,7 @@ final class InternalIndexingStats implements IndexingOperationListener {
         private final CounterMetric indexFailed = new CounterMetric();
         private final CounterMetric deleteCurrent = new CounterMetric();
         private final CounterMetric noopUpdates = new CounterMetric();
+        private final CounterMetric sourceCopied = new CounterMetric();
 
         IndexingStats.Stats stats(boolean isThrottled, long currentThrottleMillis) {
             return new IndexingStats.Stats(
@@ -123,7 +128,8 @@ final class InternalIndexingStats implements IndexingOperationListener {
                 deleteCurrent.count(),
                 noopUpdates.count(),
                 isThrottled,
-                TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis)
+                TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis),
+                sourceCopied.count()
             );
         }
     }
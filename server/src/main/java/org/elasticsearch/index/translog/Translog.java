@@ -10,6 +10,7 @@ package org.elasticsearch.index.translog;
 
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -20,6 +21,7 @@ import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.core.Nullable;
@@ -36,6 +38,8 @@ import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.lz4.ESLZ4Compressor;
+import org.elasticsearch.lz4.ESLZ4Decompressor;
 
 import java.io.Closeable;
 import java.io.EOFException;
@@ -53,6 +57,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -107,6 +112,16 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     static final Pattern PARSE_STRICT_ID_PATTERN = Pattern.compile("^" + TRANSLOG_FILE_PREFIX + "(\\d+)(\\.tlog)$");
     public static final int DEFAULT_HEADER_SIZE_IN_BYTES = TranslogHeader.headerSizeInBytes(UUIDs.randomBase64UUID());
 
+    /**
+     * Takes the place of the operation type of LZ4 compressed operations. Must not clash with any {@link Operation.Type#id()}. Only
+     * translog files from {@link TranslogHeader#VERSION_COMPRESSED_OPERATIONS} on may contain compressed operations.
+     */
+    private static final byte COMPRESSED_OPERATION = (byte) 0x7F;
+    private static final int MIN_COMPRESSED_OPERATION_SIZE = 128;
+    // compression buffers up to this size are kept around for the next operation that is written on the same thread
+    private static final int MAX_REUSED_COMPRESSION_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<byte[]> COMPRESSION_BUFFER = ThreadLocal.withInitial(() -> BytesRef.EMPTY_BYTES);
+
     // the list of translog readers is guaranteed to be in order of translog generation
     private final List<TranslogReader> readers = new ArrayList<>();
     private final BigArrays bigArrays;
@@ -123,6 +138,16 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final String translogUUID;
     private final TranslogDeletionPolicy deletionPolicy;
     private final LongConsumer persistedSequenceNumberConsumer;
+    // count and total time of the fsyncs issued for this translog
+    private final MeanMetric syncMetric = new MeanMetric();
+    // count of the fsyncs issued as part of a group commit and the total size of the batches they were part of
+    private final MeanMetric groupCommitBatchMetric = new MeanMetric();
+    private final TranslogSyncCoordinator.SyncStats syncStats = (tookInNanos, batchSize) -> {
+        syncMetric.inc(tookInNanos);
+        if (batchSize > 1) {
+            groupCommitBatchMetric.inc(batchSize);
+        }
+    };
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -569,7 +594,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try {
             final long start = out.position();
             out.skip(Integer.BYTES);
-            writeOperationNoSize(new BufferedChecksumStreamOutput(out), operation);
+            writeOperationNoSize(out, operation, indexSettings.isTranslogCompressed());
             final long end = out.position();
             final int operationSize = (int) (end - Integer.BYTES - start);
             out.seek(start);
@@ -578,23 +603,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             final BytesReference bytes = out.bytes();
             try (ReleasableLock ignored = readLock.acquire()) {
                 ensureOpen();
-                if (operation.primaryTerm() > current.getPrimaryTerm()) {
-                    assert false
-                        : "Operation term is newer than the current term; "
-                            + "current term["
-                            + current.getPrimaryTerm()
-                            + "], operation term["
-                            + operation
-                            + "]";
-                    throw new IllegalArgumentException(
-                        "Operation term is newer than the current term; "
-                            + "current term["
-                            + current.getPrimaryTerm()
-                            + "], operation term["
-                            + operation
-                            + "]"
-                    );
-                }
+                ensureTermIsNotNewerThanCurrent(operation);
                 return current.add(bytes, operation.seqNo());
             }
         } catch (final AlreadyClosedException | IOException ex) {
@@ -608,6 +617,77 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         }
     }
 
+    /**
+     * Adds a batch of operations to the transaction log. All operations are serialized into a single buffer and handed to the
+     * current generation at once, which saves acquiring the translog's and the writer's locks for every single operation.
+     *
+     * @param operations the operations to add
+     * @return the locations of the operations in the translog, in the order of the given operations
+     * @throws IOException if adding the operations to the translog resulted in an I/O exception
+     */
+    public Location[] add(final List<? extends Operation> operations) throws IOException {
+        final ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
+        try {
+            final boolean compress = indexSettings.isTranslogCompressed();
+            final long[] starts = new long[operations.size()];
+            final long[] seqNos = new long[operations.size()];
+            for (int i = 0; i < operations.size(); i++) {
+                final Operation operation = operations.get(i);
+                final long start = out.position();
+                out.skip(Integer.BYTES);
+                writeOperationNoSize(out, operation, compress);
+                final long end = out.position();
+                final int operationSize = (int) (end - Integer.BYTES - start);
+                out.seek(start);
+                out.writeInt(operationSize);
+                out.seek(end);
+                starts[i] = start;
+                seqNos[i] = operation.seqNo();
+            }
+            final BytesReference bytes = out.bytes();
+            final BytesReference[] data = new BytesReference[operations.size()];
+            for (int i = 0; i < data.length; i++) {
+                final long end = i + 1 < data.length ? starts[i + 1] : bytes.length();
+                data[i] = bytes.slice(Math.toIntExact(starts[i]), Math.toIntExact(end - starts[i]));
+            }
+            try (ReleasableLock ignored = readLock.acquire()) {
+                ensureOpen();
+                for (Operation operation : operations) {
+                    ensureTermIsNotNewerThanCurrent(operation);
+                }
+                return current.add(data, seqNos);
+            }
+        } catch (final AlreadyClosedException | IOException ex) {
+            closeOnTragicEvent(ex);
+            throw ex;
+        } catch (final Exception ex) {
+            closeOnTragicEvent(ex);
+            throw new TranslogException(shardId, "Failed to write [" + operations.size() + "] operations", ex);
+        } finally {
+            Releasables.close(out);
+        }
+    }
+
+    private void ensureTermIsNotNewerThanCurrent(Operation operation) {
+        if (operation.primaryTerm() > current.getPrimaryTerm()) {
+            assert false
+                : "Operation term is newer than the current term; "
+                    + "current term["
+                    + current.getPrimaryTerm()
+                    + "], operation term["
+                    + operation
+                    + "]";
+            throw new IllegalArgumentException(
+                "Operation term is newer than the current term; "
+                    + "current term["
+                    + current.getPrimaryTerm()
+                    + "], operation term["
+                    + operation
+                    + "]"
+            );
+        }
+    }
+
     /**
      * Tests whether or not the translog generation should be rolled to a new generation. This test
      * is based on the size of the current generation compared to the configured generation
@@ -768,7 +848,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public void sync() throws IOException {
         try (ReleasableLock lock = readLock.acquire()) {
             if (closed.get() == false) {
-                current.sync();
+                config.getSyncGroup().syncUpTo(current, Long.MAX_VALUE, syncStats);
             }
         } catch (final Exception ex) {
             closeOnTragicEvent(ex);
@@ -845,7 +925,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try (ReleasableLock lock = readLock.acquire()) {
             if (location.generation == current.getGeneration()) { // if we have a new one it's already synced
                 ensureOpen();
-                return current.syncUpTo(location.translogLocation + location.size);
+                return config.getSyncGroup().syncUpTo(current, location.translogLocation + location.size, syncStats);
             }
         } catch (final Exception ex) {
             closeOnTragicEvent(ex);
@@ -911,7 +991,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 sizeInBytes(),
                 totalOperationsByMinGen(uncommittedGen),
                 sizeInBytesByMinGen(uncommittedGen),
-                earliestLastModifiedAge()
+                earliestLastModifiedAge(),
+                syncMetric.count(),
+                TimeUnit.NANOSECONDS.toMillis(syncMetric.sum()),
+                groupCommitBatchMetric.count(),
+                groupCommitBatchMetric.sum()
             );
         }
     }
@@ -1105,7 +1189,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
          * {@link Operation#writeOperation(StreamOutput, Operation)}
          */
         static Operation readOperation(final StreamInput input) throws IOException {
-            final Translog.Operation.Type type = Translog.Operation.Type.fromId(input.readByte());
+            final byte typeId = input.readByte();
+            if (typeId == COMPRESSED_OPERATION) {
+                return readCompressedOperation(input);
+            }
+            final Translog.Operation.Type type = Translog.Operation.Type.fromId(typeId);
             switch (type) {
                 case CREATE:
                     // the de-serialization logic in Index was identical to that of Create when create was deprecated
@@ -1642,6 +1730,76 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         out.writeInt((int) checksum);
     }
 
+    /**
+     * Writes the given operation like {@link #writeOperationNoSize(BufferedChecksumStreamOutput, Operation)} but, if requested, LZ4
+     * compresses it. The operation is serialized into the output as it is, and compressed from there into a buffer that is reused
+     * across operations, so that the compressed operation can take the place of the uncompressed one. Operations that are too small
+     * or that don't shrink when compressed are left uncompressed. Compressed operations are marked with {@link #COMPRESSED_OPERATION}
+     * in place of their type and are decompressed transparently by {@link Operation#readOperation(StreamInput)}.
+     */
+    static void writeOperationNoSize(BytesStreamOutput out, Translog.Operation op, boolean compress) throws IOException {
+        final BufferedChecksumStreamOutput checksumOut = new BufferedChecksumStreamOutput(out);
+        if (compress == false) {
+            writeOperationNoSize(checksumOut, op);
+            return;
+        }
+        final long start = out.position();
+        checksumOut.resetDigest();
+        Translog.Operation.writeOperation(checksumOut, op);
+        final int length = Math.toIntExact(out.position() - start);
+        if (length >= MIN_COMPRESSED_OPERATION_SIZE) {
+            // a view on the output unless the operation spans several of its pages
+            final BytesRef uncompressed = out.bytes().slice(Math.toIntExact(start), length).toBytesRef();
+            final int maxCompressedLength = ESLZ4Compressor.INSTANCE.maxCompressedLength(length);
+            byte[] buffer = COMPRESSION_BUFFER.get();
+            if (buffer.length < maxCompressedLength) {
+                buffer = new byte[maxCompressedLength];
+                if (maxCompressedLength <= MAX_REUSED_COMPRESSION_BUFFER_SIZE) {
+                    COMPRESSION_BUFFER.set(buffer);
+                }
+            }
+            final int compressedLength = ESLZ4Compressor.INSTANCE.compress(
+                uncompressed.bytes,
+                uncompressed.offset,
+                length,
+                buffer,
+                0,
+                buffer.length
+            );
+            // the marker and the two lengths take up to 11 bytes
+            if (compressedLength + 11 < length) {
+                out.seek(start);
+                checksumOut.resetDigest();
+                checksumOut.writeByte(COMPRESSED_OPERATION);
+                checksumOut.writeVInt(length);
+                checksumOut.writeVInt(compressedLength);
+                checksumOut.writeBytes(buffer, 0, compressedLength);
+            }
+        }
+        long checksum = checksumOut.getChecksum();
+        checksumOut.writeInt((int) checksum);
+    }
+
+    private static Operation readCompressedOperation(StreamInput input) throws IOException {
+        final int length = input.readVInt();
+        final int compressedLength = input.readArraySize();
+        final byte[] compressed = new byte[compressedLength];
+        input.readBytes(compressed, 0, compressedLength);
+        final byte[] bytes = new byte[length];
+        final int read = ESLZ4Decompressor.INSTANCE.decompress(compressed, 0, bytes, 0, length);
+        if (read != compressedLength) {
+            throw new IllegalStateException(
+                "compressed translog operation of [" + compressedLength + "] bytes decompressed from [" + read + "] bytes"
+            );
+        }
+        try (StreamInput in = StreamInput.wrap(bytes)) {
+            in.setVersion(input.getVersion());
+            final Operation operation = Operation.readOperation(in);
+            assert in.available() == 0 : "[" + in.available() + "] bytes left after reading compressed translog operation";
+            return operation;
+        }
+    }
+
     /**
      * Gets the minimum generation that could contain any sequence number after the specified sequence number, or the current generation if
      * there is no generation that could any such sequence number.
@@ -30,6 +30,7 @@ public final class TranslogConfig {
     private final ShardId shardId;
     private final Path translogPath;
     private final ByteSizeValue bufferSize;
+    private final TranslogSyncCoordinator.SyncGroup syncGroup;
 
     /**
      * Creates a new TranslogConfig instance
@@ -39,15 +40,45 @@ public final class TranslogConfig {
      * @param bigArrays a bigArrays instance used for temporarily allocating write operations
      */
     public TranslogConfig(ShardId shardId, Path translogPath, IndexSettings indexSettings, BigArrays bigArrays) {
-        this(shardId, translogPath, indexSettings, bigArrays, DEFAULT_BUFFER_SIZE);
+        this(shardId, translogPath, indexSettings, bigArrays, TranslogSyncCoordinator.SyncGroup.DIRECT);
+    }
+
+    /**
+     * Creates a new TranslogConfig instance
+     * @param shardId the shard ID this translog belongs to
+     * @param translogPath the path to use for the transaction log files
+     * @param indexSettings the index settings used to set internal variables
+     * @param bigArrays a bigArrays instance used for temporarily allocating write operations
+     * @param syncGroup the group of translogs that this translog's fsyncs are batched with
+     */
+    public TranslogConfig(
+        ShardId shardId,
+        Path translogPath,
+        IndexSettings indexSettings,
+        BigArrays bigArrays,
+        TranslogSyncCoordinator.SyncGroup syncGroup
+    ) {
+        this(shardId, translogPath, indexSettings, bigArrays, DEFAULT_BUFFER_SIZE, syncGroup);
     }
 
     TranslogConfig(ShardId shardId, Path translogPath, IndexSettings indexSettings, BigArrays bigArrays, ByteSizeValue bufferSize) {
+        this(shardId, translogPath, indexSettings, bigArrays, bufferSize, TranslogSyncCoordinator.SyncGroup.DIRECT);
+    }
+
+    TranslogConfig(
+        ShardId shardId,
+        Path translogPath,
+        IndexSettings indexSettings,
+        BigArrays bigArrays,
+        ByteSizeValue bufferSize,
+        TranslogSyncCoordinator.SyncGroup syncGroup
+    ) {
         this.bufferSize = bufferSize;
         this.indexSettings = indexSettings;
         this.shardId = shardId;
         this.translogPath = translogPath;
         this.bigArrays = bigArrays;
+        this.syncGroup = syncGroup;
     }
 
     /**
@@ -84,4 +115,11 @@ public final class TranslogConfig {
     public ByteSizeValue getBufferSize() {
         return bufferSize;
     }
+
+    /**
+     * Returns the group of translogs that this translog's fsyncs are batched with
+     */
+    public TranslogSyncCoordinator.SyncGroup getSyncGroup() {
+        return syncGroup;
+    }
 }
@@ -7,11 +7,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -24,6 +26,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int uncommittedOperations;
     private long earliestLastModifiedAge;
+    private long syncCount;
+    private long syncTimeInMillis;
+    private long groupCommitCount;
+    private long groupCommitBatchSizeTotal;
 
     public TranslogStats() {}
 
@@ -33,6 +39,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            syncCount = in.readVLong();
+            syncTimeInMillis = in.readVLong();
+            groupCommitCount = in.readVLong();
+            groupCommitBatchSizeTotal = in.readVLong();
+        }
     }
 
     public TranslogStats(
@@ -41,6 +53,20 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         int uncommittedOperations,
         long uncommittedSizeInBytes,
         long earliestLastModifiedAge
+    ) {
+        this(numberOfOperations, translogSizeInBytes, uncommittedOperations, uncommittedSizeInBytes, earliestLastModifiedAge, 0, 0, 0, 0);
+    }
+
+    public TranslogStats(
+        int numberOfOperations,
+        long translogSizeInBytes,
+        int uncommittedOperations,
+        long uncommittedSizeInBytes,
+        long earliestLastModifiedAge,
+        long syncCount,
+        long syncTimeInMillis,
+        long groupCommitCount,
+        long groupCommitBatchSizeTotal
     ) {
         if (numberOfOperations < 0) {
             throw new IllegalArgumentException("numberOfOperations must be >= 0");
@@ -57,11 +83,27 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         if (earliestLastModifiedAge < 0) {
             throw new IllegalArgumentException("earliestLastModifiedAge must be >= 0");
         }
+        if (syncCount < 0) {
+            throw new IllegalArgumentException("syncCount must be >= 0");
+        }
+        if (syncTimeInMillis < 0) {
+            throw new IllegalArgumentException("syncTimeInMillis must be >= 0");
+        }
+        if (groupCommitCount < 0) {
+            throw new IllegalArgumentException("groupCommitCount must be >= 0");
+        }
+        if (groupCommitBatchSizeTotal < 0) {
+            throw new IllegalArgumentException("groupCommitBatchSizeTotal must be >= 0");
+        }
         this.numberOfOperations = numberOfOperations;
         this.translogSizeInBytes = translogSizeInBytes;
         this.uncommittedSizeInBytes = uncommittedSizeInBytes;
         this.uncommittedOperations = uncommittedOperations;
         this.earliestLastModifiedAge = earliestLastModifiedAge;
+        this.syncCount = syncCount;
+        this.syncTimeInMillis = syncTimeInMillis;
+        this.groupCommitCount = groupCommitCount;
+        this.groupCommitBatchSizeTotal = groupCommitBatchSizeTotal;
     }
 
     public void add(TranslogStats translogStats) {
@@ -78,6 +120,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         } else {
             this.earliestLastModifiedAge = Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
         }
+        this.syncCount += translogStats.syncCount;
+        this.syncTimeInMillis += translogStats.syncTimeInMillis;
+        this.groupCommitCount += translogStats.groupCommitCount;
+        this.groupCommitBatchSizeTotal += translogStats.groupCommitBatchSizeTotal;
     }
 
     public long getTranslogSizeInBytes() {
@@ -102,6 +148,26 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         return earliestLastModifiedAge;
     }
 
+    /** the number of fsyncs that were issued for the translog */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /** the total time spent waiting for translog fsyncs, including the time spent waiting for a group commit window */
+    public long getSyncTimeInMillis() {
+        return syncTimeInMillis;
+    }
+
+    /** the number of fsyncs that were issued as part of a group commit together with other translogs on the same data path */
+    public long getGroupCommitCount() {
+        return groupCommitCount;
+    }
+
+    /** the sum of the sizes of the group commit batches, divide by {@link #getGroupCommitCount()} for the average batch size */
+    public long getGroupCommitBatchSizeTotal() {
+        return groupCommitBatchSizeTotal;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -110,6 +176,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", new ByteSizeValue(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        builder.startObject("sync");
+        builder.field("total", syncCount);
+        builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(syncTimeInMillis));
+        builder.field("group_commit_total", groupCommitCount);
+        builder.field("group_commit_batch_size_total", groupCommitBatchSizeTotal);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -126,5 +198,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(syncCount);
+            out.writeVLong(syncTimeInMillis);
+            out.writeVLong(groupCommitCount);
+            out.writeVLong(groupCommitBatchSizeTotal);
+        }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Node level group-commit coordinator for translog fsyncs. All shards that share a data path share a single {@link SyncGroup}.
+ * A thread that needs its translog synced joins the group's current sync window, or opens a new one, and waits for the window
+ * to close before it syncs its own writer. Operations that are added to a translog while the window is open are covered by the
+ * same fsync, and threads that need to sync the same writer coalesce into a single fsync in {@link TranslogWriter#syncUpTo}.
+ * Writers are always synced on the thread that asked for the sync, so the syncs of a window run concurrently and a failure is
+ * always reported to the thread whose sync failed.
+ */
+public final class TranslogSyncCoordinator {
+
+    public static final Setting<Boolean> GROUP_COMMIT_ENABLED_SETTING = Setting.boolSetting(
+        "indices.translog.group_commit.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> GROUP_COMMIT_WINDOW_SETTING = Setting.timeSetting(
+        "indices.translog.group_commit.window",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueMillis(100),
+        Property.NodeScope
+    );
+
+    /**
+     * A coordinator that never groups syncs, every translog syncs its own writer on the calling thread.
+     */
+    public static final TranslogSyncCoordinator DIRECT = new TranslogSyncCoordinator(false, TimeValue.ZERO);
+
+    private final boolean enabled;
+    private final TimeValue window;
+    private final ConcurrentMap<Path, SyncGroup> groups = ConcurrentCollections.newConcurrentMap();
+
+    public TranslogSyncCoordinator(Settings settings) {
+        this(GROUP_COMMIT_ENABLED_SETTING.get(settings), GROUP_COMMIT_WINDOW_SETTING.get(settings));
+    }
+
+    TranslogSyncCoordinator(boolean enabled, TimeValue window) {
+        this.enabled = enabled;
+        this.window = window;
+    }
+
+    /**
+     * Returns the sync group for the given data path. All translogs stored on the same data path must use the same group.
+     */
+    public SyncGroup groupFor(Path dataPath) {
+        if (enabled == false) {
+            return SyncGroup.DIRECT;
+        }
+        return groups.computeIfAbsent(dataPath.toAbsolutePath().normalize(), p -> new SyncGroup(window.nanos()));
+    }
+
+    /**
+     * A set of translogs whose syncs are batched together.
+     */
+    public static class SyncGroup {
+
+        /**
+         * A group that syncs every writer on the calling thread without any batching.
+         */
+        public static final SyncGroup DIRECT = new SyncGroup(0L) {
+            @Override
+            boolean syncUpTo(TranslogWriter writer, long offset, SyncStats stats) throws IOException {
+                final long startNanos = System.nanoTime();
+                final boolean synced = writer.syncUpTo(offset);
+                if (synced) {
+                    stats.onSync(System.nanoTime() - startNanos, 1);
+                }
+                return synced;
+            }
+        };
+
+        private final long windowNanos;
+        private final Object mutex = new Object();
+        private SyncWindow currentWindow; // guarded by mutex
+
+        private SyncGroup(long windowNanos) {
+            this.windowNanos = windowNanos;
+        }
+
+        /**
+         * Syncs the given writer up to at least the given offset once the group's current sync window closed.
+         *
+         * @return <code>true</code> if this call caused an actual sync operation of the given writer
+         */
+        boolean syncUpTo(TranslogWriter writer, long offset, SyncStats stats) throws IOException {
+            if (writer.syncNeeded() == false) {
+                return false;
+            }
+            final long startNanos = System.nanoTime();
+            final SyncWindow window = joinWindow(startNanos);
+            window.await();
+            final boolean synced = writer.syncUpTo(offset);
+            if (synced) {
+                stats.onSync(System.nanoTime() - startNanos, window.size());
+            }
+            return synced;
+        }
+
+        private SyncWindow joinWindow(long nowNanos) {
+            synchronized (mutex) {
+                if (currentWindow == null || currentWindow.isClosed(nowNanos)) {
+                    currentWindow = new SyncWindow(nowNanos + windowNanos);
+                }
+                currentWindow.size++;
+                return currentWindow;
+            }
+        }
+
+        private final class SyncWindow {
+            private final long closeNanos;
+            private int size; // guarded by mutex
+
+            private SyncWindow(long closeNanos) {
+                this.closeNanos = closeNanos;
+            }
+
+            boolean isClosed(long nowNanos) {
+                return nowNanos - closeNanos >= 0L;
+            }
+
+            void await() {
+                long remainingNanos;
+                while ((remainingNanos = closeNanos - System.nanoTime()) > 0L) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // don't delay the sync any further, it still has to happen
+                        return;
+                    }
+                    LockSupport.parkNanos(remainingNanos);
+                }
+            }
+
+            int size() {
+                synchronized (mutex) {
+                    return size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the outcome of syncs that were performed on behalf of a translog.
+     */
+    interface SyncStats {
+
+        /**
+         * Called after a sync of the translog's writer completed.
+         *
+         * @param tookInNanos the time the caller spent waiting for the sync, including the time spent in the group commit window
+         * @param batchSize   the number of syncs that shared the sync window of this sync
+         */
+        void onSync(long tookInNanos, int batchSize);
+    }
+}
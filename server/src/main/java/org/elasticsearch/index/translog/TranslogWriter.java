@@ -207,38 +207,66 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
      * @throws IOException if writing to the translog resulted in an I/O exception
      */
     public Translog.Location add(final BytesReference data, final long seqNo) throws IOException {
-        long bufferedBytesBeforeAdd = this.bufferedBytes;
-        if (bufferedBytesBeforeAdd >= forceWriteThreshold) {
-            writeBufferedOps(Long.MAX_VALUE, bufferedBytesBeforeAdd >= forceWriteThreshold * 4);
+        maybeWriteBufferedOps();
+        synchronized (this) {
+            ensureOpen();
+            return addToBuffer(data, seqNo);
         }
+    }
 
-        final Translog.Location location;
+    /**
+     * Add the given operations to the translog under a single acquisition of the writer's lock; returns the locations the operations
+     * were written to, in the order of the given operations.
+     *
+     * @param data   the bytes of each operation
+     * @param seqNos the sequence numbers associated with the operations
+     * @return the locations the operations were written to
+     * @throws IOException if writing to the translog resulted in an I/O exception
+     */
+    public Translog.Location[] add(final BytesReference[] data, final long[] seqNos) throws IOException {
+        assert data.length == seqNos.length : data.length + " != " + seqNos.length;
+        maybeWriteBufferedOps();
+        final Translog.Location[] locations = new Translog.Location[data.length];
         synchronized (this) {
             ensureOpen();
-            if (buffer == null) {
-                buffer = new ReleasableBytesStreamOutput(bigArrays);
+            for (int i = 0; i < data.length; i++) {
+                locations[i] = addToBuffer(data[i], seqNos[i]);
             }
-            assert bufferedBytes == buffer.size();
-            final long offset = totalOffset;
-            totalOffset += data.length();
-            data.writeTo(buffer);
+        }
+        return locations;
+    }
+
+    private void maybeWriteBufferedOps() throws IOException {
+        long bufferedBytesBeforeAdd = this.bufferedBytes;
+        if (bufferedBytesBeforeAdd >= forceWriteThreshold) {
+            writeBufferedOps(Long.MAX_VALUE, bufferedBytesBeforeAdd >= forceWriteThreshold * 4);
+        }
+    }
 
-            assert minSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
-            assert maxSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
+    private Translog.Location addToBuffer(final BytesReference data, final long seqNo) throws IOException {
+        assert Thread.holdsLock(this);
+        if (buffer == null) {
+            buffer = new ReleasableBytesStreamOutput(bigArrays);
+        }
+        assert bufferedBytes == buffer.size();
+        final long offset = totalOffset;
+        totalOffset += data.length();
+        data.writeTo(buffer);
 
-            minSeqNo = SequenceNumbers.min(minSeqNo, seqNo);
-            maxSeqNo = SequenceNumbers.max(maxSeqNo, seqNo);
+        assert minSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
+        assert maxSeqNo != SequenceNumbers.NO_OPS_PERFORMED || operationCounter == 0;
 
-            nonFsyncedSequenceNumbers.add(seqNo);
+        minSeqNo = SequenceNumbers.min(minSeqNo, seqNo);
+        maxSeqNo = SequenceNumbers.max(maxSeqNo, seqNo);
 
-            operationCounter++;
+        nonFsyncedSequenceNumbers.add(seqNo);
 
-            assert assertNoSeqNumberConflict(seqNo, data);
+        operationCounter++;
 
-            location = new Translog.Location(generation, offset, data.length());
-            bufferedBytes = buffer.size();
-        }
+        assert assertNoSeqNumberConflict(seqNo, data);
 
+        final Translog.Location location = new Translog.Location(generation, offset, data.length());
+        bufferedBytes = buffer.size();
         return location;
     }
 
@@ -25,22 +25,23 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
 
     @Override
     public final void onCached(IndicesRequestCache.Key key, BytesReference value) {
-        stats().onCached(key, value);
+        stats().onCached(key.mode, key, value);
     }
 
     @Override
-    public final void onHit() {
-        stats().onHit();
+    public final void onHit(IndicesRequestCache.Mode mode) {
+        stats().onHit(mode);
     }
 
     @Override
-    public final void onMiss() {
-        stats().onMiss();
+    public final void onMiss(IndicesRequestCache.Mode mode) {
+        stats().onMiss(mode);
     }
 
     @Override
     public final void onRemoval(RemovalNotification<IndicesRequestCache.Key, BytesReference> notification) {
         stats().onRemoval(
+            notification.getKey().mode,
             notification.getKey(),
             notification.getValue(),
             notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
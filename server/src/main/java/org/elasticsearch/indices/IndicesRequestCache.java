@@ -12,6 +12,7 @@ import com.carrotsearch.hppc.ObjectHashSet;
 import com.carrotsearch.hppc.ObjectSet;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.CheckedSupplier;
@@ -27,17 +28,24 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.mapper.MappingLookup;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * The indices request cache allows to cache a shard level request stage responses, helping with improving
@@ -46,8 +54,10 @@ import java.util.concurrent.ConcurrentMap;
  * eviction to evict old reader associated cache entries as well as scheduler reaper to clean readers that
  * are no longer used or closed shards.
  * <p>
- * Currently, the cache is only enabled for count requests, and can only be opted in on an index
- * level setting that can be dynamically changed and defaults to false.
+ * By default, the cache is only enabled for requests that don't return hits and don't depend on the current time. Requests
+ * that use {@code now} can be cached by rounding it with {@link #INDEX_CACHE_REQUEST_NOW_ROUNDING_SETTING}, and requests that
+ * return a few hits by allowing them with {@link #INDEX_CACHE_REQUEST_MAX_HITS_SETTING}. Each {@link Mode} has a share of the
+ * memory budget of the cache of its own, so that the entries of one mode can't evict those of another.
  * <p>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
@@ -64,40 +74,156 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * The granularity {@code now} is rounded down to in requests that may be cached, so that they can be cached at all. Rounding is
+     * disabled if set to zero, the default.
+     */
+    public static final Setting<TimeValue> INDEX_CACHE_REQUEST_NOW_ROUNDING_SETTING = Setting.timeSetting(
+        "index.requests.cache.now_rounding",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * The number of hits up to which requests that don't opt in or out of the cache explicitly are cached.
+     */
+    public static final Setting<Integer> INDEX_CACHE_REQUEST_MAX_HITS_SETTING = Setting.intSetting(
+        "index.requests.cache.max_hits",
+        0,
+        0,
+        100,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether to cache the results of aggregations over each segment of the shard, so that requests that
+     * are run again after a refresh only have to aggregate the segments that are new.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_SEGMENT_AGGS_SETTING = Setting.boolSetting(
+        "index.requests.cache.segment_aggs.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * The memory budget of the request cache, shared by all {@link Mode}s. The default mode gets whatever the other modes don't take.
+     */
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE = Setting.memorySizeSetting(
         "indices.requests.cache.size",
         "1%",
         Property.NodeScope
     );
+    public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_ROUNDED_NOW_SIZE = modeSizeSetting("rounded_now");
+    public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_HITS_SIZE = modeSizeSetting("hits");
+    public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SEGMENT_AGGS_SIZE = modeSizeSetting("segment_aggs");
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE = Setting.positiveTimeSetting(
         "indices.requests.cache.expire",
         new TimeValue(0),
         Property.NodeScope
     );
 
+    /**
+     * The share of {@link #INDICES_CACHE_QUERY_SIZE} that each mode but the default one gets unless its size is set explicitly.
+     */
+    static final double DEFAULT_MODE_SIZE_RATIO = 0.1;
+
+    private static Setting<ByteSizeValue> modeSizeSetting(String mode) {
+        return Setting.memorySizeSetting(
+            "indices.requests.cache." + mode + ".size",
+            s -> ByteSizeValue.ofBytes((long) (INDICES_CACHE_QUERY_SIZE.get(s).getBytes() * DEFAULT_MODE_SIZE_RATIO)).getStringRep(),
+            Property.NodeScope
+        );
+    }
+
+    /**
+     * The kinds of requests that are cached, each with a share of {@link #INDICES_CACHE_QUERY_SIZE} of its own.
+     */
+    public enum Mode {
+        /**
+         * Requests that don't return hits and don't depend on the current time.
+         */
+        DEFAULT(null),
+        /**
+         * Requests that don't return hits and use a rounded {@code now}.
+         */
+        ROUNDED_NOW(INDICES_CACHE_QUERY_ROUNDED_NOW_SIZE),
+        /**
+         * Requests that return hits and that don't opt in to the cache explicitly, see {@link #INDEX_CACHE_REQUEST_MAX_HITS_SETTING}.
+         */
+        HITS(INDICES_CACHE_QUERY_HITS_SIZE),
+        /**
+         * Aggregation results of single segments.
+         */
+        SEGMENT_AGGS(INDICES_CACHE_QUERY_SEGMENT_AGGS_SIZE);
+
+        // the size of the cache of the mode, null for the default mode which gets the rest of the budget
+        @Nullable
+        private final Setting<ByteSizeValue> sizeSetting;
+
+        Mode(@Nullable Setting<ByteSizeValue> sizeSetting) {
+            this.sizeSetting = sizeSetting;
+        }
+
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
-    private final ByteSizeValue size;
     private final TimeValue expire;
-    private final Cache<Key, BytesReference> cache;
+    private final Map<Mode, Cache<Key, BytesReference>> caches = new EnumMap<>(Mode.class);
 
     IndicesRequestCache(Settings settings) {
-        this.size = INDICES_CACHE_QUERY_SIZE.get(settings);
         this.expire = INDICES_CACHE_QUERY_EXPIRE.exists(settings) ? INDICES_CACHE_QUERY_EXPIRE.get(settings) : null;
-        long sizeInBytes = size.getBytes();
-        CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.<Key, BytesReference>builder()
-            .setMaximumWeight(sizeInBytes)
-            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
-            .removalListener(this);
-        if (expire != null) {
-            cacheBuilder.setExpireAfterAccess(expire);
+        final Map<Mode, Long> sizes = modeSizes(settings);
+        for (Mode mode : Mode.values()) {
+            CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.<Key, BytesReference>builder()
+                .setMaximumWeight(sizes.get(mode))
+                .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+                .removalListener(this);
+            if (expire != null) {
+                cacheBuilder.setExpireAfterAccess(expire);
+            }
+            caches.put(mode, cacheBuilder.build());
+        }
+    }
+
+    /**
+     * Splits {@link #INDICES_CACHE_QUERY_SIZE} between the modes.
+     */
+    static Map<Mode, Long> modeSizes(Settings settings) {
+        final long total = INDICES_CACHE_QUERY_SIZE.get(settings).getBytes();
+        final Map<Mode, Long> sizes = new EnumMap<>(Mode.class);
+        long remaining = total;
+        for (Mode mode : Mode.values()) {
+            if (mode != Mode.DEFAULT) {
+                final long size = mode.sizeSetting.get(settings).getBytes();
+                sizes.put(mode, size);
+                remaining -= size;
+            }
         }
-        cache = cacheBuilder.build();
+        if (remaining < 0) {
+            throw new IllegalArgumentException(
+                "the sizes of the request cache modes add up to ["
+                    + new ByteSizeValue(total - remaining)
+                    + "] which is more than ["
+                    + INDICES_CACHE_QUERY_SIZE.getKey()
+                    + "] ["
+                    + new ByteSizeValue(total)
+                    + "]"
+            );
+        }
+        sizes.put(Mode.DEFAULT, remaining);
+        return sizes;
     }
 
     @Override
     public void close() {
-        cache.invalidateAll();
+        for (Cache<Key, BytesReference> cache : caches.values()) {
+            cache.invalidateAll();
+        }
     }
 
     void clear(CacheEntity entity) {
@@ -116,22 +242,26 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         MappingLookup.CacheKey mappingCacheKey,
         DirectoryReader reader,
         BytesReference cacheKey
+    ) throws Exception {
+        return getOrCompute(Mode.DEFAULT, cacheEntity, loader, mappingCacheKey, reader, cacheKey);
+    }
+
+    BytesReference getOrCompute(
+        Mode mode,
+        CacheEntity cacheEntity,
+        CheckedSupplier<BytesReference, IOException> loader,
+        MappingLookup.CacheKey mappingCacheKey,
+        DirectoryReader reader,
+        BytesReference cacheKey
     ) throws Exception {
         final ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(reader);
         assert cacheHelper != null;
-        final Key key = new Key(cacheEntity, mappingCacheKey, cacheHelper.getKey(), cacheKey);
+        final Key key = new Key(mode, cacheEntity, mappingCacheKey, cacheHelper.getKey(), cacheKey);
         Loader cacheLoader = new Loader(cacheEntity, loader);
-        BytesReference value = cache.computeIfAbsent(key, cacheLoader);
+        BytesReference value = caches.get(mode).computeIfAbsent(key, cacheLoader);
         if (cacheLoader.isLoaded()) {
-            key.entity.onMiss();
-            // see if its the first time we see this reader, and make sure to register a cleanup key
-            CleanupKey cleanupKey = new CleanupKey(cacheEntity, cacheHelper.getKey());
-            if (registeredClosedListeners.containsKey(cleanupKey) == false) {
-                Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
-                if (previous == null) {
-                    cacheHelper.addClosedListener(cleanupKey);
-                }
-            }
+            key.entity.onMiss(mode);
+            registerClosedListener(cacheEntity, cacheHelper.getKey(), cacheHelper::addClosedListener);
             /*
              * Note that we don't use a closed listener for the mapping. Instead
              * we let cache entries for out of date mappings age out. We do this
@@ -142,20 +272,83 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
              * and readers are never changed. Oh well.
              */
         } else {
-            key.entity.onHit();
+            key.entity.onHit(mode);
+        }
+        return value;
+    }
+
+    /**
+     * Get the cached aggregation results of a single segment.
+     * @param segment the cache helper of the reader of the segment, so that results are dropped once the segment gets new deletes
+     * @return the cached results or {@code null} if there aren't any
+     */
+    @Nullable
+    BytesReference getSegment(
+        CacheEntity cacheEntity,
+        MappingLookup.CacheKey mappingCacheKey,
+        IndexReader.CacheHelper segment,
+        BytesReference cacheKey
+    ) {
+        Key key = new Key(Mode.SEGMENT_AGGS, cacheEntity, mappingCacheKey, segment.getKey(), cacheKey);
+        BytesReference value = caches.get(Mode.SEGMENT_AGGS).get(key);
+        if (value == null) {
+            cacheEntity.onMiss(Mode.SEGMENT_AGGS);
+        } else {
+            cacheEntity.onHit(Mode.SEGMENT_AGGS);
         }
         return value;
     }
 
+    /**
+     * Cache the aggregation results of a single segment. They are removed once the reader of the segment is closed.
+     * @param segment the cache helper of the reader of the segment
+     */
+    void putSegment(
+        CacheEntity cacheEntity,
+        MappingLookup.CacheKey mappingCacheKey,
+        IndexReader.CacheHelper segment,
+        BytesReference cacheKey,
+        BytesReference value
+    ) {
+        Key key = new Key(Mode.SEGMENT_AGGS, cacheEntity, mappingCacheKey, segment.getKey(), cacheKey);
+        caches.get(Mode.SEGMENT_AGGS).put(key, value);
+        cacheEntity.onCached(key, value);
+        registerClosedListener(cacheEntity, segment.getKey(), cleanupKey -> segment.addClosedListener(cleanupKey::onClose));
+    }
+
+    /**
+     * Register a listener to clean up the entries of a reader once it is closed if this is the first time we see the reader.
+     */
+    private void registerClosedListener(CacheEntity cacheEntity, Object readerCacheKey, Consumer<CleanupKey> register) {
+        CleanupKey cleanupKey = new CleanupKey(cacheEntity, readerCacheKey);
+        if (registeredClosedListeners.containsKey(cleanupKey) == false) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                register.accept(cleanupKey);
+            }
+        }
+    }
+
+    void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) {
+        invalidate(Mode.DEFAULT, cacheEntity, mappingCacheKey, reader, cacheKey);
+    }
+
     /**
      * Invalidates the given the cache entry for the given key and it's context
+     * @param mode the mode the cache entry was cached with
      * @param cacheEntity the cache entity to invalidate for
      * @param reader the reader to invalidate the cache entry for
      * @param cacheKey the cache key to invalidate
      */
-    void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) {
+    void invalidate(
+        Mode mode,
+        CacheEntity cacheEntity,
+        MappingLookup.CacheKey mappingCacheKey,
+        DirectoryReader reader,
+        BytesReference cacheKey
+    ) {
         assert reader.getReaderCacheHelper() != null;
-        cache.invalidate(new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey));
+        caches.get(mode).invalidate(new Key(mode, cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey));
     }
 
     private static class Loader implements CacheLoader<Key, BytesReference> {
@@ -207,12 +400,12 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         /**
          * Called each time this entity has a cache hit.
          */
-        void onHit();
+        void onHit(Mode mode);
 
         /**
          * Called each time this entity has a cache miss.
          */
-        void onMiss();
+        void onMiss(Mode mode);
 
         /**
          * Called when this entity instance is removed
@@ -223,12 +416,14 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
     static class Key implements Accountable {
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
 
+        public final Mode mode;
         public final CacheEntity entity; // use as identity equality
         public final MappingLookup.CacheKey mappingCacheKey;
         public final Object readerCacheKey;
         public final BytesReference value;
 
-        Key(CacheEntity entity, MappingLookup.CacheKey mappingCacheKey, Object readerCacheKey, BytesReference value) {
+        Key(Mode mode, CacheEntity entity, MappingLookup.CacheKey mappingCacheKey, Object readerCacheKey, BytesReference value) {
+            this.mode = Objects.requireNonNull(mode);
             this.entity = entity;
             this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
             this.readerCacheKey = Objects.requireNonNull(readerCacheKey);
@@ -251,6 +446,7 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             Key key = (Key) o;
+            if (mode != key.mode) return false;
             if (mappingCacheKey.equals(key.mappingCacheKey) == false) return false;
             if (readerCacheKey.equals(key.readerCacheKey) == false) return false;
             if (entity.getCacheIdentity().equals(key.entity.getCacheIdentity()) == false) return false;
@@ -261,6 +457,7 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         @Override
         public int hashCode() {
             int result = entity.getCacheIdentity().hashCode();
+            result = 31 * result + mode.hashCode();
             result = 31 * result + mappingCacheKey.hashCode();
             result = 31 * result + readerCacheKey.hashCode();
             result = 31 * result + value.hashCode();
@@ -269,7 +466,9 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
 
         @Override
         public String toString() {
-            return "Key(mappingKey=["
+            return "Key(mode=["
+                + mode.displayName()
+                + "],mappingKey=["
                 + mappingCacheKey
                 + "],readerKey=["
                 + readerCacheKey
@@ -333,31 +532,47 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
                 currentKeysToClean.add(cleanupKey);
             }
         }
-        if (currentKeysToClean.isEmpty() == false || currentFullClean.isEmpty() == false) {
-            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
-                Key key = iterator.next();
-                if (currentFullClean.contains(key.entity.getCacheIdentity())) {
-                    iterator.remove();
-                } else {
-                    if (currentKeysToClean.contains(new CleanupKey(key.entity, key.readerCacheKey))) {
+        for (Cache<Key, BytesReference> cache : caches.values()) {
+            if (currentKeysToClean.isEmpty() == false || currentFullClean.isEmpty() == false) {
+                for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                    Key key = iterator.next();
+                    if (currentFullClean.contains(key.entity.getCacheIdentity())) {
                         iterator.remove();
+                    } else {
+                        if (currentKeysToClean.contains(new CleanupKey(key.entity, key.readerCacheKey))) {
+                            iterator.remove();
+                        }
                     }
                 }
             }
+            cache.refresh();
         }
-
-        cache.refresh();
     }
 
     /**
-     * Returns the current size of the cache
+     * Returns the current size of the cache, over all modes
      */
     int count() {
-        return cache.count();
+        int count = 0;
+        for (Cache<Key, BytesReference> cache : caches.values()) {
+            count += cache.count();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the current size of the cache of the given mode
+     */
+    int count(Mode mode) {
+        return caches.get(mode).count();
     }
 
     Iterable<Key> cachedKeys() {
-        return cache.keys();
+        final List<Key> keys = new ArrayList<>();
+        for (Cache<Key, BytesReference> cache : caches.values()) {
+            cache.keys().forEach(keys::add);
+        }
+        return keys;
     }
 
     int numRegisteredCloseListeners() { // for testing
@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -97,6 +98,7 @@ import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.recovery.RecoveryStats;
 import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.SearchStats;
@@ -110,6 +112,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -121,7 +124,13 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentResultsCache;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -228,6 +237,8 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
+    private final IoBudget ioBudget;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, IndexStorePlugin.DirectoryFactory> directoryFactories;
@@ -295,6 +306,8 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings);
+        this.ioBudget = new IoBudget(settings, clusterService.getClusterSettings());
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(
@@ -737,7 +750,9 @@ public class IndicesService extends AbstractLifecycleComponent
             idFieldMapper,
             valuesSourceRegistry,
             indexFoldersDeletionListeners,
-            snapshotCommitSuppliers
+            snapshotCommitSuppliers,
+            translogSyncCoordinator,
+            ioBudget
         );
     }
 
@@ -899,6 +914,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return circuitBreakerService;
     }
 
+    public IoBudget getIoBudget() {
+        return ioBudget;
+    }
+
     public IndicesQueryCache getIndicesQueryCache() {
         return indicesQueryCache;
     }
@@ -1459,6 +1478,39 @@ public class IndicesService extends AbstractLifecycleComponent
      * Can the shard request be cached at all?
      */
     public boolean canCache(ShardSearchRequest request, SearchContext context) {
+        IndexSettings settings = context.indexShard().indexSettings();
+        if (canCache(request, context.searchType(), settings, context.from(), context.size()) == false) {
+            return false;
+        }
+        // We use the cacheKey of the index reader as a part of a key of the IndicesRequestCache.
+        assert context.searcher().getIndexReader().getReaderCacheHelper() != null;
+
+        // if now in millis is used (or in the future, a more generic "isDeterministic" flag
+        // then we can't cache based on "now" key within the search request, as it is not deterministic
+        if (context.getSearchExecutionContext().isCacheable() == false) {
+            return false;
+        }
+        return true;
+
+    }
+
+    /**
+     * Returns the granularity in milliseconds that {@code now} should be rounded down to for the given shard request, so that
+     * requests that use it can be cached, or {@code 0} if it shouldn't be rounded, either because rounding is disabled for the index
+     * or because the request can't be cached anyway.
+     */
+    public long nowRoundingInMillis(ShardSearchRequest request, IndexSettings settings) {
+        final long rounding = settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_NOW_ROUNDING_SETTING).millis();
+        if (rounding <= 0) {
+            return 0;
+        }
+        final SearchSourceBuilder source = request.source();
+        final int from = source == null || source.from() == -1 ? SearchService.DEFAULT_FROM : source.from();
+        final int size = source == null || source.size() == -1 ? SearchService.DEFAULT_SIZE : source.size();
+        return canCache(request, request.searchType(), settings, from, size) ? rounding : 0;
+    }
+
+    private static boolean canCache(ShardSearchRequest request, SearchType searchType, IndexSettings settings, int from, int size) {
         // Queries that create a scroll context cannot use the cache.
         // They modify the search context during their execution so using the cache
         // may invalidate the scroll for the next query.
@@ -1470,7 +1522,7 @@ public class IndicesService extends AbstractLifecycleComponent
         // on the overridden statistics. So if you ran two queries on the same index with different stats
         // (because an other shard was updated) you would get wrong results because of the scores
         // (think about top_hits aggs or scripts using the score)
-        if (SearchType.QUERY_THEN_FETCH != context.searchType()) {
+        if (SearchType.QUERY_THEN_FETCH != searchType) {
             return false;
         }
 
@@ -1479,29 +1531,19 @@ public class IndicesService extends AbstractLifecycleComponent
             return false;
         }
 
-        IndexSettings settings = context.indexShard().indexSettings();
         // if not explicitly set in the request, use the index setting, if not, use the request
         if (request.requestCache() == null) {
             if (settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING) == false) {
                 return false;
-            } else if (context.size() != 0) {
+            } else if (size != 0 && from + size > settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_MAX_HITS_SETTING)) {
                 // If no request cache query parameter and shard request cache
-                // is enabled in settings don't cache for requests with size > 0
+                // is enabled in settings don't cache for requests with more hits than allowed
                 return false;
             }
         } else if (request.requestCache() == false) {
             return false;
         }
-        // We use the cacheKey of the index reader as a part of a key of the IndicesRequestCache.
-        assert context.searcher().getIndexReader().getReaderCacheHelper() != null;
-
-        // if now in millis is used (or in the future, a more generic "isDeterministic" flag
-        // then we can't cache based on "now" key within the search request, as it is not deterministic
-        if (context.getSearchExecutionContext().isCacheable() == false) {
-            return false;
-        }
         return true;
-
     }
 
     /**
@@ -1515,13 +1557,40 @@ public class IndicesService extends AbstractLifecycleComponent
         final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
 
         boolean[] loadedFromCache = new boolean[] { true };
-        BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        final SearchExecutionContext searchExecutionContext = context.getSearchExecutionContext();
+        final IndicesRequestCache.Mode mode;
+        final BytesReference cacheKey;
+        // only the hits of requests that are cached because of index.requests.cache.max_hits go to a cache of their own, requests that
+        // opt in explicitly keep using the default cache
+        if (context.size() > 0 && request.requestCache() == null) {
+            mode = IndicesRequestCache.Mode.HITS;
+        } else if (searchExecutionContext.usesRoundedNow()) {
+            mode = IndicesRequestCache.Mode.ROUNDED_NOW;
+        } else {
+            mode = IndicesRequestCache.Mode.DEFAULT;
+        }
+        if (searchExecutionContext.usesRoundedNow()) {
+            // the rounded now is not part of the request, so we add it to the key
+            final long roundedNow = searchExecutionContext.nowInMillis();
+            cacheKey = request.cacheKey((r, out) -> {
+                if (requestCacheKeyDifferentiator != null) {
+                    requestCacheKeyDifferentiator.accept(r, out);
+                }
+                out.writeLong(roundedNow);
+            });
+        } else {
+            cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        }
         BytesReference bytesReference = cacheShardLevelResult(
+            mode,
             context.indexShard(),
             context.getSearchExecutionContext().mappingCacheKey(),
             directoryReader,
             cacheKey,
             out -> {
+                if (canCacheSegmentAggregations(request, context)) {
+                    context.aggregations().segmentResultsCache(new SegmentAggregationsCache(request, context, cacheKey));
+                }
                 queryPhase.execute(context);
                 context.queryResult().writeToNoId(out);
                 loadedFromCache[0] = false;
@@ -1543,6 +1612,7 @@ public class IndicesService extends AbstractLifecycleComponent
             // running a search that times out concurrently will likely timeout again if it's run while we have this `stale` result in the
             // cache. One other option is to not cache requests with a timeout at all...
             indicesRequestCache.invalidate(
+                mode,
                 new IndexShardCacheEntity(context.indexShard()),
                 context.getSearchExecutionContext().mappingCacheKey(),
                 directoryReader,
@@ -1558,12 +1628,90 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the results of the aggregations of the request be cached for each segment on top of the results of the whole shard?
+     */
+    private static boolean canCacheSegmentAggregations(ShardSearchRequest request, SearchContext context) {
+        if (context.indexShard().indexSettings().getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENT_AGGS_SETTING) == false) {
+            return false;
+        }
+        if (context.aggregations() == null || request.source() == null || request.source().aggregations() == null) {
+            return false;
+        }
+        // terminate_after stops the collection of the shard, not of each segment
+        if (context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        return request.source().aggregations().supportsSegmentLevelResults();
+    }
+
+    /**
+     * Caches the results of the aggregations of a request over each segment in the {@link IndicesRequestCache}, keyed on
+     * the segment's reader and the same key as the results of the whole shard. Once the shard is refreshed the request
+     * misses the cache for the whole shard but only has to aggregate the segments that are new or have new deletes.
+     */
+    private class SegmentAggregationsCache implements SegmentResultsCache {
+        private final IndexShardCacheEntity cacheEntity;
+        private final MappingLookup.CacheKey mappingCacheKey;
+        private final BytesReference cacheKey;
+        private final AggregatorFactories.Builder aggregations;
+        private final SearchContext context;
+
+        SegmentAggregationsCache(ShardSearchRequest request, SearchContext context, BytesReference cacheKey) {
+            this.cacheEntity = new IndexShardCacheEntity(context.indexShard());
+            this.mappingCacheKey = context.getSearchExecutionContext().mappingCacheKey();
+            this.cacheKey = cacheKey;
+            this.aggregations = request.source().aggregations();
+            this.context = context;
+        }
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) throws IOException {
+            CacheHelper segment = ctx.reader().getReaderCacheHelper();
+            if (segment == null) {
+                // the reader of the segment filters documents in a way that can't be cached
+                return null;
+            }
+            BytesReference bytes = indicesRequestCache.getSegment(cacheEntity, mappingCacheKey, segment, cacheKey);
+            if (bytes == null) {
+                return null;
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readFrom(in);
+            }
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations results) throws IOException {
+            CacheHelper segment = ctx.reader().getReaderCacheHelper();
+            if (segment == null) {
+                return;
+            }
+            // the results of a segment are usually small, see cacheShardLevelResult
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                results.writeTo(out);
+                indicesRequestCache.putSegment(cacheEntity, mappingCacheKey, segment, cacheKey, out.bytes());
+            }
+        }
+
+        @Override
+        public InternalAggregation.ReduceContext partialReduceContext() {
+            return InternalAggregation.ReduceContext.forPartialReduction(
+                bigArrays,
+                scriptService,
+                aggregations::buildPipelineTree,
+                context::isCancelled
+            );
+        }
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
 
     /**
      * Cache something calculated at the shard level.
+     * @param mode the mode of the cache to use
      * @param shard the shard this item is part of
      * @param reader a reader for this shard. Used to invalidate the cache when there are changes.
      * @param cacheKey key for the thing being cached within this shard
@@ -1571,6 +1719,7 @@ public class IndicesService extends AbstractLifecycleComponent
      * @return the contents of the cache or the result of calling the loader
      */
     private BytesReference cacheShardLevelResult(
+        IndicesRequestCache.Mode mode,
         IndexShard shard,
         MappingLookup.CacheKey mappingCacheKey,
         DirectoryReader reader,
@@ -1594,7 +1743,7 @@ public class IndicesService extends AbstractLifecycleComponent
                 return out.bytes();
             }
         };
-        return indicesRequestCache.getOrCompute(cacheEntity, supplier, mappingCacheKey, reader, cacheKey);
+        return indicesRequestCache.getOrCompute(mode, cacheEntity, supplier, mappingCacheKey, reader, cacheKey);
     }
 
     static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity {
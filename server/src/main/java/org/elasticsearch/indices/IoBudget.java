@@ -0,0 +1,257 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node-wide budget for the disk I/O of merges, peer recoveries and snapshots. All consumers draw from a single token bucket that
+ * refills at {@link #INDICES_IO_MAX_BYTES_PER_SEC_SETTING} and holds up to one second worth of bytes. Consumers with a lower priority
+ * leave part of the bucket to the consumers with a higher priority, so that under contention recoveries get ahead of merges and
+ * merges get ahead of snapshots, while each of them can still use the whole budget when it is alone. A consumer may take more than
+ * the bucket holds and leave it in debt, but never by more than one second worth of bytes. A consumer that takes more than that
+ * waits for the rest itself, so that consumers with a lower priority never wait much longer than a second for their share.
+ * <p>
+ * The budget comes on top of the throttling each consumer already does on its own, such as the auto-throttling of merges and
+ * {@code indices.recovery.max_bytes_per_sec}, and is disabled by default.
+ * <p>
+ * There is a single bucket per node rather than one per disk: the budget limits the combined throughput of all data paths, so
+ * it can't keep a single disk of a node with multiple data paths from being saturated.
+ */
+public class IoBudget {
+
+    public static final Setting<ByteSizeValue> INDICES_IO_MAX_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.io.max_bytes_per_sec",
+        ByteSizeValue.ZERO,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The consumers of the budget, in decreasing order of priority.
+     */
+    public enum Consumer {
+        RECOVERY(0.0),
+        MERGE(0.25),
+        SNAPSHOT(0.5);
+
+        /**
+         * The fraction of the bucket this consumer leaves to the consumers with a higher priority.
+         */
+        private final double reserve;
+
+        Consumer(double reserve) {
+            this.reserve = reserve;
+        }
+
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // same as org.apache.lucene.store.RateLimiter.SimpleRateLimiter
+    private static final int MIN_PAUSE_CHECK_MSEC = 5;
+    private static final long DISABLED_MIN_PAUSE_CHECK_BYTES = ByteSizeValue.ofMb(1).getBytes();
+
+    private final Map<Consumer, CounterMetric> totalBytes = new EnumMap<>(Consumer.class);
+    private final Map<Consumer, CounterMetric> throttledNanos = new EnumMap<>(Consumer.class);
+
+    private volatile double bytesPerSec;
+    // guarded by this
+    private double tokens;
+    private long lastRefillNanos;
+
+    public IoBudget(Settings settings, ClusterSettings clusterSettings) {
+        for (Consumer consumer : Consumer.values()) {
+            totalBytes.put(consumer, new CounterMetric());
+            throttledNanos.put(consumer, new CounterMetric());
+        }
+        setMaxBytesPerSec(INDICES_IO_MAX_BYTES_PER_SEC_SETTING.get(settings));
+        clusterSettings.addSettingsUpdateConsumer(INDICES_IO_MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
+    }
+
+    private synchronized void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
+        final long now = System.nanoTime();
+        final double newBytesPerSec = Math.max(0L, maxBytesPerSec.getBytes());
+        tokens = bytesPerSec > 0 ? Math.max(-newBytesPerSec, Math.min(tokens, newBytesPerSec)) : newBytesPerSec;
+        lastRefillNanos = now;
+        bytesPerSec = newBytesPerSec;
+    }
+
+    /**
+     * Returns <code>true</code> iff a budget is configured.
+     */
+    public boolean isEnabled() {
+        return bytesPerSec > 0;
+    }
+
+    /**
+     * Returns a rate limiter that draws the bytes of the given consumer from this budget, after pausing for the given rate limiter of
+     * the consumer itself, if any.
+     */
+    public RateLimiter rateLimiter(Consumer consumer, @Nullable RateLimiter rateLimiter) {
+        return new BudgetRateLimiter(consumer, rateLimiter);
+    }
+
+    /**
+     * Wraps the given directory so that the outputs merges write to it draw from this budget while it is enabled.
+     */
+    public Directory wrapForMerges(Directory directory) {
+        final RateLimiter mergeRateLimiter = rateLimiter(Consumer.MERGE, null);
+        return new FilterDirectory(directory) {
+            @Override
+            public IndexOutput createOutput(String name, IOContext context) throws IOException {
+                return maybeRateLimit(super.createOutput(name, context), context);
+            }
+
+            @Override
+            public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
+                return maybeRateLimit(super.createTempOutput(prefix, suffix, context), context);
+            }
+
+            private IndexOutput maybeRateLimit(IndexOutput output, IOContext context) {
+                if (context.context == IOContext.Context.MERGE && isEnabled()) {
+                    return new RateLimitedIndexOutput(mergeRateLimiter, output);
+                }
+                return output;
+            }
+        };
+    }
+
+    /**
+     * Takes the given number of bytes out of the bucket on behalf of the given consumer, waiting for the bucket to refill above the
+     * share the consumer leaves to consumers with a higher priority if needed.
+     *
+     * @return the time spent waiting, in nanoseconds
+     */
+    long acquire(Consumer consumer, long bytes) {
+        totalBytes.get(consumer).inc(bytes);
+        long waitedNanos = 0;
+        double remaining = bytes;
+        while (true) {
+            final long waitNanos;
+            synchronized (this) {
+                final double rate = bytesPerSec;
+                if (rate <= 0) {
+                    break;
+                }
+                final long now = System.nanoTime();
+                tokens = Math.min(rate, tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+                lastRefillNanos = now;
+                final double floor = rate * consumer.reserve;
+                if (tokens >= floor) {
+                    // may leave the bucket in debt of up to a second worth of bytes, which the next consumers have to wait out
+                    final double granted = Math.min(remaining, tokens + rate);
+                    tokens -= granted;
+                    remaining -= granted;
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    // the rest has to wait until the debt is paid off
+                    continue;
+                }
+                waitNanos = Math.max(1L, (long) ((floor - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+            }
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                throw new ThreadInterruptedException(e);
+            }
+            waitedNanos += waitNanos;
+        }
+        if (waitedNanos > 0) {
+            throttledNanos.get(consumer).inc(waitedNanos);
+        }
+        return waitedNanos;
+    }
+
+    public IoBudgetStats stats() {
+        final Map<String, IoBudgetStats.ConsumerStats> consumers = new LinkedHashMap<>();
+        for (Consumer consumer : Consumer.values()) {
+            consumers.put(
+                consumer.displayName(),
+                new IoBudgetStats.ConsumerStats(
+                    totalBytes.get(consumer).count(),
+                    TimeUnit.NANOSECONDS.toMillis(throttledNanos.get(consumer).count())
+                )
+            );
+        }
+        return new IoBudgetStats((long) bytesPerSec, consumers);
+    }
+
+    private final class BudgetRateLimiter extends RateLimiter {
+
+        private final Consumer consumer;
+        @Nullable
+        private volatile RateLimiter rateLimiter;
+
+        BudgetRateLimiter(Consumer consumer, @Nullable RateLimiter rateLimiter) {
+            this.consumer = consumer;
+            this.rateLimiter = rateLimiter;
+        }
+
+        /**
+         * Sets the rate of the consumer's own limiter, which applies on top of the budget. The rate of the budget itself is only
+         * controlled by {@link #INDICES_IO_MAX_BYTES_PER_SEC_SETTING}.
+         */
+        @Override
+        public void setMBPerSec(double mbPerSec) {
+            final RateLimiter current = rateLimiter;
+            if (current == null) {
+                rateLimiter = new RateLimiter.SimpleRateLimiter(mbPerSec);
+            } else {
+                current.setMBPerSec(mbPerSec);
+            }
+        }
+
+        @Override
+        public double getMBPerSec() {
+            final RateLimiter rateLimiter = this.rateLimiter;
+            final double budgetMBPerSec = isEnabled() ? bytesPerSec / ByteSizeValue.ofMb(1).getBytes() : Double.POSITIVE_INFINITY;
+            return rateLimiter == null ? budgetMBPerSec : Math.min(budgetMBPerSec, rateLimiter.getMBPerSec());
+        }
+
+        @Override
+        public long getMinPauseCheckBytes() {
+            final RateLimiter rateLimiter = this.rateLimiter;
+            final double rate = bytesPerSec;
+            final long minPauseCheckBytes = rate > 0
+                ? Math.max(1L, (long) (rate * MIN_PAUSE_CHECK_MSEC / 1000))
+                : DISABLED_MIN_PAUSE_CHECK_BYTES;
+            return rateLimiter == null ? minPauseCheckBytes : Math.min(minPauseCheckBytes, rateLimiter.getMinPauseCheckBytes());
+        }
+
+        @Override
+        public long pause(long bytes) throws IOException {
+            final RateLimiter rateLimiter = this.rateLimiter;
+            final long pausedNanos = rateLimiter == null ? 0L : rateLimiter.pause(bytes);
+            return pausedNanos + acquire(consumer, bytes);
+        }
+    }
+}
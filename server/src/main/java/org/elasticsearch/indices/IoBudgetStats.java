@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Statistics about the {@link IoBudget} of a node: the configured limit and, per consumer, the bytes drawn from the budget and the
+ * time spent waiting for it.
+ */
+public class IoBudgetStats implements Writeable, ToXContentFragment {
+
+    private final long limitInBytesPerSec;
+    private final Map<String, ConsumerStats> consumers;
+
+    public IoBudgetStats(long limitInBytesPerSec, Map<String, ConsumerStats> consumers) {
+        this.limitInBytesPerSec = limitInBytesPerSec;
+        this.consumers = consumers;
+    }
+
+    public IoBudgetStats(StreamInput in) throws IOException {
+        limitInBytesPerSec = in.readVLong();
+        consumers = in.readOrderedMap(StreamInput::readString, ConsumerStats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(limitInBytesPerSec);
+        out.writeMap(consumers, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+    }
+
+    /**
+     * The configured budget in bytes per second, {@code 0} if there is none.
+     */
+    public long getLimitInBytesPerSec() {
+        return limitInBytesPerSec;
+    }
+
+    public Map<String, ConsumerStats> getConsumers() {
+        return consumers;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("io_budget");
+        builder.humanReadableField("limit_in_bytes_per_sec", "limit_per_sec", new ByteSizeValue(limitInBytesPerSec));
+        builder.startObject("consumers");
+        for (Map.Entry<String, ConsumerStats> entry : consumers.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IoBudgetStats that = (IoBudgetStats) o;
+        return limitInBytesPerSec == that.limitInBytesPerSec && consumers.equals(that.consumers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(limitInBytesPerSec, consumers);
+    }
+
+    public static class ConsumerStats implements Writeable, ToXContentFragment {
+
+        private final long totalInBytes;
+        private final long throttledTimeInMillis;
+
+        public ConsumerStats(long totalInBytes, long throttledTimeInMillis) {
+            this.totalInBytes = totalInBytes;
+            this.throttledTimeInMillis = throttledTimeInMillis;
+        }
+
+        public ConsumerStats(StreamInput in) throws IOException {
+            totalInBytes = in.readVLong();
+            throttledTimeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(totalInBytes);
+            out.writeVLong(throttledTimeInMillis);
+        }
+
+        /**
+         * The number of bytes the consumer drew from the budget.
+         */
+        public long getTotalInBytes() {
+            return totalInBytes;
+        }
+
+        /**
+         * The time the consumer spent waiting for the budget, in milliseconds.
+         */
+        public long getThrottledTimeInMillis() {
+            return throttledTimeInMillis;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.humanReadableField("total_in_bytes", "total", new ByteSizeValue(totalInBytes));
+            builder.humanReadableField("throttled_time_in_millis", "throttled_time", new TimeValue(throttledTimeInMillis));
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConsumerStats that = (ConsumerStats) o;
+            return totalInBytes == that.totalInBytes && throttledTimeInMillis == that.throttledTimeInMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(totalInBytes, throttledTimeInMillis);
+        }
+    }
+}
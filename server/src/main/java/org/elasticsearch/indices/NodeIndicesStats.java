@@ -19,6 +19,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.bulk.stats.BulkStats;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.cache.request.RequestCacheStats;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCacheStats;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.flush.FlushStats;
@@ -141,6 +142,11 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
         return stats.getRequestCache();
     }
 
+    @Nullable
+    public StoredFieldsCacheStats getStoredFieldsCache() {
+        return stats.getStoredFieldsCache();
+    }
+
     @Nullable
     public CompletionStats getCompletion() {
         return stats.getCompletion();
@@ -25,6 +25,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.indices.IoBudget;
 import org.elasticsearch.jdk.JavaVersion;
 import org.elasticsearch.monitor.os.OsProbe;
 import org.elasticsearch.node.NodeRoleSettings;
@@ -243,6 +244,7 @@ public class RecoverySettings {
     private volatile int maxConcurrentFileChunks;
     private volatile int maxConcurrentOperations;
     private volatile SimpleRateLimiter rateLimiter;
+    private volatile RateLimiter budgetedRateLimiter;
     private volatile TimeValue retryDelayStateSync;
     private volatile TimeValue retryDelayNetwork;
     private volatile TimeValue activityTimeout;
@@ -257,7 +259,14 @@ public class RecoverySettings {
 
     private volatile ByteSizeValue chunkSize = DEFAULT_CHUNK_SIZE;
 
+    private final IoBudget ioBudget;
+
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
+        this(settings, clusterSettings, new IoBudget(settings, clusterSettings));
+    }
+
+    public RecoverySettings(Settings settings, ClusterSettings clusterSettings, IoBudget ioBudget) {
+        this.ioBudget = ioBudget;
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
@@ -276,6 +285,7 @@ public class RecoverySettings {
         } else {
             rateLimiter = new SimpleRateLimiter(maxBytesPerSec.getMbFrac());
         }
+        budgetedRateLimiter = ioBudget.rateLimiter(IoBudget.Consumer.RECOVERY, rateLimiter);
         this.useSnapshotsDuringRecovery = INDICES_RECOVERY_USE_SNAPSHOTS_SETTING.get(settings);
         this.maxConcurrentSnapshotFileDownloads = INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS.get(settings);
         this.maxConcurrentSnapshotFileDownloadsPerNode = INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS_PER_NODE.get(settings);
@@ -306,7 +316,14 @@ public class RecoverySettings {
     }
 
     public RateLimiter rateLimiter() {
-        return rateLimiter;
+        return ioBudget.isEnabled() ? budgetedRateLimiter : rateLimiter;
+    }
+
+    /**
+     * The node-wide I/O budget that recoveries, merges and snapshots share.
+     */
+    public IoBudget ioBudget() {
+        return ioBudget;
     }
 
     public TimeValue retryDelayNetwork() {
@@ -373,6 +390,7 @@ public class RecoverySettings {
         } else {
             rateLimiter = new SimpleRateLimiter(maxBytesPerSec.getMbFrac());
         }
+        budgetedRateLimiter = ioBudget.rateLimiter(IoBudget.Consumer.RECOVERY, rateLimiter);
     }
 
     public int getMaxConcurrentFileChunks() {
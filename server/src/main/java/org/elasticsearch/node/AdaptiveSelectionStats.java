@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -26,30 +27,61 @@ import java.util.stream.Collectors;
 /**
  * Class representing statistics about adaptive replica selection. This includes
  * EWMA of queue size, service time, and response time, as well as outgoing
- * searches to each node and the "rank" based on the ARS formula.
+ * searches to each node and the "rank" based on the ARS formula, and the
+ * number of shard requests that were hedged.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
 
     private final Map<String, Long> clientOutgoingConnections;
     private final Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats;
+    private final long hedgedRequests;
+    private final long hedgedRequestsWon;
+    private final long hedgedRequestsOverBudget;
 
     public AdaptiveSelectionStats(
         Map<String, Long> clientConnections,
         Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats
+    ) {
+        this(clientConnections, nodeComputedStats, 0, 0, 0);
+    }
+
+    public AdaptiveSelectionStats(
+        Map<String, Long> clientConnections,
+        Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats,
+        long hedgedRequests,
+        long hedgedRequestsWon,
+        long hedgedRequestsOverBudget
     ) {
         this.clientOutgoingConnections = clientConnections;
         this.nodeComputedStats = nodeComputedStats;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgedRequestsWon = hedgedRequestsWon;
+        this.hedgedRequestsOverBudget = hedgedRequestsOverBudget;
     }
 
     public AdaptiveSelectionStats(StreamInput in) throws IOException {
         this.clientOutgoingConnections = in.readMap(StreamInput::readString, StreamInput::readLong);
         this.nodeComputedStats = in.readMap(StreamInput::readString, ResponseCollectorService.ComputedNodeStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            this.hedgedRequests = in.readVLong();
+            this.hedgedRequestsWon = in.readVLong();
+            this.hedgedRequestsOverBudget = in.readVLong();
+        } else {
+            this.hedgedRequests = 0;
+            this.hedgedRequestsWon = 0;
+            this.hedgedRequestsOverBudget = 0;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(this.clientOutgoingConnections, StreamOutput::writeString, StreamOutput::writeLong);
         out.writeMap(this.nodeComputedStats, StreamOutput::writeString, (stream, stats) -> stats.writeTo(stream));
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(this.hedgedRequests);
+            out.writeVLong(this.hedgedRequestsWon);
+            out.writeVLong(this.hedgedRequestsOverBudget);
+        }
     }
 
     @Override
@@ -71,11 +103,20 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                     builder.field("avg_response_time", new TimeValue((long) stats.responseTime, TimeUnit.NANOSECONDS).toString());
                 }
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
+                if (builder.humanReadable()) {
+                    builder.field("tail_response_time", new TimeValue((long) stats.tailResponseTime, TimeUnit.NANOSECONDS).toString());
+                }
+                builder.field("tail_response_time_ns", (long) stats.tailResponseTime);
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
             }
             builder.endObject();
         }
         builder.endObject();
+        builder.startObject("hedged_requests");
+        builder.field("sent", hedgedRequests);
+        builder.field("won", hedgedRequestsWon);
+        builder.field("over_budget", hedgedRequestsOverBudget);
+        builder.endObject();
         return builder;
     }
 
@@ -93,6 +134,27 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
         return nodeComputedStats;
     }
 
+    /**
+     * Returns the number of shard requests that were hedged with a duplicate request to another copy of the shard
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Returns the number of hedged requests that responded before the request they duplicated
+     */
+    public long getHedgedRequestsWon() {
+        return hedgedRequestsWon;
+    }
+
+    /**
+     * Returns the number of late shard requests that were not hedged because the hedging budget was used up
+     */
+    public long getHedgedRequestsOverBudget() {
+        return hedgedRequestsOverBudget;
+    }
+
     /**
      * Returns a map of node id to the ranking of the nodes based on the adaptive replica formula
      */
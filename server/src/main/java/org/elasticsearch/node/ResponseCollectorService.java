@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -16,9 +17,13 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -28,7 +33,10 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * Collects statistics about queue size, response time, and service time of
  * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * coordinating node. The tail of the recent response times of each node is
+ * tracked too, and can be used to rank nodes and to decide when a shard
+ * request that is late should be hedged with a duplicate request to another
+ * copy of the shard.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -37,10 +45,69 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * Whether to rank nodes on the tail of their recent response times rather than on the moving average only, so
+     * that a node that starts to stall, for instance because of a GC pause or a merge, is avoided sooner.
+     */
+    public static final Setting<Boolean> RANK_BY_TAIL_LATENCY_SETTING = Setting.boolSetting(
+        "cluster.routing.adaptive_replica_selection.rank_by_tail_latency",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The fraction of shard requests that may be hedged with a duplicate request to another copy of the shard when
+     * their response is late. {@code 0} disables hedging.
+     */
+    public static final Setting<Double> HEDGED_REQUESTS_BUDGET_SETTING = Setting.doubleSetting(
+        "cluster.routing.adaptive_replica_selection.hedged_requests.budget",
+        0.0,
+        0.0,
+        1.0,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The number of recent response times per node that the tail latency is computed on.
+     */
+    static final int TAIL_WINDOW_SIZE = 100;
+    static final double TAIL_PERCENTILE = 0.95;
+    /**
+     * The minimum number of response times of a node before its tail latency is used to hedge requests.
+     */
+    static final int MIN_RESPONSES_TO_HEDGE = 20;
+    /**
+     * The maximum number of hedged requests the budget can save up for a burst of late responses.
+     */
+    static final double MAX_HEDGING_TOKENS = 10.0;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
+    private volatile boolean rankByTailLatency;
+    private volatile double hedgedRequestsBudget;
+    // guarded by this
+    private double hedgingTokens;
+    private final CounterMetric hedgedRequests = new CounterMetric();
+    private final CounterMetric hedgedRequestsWon = new CounterMetric();
+    private final CounterMetric hedgedRequestsOverBudget = new CounterMetric();
+
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
+        this.rankByTailLatency = RANK_BY_TAIL_LATENCY_SETTING.get(clusterService.getSettings());
+        this.hedgedRequestsBudget = HEDGED_REQUESTS_BUDGET_SETTING.get(clusterService.getSettings());
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(RANK_BY_TAIL_LATENCY_SETTING, this::setRankByTailLatency);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(HEDGED_REQUESTS_BUDGET_SETTING, this::setHedgedRequestsBudget);
+    }
+
+    private void setRankByTailLatency(boolean rankByTailLatency) {
+        this.rankByTailLatency = rankByTailLatency;
+    }
+
+    private synchronized void setHedgedRequestsBudget(double hedgedRequestsBudget) {
+        this.hedgedRequestsBudget = hedgedRequestsBudget;
+        this.hedgingTokens = 0;
     }
 
     @Override
@@ -61,26 +128,86 @@ public final class ResponseCollectorService implements ClusterStateListener {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
                 ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                ns = new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
             } else {
                 ns.queueSize.addValue((double) queueSize);
                 ns.responseTime.addValue((double) responseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
-                return ns;
             }
+            ns.addResponseTime(responseTimeNanos);
+            return ns;
         });
     }
 
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
+        final boolean rankByTailLatency = this.rankByTailLatency;
         // Transform the mutable object internally used for accounting into the computed version
         Map<String, ComputedNodeStats> nodeStats = new HashMap<>(nodeIdToStats.size());
-        nodeIdToStats.forEach((k, v) -> { nodeStats.put(k, new ComputedNodeStats(clientNum, v)); });
+        nodeIdToStats.forEach((k, v) -> { nodeStats.put(k, new ComputedNodeStats(clientNum, v, rankByTailLatency)); });
         return nodeStats;
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return new AdaptiveSelectionStats(
+            clientSearchConnections,
+            getAllNodeStatistics(),
+            hedgedRequests.count(),
+            hedgedRequestsWon.count(),
+            hedgedRequestsOverBudget.count()
+        );
+    }
+
+    /**
+     * Returns the time in nanoseconds after which a shard request to the given node should be hedged with a duplicate
+     * request to another copy of the shard, or {@code -1} if it should not be hedged because hedging is disabled or too
+     * little is known about the response times of the node.
+     */
+    public long getHedgeDelayNanos(String nodeId) {
+        if (hedgedRequestsBudget <= 0) {
+            return -1;
+        }
+        final NodeStatistics stats = nodeIdToStats.get(nodeId);
+        if (stats == null || stats.numResponses < MIN_RESPONSES_TO_HEDGE) {
+            return -1;
+        }
+        return (long) stats.tailResponseTime;
+    }
+
+    /**
+     * Adds the share of a shard request to the hedging budget.
+     */
+    public void onShardRequest() {
+        final double budget = hedgedRequestsBudget;
+        if (budget > 0) {
+            synchronized (this) {
+                hedgingTokens = Math.min(MAX_HEDGING_TOKENS, hedgingTokens + budget);
+            }
+        }
+    }
+
+    /**
+     * Takes a hedged request out of the hedging budget.
+     *
+     * @return <code>true</code> if the budget allows for the hedged request to be sent
+     */
+    public boolean tryHedge() {
+        synchronized (this) {
+            if (hedgedRequestsBudget > 0 && hedgingTokens >= 1) {
+                hedgingTokens -= 1;
+                hedgedRequests.inc();
+                return true;
+            }
+        }
+        hedgedRequestsOverBudget.inc();
+        return false;
+    }
+
+    /**
+     * Records that a hedged request responded before the request it duplicated.
+     */
+    public void onHedgeWon() {
+        hedgedRequestsWon.inc();
     }
 
     /**
@@ -90,13 +217,14 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public Optional<ComputedNodeStats> getNodeStatistics(final String nodeId) {
         final int clientNum = nodeIdToStats.size();
-        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> new ComputedNodeStats(clientNum, ns));
+        final boolean rankByTailLatency = this.rankByTailLatency;
+        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> new ComputedNodeStats(clientNum, ns, rankByTailLatency));
     }
 
     /**
      * Struct-like class encapsulating a point-in-time snapshot of a particular
      * node's statistics. This includes the EWMA of queue size, response time,
-     * and service time.
+     * and service time, and the tail of the recent response times.
      */
     public static class ComputedNodeStats implements Writeable {
         // We store timestamps with nanosecond precision, however, the
@@ -111,22 +239,40 @@ public final class ResponseCollectorService implements ClusterStateListener {
         public final int queueSize;
         public final double responseTime;
         public final double serviceTime;
+        public final double tailResponseTime;
+        public final boolean rankByTailLatency;
 
         public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this(nodeId, clientNum, queueSize, responseTime, serviceTime, 0, false);
+        }
+
+        public ComputedNodeStats(
+            String nodeId,
+            int clientNum,
+            int queueSize,
+            double responseTime,
+            double serviceTime,
+            double tailResponseTime,
+            boolean rankByTailLatency
+        ) {
             this.nodeId = nodeId;
             this.clientNum = clientNum;
             this.queueSize = queueSize;
             this.responseTime = responseTime;
             this.serviceTime = serviceTime;
+            this.tailResponseTime = tailResponseTime;
+            this.rankByTailLatency = rankByTailLatency;
         }
 
-        ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
+        ComputedNodeStats(int clientNum, NodeStatistics nodeStats, boolean rankByTailLatency) {
             this(
                 nodeStats.nodeId,
                 clientNum,
                 (int) nodeStats.queueSize.getAverage(),
                 nodeStats.responseTime.getAverage(),
-                nodeStats.serviceTime
+                nodeStats.serviceTime,
+                nodeStats.tailResponseTime,
+                rankByTailLatency
             );
         }
 
@@ -136,6 +282,13 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.queueSize = in.readInt();
             this.responseTime = in.readDouble();
             this.serviceTime = in.readDouble();
+            if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+                this.tailResponseTime = in.readDouble();
+                this.rankByTailLatency = in.readBoolean();
+            } else {
+                this.tailResponseTime = 0;
+                this.rankByTailLatency = false;
+            }
         }
 
         @Override
@@ -145,6 +298,10 @@ public final class ResponseCollectorService implements ClusterStateListener {
             out.writeInt(this.queueSize);
             out.writeDouble(this.responseTime);
             out.writeDouble(this.serviceTime);
+            if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+                out.writeDouble(this.tailResponseTime);
+                out.writeBoolean(this.rankByTailLatency);
+            }
         }
 
         /**
@@ -165,8 +322,8 @@ public final class ResponseCollectorService implements ClusterStateListener {
             double qBar = queueSize;
             double qHatS = 1 + concurrencyCompensation + qBar;
 
-            // EWMA of response time
-            double rS = responseTime / FACTOR;
+            // EWMA of response time, or the tail of the recent response times if it is worse and nodes are ranked on it
+            double rS = (rankByTailLatency ? Math.max(responseTime, tailResponseTime) : responseTime) / FACTOR;
             // EWMA of service time. We match the paper's notation, which
             // defines service time as the inverse of service rate (muBarS).
             double muBarSInverse = serviceTime / FACTOR;
@@ -189,6 +346,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
             sb.append("nodes: ").append(clientNum);
             sb.append(", queue: ").append(queueSize);
             sb.append(", response time: ").append(String.format(Locale.ROOT, "%.1f", responseTime));
+            sb.append(", tail response time: ").append(String.format(Locale.ROOT, "%.1f", tailResponseTime));
             sb.append(", service time: ").append(String.format(Locale.ROOT, "%.1f", serviceTime));
             sb.append(", rank: ").append(String.format(Locale.ROOT, "%.1f", rank(1)));
             sb.append(")");
@@ -198,14 +356,22 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
     /**
      * Class encapsulating a node's exponentially weighted queue size, response
-     * time, and service time, however, this class is private and intended only
-     * to be used for the internal accounting of {@code ResponseCollectorService}.
+     * time, and service time, and the tail of its recent response times,
+     * however, this class is private and intended only to be used for the
+     * internal accounting of {@code ResponseCollectorService}.
      */
     private static class NodeStatistics {
         final String nodeId;
         final ExponentiallyWeightedMovingAverage queueSize;
         final ExponentiallyWeightedMovingAverage responseTime;
         double serviceTime;
+        // a ring buffer of the recent response times, and the same response times kept in order so that the tail can be read off
+        // them rather than sorted for every response
+        private final long[] recentResponseTimes = new long[TAIL_WINDOW_SIZE];
+        private final long[] sortedResponseTimes = new long[TAIL_WINDOW_SIZE];
+        private int nextResponseSlot;
+        volatile int numResponses;
+        volatile double tailResponseTime;
 
         NodeStatistics(
             String nodeId,
@@ -218,5 +384,31 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.responseTime = responseTimeEWMA;
             this.serviceTime = serviceTimeEWMA;
         }
+
+        /**
+         * Adds a response time to the window the tail is computed on. Always called under the lock of the entry of the node in
+         * {@code nodeIdToStats}.
+         */
+        void addResponseTime(long responseTimeNanos) {
+            int count = numResponses;
+            if (count == TAIL_WINDOW_SIZE) {
+                // the oldest response time leaves the window
+                final int evicted = Arrays.binarySearch(sortedResponseTimes, 0, count, recentResponseTimes[nextResponseSlot]);
+                assert evicted >= 0;
+                System.arraycopy(sortedResponseTimes, evicted + 1, sortedResponseTimes, evicted, count - evicted - 1);
+                count--;
+            }
+            recentResponseTimes[nextResponseSlot] = responseTimeNanos;
+            nextResponseSlot = (nextResponseSlot + 1) % TAIL_WINDOW_SIZE;
+            int insertion = Arrays.binarySearch(sortedResponseTimes, 0, count, responseTimeNanos);
+            if (insertion < 0) {
+                insertion = -insertion - 1;
+            }
+            System.arraycopy(sortedResponseTimes, insertion, sortedResponseTimes, insertion + 1, count - insertion);
+            sortedResponseTimes[insertion] = responseTimeNanos;
+            count++;
+            tailResponseTime = sortedResponseTimes[(int) Math.ceil(TAIL_PERCENTILE * count) - 1];
+            numResponses = count;
+        }
     }
 }
@@ -85,6 +85,7 @@ import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.indices.IoBudget;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.repositories.FinalizeSnapshotContext;
@@ -261,6 +262,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private volatile RateLimiter snapshotRateLimiter;
 
+    // snapshotRateLimiter combined with the node's I/O budget, created lazily
+    private volatile RateLimiter budgetedSnapshotRateLimiter;
+
     private volatile RateLimiter restoreRateLimiter;
 
     private final CounterMetric snapshotRateLimitingTimeInNanos = new CounterMetric();
@@ -633,6 +637,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         final Settings updatedSettings = metadata.settings();
         if (updatedSettings.equals(previousSettings) == false) {
             snapshotRateLimiter = getRateLimiter(metadata.settings(), MAX_SNAPSHOT_BYTES_PER_SEC);
+            budgetedSnapshotRateLimiter = null;
             restoreRateLimiter = getRateLimiter(metadata.settings(), MAX_RESTORE_BYTES_PER_SEC);
         }
 
@@ -3159,20 +3164,34 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     }
 
     /**
-     * Wrap the snapshot rate limiter (controlled by the repository setting `max_snapshot_bytes_per_sec`) around the given stream. Any
-     * throttling is recorded in the value returned by {@link BlobStoreRepository#getSnapshotThrottleTimeInNanos()}.
+     * Wrap the snapshot rate limiter (controlled by the repository setting `max_snapshot_bytes_per_sec` and the node's I/O budget
+     * `indices.io.max_bytes_per_sec`) around the given stream. Any throttling is recorded in the value returned by
+     * {@link BlobStoreRepository#getSnapshotThrottleTimeInNanos()}.
      */
     public InputStream maybeRateLimitSnapshots(InputStream stream) {
         return maybeRateLimitSnapshots(stream, snapshotRateLimitingTimeInNanos::inc);
     }
 
     /**
-     * Wrap the snapshot rate limiter (controlled by the repository setting `max_snapshot_bytes_per_sec`) around the given stream. Any
-     * throttling is reported to the given listener and not otherwise recorded in the value returned by {@link
-     * BlobStoreRepository#getSnapshotThrottleTimeInNanos()}.
+     * Wrap the snapshot rate limiter (controlled by the repository setting `max_snapshot_bytes_per_sec` and the node's I/O budget
+     * `indices.io.max_bytes_per_sec`) around the given stream. Any throttling is reported to the given listener and not otherwise
+     * recorded in the value returned by {@link BlobStoreRepository#getSnapshotThrottleTimeInNanos()}.
      */
     public InputStream maybeRateLimitSnapshots(InputStream stream, RateLimitingInputStream.Listener throttleListener) {
-        return maybeRateLimit(stream, () -> snapshotRateLimiter, throttleListener);
+        return maybeRateLimit(stream, this::snapshotRateLimiter, throttleListener);
+    }
+
+    private RateLimiter snapshotRateLimiter() {
+        final IoBudget ioBudget = recoverySettings.ioBudget();
+        if (ioBudget.isEnabled() == false) {
+            return snapshotRateLimiter;
+        }
+        RateLimiter rateLimiter = budgetedSnapshotRateLimiter;
+        if (rateLimiter == null) {
+            rateLimiter = ioBudget.rateLimiter(IoBudget.Consumer.SNAPSHOT, snapshotRateLimiter);
+            budgetedSnapshotRateLimiter = rateLimiter;
+        }
+        return rateLimiter;
     }
 
     @Override
@@ -11,6 +11,7 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TopDocs;
@@ -40,6 +41,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -121,6 +123,8 @@ import org.elasticsearch.threadpool.ThreadPool.Names;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -212,6 +216,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * The number of bytes of buckets that a {@code terms} aggregation without sub-aggregations may hold on heap before it spills them
+     * to temporary files under the temporary directory of the node and merges them back when building its results. Defaults to
+     * {@code -1}, which never spills.
+     */
+    public static final Setting<ByteSizeValue> TERMS_AGGS_SPILL_THRESHOLD_SETTING = Setting.byteSizeSetting(
+        "search.aggs.terms.spill_threshold",
+        ByteSizeValue.MINUS_ONE,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         new ByteSizeValue(10, ByteSizeUnit.MB),
@@ -219,6 +235,31 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * The number of slices the segments of a shard can be split into so that they are searched concurrently on the
+     * {@link Names#SEARCH_WORKER} thread pool. Defaults to {@code 1}, which searches them sequentially.
+     */
+    public static final Setting<Integer> MAX_SLICES_PER_SHARD_SETTING = Setting.intSetting(
+        "search.max_slices_per_shard",
+        1,
+        1,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The number of threads the final reduce of the aggregations of a request can use on the coordinating node, including the
+     * thread that started it, to reduce sibling aggregations and the sub-aggregations of buckets in parallel on the
+     * {@link Names#SEARCH_WORKER} thread pool. Defaults to {@code 1}, which reduces them sequentially.
+     */
+    public static final Setting<Integer> MAX_REDUCE_PARALLELISM_SETTING = Setting.intSetting(
+        "search.max_reduce_parallelism",
+        1,
+        1,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final int DEFAULT_SIZE = 10;
     public static final int DEFAULT_FROM = 0;
 
@@ -256,6 +297,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile long termsAggsSpillThreshold;
+
+    /**
+     * The directory of this node that {@code terms} aggregations spill to, or {@code null} if it couldn't be created.
+     */
+    @Nullable
+    private final Path termsAggsSpillPath;
+
+    private volatile int maxSlicesPerShard;
+
+    private volatile int maxReduceParallelism;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -276,7 +329,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         FetchPhase fetchPhase,
         ResponseCollectorService responseCollectorService,
         CircuitBreakerService circuitBreakerService,
-        ExecutorSelector executorSelector
+        ExecutorSelector executorSelector,
+        Path tmpPath
     ) {
         Settings settings = clusterService.getSettings();
         this.threadPool = threadPool;
@@ -318,6 +372,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        termsAggsSpillThreshold = TERMS_AGGS_SPILL_THRESHOLD_SETTING.get(settings).getBytes();
+        termsAggsSpillPath = createTermsAggsSpillPath(tmpPath);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(TERMS_AGGS_SPILL_THRESHOLD_SETTING, this::setTermsAggsSpillThreshold);
+
+        maxSlicesPerShard = MAX_SLICES_PER_SHARD_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_SLICES_PER_SHARD_SETTING, this::setMaxSlicesPerShard);
+
+        maxReduceParallelism = MAX_REDUCE_PARALLELISM_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_REDUCE_PARALLELISM_SETTING, this::setMaxReduceParallelism);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -348,6 +413,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.defaultSearchTimeout = defaultSearchTimeout;
     }
 
+    private void setMaxSlicesPerShard(int maxSlicesPerShard) {
+        this.maxSlicesPerShard = maxSlicesPerShard;
+    }
+
+    private void setMaxReduceParallelism(int maxReduceParallelism) {
+        this.maxReduceParallelism = maxReduceParallelism;
+    }
+
     private void setDefaultAllowPartialSearchResults(boolean defaultAllowPartialSearchResults) {
         this.defaultAllowPartialSearchResults = defaultAllowPartialSearchResults;
     }
@@ -368,6 +441,27 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setTermsAggsSpillThreshold(ByteSizeValue termsAggsSpillThreshold) {
+        this.termsAggsSpillThreshold = termsAggsSpillThreshold.getBytes();
+    }
+
+    /**
+     * Creates a directory of this node under its temporary directory for {@code terms} aggregations to spill to. Aggregations never
+     * spill if the directory can't be created, for instance because the temporary directory isn't writable.
+     */
+    @Nullable
+    private static Path createTermsAggsSpillPath(Path tmpPath) {
+        try {
+            return Files.createTempDirectory(tmpPath, "terms_spill");
+        } catch (IOException | SecurityException e) {
+            logger.warn(
+                () -> new ParameterizedMessage("failed to create a directory under [{}] for terms aggregations to spill to", tmpPath),
+                e
+            );
+            return null;
+        }
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -421,6 +515,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     protected void doClose() {
         doStop();
         keepAliveReaper.cancel();
+        if (termsAggsSpillPath != null) {
+            try {
+                IOUtils.rm(termsAggsSpillPath);
+            } catch (IOException e) {
+                logger.warn(() -> new ParameterizedMessage("failed to delete terms spill directory [{}]", termsAggsSpillPath), e);
+            }
+        }
     }
 
     public void executeDfsPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
@@ -1016,11 +1117,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 fetchPhase,
                 lowLevelCancellation
             );
+            if (maxSlicesPerShard > 1) {
+                searchContext.searcher().setSliceExecutor(threadPool.executor(Names.SEARCH_WORKER), maxSlicesPerShard);
+            }
+            searchContext.getSearchExecutionContext()
+                .setNowRounding(indicesService.nowRoundingInMillis(request, reader.indexShard().indexSettings()));
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
             // during rewrite and normalized / evaluate templates etc.
             SearchExecutionContext context = new SearchExecutionContext(searchContext.getSearchExecutionContext());
             Rewriteable.rewrite(request.getRewriteable(), context, true);
+            // the rewritten request may have resolved the rounded now, which then has to be part of its cache key
+            searchContext.getSearchExecutionContext().addRoundedNowUsage(context);
             assert searchContext.getSearchExecutionContext().isCacheable();
             success = true;
         } finally {
@@ -1216,7 +1324,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
                 context::buildFilteredQuery,
-                enableRewriteAggsToFilterByFilter
+                enableRewriteAggsToFilterByFilter,
+                termsAggsSpillThreshold,
+                termsAggsSpillPath
             );
             context.addReleasable(aggContext);
             try {
@@ -1609,12 +1719,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             @Override
             public ReduceContext forFinalReduction() {
                 PipelineTree pipelineTree = requestToPipelineTree(request);
+                int parallelism = maxReduceParallelism;
                 return InternalAggregation.ReduceContext.forFinalReduction(
                     bigArrays,
                     scriptService,
                     multiBucketConsumerService.create(),
                     pipelineTree,
-                    isCanceled
+                    isCanceled,
+                    parallelism > 1 ? threadPool.executor(Names.SEARCH_WORKER) : null,
+                    parallelism
                 );
             }
         };
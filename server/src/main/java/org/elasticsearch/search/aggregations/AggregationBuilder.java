@@ -180,6 +180,17 @@ public abstract class AggregationBuilder
         return DEFAULT_PREALLOCATION;
     }
 
+    /**
+     * Can the results of this aggregation over a shard be built by reducing
+     * its results over each segment of the shard? Aggregations that trim their
+     * results on the shard, like {@code terms} with its {@code shard_size},
+     * would return different results and must return {@code false}, the default.
+     * Sub-aggregations are checked separately.
+     */
+    public boolean supportsSegmentLevelResults() {
+        return false;
+    }
+
     /** Common xcontent fields shared among aggregator builders */
     public static final class CommonFields extends ParseField.CommonFields {
         public static final ParseField VALUE_TYPE = new ParseField("value_type");
@@ -33,6 +33,14 @@ public class AggregationPhase {
         try {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
             bucketCollector = MultiBucketCollector.wrap(true, List.of(context.aggregations().aggregators()));
+            SegmentResultsCache segmentResultsCache = context.aggregations().segmentResultsCache();
+            if (segmentResultsCache != null) {
+                // aggregate each segment on its own so its results can be cached, batching the documents of each segment
+                bucketCollector = new SegmentResultsCollector(bucketCollector, context.aggregations().factories(), segmentResultsCache);
+            } else if (context.getProfilers() == null && BatchingBucketCollector.shouldBatch(context.aggregations().aggregators())) {
+                // hand the documents to the aggregators in blocks, the profiler times the collection of each document instead
+                bucketCollector = new BatchingBucketCollector(bucketCollector);
+            }
             bucketCollector.preCollection();
         } catch (IOException e) {
             throw new AggregationInitializationException("Could not initialize aggregators", e);
@@ -54,6 +62,31 @@ public class AggregationPhase {
             return;
         }
 
+        Collector collector = context.queryCollectors().get(AggregationPhase.class);
+        if (collector instanceof BatchingBucketCollector) {
+            try {
+                ((BatchingBucketCollector) collector).flush();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations", e);
+            }
+        }
+
+        if (collector instanceof SegmentResultsCollector) {
+            SegmentResultsCollector segmentResultsCollector = (SegmentResultsCollector) collector;
+            List<InternalAggregations> segmentResults;
+            try {
+                segmentResults = segmentResultsCollector.finish(context.queryResult().searchTimedOut() == false);
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to build aggregations of segment", e);
+            }
+            if (segmentResults.isEmpty() == false) {
+                context.queryResult().aggregations(segmentResultsCollector.reduce(segmentResults));
+                context.aggregations(null);
+                context.queryCollectors().remove(AggregationPhase.class);
+                return;
+            }
+        }
+
         Aggregator[] aggregators = context.aggregations().aggregators();
 
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
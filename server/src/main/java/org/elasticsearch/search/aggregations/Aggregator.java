@@ -172,6 +172,16 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
      */
     public void collectDebugInfo(BiConsumer<String, Object> add) {}
 
+    /**
+     * Does this aggregator read the values of a whole block of documents at
+     * once in {@link LeafBucketCollector#collect(int[], int, long)}? The
+     * aggregation phase only buffers documents into blocks when one of the
+     * top level aggregators does.
+     */
+    public boolean collectsBlocks() {
+        return false;
+    }
+
     /**
      * Get the aggregators running under this one.
      */
@@ -330,6 +330,20 @@ public class AggregatorFactories {
             return false;
         }
 
+        /**
+         * Can the results of these aggregations and all of their sub-aggregations
+         * over a shard be built by reducing their results over each segment?
+         * @see AggregationBuilder#supportsSegmentLevelResults()
+         */
+        public boolean supportsSegmentLevelResults() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsSegmentLevelResults() == false || builder.factoriesBuilder.supportsSegmentLevelResults() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public Builder addAggregator(AggregationBuilder factory) {
             if (names.add(factory.name) == false) {
                 throw new IllegalArgumentException("Two sibling aggregations cannot have the same name: [" + factory.name + "]");
@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the documents that the query collects and hands them to the wrapped collector in blocks
+ * through {@link LeafBucketCollector#collect(int[], int, long)}, so that aggregators can read the values of a whole block at once.
+ * <p>
+ * The scores of the documents are gone by the time a block is handed over, so this must only wrap collectors that don't need scores.
+ * Lucene doesn't tell collectors that a segment is done, so the block of a segment is handed over when the next segment starts, and
+ * the block of the last segment when {@link #flush()} or {@link #postCollection()} is called.
+ */
+public class BatchingBucketCollector extends BucketCollector {
+
+    /**
+     * The maximum number of documents of a block.
+     */
+    static final int BLOCK_SIZE = 512;
+
+    private final BucketCollector in;
+    private final int[] docs;
+    private LeafBucketCollector pendingCollector;
+    private long pendingBucket;
+    private int pendingCount;
+
+    public BatchingBucketCollector(BucketCollector in) {
+        this(in, BLOCK_SIZE);
+    }
+
+    /**
+     * Should the documents be handed to the given top level aggregators in blocks? Only if none of them needs scores and one of
+     * them {@link Aggregator#collectsBlocks() reads blocks at once}. Buffering the documents is pure overhead otherwise.
+     */
+    public static boolean shouldBatch(Aggregator[] aggregators) {
+        boolean collectsBlocks = false;
+        for (Aggregator aggregator : aggregators) {
+            if (aggregator.scoreMode().needsScores()) {
+                return false;
+            }
+            collectsBlocks |= aggregator.collectsBlocks();
+        }
+        return collectsBlocks;
+    }
+
+    BatchingBucketCollector(BucketCollector in, int blockSize) {
+        assert in.scoreMode().needsScores() == false : "can't batch collectors that need scores";
+        this.in = in;
+        this.docs = new int[blockSize];
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return in.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        in.postCollection();
+    }
+
+    /**
+     * Hands the documents that are still buffered to the wrapped collector.
+     */
+    public void flush() throws IOException {
+        try {
+            flushPending();
+        } catch (CollectionTerminatedException e) {
+            // the segment is done anyway
+        }
+    }
+
+    private void flushPending() throws IOException {
+        if (pendingCount > 0) {
+            final int count = pendingCount;
+            pendingCount = 0;
+            pendingCollector.collect(docs, count, pendingBucket);
+        }
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        flush();
+        final LeafBucketCollector leafCollector = in.getLeafCollector(ctx);
+        if (leafCollector.isNoop()) {
+            return leafCollector;
+        }
+        pendingCollector = leafCollector;
+        return new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (pendingCount > 0 && owningBucketOrd != pendingBucket) {
+                    flushPending();
+                }
+                pendingBucket = owningBucketOrd;
+                docs[pendingCount++] = doc;
+                if (pendingCount == docs.length) {
+                    // termination is up to the caller, like for documents that aren't buffered
+                    flushPending();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "batching(" + in + ")";
+    }
+}
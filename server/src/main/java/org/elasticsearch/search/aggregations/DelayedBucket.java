@@ -8,12 +8,14 @@
 
 package org.elasticsearch.search.aggregations;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiFunction;
 
 /**
  * A wrapper around reducing buckets with the same key that can delay that reduction
- * as long as possible. It's stateful and not even close to thread safe.
+ * as long as possible. It's stateful and not even close to thread safe, but many
+ * buckets can be {@link #reduced(List) reduced} in parallel.
  */
 public final class DelayedBucket<B extends InternalMultiBucketAggregation.InternalBucket> {
     private final BiFunction<List<B>, InternalAggregation.ReduceContext, B> reduce;
@@ -62,6 +64,18 @@ public final class DelayedBucket<B extends InternalMultiBucketAggregation.Intern
         return reduced;
     }
 
+    /**
+     * Reduce many buckets that share the same {@link InternalAggregation.ReduceContext}, in parallel
+     * if the context allows it. Each bucket is only ever reduced by a single thread.
+     * @return the reduced buckets in the same order as {@code buckets}
+     */
+    static <B extends InternalMultiBucketAggregation.InternalBucket> List<B> reduced(List<DelayedBucket<B>> buckets) {
+        if (buckets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return buckets.get(0).reduceContext.reduceEach(buckets, DelayedBucket::reduced);
+    }
+
     /**
      * Count the documents in the buckets.
      */
@@ -12,6 +12,7 @@ import org.elasticsearch.common.io.stream.NamedWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
@@ -21,10 +22,12 @@ import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntConsumer;
@@ -57,6 +60,11 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
         private final IntConsumer multiBucketConsumer;
         private final PipelineTree pipelineTreeRoot;
         private final Supplier<Boolean> isCanceled;
+        /**
+         * Reduces independent parts of the tree in parallel or {@code null} to reduce them on the calling thread.
+         */
+        @Nullable
+        private final ParallelReducer parallelReducer;
         /**
          * Supplies the pipelines when the result of the reduce is serialized
          * to node versions that need pipeline aggregators to be serialized
@@ -73,7 +81,7 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             Supplier<PipelineTree> pipelineTreeForBwcSerialization,
             Supplier<Boolean> isCanceled
         ) {
-            return new ReduceContext(bigArrays, scriptService, (s) -> {}, null, pipelineTreeForBwcSerialization, isCanceled);
+            return new ReduceContext(bigArrays, scriptService, (s) -> {}, null, pipelineTreeForBwcSerialization, isCanceled, null);
         }
 
         /**
@@ -86,6 +94,25 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             IntConsumer multiBucketConsumer,
             PipelineTree pipelineTreeRoot,
             Supplier<Boolean> isCanceled
+        ) {
+            return forFinalReduction(bigArrays, scriptService, multiBucketConsumer, pipelineTreeRoot, isCanceled, null, 1);
+        }
+
+        /**
+         * Build a {@linkplain ReduceContext} to perform the final reduction, reducing
+         * independent parts of the tree on up to {@code parallelism} threads.
+         * @param pipelineTreeRoot The root of tree of pipeline aggregations for this request
+         * @param executor the executor to reduce in parallel with, {@code null} to reduce on the calling thread
+         * @param parallelism the maximum number of threads to reduce with, including the calling thread
+         */
+        public static ReduceContext forFinalReduction(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            IntConsumer multiBucketConsumer,
+            PipelineTree pipelineTreeRoot,
+            Supplier<Boolean> isCanceled,
+            @Nullable Executor executor,
+            int parallelism
         ) {
             return new ReduceContext(
                 bigArrays,
@@ -93,7 +120,8 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
                 multiBucketConsumer,
                 requireNonNull(pipelineTreeRoot, "prefer EMPTY to null"),
                 () -> pipelineTreeRoot,
-                isCanceled
+                isCanceled,
+                executor == null || parallelism < 2 ? null : new ParallelReducer(executor, parallelism)
             );
         }
 
@@ -103,7 +131,8 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             IntConsumer multiBucketConsumer,
             PipelineTree pipelineTreeRoot,
             Supplier<PipelineTree> pipelineTreeForBwcSerialization,
-            Supplier<Boolean> isCanceled
+            Supplier<Boolean> isCanceled,
+            @Nullable ParallelReducer parallelReducer
         ) {
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
@@ -111,6 +140,7 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             this.pipelineTreeRoot = pipelineTreeRoot;
             this.pipelineTreeForBwcSerialization = pipelineTreeForBwcSerialization;
             this.isCanceled = isCanceled;
+            this.parallelReducer = parallelReducer;
         }
 
         /**
@@ -155,7 +185,31 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             if (isCanceled.get()) {
                 throw new TaskCancelledException("Cancelled");
             }
-            multiBucketConsumer.accept(size);
+            if (parallelReducer == null) {
+                multiBucketConsumer.accept(size);
+            } else {
+                // the consumer counts the buckets of all threads of the reduce
+                synchronized (multiBucketConsumer) {
+                    multiBucketConsumer.accept(size);
+                }
+            }
+        }
+
+        /**
+         * Apply {@code reduce} to each of {@code parts}, which must be independent of each other, like
+         * sibling aggregations or the buckets of an aggregation. They are reduced in parallel if this
+         * context was built with an executor. The results are in the same order as the parts either way
+         * so the response doesn't depend on the parallelism.
+         */
+        public <T, R> List<R> reduceEach(List<T> parts, Function<T, R> reduce) {
+            if (parallelReducer == null || parts.size() < 2) {
+                List<R> results = new ArrayList<>(parts.size());
+                for (T part : parts) {
+                    results.add(reduce.apply(part));
+                }
+                return results;
+            }
+            return parallelReducer.reduceEach(parts, reduce);
         }
 
         public Supplier<Boolean> isCanceled() {
@@ -144,21 +144,19 @@ public final class InternalAggregations extends Aggregations implements Writeabl
             }
         }
 
-        // now we can use the first aggregation of each list to handle the reduce of its list
-        List<InternalAggregation> reducedAggregations = new ArrayList<>();
-        for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
-            List<InternalAggregation> aggregations = entry.getValue();
+        // now we can use the first aggregation of each list to handle the reduce of its list, each list on its own
+        List<InternalAggregation> reducedAggregations = context.reduceEach(new ArrayList<>(aggByName.values()), aggregations -> {
             // Sort aggregations so that unmapped aggs come last in the list
             // If all aggs are unmapped, the agg that leads the reduction will just return itself
             aggregations.sort(INTERNAL_AGG_COMPARATOR);
             InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
             if (first.mustReduceOnSingleInternalAgg() || aggregations.size() > 1) {
-                reducedAggregations.add(first.reduce(aggregations, context));
+                return first.reduce(aggregations, context);
             } else {
                 // no need for reduce phase
-                reducedAggregations.add(first);
+                return first;
             }
-        }
+        });
 
         return from(reducedAggregations);
     }
@@ -73,6 +73,22 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} documents of {@code docs}, which are
+     * in increasing order, in the bucket owned by {@code owningBucketOrd}.
+     * <p>
+     * This is the same as calling {@link #collect(int, long)} for each of the
+     * documents, which is what it does by default. Aggregators that don't
+     * need the score of the documents can override it to read the values of
+     * all of the documents at once, and accumulate them in a tight loop.
+     * See {@link BatchingBucketCollector} for where the blocks come from.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -129,6 +129,14 @@ public class MultiBucketConsumerService {
             this.count = 0;
         }
 
+        /**
+         * Give back the buckets counted since the count was {@code count}, for buckets that are thrown away.
+         */
+        void resetTo(int count) {
+            assert count <= this.count : "can't reset to [" + count + "] from [" + this.count + "]";
+            this.count = count;
+        }
+
         public int getCount() {
             return count;
         }
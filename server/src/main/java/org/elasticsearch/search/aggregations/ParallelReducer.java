@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.ElasticsearchException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Reduces independent parts of an aggregation tree, like sibling aggregations or the sub-aggregations of
+ * buckets, on an {@link Executor}. The calling thread reduces its share of the parts too and then runs the
+ * ones that no thread of the executor picked up, so reduces that fork again from the threads of the
+ * executor can't deadlock even if the executor is full. All threads of a reduce share the same permits so
+ * that a single reduce never uses more than {@code parallelism} threads however deep the tree is.
+ */
+final class ParallelReducer {
+    private final Executor executor;
+    private final Semaphore forks;
+
+    ParallelReducer(Executor executor, int parallelism) {
+        if (parallelism < 2) {
+            throw new IllegalArgumentException("parallelism must be at least 2 but was [" + parallelism + "]");
+        }
+        this.executor = executor;
+        this.forks = new Semaphore(parallelism - 1);
+    }
+
+    /**
+     * Apply {@code reduce} to each of the {@code parts}, splitting them in ranges of consecutive parts
+     * for as many threads as there are permits left.
+     * @return the results in the same order as the parts
+     */
+    <T, R> List<R> reduceEach(List<T> parts, Function<T, R> reduce) {
+        int forked = 0;
+        while (forked < parts.size() - 1 && forks.tryAcquire()) {
+            forked++;
+        }
+        Object[] results = new Object[parts.size()];
+        if (forked == 0) {
+            reduceRange(parts, reduce, results, 0, parts.size());
+            return asList(results);
+        }
+
+        final int ranges = forked + 1;
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<FutureTask<Void>> tasks = new ArrayList<>(forked);
+        for (int r = 1; r < ranges; r++) {
+            final int from = (int) ((long) parts.size() * r / ranges);
+            final int to = (int) ((long) parts.size() * (r + 1) / ranges);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                // don't bother reducing the range if another one failed already
+                if (failed.get() == false) {
+                    try {
+                        reduceRange(parts, reduce, results, from, to);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return null;
+            }) {
+                @Override
+                protected void done() {
+                    forks.release();
+                }
+            };
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the task will be run by the calling thread below
+            }
+        }
+        RuntimeException failure = null;
+        try {
+            reduceRange(parts, reduce, results, 0, parts.size() / ranges);
+        } catch (RuntimeException e) {
+            failed.set(true);
+            failure = e;
+        }
+        for (FutureTask<Void> task : tasks) {
+            // runs the task on this thread unless it has started already
+            task.run();
+        }
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                final RuntimeException cause = e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new ElasticsearchException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else if (failure != cause) {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new ElasticsearchException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return asList(results);
+    }
+
+    private static <T, R> void reduceRange(List<T> parts, Function<T, R> reduce, Object[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = reduce.apply(parts.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> asList(Object[] results) {
+        return new ArrayList<>((List<R>) (List<?>) Arrays.asList(results));
+    }
+}
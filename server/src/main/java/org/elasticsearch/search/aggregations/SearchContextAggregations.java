@@ -7,6 +7,8 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.core.Nullable;
+
 /**
  * The aggregation context that is part of the search context.
  */
@@ -14,6 +16,7 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
+    private SegmentResultsCache segmentResultsCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -38,4 +41,19 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * The cache for the results of single segments or {@code null} if each segment should be aggregated.
+     */
+    @Nullable
+    public SegmentResultsCache segmentResultsCache() {
+        return segmentResultsCache;
+    }
+
+    /**
+     * Cache the results of single segments. Must be set before the aggregators are created.
+     */
+    public void segmentResultsCache(@Nullable SegmentResultsCache segmentResultsCache) {
+        this.segmentResultsCache = segmentResultsCache;
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Caches the results of the top level aggregations of a request over single segments, so that a request that runs again
+ * once the shard was refreshed only has to aggregate the segments that are new or have new deletes. Implementations must
+ * only return results for a segment that are still valid, usually by keying them on the cache key of the segment's reader.
+ */
+public interface SegmentResultsCache {
+    /**
+     * Get the results of the aggregations over a segment.
+     * @return the results or {@code null} if they aren't cached
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Cache the results of the aggregations over a segment. Only results of
+     * segments that were collected completely are added.
+     */
+    void put(LeafReaderContext ctx, InternalAggregations results) throws IOException;
+
+    /**
+     * The context to combine the results of the segments into the results of the shard.
+     */
+    InternalAggregation.ReduceContext partialReduceContext();
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BucketCollector} that aggregates each segment with aggregators of its own, so that the results of each segment can
+ * be cached in a {@link SegmentResultsCache}, and skips the segments whose results are already cached. The results of all
+ * segments are combined with a partial reduce once the collection is {@link #finish finished}. The buckets of the results of
+ * each segment only count against the bucket limit while they are built, the combined results count once {@link #reduce reduced}.
+ * <p>
+ * The wrapped collector only decides how the documents are scored and is never handed any documents. Its aggregators build
+ * the results when no segment was collected at all.
+ * <p>
+ * Lucene doesn't tell collectors that a segment is done, so the results of a segment are built when the next segment
+ * starts, and the results of the last segment when {@link #finish} is called. The aggregators of a segment are released
+ * as soon as its results are built rather than when the request is done.
+ */
+public class SegmentResultsCollector extends BucketCollector {
+    private final BucketCollector in;
+    private final AggregatorFactories factories;
+    private final SegmentResultsCache cache;
+    private final List<InternalAggregations> results = new ArrayList<>();
+    private LeafReaderContext pendingSegment;
+    private Aggregator[] pendingAggregators;
+    private BucketCollector pendingCollector;
+    // the number of aggregators that the context had to release before the aggregators of the pending segment were created
+    private int pendingReleasablesBefore;
+    private int segmentsFromCache;
+    private int segmentsCollected;
+
+    public SegmentResultsCollector(BucketCollector in, AggregatorFactories factories, SegmentResultsCache cache) {
+        this.in = in;
+        this.factories = factories;
+        this.cache = cache;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return in.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        finish(true);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        finishPending(true);
+        InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            segmentsFromCache++;
+            results.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        AggregationContext context = factories.context();
+        int releasablesBefore = context == null ? 0 : context.releasableCount();
+        Aggregator[] aggregators = factories.createTopLevelAggregators();
+        BucketCollector collector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        if (BatchingBucketCollector.shouldBatch(aggregators)) {
+            collector = new BatchingBucketCollector(collector);
+        }
+        collector.preCollection();
+        pendingSegment = ctx;
+        pendingAggregators = aggregators;
+        pendingCollector = collector;
+        pendingReleasablesBefore = releasablesBefore;
+        segmentsCollected++;
+        try {
+            return collector.getLeafCollector(ctx);
+        } catch (CollectionTerminatedException e) {
+            // the aggregators are done with the segment without seeing any documents
+            finishPending(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Build the results of the last segment and return the results of all segments.
+     * @param cacheLast should the results of the last segment be cached? They mustn't be if the
+     *        collection of the segment may have stopped early, like when the search timed out.
+     * @return the results of each segment, empty if no segment was collected
+     */
+    public List<InternalAggregations> finish(boolean cacheLast) throws IOException {
+        finishPending(cacheLast);
+        return results;
+    }
+
+    private void finishPending(boolean cacheResults) throws IOException {
+        if (pendingCollector == null) {
+            return;
+        }
+        LeafReaderContext segment = pendingSegment;
+        Aggregator[] aggregators = pendingAggregators;
+        BucketCollector collector = pendingCollector;
+        pendingSegment = null;
+        pendingAggregators = null;
+        pendingCollector = null;
+
+        AggregationContext context = factories.context();
+        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        try {
+            collector.postCollection();
+            MultiBucketConsumer consumer = context == null ? null : context.multiBucketConsumer();
+            int bucketsBefore = consumer == null ? 0 : consumer.getCount();
+            for (Aggregator aggregator : aggregators) {
+                aggregations.add(aggregator.buildTopLevel());
+            }
+            if (consumer != null) {
+                // the buckets of the segment are counted again once they are reduced with the other segments
+                consumer.resetTo(bucketsBefore);
+            }
+        } finally {
+            if (context != null) {
+                // releases the aggregators of the segment, including their sub-aggregators
+                context.releaseAfter(pendingReleasablesBefore);
+            }
+        }
+        InternalAggregations segmentResults = InternalAggregations.from(aggregations);
+        results.add(segmentResults);
+        if (cacheResults) {
+            cache.put(segment, segmentResults);
+        }
+    }
+
+    /**
+     * Combine the results of the segments into the results of the shard, and count the buckets of the
+     * combined results against the bucket limit of the request, like the results of any other shard.
+     */
+    public InternalAggregations reduce(List<InternalAggregations> segmentResults) {
+        InternalAggregations reduced = InternalAggregations.topLevelReduce(segmentResults, cache.partialReduceContext());
+        if (factories.context() != null) {
+            MultiBucketConsumer consumer = factories.context().multiBucketConsumer();
+            consumer.reset();
+            for (Aggregation aggregation : reduced) {
+                consumer.accept(InternalMultiBucketAggregation.countInnerBucket(aggregation));
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * The number of segments whose results came from the cache.
+     */
+    int segmentsFromCache() {
+        return segmentsFromCache;
+    }
+
+    /**
+     * The number of segments that were collected.
+     */
+    int segmentsCollected() {
+        return segmentsCollected;
+    }
+
+    @Override
+    public String toString() {
+        return "segment_results(" + in + ")";
+    }
+}
@@ -123,12 +123,12 @@ public abstract class TopBucketBuilder<B extends InternalMultiBucketAggregation.
 
         @Override
         public List<B> build() {
-            List<B> result = new ArrayList<>(queue.size());
+            List<DelayedBucket<B>> top = new ArrayList<>(queue.size());
             for (int i = queue.size() - 1; i >= 0; i--) {
-                result.add(queue.pop().reduced());
+                top.add(queue.pop());
             }
-            Collections.reverse(result);
-            return result;
+            Collections.reverse(top);
+            return DelayedBucket.reduced(top);
         }
     }
 
@@ -175,10 +175,7 @@ public abstract class TopBucketBuilder<B extends InternalMultiBucketAggregation.
                 assert buffer == null;
                 return next.build();
             }
-            List<B> result = new ArrayList<>(buffer.size());
-            for (DelayedBucket<B> b : buffer) {
-                result.add(b.reduced());
-            }
+            List<B> result = DelayedBucket.reduced(buffer);
             result.sort(order.comparator());
             return result;
         }
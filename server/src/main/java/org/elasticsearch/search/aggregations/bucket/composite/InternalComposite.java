@@ -204,14 +204,13 @@ public class InternalComposite extends InternalMultiBucketAggregation<InternalCo
         }
         InternalBucket lastBucket = null;
         List<InternalBucket> buckets = new ArrayList<>();
-        List<InternalBucket> result = new ArrayList<>();
+        List<List<InternalBucket>> sameKeyBuckets = new ArrayList<>();
         while (pq.size() > 0) {
             BucketIterator bucketIt = pq.top();
             if (lastBucket != null && bucketIt.current.compareKey(lastBucket) != 0) {
-                InternalBucket reduceBucket = reduceBucket(buckets, reduceContext);
-                buckets.clear();
-                result.add(reduceBucket);
-                if (result.size() >= size) {
+                sameKeyBuckets.add(buckets);
+                buckets = new ArrayList<>();
+                if (sameKeyBuckets.size() >= size) {
                     break;
                 }
             }
@@ -224,9 +223,10 @@ public class InternalComposite extends InternalMultiBucketAggregation<InternalCo
             }
         }
         if (buckets.size() > 0) {
-            InternalBucket reduceBucket = reduceBucket(buckets, reduceContext);
-            result.add(reduceBucket);
+            sameKeyBuckets.add(buckets);
         }
+        // the sub-aggregations of each key are independent of those of the other keys
+        List<InternalBucket> result = reduceContext.reduceEach(sameKeyBuckets, sameKey -> reduceBucket(sameKey, reduceContext));
 
         List<DocValueFormat> reducedFormats = formats;
         CompositeKey lastKey = null;
@@ -125,6 +125,11 @@ public class FilterAggregationBuilder extends AbstractAggregationBuilder<FilterA
         return Objects.equals(filter, other.filter);
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
@@ -264,6 +264,9 @@ public class FilterByFilterAggregator extends FiltersAggregator {
 
             @Override
             public void collect(int docId) throws IOException {
+                if (subCollector == null) {
+                    subCollector = collectableSubAggregators.getLeafCollector(ctx);
+                }
                 collectBucket(subCollector, docId, filterOrd);
             }
 
@@ -273,7 +276,15 @@ public class FilterByFilterAggregator extends FiltersAggregator {
         MatchCollector collector = new MatchCollector();
         filters().get(0).collect(ctx, collector, live);
         for (int filterOrd = 1; filterOrd < filters().size(); filterOrd++) {
-            collector.subCollector = collectableSubAggregators.getLeafCollector(ctx);
+            /*
+             * Only reset the sub-aggregators when the filter matches a
+             * document. Time based indices tend to have many segments that
+             * only overlap a few of the ranges of a date_histogram and the
+             * range queries skip the rest of the ranges based on the min and
+             * max points in the segment. Preparing the sub-aggregators for
+             * every one of those ranges would be wasted work.
+             */
+            collector.subCollector = null;
             collector.filterOrd = filterOrd;
             filters().get(filterOrd).collect(ctx, collector, live);
         }
@@ -357,6 +357,11 @@ public class FiltersAggregationBuilder extends AbstractAggregationBuilder<Filter
             && Objects.equals(otherBucketKey, other.otherBucketKey);
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
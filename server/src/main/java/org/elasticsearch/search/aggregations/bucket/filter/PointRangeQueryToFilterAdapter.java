@@ -0,0 +1,154 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.filter;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+import static java.util.Arrays.compareUnsigned;
+
+/**
+ * Specialized {@link QueryToFilterAdapter} for queries that match a range of
+ * points that counts the documents in segments where each document has a
+ * single point without scoring them. If the range contains all of the points
+ * in the segment or none of them we read the count from the metadata of the
+ * points. Otherwise we count the matching points with the points index.
+ */
+class PointRangeQueryToFilterAdapter extends QueryToFilterAdapter<Query> {
+    private final PointRangeQuery singleValuedRange;
+    private int resultsFromMetadata;
+    private int resultsFromPoints;
+
+    /**
+     * Build the adapter.
+     * @param query the query to run when we can't count from the points
+     * @param singleValuedRange the range that {@code query} matches in segments where each
+     *        document has a single point or {@code null} if it doesn't match those segments
+     */
+    PointRangeQueryToFilterAdapter(IndexSearcher searcher, String key, Query query, @Nullable PointRangeQuery singleValuedRange) {
+        super(searcher, key, query);
+        this.singleValuedRange = singleValuedRange;
+    }
+
+    @Override
+    long count(LeafReaderContext ctx, FiltersAggregator.Counter counter, Bits live) throws IOException {
+        if (false == countCanUseMetadata(counter, live)) {
+            return super.count(ctx, counter, live);
+        }
+        if (singleValuedRange == null) {
+            return super.count(ctx, counter, live);
+        }
+        PointValues points = ctx.reader().getPointValues(singleValuedRange.getField());
+        if (points == null) {
+            // No points means nothing can match.
+            resultsFromMetadata++;
+            return 0;
+        }
+        if (points.size() != points.getDocCount()
+            || points.getNumDimensions() != singleValuedRange.getNumDims()
+            || points.getBytesPerDimension() != singleValuedRange.getBytesPerDim()) {
+            /*
+             * Documents with many points can match many times and we'd count
+             * them many times so we have to run the query.
+             */
+            return super.count(ctx, counter, live);
+        }
+        switch (relate(points.getMinPackedValue(), points.getMaxPackedValue())) {
+            case CELL_OUTSIDE_QUERY:
+                resultsFromMetadata++;
+                return 0;
+            case CELL_INSIDE_QUERY:
+                resultsFromMetadata++;
+                return points.getDocCount();
+            default:
+                resultsFromPoints++;
+                return countPoints(points);
+        }
+    }
+
+    /**
+     * Count the points in the range by walking the points index. This
+     * only visits the points in cells that cross the edges of the range.
+     */
+    private long countPoints(PointValues points) throws IOException {
+        class PointCounter implements PointValues.IntersectVisitor {
+            long count;
+
+            @Override
+            public void visit(int docID) {
+                count++;
+            }
+
+            @Override
+            public void visit(int docID, byte[] packedValue) {
+                if (matches(packedValue)) {
+                    count++;
+                }
+            }
+
+            @Override
+            public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                return relate(minPackedValue, maxPackedValue);
+            }
+        }
+        PointCounter counter = new PointCounter();
+        points.intersect(counter);
+        return counter.count;
+    }
+
+    private boolean matches(byte[] packedValue) {
+        int bytesPerDim = singleValuedRange.getBytesPerDim();
+        byte[] lower = singleValuedRange.getLowerPoint();
+        byte[] upper = singleValuedRange.getUpperPoint();
+        for (int dim = 0; dim < singleValuedRange.getNumDims(); dim++) {
+            int from = dim * bytesPerDim;
+            int to = from + bytesPerDim;
+            if (compareUnsigned(packedValue, from, to, lower, from, to) < 0
+                || compareUnsigned(packedValue, from, to, upper, from, to) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Relation relate(byte[] minPackedValue, byte[] maxPackedValue) {
+        int bytesPerDim = singleValuedRange.getBytesPerDim();
+        byte[] lower = singleValuedRange.getLowerPoint();
+        byte[] upper = singleValuedRange.getUpperPoint();
+        boolean crosses = false;
+        for (int dim = 0; dim < singleValuedRange.getNumDims(); dim++) {
+            int from = dim * bytesPerDim;
+            int to = from + bytesPerDim;
+            if (compareUnsigned(minPackedValue, from, to, upper, from, to) > 0
+                || compareUnsigned(maxPackedValue, from, to, lower, from, to) < 0) {
+                return Relation.CELL_OUTSIDE_QUERY;
+            }
+            crosses |= compareUnsigned(minPackedValue, from, to, lower, from, to) < 0
+                || compareUnsigned(maxPackedValue, from, to, upper, from, to) > 0;
+        }
+        return crosses ? Relation.CELL_CROSSES_QUERY : Relation.CELL_INSIDE_QUERY;
+    }
+
+    @Override
+    void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        add.accept("specialized_for", "point_range");
+        add.accept("results_from_metadata", resultsFromMetadata);
+        add.accept("results_from_points", resultsFromPoints);
+    }
+}
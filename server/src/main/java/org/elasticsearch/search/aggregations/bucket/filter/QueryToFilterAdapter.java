@@ -70,6 +70,10 @@ public class QueryToFilterAdapter<Q extends Query> {
         if (query instanceof MatchNoDocsQuery) {
             return new MatchNoneQueryToFilterAdapter(searcher, key, (MatchNoDocsQuery) query);
         }
+        Query unwrapped = unwrap(query);
+        if (unwrapped instanceof PointRangeQuery) {
+            return new PointRangeQueryToFilterAdapter(searcher, key, query, (PointRangeQuery) unwrapped);
+        }
         return new QueryToFilterAdapter<>(searcher, key, query);
     }
 
@@ -168,9 +172,18 @@ public class QueryToFilterAdapter<Q extends Query> {
         Query unwrappedExtraQuery = unwrap(extraQuery);
         if (unwrappedQuery instanceof PointRangeQuery && unwrappedExtraQuery instanceof PointRangeQuery) {
             Query merged = MergedPointRangeQuery.merge((PointRangeQuery) unwrappedQuery, (PointRangeQuery) unwrappedExtraQuery);
-            if (merged != null) {
+            if (merged instanceof MergedPointRangeQuery) {
                 // Should we rewrap here?
-                return new QueryToFilterAdapter<>(searcher(), key(), merged);
+                Query singleValued = ((MergedPointRangeQuery) merged).delegateForSingleValuedSegments();
+                return new PointRangeQueryToFilterAdapter(
+                    searcher(),
+                    key(),
+                    merged,
+                    singleValued instanceof PointRangeQuery ? (PointRangeQuery) singleValued : null
+                );
+            }
+            if (merged != null) {
+                return new PointRangeQueryToFilterAdapter(searcher(), key(), merged, (PointRangeQuery) merged);
             }
         }
         BooleanQuery.Builder builder = new BooleanQuery.Builder();
@@ -392,6 +392,11 @@ public class DateHistogramAggregationBuilder extends ValuesSourceAggregationBuil
         return builder;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
@@ -352,6 +352,11 @@ public class HistogramAggregationBuilder extends ValuesSourceAggregationBuilder<
         return builder;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
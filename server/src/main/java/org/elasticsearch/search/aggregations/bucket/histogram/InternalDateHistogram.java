@@ -302,7 +302,7 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
             }
         }
 
-        List<Bucket> reducedBuckets = new ArrayList<>();
+        List<List<Bucket>> sameKeyBuckets = new ArrayList<>();
         if (pq.size() > 0) {
             // list of buckets coming from different shards that have the same key
             List<Bucket> currentBuckets = new ArrayList<>();
@@ -312,12 +312,9 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
                 final IteratorAndCurrent<Bucket> top = pq.top();
 
                 if (top.current().key != key) {
-                    // the key changes, reduce what we already buffered and reset the buffer for current buckets
-                    final Bucket reduced = reduceBucket(currentBuckets, reduceContext);
-                    if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
-                        reducedBuckets.add(reduced);
-                    }
-                    currentBuckets.clear();
+                    // the key changes, buffer what we already have and start a new buffer for current buckets
+                    sameKeyBuckets.add(currentBuckets);
+                    currentBuckets = new ArrayList<>();
                     key = top.current().key;
                 }
 
@@ -333,10 +330,15 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
             } while (pq.size() > 0);
 
             if (currentBuckets.isEmpty() == false) {
-                final Bucket reduced = reduceBucket(currentBuckets, reduceContext);
-                if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
-                    reducedBuckets.add(reduced);
-                }
+                sameKeyBuckets.add(currentBuckets);
+            }
+        }
+
+        // the sub-aggregations of each key are independent of those of the other keys
+        List<Bucket> reducedBuckets = new ArrayList<>(sameKeyBuckets.size());
+        for (Bucket reduced : reduceContext.reduceEach(sameKeyBuckets, buckets -> reduceBucket(buckets, reduceContext))) {
+            if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
+                reducedBuckets.add(reduced);
             }
         }
 
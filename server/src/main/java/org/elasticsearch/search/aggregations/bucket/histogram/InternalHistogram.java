@@ -284,7 +284,7 @@ public final class InternalHistogram extends InternalMultiBucketAggregation<Inte
             }
         }
 
-        List<Bucket> reducedBuckets = new ArrayList<>();
+        List<List<Bucket>> sameKeyBuckets = new ArrayList<>();
         if (pq.size() > 0) {
             // list of buckets coming from different shards that have the same key
             List<Bucket> currentBuckets = new ArrayList<>();
@@ -294,13 +294,10 @@ public final class InternalHistogram extends InternalMultiBucketAggregation<Inte
                 final IteratorAndCurrent<Bucket> top = pq.top();
 
                 if (Double.compare(top.current().key, key) != 0) {
-                    // The key changes, reduce what we already buffered and reset the buffer for current buckets.
+                    // The key changes, buffer what we already have and start a new buffer for current buckets.
                     // Using Double.compare instead of != to handle NaN correctly.
-                    final Bucket reduced = reduceBucket(currentBuckets, reduceContext);
-                    if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
-                        reducedBuckets.add(reduced);
-                    }
-                    currentBuckets.clear();
+                    sameKeyBuckets.add(currentBuckets);
+                    currentBuckets = new ArrayList<>();
                     key = top.current().key;
                 }
 
@@ -316,10 +313,15 @@ public final class InternalHistogram extends InternalMultiBucketAggregation<Inte
             } while (pq.size() > 0);
 
             if (currentBuckets.isEmpty() == false) {
-                final Bucket reduced = reduceBucket(currentBuckets, reduceContext);
-                if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
-                    reducedBuckets.add(reduced);
-                }
+                sameKeyBuckets.add(currentBuckets);
+            }
+        }
+
+        // the sub-aggregations of each key are independent of those of the other keys
+        List<Bucket> reducedBuckets = new ArrayList<>(sameKeyBuckets.size());
+        for (Bucket reduced : reduceContext.reduceEach(sameKeyBuckets, buckets -> reduceBucket(buckets, reduceContext))) {
+            if (reduced.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
+                reducedBuckets.add(reduced);
             }
         }
 
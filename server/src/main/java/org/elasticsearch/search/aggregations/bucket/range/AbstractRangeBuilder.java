@@ -136,6 +136,11 @@ public abstract class AbstractRangeBuilder<AB extends AbstractRangeBuilder<AB, R
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     protected XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         builder.field(RangeAggregator.RANGES_FIELD.getPreferredName(), ranges);
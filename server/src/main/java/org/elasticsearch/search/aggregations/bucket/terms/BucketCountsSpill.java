@@ -0,0 +1,248 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.OfflineSorter;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moves the keys and doc counts of the buckets of a {@code terms} aggregation from the heap to temporary files under
+ * {@link AggregationContext#termsSpillPath()} once they cross {@link AggregationContext#termsSpillThreshold()}, and merges
+ * them back by key with an external sort when the results are built. Only the doc counts are spilled, so this is only for
+ * aggregations without sub-aggregations.
+ */
+final class BucketCountsSpill implements Releasable {
+    /**
+     * Rough number of bytes that a bucket takes on heap on top of its key: its slots in the hash and its doc count.
+     */
+    static final long BYTES_PER_BUCKET = 4 * Long.BYTES;
+
+    private static final String PREFIX = "terms_spill";
+
+    /**
+     * Compares records by their key, ignoring the doc count at their end.
+     */
+    private static final Comparator<BytesRef> KEY_COMPARATOR = (a, b) -> Arrays.compareUnsigned(
+        a.bytes,
+        a.offset,
+        a.offset + a.length - Long.BYTES,
+        b.bytes,
+        b.offset,
+        b.offset + b.length - Long.BYTES
+    );
+
+    /**
+     * Build a spill for an aggregation if spilling is enabled and the node has a directory to write to,
+     * {@code null} otherwise.
+     */
+    @Nullable
+    static BucketCountsSpill build(AggregationContext context) throws IOException {
+        long threshold = context.termsSpillThreshold();
+        Path path = context.termsSpillPath();
+        if (threshold < 0 || path == null) {
+            return null;
+        }
+        return new BucketCountsSpill(new NIOFSDirectory(path), threshold);
+    }
+
+    private final Directory directory;
+    private final long threshold;
+    private final List<String> files = new ArrayList<>();
+    private final BytesRefBuilder record = new BytesRefBuilder();
+    private IndexOutput output;
+    private OfflineSorter.ByteSequencesWriter writer;
+    private long heapBytes;
+    private long size;
+
+    /**
+     * Build a spill that writes to the given directory, which it closes when it's closed.
+     */
+    BucketCountsSpill(Directory directory, long threshold) {
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Account for a new bucket on heap with a key of {@code keyBytes} bytes.
+     * @return {@code true} if the buckets on heap crossed the threshold, in which
+     *         case they must be {@link #add added} to the spill and dropped
+     */
+    boolean newBucket(int keyBytes) {
+        heapBytes += keyBytes + BYTES_PER_BUCKET;
+        if (heapBytes > threshold) {
+            heapBytes = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write the doc count of a bucket to the spill. The same key may be
+     * written many times, the doc counts are summed when merging.
+     */
+    void add(BytesRef key, long docCount) throws IOException {
+        if (writer == null) {
+            output = directory.createTempOutput(PREFIX, "unsorted", IOContext.DEFAULT);
+            files.add(output.getName());
+            writer = new OfflineSorter.ByteSequencesWriter(output);
+        }
+        record.clear();
+        record.append(key);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            record.append((byte) (docCount >>> shift));
+        }
+        writer.write(record.bytes(), 0, record.length());
+        size++;
+    }
+
+    /**
+     * The number of doc counts written to the spill.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Sort everything that was written to the spill and iterate it by key. No
+     * more doc counts may be added afterwards.
+     */
+    Merged merge() throws IOException {
+        if (writer == null) {
+            return new Merged(null);
+        }
+        CodecUtil.writeFooter(output);
+        writer.close();
+        writer = null;
+        // the sort buffers a bounded number of records on heap, outside of the circuit breaker
+        OfflineSorter sorter = new OfflineSorter(
+            directory,
+            PREFIX,
+            KEY_COMPARATOR,
+            OfflineSorter.BufferSize.megabytes(16),
+            OfflineSorter.MAX_TEMPFILES,
+            -1,
+            null,
+            1
+        );
+        String sorted = sorter.sort(output.getName());
+        files.add(sorted);
+        return new Merged(sorter.getReader(directory.openChecksumInput(sorted, IOContext.READONCE), sorted));
+    }
+
+    @Override
+    public void close() {
+        try {
+            IOUtils.close(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer = null;
+            for (String file : files) {
+                try {
+                    directory.deleteFile(file);
+                } catch (IOException e) {
+                    // the file is a leftover of a failed sort, the directory is removed when the node closes
+                }
+            }
+            files.clear();
+            try {
+                directory.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Iterates the spilled keys in sorted order with the sum of their doc counts.
+     */
+    static final class Merged implements Closeable {
+        private final OfflineSorter.ByteSequencesReader reader;
+        private final BytesRefBuilder key = new BytesRefBuilder();
+        private final BytesRefBuilder nextKey = new BytesRefBuilder();
+        private long docCount;
+        private long nextDocCount;
+        private boolean hasNext;
+
+        private Merged(@Nullable OfflineSorter.ByteSequencesReader reader) throws IOException {
+            this.reader = reader;
+            advance();
+        }
+
+        /**
+         * Move to the next key.
+         * @return {@code true} if there is a next key, {@code false} if there isn't
+         */
+        boolean next() throws IOException {
+            if (hasNext == false) {
+                return false;
+            }
+            key.copyBytes(nextKey);
+            docCount = nextDocCount;
+            advance();
+            while (hasNext && nextKey.get().bytesEquals(key.get())) {
+                docCount += nextDocCount;
+                advance();
+            }
+            return true;
+        }
+
+        /**
+         * The current key. The bytes are reused when moving to the next key.
+         */
+        BytesRef key() {
+            return key.get();
+        }
+
+        /**
+         * The sum of the doc counts of the current key.
+         */
+        long docCount() {
+            return docCount;
+        }
+
+        private void advance() throws IOException {
+            BytesRef next = reader == null ? null : reader.next();
+            hasNext = next != null;
+            if (hasNext) {
+                int keyLength = next.length - Long.BYTES;
+                nextKey.copyBytes(next.bytes, next.offset, keyLength);
+                long count = 0;
+                for (int i = 0; i < Long.BYTES; i++) {
+                    count = (count << 8) | (next.bytes[next.offset + keyLength + i] & 0xFF);
+                }
+                nextDocCount = count;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(reader);
+        }
+    }
+}
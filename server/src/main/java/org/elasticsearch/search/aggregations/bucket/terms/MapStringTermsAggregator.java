@@ -9,10 +9,12 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
@@ -49,8 +51,11 @@ import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
 public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
     private final CollectorSource collectorSource;
     private final ResultStrategy<?, ?> resultStrategy;
-    private final BytesKeyedBucketOrds bucketOrds;
+    private final CardinalityUpperBound cardinality;
+    private BytesKeyedBucketOrds bucketOrds;
     private final IncludeExclude.StringFilter includeExclude;
+    @Nullable
+    private final BucketCountsSpill spill;
 
     public MapStringTermsAggregator(
         String name,
@@ -71,7 +76,14 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         super(name, factories, context, parent, order, format, bucketCountThresholds, collectionMode, showTermDocCountError, metadata);
         this.resultStrategy = resultStrategy.apply(this); // ResultStrategy needs a reference to the Aggregator to do its job.
         this.includeExclude = includeExclude;
+        this.cardinality = cardinality;
         bucketOrds = BytesKeyedBucketOrds.build(context.bigArrays(), cardinality);
+        // only the doc counts of the buckets can be spilled, and only when there is nothing to fill in for min_doc_count: 0
+        boolean canSpill = this.resultStrategy instanceof StandardTermsResults
+            && subAggregators.length == 0
+            && bucketCountThresholds.getMinDocCount() > 0
+            && cardinality.map(estimate -> estimate < 2);
+        spill = canSpill ? BucketCountsSpill.build(context) : null;
         // set last because if there is an error during construction the collector gets release outside the constructor.
         this.collectorSource = collectorSource;
     }
@@ -99,14 +111,38 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
                         collectExistingBucket(s, doc, bucketOrdinal);
                     } else {
                         collectBucket(s, doc, bucketOrdinal);
+                        if (spill != null && spill.newBucket(bytes.length)) {
+                            spillBuckets();
+                        }
                     }
                 }
             )
         );
     }
 
+    /**
+     * Move the buckets on heap to the {@link #spill}, releasing their memory.
+     */
+    private void spillBuckets() throws IOException {
+        BytesRef key = new BytesRef();
+        BytesKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(0);
+        while (ordsEnum.next()) {
+            ordsEnum.readValue(key);
+            spill.add(key, bucketDocCount(ordsEnum.ord()));
+        }
+        bucketOrds.close();
+        bucketOrds = null;
+        bucketOrds = BytesKeyedBucketOrds.build(bigArrays(), cardinality);
+        rewriteBuckets(0, ord -> -1);
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        if (spill != null && spill.size() > 0) {
+            assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0;
+            // only standard terms spill
+            return new InternalAggregation[] { ((StandardTermsResults) resultStrategy).buildSpilledResult() };
+        }
         return resultStrategy.buildAggregations(owningBucketOrds);
     }
 
@@ -119,6 +155,9 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         super.collectDebugInfo(add);
         add.accept("total_buckets", bucketOrds.size());
+        if (spill != null) {
+            add.accept("spilled_buckets", spill.size());
+        }
         add.accept("collection_strategy", collectorSource.describe());
         collectorSource.collectDebugInfo(add);
         add.accept("result_strategy", resultStrategy.describe());
@@ -126,7 +165,7 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(collectorSource, resultStrategy, bucketOrds);
+        Releasables.close(collectorSource, resultStrategy, bucketOrds, spill);
     }
 
     /**
@@ -437,6 +476,49 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
             buildSubAggsForAllBuckets(topBucketsPerOrd, b -> b.bucketOrd, (b, a) -> b.aggregations = a);
         }
 
+        /**
+         * Build the result from the {@link #spill} rather than from the buckets
+         * on heap, by merging the doc counts of each term as they come out of
+         * the external sort.
+         */
+        StringTerms buildSpilledResult() throws IOException {
+            spillBuckets();
+            long otherDocCount = 0;
+            int size = (int) Math.min(spill.size(), bucketCountThresholds.getShardSize());
+            PriorityQueue<StringTerms.Bucket> ordered = buildPriorityQueue(size);
+            Supplier<StringTerms.Bucket> emptyBucketBuilder = emptyBucketBuilder(0);
+            StringTerms.Bucket spare = null;
+            try (BucketCountsSpill.Merged merged = spill.merge()) {
+                while (merged.next()) {
+                    long docCount = merged.docCount();
+                    otherDocCount += docCount;
+                    if (docCount < bucketCountThresholds.getShardMinDocCount()) {
+                        continue;
+                    }
+                    if (spare == null) {
+                        spare = emptyBucketBuilder.get();
+                    }
+                    // the merge reuses the bytes of its key, and buckets that drop out of the queue reuse theirs
+                    BytesRef key = merged.key();
+                    spare.termBytes.bytes = ArrayUtil.grow(spare.termBytes.bytes, key.length);
+                    System.arraycopy(key.bytes, key.offset, spare.termBytes.bytes, 0, key.length);
+                    spare.termBytes.offset = 0;
+                    spare.termBytes.length = key.length;
+                    spare.docCount = docCount;
+                    spare = ordered.insertWithOverflow(spare);
+                }
+            } finally {
+                spill.close();
+            }
+
+            StringTerms.Bucket[] topBuckets = buildBuckets(ordered.size());
+            for (int i = ordered.size() - 1; i >= 0; --i) {
+                topBuckets[i] = ordered.pop();
+                otherDocCount -= topBuckets[i].getDocCount();
+            }
+            return buildResult(0, otherDocCount, topBuckets);
+        }
+
         @Override
         StringTerms buildResult(long owningBucketOrd, long otherDocCount, StringTerms.Bucket[] topBuckets) {
             final BucketOrder reduceOrder;
@@ -10,9 +10,11 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.FieldData;
@@ -47,8 +49,11 @@ import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
 public class NumericTermsAggregator extends TermsAggregator {
     private final ResultStrategy<?, ?> resultStrategy;
     private final ValuesSource.Numeric valuesSource;
-    private final LongKeyedBucketOrds bucketOrds;
+    private final CardinalityUpperBound cardinality;
+    private LongKeyedBucketOrds bucketOrds;
     private final LongFilter longFilter;
+    @Nullable
+    private final BucketCountsSpill spill;
 
     public NumericTermsAggregator(
         String name,
@@ -69,7 +74,14 @@ public class NumericTermsAggregator extends TermsAggregator {
         this.resultStrategy = resultStrategy.apply(this); // ResultStrategy needs a reference to the Aggregator to do its job.
         this.valuesSource = valuesSource;
         this.longFilter = longFilter;
+        this.cardinality = cardinality;
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
+        // only the doc counts of the buckets can be spilled, and only when there is nothing to fill in for min_doc_count: 0
+        boolean canSpill = this.resultStrategy instanceof StandardTermsResultStrategy
+            && subAggregators.length == 0
+            && bucketCountThresholds.getMinDocCount() > 0
+            && cardinality.map(estimate -> estimate < 2);
+        spill = canSpill ? BucketCountsSpill.build(context) : null;
     }
 
     @Override
@@ -100,6 +112,9 @@ public class NumericTermsAggregator extends TermsAggregator {
                                     collectExistingBucket(sub, doc, bucketOrdinal);
                                 } else {
                                     collectBucket(sub, doc, bucketOrdinal);
+                                    if (spill != null && spill.newBucket(Long.BYTES)) {
+                                        spillBuckets();
+                                    }
                                 }
                             }
 
@@ -111,8 +126,29 @@ public class NumericTermsAggregator extends TermsAggregator {
         });
     }
 
+    /**
+     * Move the buckets on heap to the {@link #spill}, releasing their memory.
+     */
+    private void spillBuckets() throws IOException {
+        BytesRef key = new BytesRef(new byte[Long.BYTES]);
+        BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(0);
+        while (ordsEnum.next()) {
+            NumericUtils.longToSortableBytes(ordsEnum.value(), key.bytes, 0);
+            spill.add(key, bucketDocCount(ordsEnum.ord()));
+        }
+        bucketOrds.close();
+        bucketOrds = null;
+        bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
+        rewriteBuckets(0, ord -> -1);
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        if (spill != null && spill.size() > 0) {
+            assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0;
+            // only standard terms spill
+            return new InternalAggregation[] { ((StandardTermsResultStrategy<?, ?>) resultStrategy).buildSpilledResult() };
+        }
         return resultStrategy.buildAggregations(owningBucketOrds);
     }
 
@@ -123,7 +159,7 @@ public class NumericTermsAggregator extends TermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(super::doClose, bucketOrds, resultStrategy);
+        Releasables.close(super::doClose, bucketOrds, resultStrategy, spill);
     }
 
     @Override
@@ -131,6 +167,9 @@ public class NumericTermsAggregator extends TermsAggregator {
         super.collectDebugInfo(add);
         add.accept("result_strategy", resultStrategy.describe());
         add.accept("total_buckets", bucketOrds.size());
+        if (spill != null) {
+            add.accept("spilled_buckets", spill.size());
+        }
     }
 
     /**
@@ -283,6 +322,54 @@ public class NumericTermsAggregator extends TermsAggregator {
 
         abstract B buildEmptyBucket();
 
+        @Override
+        final void updateBucket(B spare, BucketOrdsEnum ordsEnum, long docCount) {
+            updateBucket(spare, ordsEnum.value(), docCount);
+            spare.bucketOrd = ordsEnum.ord();
+        }
+
+        /**
+         * Update the key and doc count of {@code spare}.
+         */
+        abstract void updateBucket(B spare, long value, long docCount);
+
+        /**
+         * Build the result from the {@link #spill} rather than from the buckets
+         * on heap, by merging the doc counts of each value as they come out of
+         * the external sort.
+         */
+        final R buildSpilledResult() throws IOException {
+            spillBuckets();
+            long otherDocCount = 0;
+            int size = (int) Math.min(spill.size(), bucketCountThresholds.getShardSize());
+            PriorityQueue<B> ordered = buildPriorityQueue(size);
+            B spare = null;
+            try (BucketCountsSpill.Merged merged = spill.merge()) {
+                while (merged.next()) {
+                    long docCount = merged.docCount();
+                    otherDocCount += docCount;
+                    if (docCount < bucketCountThresholds.getShardMinDocCount()) {
+                        continue;
+                    }
+                    if (spare == null) {
+                        spare = buildEmptyBucket();
+                    }
+                    BytesRef key = merged.key();
+                    updateBucket(spare, NumericUtils.sortableBytesToLong(key.bytes, key.offset), docCount);
+                    spare = ordered.insertWithOverflow(spare);
+                }
+            } finally {
+                spill.close();
+            }
+
+            B[] topBuckets = buildBuckets(ordered.size());
+            for (int b = ordered.size() - 1; b >= 0; --b) {
+                topBuckets[b] = ordered.pop();
+                otherDocCount -= topBuckets[b].getDocCount();
+            }
+            return buildResult(0, otherDocCount, topBuckets);
+        }
+
         @Override
         final void collectZeroDocEntriesIfNeeded(long owningBucketOrd) throws IOException {
             if (bucketCountThresholds.getMinDocCount() != 0) {
@@ -343,10 +430,9 @@ public class NumericTermsAggregator extends TermsAggregator {
         }
 
         @Override
-        void updateBucket(LongTerms.Bucket spare, BucketOrdsEnum ordsEnum, long docCount) {
-            spare.term = ordsEnum.value();
+        void updateBucket(LongTerms.Bucket spare, long value, long docCount) {
+            spare.term = value;
             spare.docCount = docCount;
-            spare.bucketOrd = ordsEnum.ord();
         }
 
         @Override
@@ -425,10 +511,9 @@ public class NumericTermsAggregator extends TermsAggregator {
         }
 
         @Override
-        void updateBucket(DoubleTerms.Bucket spare, BucketOrdsEnum ordsEnum, long docCount) {
-            spare.term = NumericUtils.sortableLongToDouble(ordsEnum.value());
+        void updateBucket(DoubleTerms.Bucket spare, long value, long docCount) {
+            spare.term = NumericUtils.sortableLongToDouble(value);
             spare.docCount = docCount;
-            spare.bucketOrd = ordsEnum.ord();
         }
 
         @Override
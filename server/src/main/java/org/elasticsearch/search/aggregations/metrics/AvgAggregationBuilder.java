@@ -90,6 +90,11 @@ public class AvgAggregationBuilder extends ValuesSourceAggregationBuilder.Single
         return builder;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
@@ -33,6 +33,7 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
     LongArray counts;
     DoubleArray sums;
     DoubleArray compensations;
+    final DoubleValuesBlock block = new DoubleValuesBlock();
     DocValueFormat format;
 
     AvgAggregator(
@@ -59,6 +60,11 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         return valuesSource != null && valuesSource.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
     }
 
+    @Override
+    public boolean collectsBlocks() {
+        return valuesSource != null;
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
         if (valuesSource == null) {
@@ -93,6 +99,26 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, kahanSummation.delta());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                counts = bigArrays().grow(counts, bucket + 1);
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                block.read(values, docs, count);
+                final double[] blockValues = block.values();
+                final int size = block.size();
+                if (size > 0) {
+                    counts.increment(bucket, size);
+                    kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                    for (int i = 0; i < size; i++) {
+                        kahanSummation.add(blockValues[i]);
+                    }
+                    sums.set(bucket, kahanSummation.value());
+                    compensations.set(bucket, kahanSummation.delta());
+                }
+            }
         };
     }
 
@@ -169,6 +169,11 @@ public final class CardinalityAggregationBuilder extends ValuesSourceAggregation
         return Objects.equals(precisionThreshold, other.precisionThreshold);
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
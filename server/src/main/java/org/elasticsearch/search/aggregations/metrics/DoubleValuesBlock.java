@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+import java.io.IOException;
+
+/**
+ * Reads the values of a block of documents into a reusable array, so that metric aggregators can accumulate them in a tight loop
+ * rather than advancing their doc values and updating their accumulators for each document in turn.
+ */
+final class DoubleValuesBlock {
+
+    private double[] values = new double[16];
+    private int size;
+
+    /**
+     * Reads all the values of the given documents, in order.
+     */
+    void read(SortedNumericDoubleValues docValues, int[] docs, int count) throws IOException {
+        final NumericDoubleValues singleton = FieldData.unwrapSingleton(docValues);
+        if (singleton != null) {
+            read(singleton, docs, count);
+            return;
+        }
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            if (docValues.advanceExact(docs[i])) {
+                final int valueCount = docValues.docValueCount();
+                values = ArrayUtil.grow(values, size + valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values[size++] = docValues.nextValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the value of each of the given documents that has one, in order.
+     */
+    void read(NumericDoubleValues docValues, int[] docs, int count) throws IOException {
+        values = ArrayUtil.grow(values, count);
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            if (docValues.advanceExact(docs[i])) {
+                values[size++] = docValues.doubleValue();
+            }
+        }
+    }
+
+    /**
+     * The values that the last call to {@code read} read, up to {@link #size()}.
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * The number of values that the last call to {@code read} read.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -134,6 +134,11 @@ public class ExtendedStatsAggregationBuilder extends ValuesSourceAggregationBuil
         return Objects.equals(sigma, other.sigma);
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
@@ -41,6 +41,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
     final Function<byte[], Number> pointConverter;
 
     DoubleArray mins;
+    final DoubleValuesBlock block = new DoubleValuesBlock();
 
     MinAggregator(String name, ValuesSourceConfig config, AggregationContext context, Aggregator parent, Map<String, Object> metadata)
         throws IOException {
@@ -65,6 +66,11 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         return valuesSource != null && valuesSource.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
     }
 
+    @Override
+    public boolean collectsBlocks() {
+        return valuesSource != null;
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
         if (valuesSource == null) {
@@ -102,6 +108,25 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays().grow(mins, bucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                block.read(values, docs, count);
+                final double[] blockValues = block.values();
+                final int size = block.size();
+                if (size > 0) {
+                    double min = mins.get(bucket);
+                    for (int i = 0; i < size; i++) {
+                        min = Math.min(min, blockValues[i]);
+                    }
+                    mins.set(bucket, min);
+                }
+            }
+
         };
     }
 
@@ -101,6 +101,11 @@ public class StatsAggregationBuilder extends ValuesSourceAggregationBuilder.Metr
         return builder;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
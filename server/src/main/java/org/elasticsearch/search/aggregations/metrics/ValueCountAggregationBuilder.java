@@ -103,6 +103,11 @@ public class ValueCountAggregationBuilder extends ValuesSourceAggregationBuilder
         return builder;
     }
 
+    @Override
+    public boolean supportsSegmentLevelResults() {
+        return true;
+    }
+
     @Override
     public String getType() {
         return NAME;
@@ -43,6 +43,7 @@ import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.sort.SortBuilder;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -225,6 +226,17 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract void addReleasable(Aggregator aggregator);
 
+    /**
+     * The number of aggregations that were added with {@link #addReleasable} and weren't released yet.
+     */
+    public abstract int releasableCount();
+
+    /**
+     * Release the aggregations that were added with {@link #addReleasable} after the first {@code count} ones
+     * rather than when the search is finished.
+     */
+    public abstract void releaseAfter(int count);
+
     public abstract MultiBucketConsumer multiBucketConsumer();
 
     /**
@@ -282,6 +294,24 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean enableRewriteToFilterByFilter();
 
+    /**
+     * The number of bytes of buckets that a {@code terms} aggregation without
+     * sub-aggregations may hold on heap before it spills them to temporary
+     * files under {@link #termsSpillPath()}, or {@code -1} if it must never
+     * spill. This hooks into a cluster level setting.
+     */
+    public abstract long termsSpillThreshold();
+
+    /**
+     * The directory of the node that {@code terms} aggregations spill to, or
+     * {@code null} if the node has no writable directory for it, in which
+     * case they never spill. This is outside of the directories of the shards
+     * so spilling works on read-only shards and never leaves files behind in
+     * them.
+     */
+    @Nullable
+    public abstract Path termsSpillPath();
+
     /**
      * Implementation of {@linkplain AggregationContext} for production usage
      * that wraps our ubiquitous {@link SearchExecutionContext} and anything else
@@ -303,6 +333,8 @@ public abstract class AggregationContext implements Releasable {
         private final Supplier<Boolean> isCancelled;
         private final Function<Query, Query> filterQuery;
         private final boolean enableRewriteToFilterByFilter;
+        private final long termsSpillThreshold;
+        private final Path termsSpillPath;
         private final AnalysisRegistry analysisRegistry;
 
         private final List<Aggregator> releaseMe = new ArrayList<>();
@@ -321,7 +353,9 @@ public abstract class AggregationContext implements Releasable {
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
             Function<Query, Query> filterQuery,
-            boolean enableRewriteToFilterByFilter
+            boolean enableRewriteToFilterByFilter,
+            long termsSpillThreshold,
+            @Nullable Path termsSpillPath
         ) {
             this.analysisRegistry = analysisRegistry;
             this.context = context;
@@ -354,6 +388,8 @@ public abstract class AggregationContext implements Releasable {
             this.isCancelled = isCancelled;
             this.filterQuery = filterQuery;
             this.enableRewriteToFilterByFilter = enableRewriteToFilterByFilter;
+            this.termsSpillThreshold = termsSpillThreshold;
+            this.termsSpillPath = termsSpillPath;
         }
 
         @Override
@@ -480,6 +516,21 @@ public abstract class AggregationContext implements Releasable {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public int releasableCount() {
+            return releaseMe.size();
+        }
+
+        @Override
+        public void releaseAfter(int count) {
+            List<Aggregator> toRelease = releaseMe.subList(count, releaseMe.size());
+            try {
+                Releasables.close(toRelease);
+            } finally {
+                toRelease.clear();
+            }
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
@@ -531,6 +582,16 @@ public abstract class AggregationContext implements Releasable {
             return enableRewriteToFilterByFilter;
         }
 
+        @Override
+        public long termsSpillThreshold() {
+            return termsSpillThreshold;
+        }
+
+        @Override
+        public Path termsSpillPath() {
+            return termsSpillPath;
+        }
+
         @Override
         public void close() {
             /*
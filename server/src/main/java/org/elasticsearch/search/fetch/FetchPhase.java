@@ -32,6 +32,7 @@ import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.fetch.FetchSubPhase.HitContext;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.fetch.subphase.FetchSourcePhase;
 import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsPhase;
 import org.elasticsearch.search.internal.SearchContext;
@@ -61,6 +62,15 @@ import static java.util.Collections.emptyMap;
 public class FetchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
 
+    /**
+     * The minimum number of docs to fetch from a segment to read their stored fields sequentially.
+     */
+    static final int SEQUENTIAL_READER_MIN_DOCS = 10;
+    /**
+     * The maximum average distance between the ids of the docs to fetch from a segment to read their stored fields sequentially.
+     */
+    static final int SEQUENTIAL_READER_MAX_AVERAGE_GAP = 8;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -121,7 +131,6 @@ public class FetchPhase {
         LeafReaderContext currentReaderContext = null;
         LeafNestedDocuments leafNestedDocuments = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
-        boolean hasSequentialDocs = hasSequentialDocs(docs);
         for (int index = 0; index < context.docIdsToLoadSize(); index++) {
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
@@ -134,18 +143,26 @@ public class FetchPhase {
                     try {
                         currentReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
                         currentReaderIndex = readerIndex;
-                        if (currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
-                            && hasSequentialDocs
-                            && docs.length >= 10) {
-                            // All the docs to fetch are adjacent but Lucene stored fields are optimized
-                            // for random access and don't optimize for sequential access - except for merging.
-                            // So we do a little hack here and pretend we're going to do merges in order to
-                            // get better sequential access.
+                        int leafEnd = index + 1;
+                        int maxDoc = currentReaderContext.docBase + currentReaderContext.reader().maxDoc();
+                        while (leafEnd < docs.length && docs[leafEnd].docId < maxDoc) {
+                            leafEnd++;
+                        }
+                        boolean sequential = currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
+                            && hasCloseDocs(docs, index, leafEnd);
+                        if (sequential) {
+                            // The docs to fetch from this segment are close to each other but Lucene stored fields are
+                            // optimized for random access and decompress a block again for every doc in it - except
+                            // for merging. So we do a little hack here and pretend we're going to do merges in order
+                            // to decompress each block once.
                             SequentialStoredFieldsLeafReader lf = (SequentialStoredFieldsLeafReader) currentReaderContext.reader();
                             fieldReader = lf.getSequentialStoredFieldsReader()::visitDocument;
                         } else {
                             fieldReader = currentReaderContext.reader()::document;
                         }
+                        if (fieldsVisitor != null) {
+                            profiler.storedFieldsReader(sequential, leafEnd - index);
+                        }
                         for (FetchSubPhaseProcessor processor : processors) {
                             processor.setNextReader(currentReaderContext);
                         }
@@ -253,7 +270,12 @@ public class FetchPhase {
     }
 
     private boolean sourceRequired(SearchContext context) {
-        return context.sourceRequested() || context.fetchFieldsContext() != null;
+        if (context.fetchFieldsContext() != null) {
+            return true;
+        }
+        // the source is rebuilt from doc values if that's cheaper than loading it
+        return context.sourceRequested()
+            && FetchSourcePhase.docValueFieldTypes(context.fetchSourceContext(), context.getSearchExecutionContext()) == null;
     }
 
     private HitContext prepareHitContext(
@@ -481,11 +503,17 @@ public class FetchPhase {
     }
 
     /**
-     * Returns <code>true</code> if the provided <code>docs</code> are
-     * stored sequentially (Dn = Dn-1 + 1).
+     * Whether the docs in the given range of the sorted docs are close enough to each other to read their stored fields sequentially.
+     * A sequential reader decompresses every block of stored fields that it touches once and in full, while a random access reader
+     * decompresses the block again for every doc, so reading sequentially pays off once blocks hold a few of the docs to fetch.
      */
-    static boolean hasSequentialDocs(DocIdToIndex[] docs) {
-        return docs.length > 0 && docs[docs.length - 1].docId - docs[0].docId == docs.length - 1;
+    static boolean hasCloseDocs(DocIdToIndex[] docs, int from, int to) {
+        int count = to - from;
+        if (count < SEQUENTIAL_READER_MIN_DOCS) {
+            return false;
+        }
+        long span = docs[to - 1].docId - docs[from].docId;
+        return span < (long) count * SEQUENTIAL_READER_MAX_AVERAGE_GAP;
     }
 
     interface Profiler {
@@ -499,6 +527,12 @@ public class FetchPhase {
 
         void stopLoadingStoredFields();
 
+        /**
+         * Called when the stored fields of the given number of docs of the next segment are going to be read with a sequential or a
+         * random access reader.
+         */
+        void storedFieldsReader(boolean sequential, int docs);
+
         void startNextReader();
 
         void stopNextReader();
@@ -523,6 +557,9 @@ public class FetchPhase {
             @Override
             public void stopLoadingStoredFields() {}
 
+            @Override
+            public void storedFieldsReader(boolean sequential, int docs) {}
+
             @Override
             public void startNextReader() {}
 
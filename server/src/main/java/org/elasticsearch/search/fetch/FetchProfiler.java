@@ -104,6 +104,15 @@ public class FetchProfiler implements FetchPhase.Profiler {
         current.getTimer(FetchPhaseTiming.LOAD_STORED_FIELDS).stop();
     }
 
+    @Override
+    public void storedFieldsReader(boolean sequential, int docs) {
+        if (sequential) {
+            current.sequentialStoredFieldsDocs += docs;
+        } else {
+            current.randomAccessStoredFieldsDocs += docs;
+        }
+    }
+
     @Override
     public void startNextReader() {
         current.getTimer(FetchPhaseTiming.NEXT_READER).start();
@@ -118,6 +127,8 @@ public class FetchProfiler implements FetchPhase.Profiler {
         private final long start;
         private final Map<String, Object> debug = new HashMap<>();
         private final List<FetchSubPhaseProfileBreakdown> subPhases = new ArrayList<>();
+        private int sequentialStoredFieldsDocs;
+        private int randomAccessStoredFieldsDocs;
 
         FetchProfileBreakdown(long start) {
             super(FetchPhaseTiming.class);
@@ -126,6 +137,11 @@ public class FetchProfiler implements FetchPhase.Profiler {
 
         @Override
         protected Map<String, Object> toDebugMap() {
+            Map<String, Object> debug = new HashMap<>(this.debug);
+            if (sequentialStoredFieldsDocs + randomAccessStoredFieldsDocs > 0) {
+                debug.put("sequential_stored_fields_docs", sequentialStoredFieldsDocs);
+                debug.put("random_access_stored_fields_docs", randomAccessStoredFieldsDocs);
+            }
             return Map.copyOf(debug);
         }
 
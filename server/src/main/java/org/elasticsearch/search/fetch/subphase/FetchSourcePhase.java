@@ -12,6 +12,14 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DocValueFetcher;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.ValueFetcher;
+import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.fetch.FetchContext;
 import org.elasticsearch.search.fetch.FetchSubPhase;
@@ -21,7 +29,11 @@ import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class FetchSourcePhase implements FetchSubPhase {
     @Override
@@ -33,16 +45,33 @@ public final class FetchSourcePhase implements FetchSubPhase {
         String index = fetchContext.getIndexName();
         assert fetchSourceContext.fetchSource();
 
+        List<MappedFieldType> docValueFieldTypes = docValueFieldTypes(fetchSourceContext, fetchContext.getSearchExecutionContext());
+        List<DocValueField> docValueFields = new ArrayList<>();
+        if (docValueFieldTypes != null) {
+            for (MappedFieldType ft : docValueFieldTypes) {
+                ValueFetcher fetcher = new DocValueFetcher(ft.docValueFormat(null, null), fetchContext.searchLookup().getForField(ft));
+                docValueFields.add(new DocValueField(ft.name(), fetcher));
+            }
+        }
+
         return new FetchSubPhaseProcessor() {
             private int fastPath;
+            private int docValuesPath;
 
             @Override
             public void setNextReader(LeafReaderContext readerContext) {
-
+                for (DocValueField f : docValueFields) {
+                    f.fetcher.setNextReader(readerContext);
+                }
             }
 
             @Override
-            public void process(HitContext hitContext) {
+            public void process(HitContext hitContext) throws IOException {
+                if (docValueFieldTypes != null) {
+                    hitContext.hit().sourceRef(sourceFromDocValues(docValueFields, hitContext));
+                    docValuesPath++;
+                    return;
+                }
                 if (fetchContext.getSearchExecutionContext().isSourceEnabled() == false) {
                     if (containsFilters(fetchSourceContext)) {
                         throw new IllegalArgumentException(
@@ -82,11 +111,77 @@ public final class FetchSourcePhase implements FetchSubPhase {
 
             @Override
             public Map<String, Object> getDebugInfo() {
-                return Map.of("fast_path", fastPath);
+                return Map.of("fast_path", fastPath, "doc_values_path", docValuesPath);
             }
         };
     }
 
+    /**
+     * Returns the types of the fields that a filtered {@code _source} can be rebuilt from without loading the stored {@code _source},
+     * or {@code null} if it has to be loaded. This is only the case if {@link IndexSettings#FETCH_SOURCE_FROM_DOC_VALUES_SETTING} is
+     * enabled, the index has no nested fields and the filter only includes fields by their full name, each of which has doc values and
+     * is the only field that is read from its path in the {@code _source}. Keyword fields with {@code ignore_above} or a
+     * {@code normalizer} are read from the stored {@code _source} since their doc values can miss or alter the original values.
+     * Arrays are returned in the order of the doc values rather than in their original order, so they are sorted and, for fields
+     * like {@code keyword} whose doc values are sets, deduplicated.
+     */
+    @Nullable
+    public static List<MappedFieldType> docValueFieldTypes(FetchSourceContext fetchSourceContext, SearchExecutionContext context) {
+        if (fetchSourceContext == null
+            || fetchSourceContext.fetchSource() == false
+            || fetchSourceContext.includes().length == 0
+            || fetchSourceContext.excludes().length != 0) {
+            return null;
+        }
+        List<MappedFieldType> fieldTypes = new ArrayList<>(fetchSourceContext.includes().length);
+        for (String include : fetchSourceContext.includes()) {
+            if (Regex.isSimpleMatchPattern(include)) {
+                return null;
+            }
+            MappedFieldType ft = context.getFieldType(include);
+            if (ft == null || ft.name().equals(include) == false || ft.hasDocValues() == false) {
+                return null;
+            }
+            if (ft instanceof KeywordFieldMapper.KeywordFieldType) {
+                KeywordFieldMapper.KeywordFieldType keywordFieldType = (KeywordFieldMapper.KeywordFieldType) ft;
+                if (keywordFieldType.ignoreAbove() != KeywordFieldMapper.Defaults.IGNORE_ABOVE || keywordFieldType.hasNormalizer()) {
+                    return null;
+                }
+            }
+            // multi-fields and the targets of copy_to don't have their own value in the _source
+            if (Set.of(include).equals(context.sourcePath(include)) == false) {
+                return null;
+            }
+            fieldTypes.add(ft);
+        }
+        IndexSettings indexSettings = context.getIndexSettings();
+        if (indexSettings.isFetchSourceFromDocValues() == false || context.isSourceEnabled() == false || context.hasNested()) {
+            return null;
+        }
+        return fieldTypes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BytesReference sourceFromDocValues(List<DocValueField> fields, HitContext hitContext) throws IOException {
+        Map<String, Object> source = new HashMap<>();
+        List<Object> ignoredValues = new ArrayList<>();
+        for (DocValueField f : fields) {
+            List<Object> values = f.fetcher.fetchValues(hitContext.sourceLookup(), ignoredValues);
+            if (values.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> parent = source;
+            String[] path = f.path;
+            for (int i = 0; i < path.length - 1; i++) {
+                parent = (Map<String, Object>) parent.computeIfAbsent(path[i], k -> new HashMap<>());
+            }
+            parent.put(path[path.length - 1], values.size() == 1 ? values.get(0) : values);
+        }
+        // Doc value fetches should not return any ignored values
+        assert ignoredValues.isEmpty();
+        return objectToBytes(source, XContentType.JSON, 128);
+    }
+
     private static boolean containsFilters(FetchSourceContext context) {
         return context.includes().length != 0 || context.excludes().length != 0;
     }
@@ -118,4 +213,14 @@ public final class FetchSourcePhase implements FetchSubPhase {
         }
         return sourceAsMap;
     }
+
+    private static class DocValueField {
+        private final String[] path;
+        private final ValueFetcher fetcher;
+
+        DocValueField(String field, ValueFetcher fetcher) {
+            this.path = field.split("\\.");
+            this.fetcher = fetcher;
+        }
+    }
 }
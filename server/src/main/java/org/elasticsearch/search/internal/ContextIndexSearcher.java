@@ -11,16 +11,25 @@ package org.elasticsearch.search.internal;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.sandbox.search.IndexSortSortedNumericDocValuesRangeQuery;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.PointRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
@@ -33,21 +42,32 @@ import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
+import org.elasticsearch.search.profile.query.CollectorResult;
+import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.profile.query.ProfileWeight;
 import org.elasticsearch.search.profile.query.QueryProfileBreakdown;
 import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -59,9 +79,19 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The minimum number of documents of a slice, so that small shards aren't split into slices that cost more to coordinate than
+     * they save.
+     */
+    static final int MIN_DOCS_PER_SLICE = 50_000;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private Executor sliceExecutor;
+    private int maxSlices = 1;
+    private int minDocsPerSlice = MIN_DOCS_PER_SLICE;
+    private LeafOrder<?> leafOrder;
 
     public ContextIndexSearcher(
         IndexReader reader,
@@ -121,6 +151,35 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return this.cancellable.isEnabled();
     }
 
+    /**
+     * Lets {@link #searchSlices} split the leaves into up to the given number of slices and search them concurrently on the given
+     * executor.
+     */
+    public void setSliceExecutor(Executor sliceExecutor, int maxSlices) {
+        this.sliceExecutor = Objects.requireNonNull(sliceExecutor);
+        this.maxSlices = maxSlices;
+    }
+
+    // visible for testing
+    public void setMinDocsPerSlice(int minDocsPerSlice) {
+        this.minDocsPerSlice = minDocsPerSlice;
+    }
+
+    /**
+     * Returns <code>true</code> iff {@link #searchSlices} would split the leaves of this searcher into more than one slice.
+     */
+    public boolean canSearchSlices() {
+        return sliceExecutor != null && computeSlices(leafContexts, maxSlices, minDocsPerSlice).size() > 1;
+    }
+
+    /**
+     * Sets the order in which {@link #search(List, Weight, Collector)} searches the leaves, and skips those that can't be competitive,
+     * or <code>null</code> to search the leaves in index order.
+     */
+    public void setLeafOrder(@Nullable LeafOrder<?> leafOrder) {
+        this.leafOrder = leafOrder;
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
@@ -163,18 +222,220 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     }
 
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        final PointRangeQuery timestampRange = extractTimestampRange(weight.getQuery());
+        if (leafOrder != null) {
+            leaves = leafOrder.order(leaves);
+        }
         for (LeafReaderContext ctx : leaves) { // search each subreader
-            searchLeaf(ctx, weight, collector);
+            if (leafOrder != null && leafOrder.canMatch(ctx) == false) {
+                // none of the documents of this segment can beat the bottom sort value
+                if (profiler != null) {
+                    profiler.addSkippedLeaf();
+                }
+                continue;
+            }
+            searchLeaf(ctx, weight, collector, timestampRange);
         }
     }
 
+    /**
+     * Searches the given query with a collector of the given manager for each slice of the leaves. The slices other than the first one
+     * are searched on the slice executor, and the calling thread searches those that didn't start by the time it is done with the
+     * first one. When profiling, all slices are searched by the calling thread, so that the timings of the query are accurate, and the
+     * time spent on each slice is reported. The collectors are not reduced, this is up to the caller.
+     */
+    public <C extends Collector> void searchSlices(Query query, CollectorManager<C, ?> manager) throws IOException {
+        final List<List<LeafReaderContext>> slices = computeSlices(leafContexts, maxSlices, minDocsPerSlice);
+        final List<C> collectors = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            collectors.add(manager.newCollector());
+        }
+        final Weight weight = createWeight(rewrite(query), collectors.get(0).scoreMode(), 1f);
+        if (profiler != null) {
+            for (int i = 0; i < slices.size(); i++) {
+                final InternalProfileCollector collector = new InternalProfileCollector(
+                    collectors.get(i),
+                    CollectorResult.REASON_SEARCH_SLICE,
+                    List.of()
+                );
+                final long start = System.nanoTime();
+                search(slices.get(i), weight, collector);
+                profiler.addSlice(collector, System.nanoTime() - start);
+            }
+            return;
+        }
+        if (sliceExecutor == null || slices.size() == 1) {
+            for (int i = 0; i < slices.size(); i++) {
+                search(slices.get(i), weight, collectors.get(i));
+            }
+            return;
+        }
+
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafReaderContext> slice = slices.get(i);
+            final C collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                // don't bother searching the slice if another one failed already
+                if (failed.get() == false) {
+                    try {
+                        search(slice, weight, collector);
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return null;
+            });
+            tasks.add(task);
+            try {
+                sliceExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the task will be run by the calling thread below
+            }
+        }
+        Exception failure = null;
+        try {
+            search(slices.get(0), weight, collectors.get(0));
+        } catch (Exception e) {
+            failed.set(true);
+            failure = e;
+        }
+        for (FutureTask<Void> task : tasks) {
+            // runs the task on this thread unless it has started already
+            task.run();
+        }
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else if (failure != cause) {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new ElasticsearchException(failure);
+        }
+    }
+
+    /**
+     * Splits the given leaves into up to the given number of slices of consecutive leaves with about the same number of documents,
+     * and at least the given number of documents each, except for the last one.
+     */
+    static List<List<LeafReaderContext>> computeSlices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final long numSlices = Math.max(1, Math.min(Math.min(maxSlices, leaves.size()), totalDocs / Math.max(1, minDocsPerSlice)));
+        if (numSlices <= 1) {
+            return List.of(leaves);
+        }
+        final long docsPerSlice = (totalDocs + numSlices - 1) / numSlices;
+        final List<List<LeafReaderContext>> slices = new ArrayList<>();
+        List<LeafReaderContext> slice = new ArrayList<>();
+        long sliceDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            slice.add(leaf);
+            sliceDocs += leaf.reader().maxDoc();
+            if (sliceDocs >= docsPerSlice && slices.size() < numSlices - 1) {
+                slices.add(slice);
+                slice = new ArrayList<>();
+                sliceDocs = 0;
+            }
+        }
+        if (slice.isEmpty() == false) {
+            slices.add(slice);
+        }
+        return slices;
+    }
+
+    /**
+     * Returns a range on the {@code @timestamp} field that all documents matching the given query must be in, or {@code null} if there
+     * is no such range. Only required clauses are considered, so that a segment whose points are all out of the range can't match.
+     */
+    @Nullable
+    static PointRangeQuery extractTimestampRange(Query query) {
+        while (true) {
+            if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else if (query instanceof IndexSortSortedNumericDocValuesRangeQuery) {
+                query = ((IndexSortSortedNumericDocValuesRangeQuery) query).getFallbackQuery();
+            } else if (query instanceof IndexOrDocValuesQuery) {
+                query = ((IndexOrDocValuesQuery) query).getIndexQuery();
+            } else if (query instanceof BooleanQuery) {
+                for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                    if (clause.isRequired()) {
+                        PointRangeQuery range = extractTimestampRange(clause.getQuery());
+                        if (range != null) {
+                            return range;
+                        }
+                    }
+                }
+                return null;
+            } else if (query instanceof PointRangeQuery
+                && ((PointRangeQuery) query).getField().equals(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD)) {
+                    return (PointRangeQuery) query;
+                } else {
+                    return null;
+                }
+        }
+    }
+
+    /**
+     * Returns <code>false</code> if the minimum and maximum points of the given segment show that none of its documents are in the given
+     * range. These bounds are loaded with the segment, so checking them is cheap compared to building a scorer.
+     */
+    static boolean canMatchTimestampRange(LeafReaderContext ctx, PointRangeQuery range) throws IOException {
+        final PointValues values = ctx.reader().getPointValues(range.getField());
+        if (values == null) {
+            // no document of this segment has a timestamp
+            return false;
+        }
+        final int numDims = range.getNumDims();
+        final int bytesPerDim = range.getBytesPerDim();
+        if (values.getNumIndexDimensions() != numDims || values.getBytesPerDimension() != bytesPerDim) {
+            return true;
+        }
+        final byte[] minPackedValue = values.getMinPackedValue();
+        final byte[] maxPackedValue = values.getMaxPackedValue();
+        final byte[] lowerPoint = range.getLowerPoint();
+        final byte[] upperPoint = range.getUpperPoint();
+        for (int dim = 0; dim < numDims; dim++) {
+            final int from = dim * bytesPerDim;
+            final int to = from + bytesPerDim;
+            if (Arrays.compareUnsigned(maxPackedValue, from, to, lowerPoint, from, to) < 0
+                || Arrays.compareUnsigned(minPackedValue, from, to, upperPoint, from, to) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Lower-level search API.
      *
      * {@link LeafCollector#collect(int)} is called for every matching document in
      * the provided <code>ctx</code>.
      */
-    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
+    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector, @Nullable PointRangeQuery timestampRange)
+        throws IOException {
         cancellable.checkCancelled();
         weight = wrapWeight(weight);
         final LeafCollector leafCollector;
@@ -185,6 +446,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             // continue with the following leaf
             return;
         }
+        if (timestampRange != null && canMatchTimestampRange(ctx, timestampRange) == false) {
+            // the timestamps of this segment are all out of the range the query requires, skip building a scorer for it
+            if (profiler != null) {
+                profiler.addSkippedLeaf();
+            }
+            return;
+        }
         Bits liveDocs = ctx.reader().getLiveDocs();
         BitSet liveDocsBitSet = getSparseBitSetOrNull(liveDocs);
         if (liveDocsBitSet == null) {
@@ -0,0 +1,108 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.sort.MinAndMax;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders the leaves of a search that sorts on a field by the range of the values of the field in each leaf, so that the leaves with
+ * the most competitive values are searched first. The top hits fill up with competitive values quickly, which lets the comparators
+ * skip the non-competitive documents of the other leaves. This matters for sorts in the opposite order of the index, for instance to
+ * find the latest events of an index that is sorted by ascending timestamp.
+ * <p>
+ * The leaves may only be reordered if the sort ends with a unique tiebreaker such as {@code _shard_doc}: the collectors treat hits
+ * that tie with the bottom of the queue as non-competitive because they expect documents in the order of the index, so without a
+ * tiebreaker the order of the leaves would decide which of the tied hits make it to a page and pages could overlap or miss hits.
+ * <p>
+ * If a bottom sort value is known, for instance from the top hits that other shards already returned, the leaves whose values can't
+ * compete with it are skipped entirely. This doesn't need a tiebreaker since ties with the bottom are always searched.
+ */
+public abstract class LeafOrder<T extends Comparable<? super T>> {
+
+    private final boolean reverse;
+    @Nullable
+    private final T bottomValue;
+    private final boolean reorderLeaves;
+
+    /**
+     * @param reverse       whether the sort is descending
+     * @param bottomValue   the value that documents must at least match to be competitive, if known
+     * @param reorderLeaves whether the leaves may be searched in a different order than the index, which requires the sort to end
+     *                      with a unique tiebreaker
+     */
+    protected LeafOrder(boolean reverse, @Nullable T bottomValue, boolean reorderLeaves) {
+        this.reverse = reverse;
+        this.bottomValue = bottomValue;
+        this.reorderLeaves = reorderLeaves;
+    }
+
+    /**
+     * Returns the minimum and maximum value that the documents of the given leaf sort on, or <code>null</code> if unknown.
+     */
+    @Nullable
+    protected abstract MinAndMax<T> range(LeafReaderContext leaf) throws IOException;
+
+    /**
+     * Returns the given leaves ordered so that the leaves with the most competitive values come first, or in index order if they
+     * may not be reordered.
+     */
+    List<LeafReaderContext> order(List<LeafReaderContext> leaves) throws IOException {
+        if (reorderLeaves == false || leaves.size() <= 1) {
+            return leaves;
+        }
+        final List<Leaf<T>> ordered = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            final MinAndMax<T> range = range(leaf);
+            ordered.add(new Leaf<>(leaf, range == null ? null : reverse ? range.getMax() : range.getMin()));
+        }
+        Comparator<T> comparator = Comparator.naturalOrder();
+        if (reverse) {
+            comparator = comparator.reversed();
+        }
+        // leaves whose values are unknown go last
+        ordered.sort(Comparator.comparing((Leaf<T> leaf) -> leaf.key, Comparator.nullsLast(comparator)));
+        final List<LeafReaderContext> result = new ArrayList<>(leaves.size());
+        for (Leaf<T> leaf : ordered) {
+            result.add(leaf.context);
+        }
+        return result;
+    }
+
+    /**
+     * Returns <code>false</code> if none of the documents of the given leaf can be competitive.
+     */
+    boolean canMatch(LeafReaderContext leaf) throws IOException {
+        if (bottomValue == null) {
+            return true;
+        }
+        final MinAndMax<T> range = range(leaf);
+        if (range == null) {
+            return true;
+        }
+        // documents that tie with the bottom may still be competitive
+        return reverse ? range.getMax().compareTo(bottomValue) >= 0 : range.getMin().compareTo(bottomValue) <= 0;
+    }
+
+    private static class Leaf<T> {
+        private final LeafReaderContext context;
+        private final T key;
+
+        Leaf(LeafReaderContext context, T key) {
+            this.context = context;
+            this.key = key;
+        }
+    }
+}
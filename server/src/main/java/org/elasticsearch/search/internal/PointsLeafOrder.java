@@ -0,0 +1,59 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.sort.MinAndMax;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafOrder} for sorts on a long field that is indexed as a {@link LongPoint}, which reads the range of the values of each
+ * leaf from its points.
+ */
+public final class PointsLeafOrder extends LeafOrder<Long> {
+
+    private final String field;
+    private final long missingValue;
+
+    /**
+     * @param field         the field to sort on, which must be indexed as a {@link LongPoint}
+     * @param reverse       whether the sort is descending
+     * @param missingValue  the value that documents without a value sort on
+     * @param bottomValue   the value that documents must at least match to be competitive, if known
+     * @param reorderLeaves whether the leaves may be searched in a different order than the index
+     */
+    public PointsLeafOrder(String field, boolean reverse, long missingValue, @Nullable Long bottomValue, boolean reorderLeaves) {
+        super(reverse, bottomValue, reorderLeaves);
+        this.field = field;
+        this.missingValue = missingValue;
+    }
+
+    @Override
+    protected MinAndMax<Long> range(LeafReaderContext leaf) throws IOException {
+        final PointValues points = leaf.reader().getPointValues(field);
+        if (points == null) {
+            // none of the documents has a value
+            return new MinAndMax<>(missingValue, missingValue);
+        }
+        if (points.getNumDimensions() != 1 || points.getBytesPerDimension() != Long.BYTES) {
+            return null;
+        }
+        long min = LongPoint.decodeDimension(points.getMinPackedValue(), 0);
+        long max = LongPoint.decodeDimension(points.getMaxPackedValue(), 0);
+        if (points.getDocCount() < leaf.reader().maxDoc()) {
+            min = Math.min(min, missingValue);
+            max = Math.max(max, missingValue);
+        }
+        return new MinAndMax<>(min, max);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.sort.MinAndMax;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafOrder} for sorts on an indexed keyword field whose documents without a value sort last, which reads the range of the
+ * values of each leaf from its terms. Documents without a value never beat a document with a value, so they don't widen the range.
+ */
+public final class TermsLeafOrder extends LeafOrder<BytesRef> {
+
+    private final String field;
+
+    /**
+     * @param field         the field to sort on, which must be indexed with the same terms as its doc values
+     * @param reverse       whether the sort is descending
+     * @param bottomValue   the value that documents must at least match to be competitive, if known
+     * @param reorderLeaves whether the leaves may be searched in a different order than the index
+     */
+    public TermsLeafOrder(String field, boolean reverse, @Nullable BytesRef bottomValue, boolean reorderLeaves) {
+        super(reverse, bottomValue, reorderLeaves);
+        this.field = field;
+    }
+
+    @Override
+    protected MinAndMax<BytesRef> range(LeafReaderContext leaf) throws IOException {
+        final Terms terms = leaf.reader().terms(field);
+        if (terms == null) {
+            return null;
+        }
+        final BytesRef min = terms.getMin();
+        final BytesRef max = terms.getMax();
+        if (min == null || max == null) {
+            return null;
+        }
+        // the terms enum may reuse its bytes
+        return new MinAndMax<>(BytesRef.deepCopyOf(min), BytesRef.deepCopyOf(max));
+    }
+}
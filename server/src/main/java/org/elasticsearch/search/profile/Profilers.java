@@ -75,7 +75,8 @@ public final class Profilers {
             QueryProfileShardResult result = new QueryProfileShardResult(
                 queryProfiler.getTree(),
                 queryProfiler.getRewriteTime(),
-                queryProfiler.getCollector()
+                queryProfiler.getCollector(),
+                queryProfiler.getSkippedLeaves()
             );
             queryResults.add(result);
         }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.profile.query;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -34,6 +35,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
     public static final String COLLECTOR = "collector";
     public static final String REWRITE_TIME = "rewrite_time";
     public static final String QUERY_ARRAY = "query";
+    public static final String SKIPPED_LEAVES = "skipped_leaves";
 
     private final List<ProfileResult> queryProfileResults;
 
@@ -41,11 +43,23 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
     private final long rewriteTime;
 
+    private final long skippedLeaves;
+
     public QueryProfileShardResult(List<ProfileResult> queryProfileResults, long rewriteTime, CollectorResult profileCollector) {
+        this(queryProfileResults, rewriteTime, profileCollector, 0);
+    }
+
+    public QueryProfileShardResult(
+        List<ProfileResult> queryProfileResults,
+        long rewriteTime,
+        CollectorResult profileCollector,
+        long skippedLeaves
+    ) {
         assert (profileCollector != null);
         this.queryProfileResults = queryProfileResults;
         this.profileCollector = profileCollector;
         this.rewriteTime = rewriteTime;
+        this.skippedLeaves = skippedLeaves;
     }
 
     /**
@@ -60,6 +74,11 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
         profileCollector = new CollectorResult(in);
         rewriteTime = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            skippedLeaves = in.readVLong();
+        } else {
+            skippedLeaves = 0;
+        }
     }
 
     @Override
@@ -70,6 +89,9 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         profileCollector.writeTo(out);
         out.writeLong(rewriteTime);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(skippedLeaves);
+        }
     }
 
     public List<ProfileResult> getQueryResults() {
@@ -80,6 +102,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         return rewriteTime;
     }
 
+    /**
+     * The number of segments that were skipped because their timestamps could not match the query.
+     */
+    public long getSkippedLeaves() {
+        return skippedLeaves;
+    }
+
     public CollectorResult getCollectorResult() {
         return profileCollector;
     }
@@ -93,6 +122,9 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         builder.endArray();
         builder.field(REWRITE_TIME, rewriteTime);
+        if (skippedLeaves > 0) {
+            builder.field(SKIPPED_LEAVES, skippedLeaves);
+        }
         builder.startArray(COLLECTOR);
         profileCollector.toXContent(builder, params);
         builder.endArray();
@@ -108,12 +140,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         QueryProfileShardResult other = (QueryProfileShardResult) obj;
         return queryProfileResults.equals(other.queryProfileResults)
             && profileCollector.equals(other.profileCollector)
-            && rewriteTime == other.rewriteTime;
+            && rewriteTime == other.rewriteTime
+            && skippedLeaves == other.skippedLeaves;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(queryProfileResults, profileCollector, rewriteTime);
+        return Objects.hash(queryProfileResults, profileCollector, rewriteTime, skippedLeaves);
     }
 
     @Override
@@ -127,6 +160,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         String currentFieldName = null;
         List<ProfileResult> queryProfileResults = new ArrayList<>();
         long rewriteTime = 0;
+        long skippedLeaves = 0;
         CollectorResult collector = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
@@ -134,6 +168,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
             } else if (token.isValue()) {
                 if (REWRITE_TIME.equals(currentFieldName)) {
                     rewriteTime = parser.longValue();
+                } else if (SKIPPED_LEAVES.equals(currentFieldName)) {
+                    skippedLeaves = parser.longValue();
                 } else {
                     parser.skipChildren();
                 }
@@ -153,6 +189,6 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
                 parser.skipChildren();
             }
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector);
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector, skippedLeaves);
     }
 }
@@ -11,6 +11,8 @@ package org.elasticsearch.search.profile.query;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.search.profile.AbstractProfiler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -31,6 +33,17 @@ public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown,
      */
     private InternalProfileCollector collector;
 
+    /**
+     * The number of segments that were skipped because their timestamps could not match the query
+     */
+    private long skippedLeaves;
+
+    /**
+     * The collectors of the slices of the leaves that were searched with a collector each, and the time spent on each slice
+     */
+    private final List<InternalProfileCollector> sliceCollectors = new ArrayList<>();
+    private final List<Long> sliceTimes = new ArrayList<>();
+
     public QueryProfiler() {
         super(new InternalQueryProfileTree());
     }
@@ -68,10 +81,46 @@ public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown,
         return ((InternalQueryProfileTree) profileTree).getRewriteTime();
     }
 
+    /**
+     * Record that a segment was skipped without building a scorer for it.
+     */
+    public void addSkippedLeaf() {
+        skippedLeaves++;
+    }
+
+    /**
+     * @return the number of segments that were skipped without building a scorer for them
+     */
+    public long getSkippedLeaves() {
+        return skippedLeaves;
+    }
+
+    /**
+     * Record that a slice of the leaves was searched with the given collector, and the time it took in nanoseconds.
+     */
+    public void addSlice(InternalProfileCollector sliceCollector, long timeInNanos) {
+        if (collector != null) {
+            throw new IllegalStateException("The collector is set already.");
+        }
+        sliceCollectors.add(Objects.requireNonNull(sliceCollector));
+        sliceTimes.add(timeInNanos);
+    }
+
     /**
      * Return the current root Collector for this search
      */
     public CollectorResult getCollector() {
+        if (collector == null && sliceCollectors.isEmpty() == false) {
+            // the leaves were searched in slices, report the time spent on each slice
+            final List<CollectorResult> slices = new ArrayList<>(sliceCollectors.size());
+            long totalTime = 0;
+            for (int i = 0; i < sliceCollectors.size(); i++) {
+                final long time = sliceTimes.get(i);
+                slices.add(new CollectorResult(sliceCollectors.get(i).getName(), CollectorResult.REASON_SEARCH_SLICE, time, List.of()));
+                totalTime += time;
+            }
+            return new CollectorResult("SliceCollectorManager", CollectorResult.REASON_SEARCH_SLICES, totalTime, slices);
+        }
         return collector.getCollectorTree();
     }
 
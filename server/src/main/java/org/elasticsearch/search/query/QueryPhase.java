@@ -15,26 +15,38 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
 import org.elasticsearch.search.aggregations.AggregationPhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.LeafOrder;
+import org.elasticsearch.search.internal.PointsLeafOrder;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.TermsLeafOrder;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescorePhase;
+import org.elasticsearch.search.sort.ShardDocSortField;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -217,11 +229,20 @@ public class QueryPhase {
     ) throws IOException {
         // create the top docs collector last when the other collectors are known
         final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, hasFilterCollector);
+        // the leaves can only be searched concurrently if no other collector, such as aggregations, needs to see all the hits
+        final CollectorManager<Collector, Void> sliceCollectorManager = collectors.isEmpty() && searcher.canSearchSlices()
+            ? topDocsFactory.createSliceCollectorManager()
+            : null;
+        // the leaves can only be searched in a different order if no other collector needs to see the hits in index order
+        final LeafOrder<?> leafOrder = collectors.isEmpty() && sliceCollectorManager == null ? createLeafOrder(searchContext) : null;
         // add the top docs collector, the first collector context in the chain
         collectors.addFirst(topDocsFactory);
 
         final Collector queryCollector;
-        if (searchContext.getProfilers() != null) {
+        if (sliceCollectorManager != null) {
+            // the searcher reports the collectors of the slices to the profiler itself
+            queryCollector = null;
+        } else if (searchContext.getProfilers() != null) {
             InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
             searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
             queryCollector = profileCollector;
@@ -229,8 +250,13 @@ public class QueryPhase {
             queryCollector = QueryCollectorContext.createQueryCollector(collectors);
         }
         QuerySearchResult queryResult = searchContext.queryResult();
+        searcher.setLeafOrder(leafOrder);
         try {
-            searcher.search(query, queryCollector);
+            if (sliceCollectorManager != null) {
+                searcher.searchSlices(query, sliceCollectorManager);
+            } else {
+                searcher.search(query, queryCollector);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
@@ -240,6 +266,8 @@ public class QueryPhase {
                 throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
             }
             queryResult.searchTimedOut(true);
+        } finally {
+            searcher.setLeafOrder(null);
         }
         if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER && queryResult.terminatedEarly() == null) {
             queryResult.terminatedEarly(false);
@@ -250,6 +278,75 @@ public class QueryPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Returns the order in which to search the leaves if the primary sort is on a long field that is indexed with points or on a keyword
+     * field, so that the segments that hold the most competitive values are searched first, or <code>null</code> to search them in
+     * index order. The segments are only reordered if the sort ends with a unique tiebreaker, since the collectors break ties by the
+     * order in which they see the documents. If total hits aren't tracked, the segments that can't beat the bottom sort value that the
+     * coordinating node got from other shards are skipped too.
+     */
+    static LeafOrder<?> createLeafOrder(SearchContext searchContext) {
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        if (sortAndFormats == null || searchContext.scrollContext() != null || searchContext.collapse() != null) {
+            return null;
+        }
+        final SortField sortField = sortAndFormats.sort.getSort()[0];
+        if (sortField.getField() == null) {
+            return null;
+        }
+        final MappedFieldType fieldType = searchContext.getSearchExecutionContext().getFieldType(sortField.getField());
+        if (fieldType == null || fieldType.isSearchable() == false) {
+            return null;
+        }
+        Object bottomValue = null;
+        final SearchSortValuesAndFormats bottomSortValues = searchContext.request() == null
+            ? null
+            : searchContext.request().getBottomSortValues();
+        if (bottomSortValues != null
+            && bottomSortValues.getRawSortValues().length > 0
+            && searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            bottomValue = bottomSortValues.getRawSortValues()[0];
+        }
+        final boolean reorderLeaves = endsWithUniqueTiebreaker(sortAndFormats.sort);
+        if (reorderLeaves == false && bottomValue == null) {
+            return null;
+        }
+        if (sortField instanceof SortedNumericSortField
+            && ((SortedNumericSortField) sortField).getNumericType() == SortField.Type.LONG
+            && sortField.getOptimizeSortWithPoints()) {
+            final Object missingValue = sortField.getMissingValue();
+            return new PointsLeafOrder(
+                sortField.getField(),
+                sortField.getReverse(),
+                missingValue == null ? 0L : (Long) missingValue,
+                bottomValue instanceof Long ? (Long) bottomValue : null,
+                reorderLeaves
+            );
+        }
+        // documents without a value must sort last, since the terms don't tell which segments have some
+        final Object missingLast = sortField.getReverse() ? SortField.STRING_FIRST : SortField.STRING_LAST;
+        if (sortField instanceof SortedSetSortField
+            && fieldType instanceof KeywordFieldMapper.KeywordFieldType
+            && sortField.getMissingValue() == missingLast) {
+            return new TermsLeafOrder(
+                sortField.getField(),
+                sortField.getReverse(),
+                bottomValue instanceof BytesRef ? (BytesRef) bottomValue : null,
+                reorderLeaves
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the last field of the sort is unique to each document, so that hits never tie whatever the order of the leaves.
+     */
+    private static boolean endsWithUniqueTiebreaker(Sort sort) {
+        final SortField[] sortFields = sort.getSort();
+        final SortField last = sortFields[sortFields.length - 1];
+        return sortFields.length > 1 && (last instanceof ShardDocSortField || last.getType() == SortField.Type.DOC);
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
@@ -20,6 +20,7 @@ import org.apache.lucene.queries.spans.SpanQuery;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldDoc;
@@ -56,6 +57,9 @@ import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -87,10 +91,33 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         return false;
     }
 
+    /**
+     * Returns a manager that creates a collector for each slice of the leaves when they are searched concurrently, or
+     * <code>null</code> if this context can only collect the leaves with a single collector. The collectors the manager
+     * creates replace the one of {@link #create(Collector)}, and are merged by {@link #postProcess(QuerySearchResult)}.
+     */
+    @Nullable
+    CollectorManager<Collector, Void> createSliceCollectorManager() {
+        return null;
+    }
+
+    /**
+     * A {@link CollectorManager} that leaves the reduction of the collectors to {@link #postProcess(QuerySearchResult)}.
+     */
+    abstract static class SliceCollectorManager implements CollectorManager<Collector, Void> {
+        @Override
+        public final Void reduce(Collection<Collector> collectors) {
+            return null;
+        }
+    }
+
     static class EmptyTopDocsCollectorContext extends TopDocsCollectorContext {
         private final Sort sort;
         private final Collector collector;
         private final Supplier<TotalHits> hitCountSupplier;
+        // the collectors of the slices of a concurrent search, only used when hits are counted accurately with a collector
+        private final List<TotalHitCountCollector> sliceCollectors = new ArrayList<>();
+        private final boolean countsWithCollector;
 
         /**
          * Ctr
@@ -112,6 +139,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 this.collector = new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false);
                 // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
                 this.hitCountSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+                this.countsWithCollector = false;
             } else {
                 TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
                 // implicit total hit counts are valid only when there is no filter collector in the chain
@@ -119,7 +147,17 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 if (hitCount == -1) {
                     if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
                         this.collector = hitCountCollector;
-                        this.hitCountSupplier = () -> new TotalHits(hitCountCollector.getTotalHits(), TotalHits.Relation.EQUAL_TO);
+                        this.hitCountSupplier = () -> {
+                            if (sliceCollectors.isEmpty()) {
+                                return new TotalHits(hitCountCollector.getTotalHits(), TotalHits.Relation.EQUAL_TO);
+                            }
+                            long totalHits = 0;
+                            for (TotalHitCountCollector sliceCollector : sliceCollectors) {
+                                totalHits += sliceCollector.getTotalHits();
+                            }
+                            return new TotalHits(totalHits, TotalHits.Relation.EQUAL_TO);
+                        };
+                        this.countsWithCollector = true;
                     } else {
                         EarlyTerminatingCollector col = new EarlyTerminatingCollector(hitCountCollector, trackTotalHitsUpTo, false);
                         this.collector = col;
@@ -127,10 +165,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                             hitCountCollector.getTotalHits(),
                             col.hasEarlyTerminated() ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO
                         );
+                        this.countsWithCollector = false;
                     }
                 } else {
                     this.collector = new EarlyTerminatingCollector(hitCountCollector, 0, false);
                     this.hitCountSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+                    this.countsWithCollector = false;
                 }
             }
         }
@@ -141,6 +181,22 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        @Override
+        CollectorManager<Collector, Void> createSliceCollectorManager() {
+            if (countsWithCollector == false) {
+                // hits are either not counted or counted up to a threshold, neither is worth slicing for
+                return null;
+            }
+            return new SliceCollectorManager() {
+                @Override
+                public Collector newCollector() {
+                    TotalHitCountCollector sliceCollector = new TotalHitCountCollector();
+                    sliceCollectors.add(sliceCollector);
+                    return sliceCollector;
+                }
+            };
+        }
+
         @Override
         void postProcess(QuerySearchResult result) {
             final TotalHits totalHitCount = hitCountSupplier.get();
@@ -222,6 +278,13 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         private final Supplier<TotalHits> totalHitsSupplier;
         private final Supplier<TopDocs> topDocsSupplier;
         private final Supplier<Float> maxScoreSupplier;
+        private final TopDocsCollector<?> topDocsCollector;
+        private final @Nullable ScoreDoc searchAfter;
+        private final int hitCountThreshold;
+        private final boolean trackMaxScore;
+        // the collectors of the slices of a concurrent search
+        private final List<TopDocsCollector<?>> sliceTopDocsCollectors = new ArrayList<>();
+        private final List<MaxScoreCollector> sliceMaxScoreCollectors = new ArrayList<>();
 
         /**
          * Ctr
@@ -246,31 +309,35 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         ) throws IOException {
             super(REASON_SEARCH_TOP_HITS, numHits);
             this.sortAndFormats = sortAndFormats;
-
-            final TopDocsCollector<?> topDocsCollector;
+            this.searchAfter = searchAfter;
+            this.trackMaxScore = trackMaxScore;
 
             if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0])) && hasInfMaxScore(query)) {
                 // disable max score optimization since we have a mandatory clause
                 // that doesn't track the maximum score
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, Integer.MAX_VALUE);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = Integer.MAX_VALUE;
+                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                topDocsSupplier = new CachedSupplier<>(this::collectedTopDocs);
                 totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
             } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
                 // don't compute hit counts via the collector
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = 1;
+                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                topDocsSupplier = new CachedSupplier<>(this::collectedTopDocs);
                 totalHitsSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
             } else {
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 final int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
                 if (hitCount == -1) {
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, trackTotalHitsUpTo);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = trackTotalHitsUpTo;
+                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                    topDocsSupplier = new CachedSupplier<>(this::collectedTopDocs);
                     totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
                 } else {
                     // don't compute hit counts via the collector
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = 1;
+                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                    topDocsSupplier = new CachedSupplier<>(this::collectedTopDocs);
                     totalHitsSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
                 }
             }
@@ -285,8 +352,20 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                     }
                 };
             } else if (trackMaxScore) {
-                maxScoreCollector = new MaxScoreCollector();
-                maxScoreSupplier = maxScoreCollector::getMaxScore;
+                final MaxScoreCollector finalMaxScoreCollector = maxScoreCollector = new MaxScoreCollector();
+                maxScoreSupplier = () -> {
+                    if (sliceMaxScoreCollectors.isEmpty()) {
+                        return finalMaxScoreCollector.getMaxScore();
+                    }
+                    float maxScore = Float.NaN;
+                    for (MaxScoreCollector sliceCollector : sliceMaxScoreCollectors) {
+                        float sliceMaxScore = sliceCollector.getMaxScore();
+                        if (Float.isNaN(maxScore) || sliceMaxScore > maxScore) {
+                            maxScore = sliceMaxScore;
+                        }
+                    }
+                    return maxScore;
+                };
             } else {
                 maxScoreSupplier = () -> Float.NaN;
             }
@@ -301,6 +380,46 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        @Override
+        CollectorManager<Collector, Void> createSliceCollectorManager() {
+            return new SliceCollectorManager() {
+                @Override
+                public Collector newCollector() {
+                    TopDocsCollector<?> sliceTopDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                    sliceTopDocsCollectors.add(sliceTopDocsCollector);
+                    MaxScoreCollector sliceMaxScoreCollector = null;
+                    if (sortAndFormats != null && trackMaxScore) {
+                        sliceMaxScoreCollector = new MaxScoreCollector();
+                        sliceMaxScoreCollectors.add(sliceMaxScoreCollector);
+                    }
+                    return MultiCollector.wrap(sliceTopDocsCollector, sliceMaxScoreCollector);
+                }
+            };
+        }
+
+        /**
+         * Returns the top docs of the collector, or the merged top docs of the collectors of the slices if the leaves were searched
+         * concurrently.
+         */
+        private TopDocs collectedTopDocs() {
+            if (sliceTopDocsCollectors.isEmpty()) {
+                return topDocsCollector.topDocs();
+            }
+            final TopDocs[] sliceTopDocs = new TopDocs[sliceTopDocsCollectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = sliceTopDocsCollectors.get(i).topDocs();
+            }
+            // doc ids are global to the reader, so ties are broken on the order of the documents like with a single collector
+            if (sortAndFormats == null) {
+                return TopDocs.merge(numHits, sliceTopDocs);
+            }
+            final TopFieldDocs[] sliceTopFieldDocs = new TopFieldDocs[sliceTopDocs.length];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopFieldDocs[i] = (TopFieldDocs) sliceTopDocs[i];
+            }
+            return TopDocs.merge(sortAndFormats.sort, numHits, sliceTopFieldDocs);
+        }
+
         TopDocsAndMaxScore newTopDocs() {
             TopDocs in = topDocsSupplier.get();
             float maxScore = maxScoreSupplier.get();
@@ -350,6 +469,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             this.numberOfShards = numberOfShards;
         }
 
+        @Override
+        CollectorManager<Collector, Void> createSliceCollectorManager() {
+            // scrolls resume from the last emitted doc, which is simpler to keep track of with a single collector
+            return null;
+        }
+
         @Override
         void postProcess(QuerySearchResult result) throws IOException {
             final TopDocsAndMaxScore topDocs = newTopDocs();
@@ -428,6 +428,9 @@ public class FieldSortBuilder extends SortBuilder<FieldSortBuilder> {
         if (fieldType.isSearchable() == false) {
             return false;
         }
+        if (fieldType instanceof DateFieldType == false) {
+            return isBottomSortValueOutOfRange(context, bottomSortValues.getRawSortValues()[0]);
+        }
         DocValueFormat docValueFormat = bottomSortValues.getSortValueFormats()[0];
         final DateMathParser dateMathParser;
         if (docValueFormat instanceof DocValueFormat.DateTime) {
@@ -456,6 +459,30 @@ public class FieldSortBuilder extends SortBuilder<FieldSortBuilder> {
         }
     }
 
+    /**
+     * Returns whether the given bottom sort value is out of the range of the values of the field in the shard, so that none of the
+     * documents of the shard can be competitive. This works for the keyword and numeric fields that {@link #getMinMaxOrNull} supports.
+     */
+    private boolean isBottomSortValueOutOfRange(SearchExecutionContext context, Object bottomSortValue) throws IOException {
+        if (bottomSortValue == null || sortMode == SortMode.SUM) {
+            // a sum can exceed the range of the values
+            return false;
+        }
+        MinAndMax<?> minAndMax = getMinMaxOrNull(context, this);
+        if (minAndMax == null || minAndMax.getMin().getClass() != bottomSortValue.getClass()) {
+            // the sort field may be mapped differently in another search index
+            return false;
+        }
+        return isOutOfRange(minAndMax, bottomSortValue, order());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<? super T>> boolean isOutOfRange(MinAndMax<T> minAndMax, Object bottomSortValue, SortOrder order) {
+        T value = (T) bottomSortValue;
+        // documents that tie with the bottom may still be competitive
+        return order == SortOrder.DESC ? minAndMax.getMax().compareTo(value) < 0 : minAndMax.getMin().compareTo(value) > 0;
+    }
+
     @Override
     public BucketedSort buildBucketedSort(SearchExecutionContext context, BigArrays bigArrays, int bucketSize, BucketedSort.ExtraData extra)
         throws IOException {
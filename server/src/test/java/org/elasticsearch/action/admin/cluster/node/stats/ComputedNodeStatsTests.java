@@ -57,6 +57,16 @@ public class ComputedNodeStatsTests extends ESTestCase {
         assertTrue(first.rank(0) < second.rank(1));
     }
 
+    public void testRankByTailLatency() {
+        ComputedNodeStats average = new ComputedNodeStats("node0", 5, 0, 150 * 1_000_000, 100 * 1_000_000, 900 * 1_000_000, false);
+        assertThat(average.rank(0), equalTo(150.0));
+        ComputedNodeStats tail = new ComputedNodeStats("node0", 5, 0, 150 * 1_000_000, 100 * 1_000_000, 900 * 1_000_000, true);
+        assertThat(tail.rank(0), equalTo(900.0));
+        // the tail never makes a node look better than its average
+        ComputedNodeStats noTail = new ComputedNodeStats("node0", 5, 0, 150 * 1_000_000, 100 * 1_000_000, 0, true);
+        assertThat(noTail.rank(0), equalTo(150.0));
+    }
+
     private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis) {
         return new ComputedNodeStats("node0", 5, queueSize, 1_000_000 * responseTimeMillis, 1_000_000 * serviceTimeMillis);
     }
@@ -21,6 +21,8 @@ import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.indices.IoBudget;
+import org.elasticsearch.indices.IoBudgetStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -45,6 +47,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -477,8 +480,14 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.queueSize, bStats.queueSize, 0.01);
                         assertEquals(aStats.serviceTime, bStats.serviceTime, 0.01);
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
+                        assertEquals(aStats.tailResponseTime, bStats.tailResponseTime, 0.01);
+                        assertEquals(aStats.rankByTailLatency, bStats.rankByTailLatency);
                     });
+                    assertEquals(adaptiveStats.getHedgedRequests(), deserializedAdaptiveStats.getHedgedRequests());
+                    assertEquals(adaptiveStats.getHedgedRequestsWon(), deserializedAdaptiveStats.getHedgedRequestsWon());
+                    assertEquals(adaptiveStats.getHedgedRequestsOverBudget(), deserializedAdaptiveStats.getHedgedRequestsOverBudget());
                 }
+                assertEquals(nodeStats.getIoBudgetStats(), deserializedNodeStats.getIoBudgetStats());
                 ScriptCacheStats scriptCacheStats = nodeStats.getScriptCacheStats();
                 ScriptCacheStats deserializedScriptCacheStats = deserializedNodeStats.getScriptCacheStats();
                 if (scriptCacheStats == null) {
@@ -851,14 +860,30 @@ public class NodeStatsTests extends ESTestCase {
                         randomIntBetween(1, 10),
                         randomIntBetween(0, 2000),
                         randomDoubleBetween(1.0, 10000000.0, true),
-                        randomDoubleBetween(1.0, 10000000.0, true)
+                        randomDoubleBetween(1.0, 10000000.0, true),
+                        randomDoubleBetween(1.0, 10000000.0, true),
+                        randomBoolean()
                     );
                     nodeStats.put(nodeId, stats);
                 }
             }
-            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+            adaptiveSelectionStats = new AdaptiveSelectionStats(
+                nodeConnections,
+                nodeStats,
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
+            );
         }
         ScriptCacheStats scriptCacheStats = scriptStats != null ? scriptStats.toScriptCacheStats() : null;
+        IoBudgetStats ioBudgetStats = null;
+        if (frequently()) {
+            Map<String, IoBudgetStats.ConsumerStats> consumers = new LinkedHashMap<>();
+            for (IoBudget.Consumer consumer : IoBudget.Consumer.values()) {
+                consumers.put(consumer.displayName(), new IoBudgetStats.ConsumerStats(randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            ioBudgetStats = new IoBudgetStats(randomNonNegativeLong(), consumers);
+        }
         // TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(
             node,
@@ -877,7 +902,8 @@ public class NodeStatsTests extends ESTestCase {
             ingestStats,
             adaptiveSelectionStats,
             scriptCacheStats,
-            null
+            null,
+            ioBudgetStats
         );
     }
 
@@ -8,11 +8,19 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.lucene.util.TestUtil.randomSimpleString;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class BulkShardRequestTests extends ESTestCase {
     public void testToString() {
@@ -31,4 +39,34 @@ public class BulkShardRequestTests extends ESTestCase {
         assertEquals("BulkShardRequest [" + shardId + "] containing [" + count + "] requests blocking until refresh", r.toString());
         assertEquals("requests[" + count + "], index[" + index + "][0], refresh[WAIT_UNTIL]", r.getDescription());
     }
+
+    public void testSourcesAreRetainedUntilReleased() throws Exception {
+        final ShardId shardId = new ShardId(randomSimpleString(random(), 10), "ignored", 0);
+        final int count = between(1, 10);
+        final BulkItemRequest[] items = new BulkItemRequest[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest(shardId.getIndexName()).source("{\"field\":\"value\"}", XContentType.JSON));
+        }
+        final BytesStreamOutput out = new BytesStreamOutput();
+        new BulkShardRequest(shardId, RefreshPolicy.NONE, items).writeTo(out);
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference bytes = new ReleasableBytesReference(out.bytes(), () -> released.set(true));
+        final BulkShardRequest request;
+        try (StreamInput in = bytes.streamInput()) {
+            request = new BulkShardRequest(in);
+        }
+        bytes.decRef();
+        // the sources still reference the buffer the request was read from
+        assertFalse(released.get());
+        for (BulkItemRequest item : request.items()) {
+            assertThat(((IndexRequest) item.request()).source(), instanceOf(ReleasableBytesReference.class));
+        }
+
+        request.incRef();
+        assertFalse(request.decRef());
+        assertFalse(released.get());
+        assertTrue(request.decRef());
+        assertTrue(released.get());
+    }
 }
@@ -23,6 +23,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
@@ -36,8 +37,12 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
 public class QueryPhaseResultConsumerTests extends ESTestCase {
 
     private SearchPhaseController searchPhaseController;
@@ -132,6 +137,78 @@ public class QueryPhaseResultConsumerTests extends ESTestCase {
         assertEquals(1, searchProgressListener.onFinalReduce.get());
     }
 
+    public void testTopDocsAreMergedAsResultsAreConsumed() throws Exception {
+        int numShards = randomIntBetween(2, 50);
+        int size = randomIntBetween(1, 10);
+        SearchRequest searchRequest = new SearchRequest("index");
+        searchRequest.source(new SearchSourceBuilder().size(size));
+        searchRequest.setBatchedReduceSize(randomIntBetween(2, numShards + 1));
+        AtomicLong used = new AtomicLong();
+        CircuitBreaker circuitBreaker = new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                used.addAndGet(bytes);
+            }
+
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                used.addAndGet(bytes);
+            }
+        };
+        QueryPhaseResultConsumer queryPhaseResultConsumer = new QueryPhaseResultConsumer(
+            searchRequest,
+            executor,
+            circuitBreaker,
+            searchPhaseController,
+            () -> false,
+            SearchProgressListener.NOOP,
+            numShards,
+            e -> {}
+        );
+
+        List<Float> allScores = new ArrayList<>();
+        long maxUsed = 0;
+        CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            ScoreDoc[] scoreDocs = new ScoreDoc[size];
+            float score = randomFloat() * 100;
+            for (int j = 0; j < size; j++) {
+                scoreDocs[j] = new ScoreDoc(j, score);
+                allScores.add(score);
+                score -= randomFloat();
+            }
+            QuerySearchResult querySearchResult = new QuerySearchResult();
+            TopDocs topDocs = new TopDocs(new TotalHits(size, TotalHits.Relation.EQUAL_TO), scoreDocs);
+            querySearchResult.topDocs(new TopDocsAndMaxScore(topDocs, scoreDocs[0].score), new DocValueFormat[0]);
+            querySearchResult.setSearchShardTarget(new SearchShardTarget("node", new ShardId("index", "uuid", i), null));
+            querySearchResult.setShardIndex(i);
+            querySearchResult.from(0);
+            querySearchResult.size(size);
+            queryPhaseResultConsumer.consumeResult(querySearchResult, latch::countDown);
+            // the top docs of each shard are merged right away
+            assertTrue(querySearchResult.hasConsumedTopDocs());
+            if (i == 0) {
+                maxUsed = used.get();
+                assertThat(maxUsed, greaterThan(0L));
+            } else {
+                // only the top docs are retained, regardless of the number of shards
+                assertThat(used.get(), lessThanOrEqualTo(maxUsed));
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        SearchPhaseController.ReducedQueryPhase reducedQueryPhase = queryPhaseResultConsumer.reduce();
+        assertEquals(numShards * size, reducedQueryPhase.totalHits.value);
+        allScores.sort(Collections.reverseOrder());
+        ScoreDoc[] reducedScoreDocs = reducedQueryPhase.sortedTopDocs.scoreDocs;
+        assertEquals(size, reducedScoreDocs.length);
+        for (int i = 0; i < size; i++) {
+            assertEquals(allScores.get(i), reducedScoreDocs[i].score, 0f);
+        }
+        queryPhaseResultConsumer.close();
+        assertEquals(0L, used.get());
+    }
+
     private static class ThrowingSearchProgressListener extends SearchProgressListener {
         private final AtomicInteger onQueryResult = new AtomicInteger(0);
         private final AtomicInteger onPartialReduce = new AtomicInteger(0);
@@ -0,0 +1,264 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.test.ClusterServiceUtils;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SearchRequestDeduplicatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private ClusterService clusterService;
+    private TaskManager taskManager;
+    private SearchRequestDeduplicator deduplicator;
+    private final List<SearchTask> executionTasks = new ArrayList<>();
+    private final List<ActionListener<SearchResponse>> executions = new ArrayList<>();
+    private final BiConsumer<SearchTask, ActionListener<SearchResponse>> execution = (task, listener) -> {
+        executionTasks.add(task);
+        executions.add(listener);
+    };
+
+    @Before
+    public void setUpDeduplicator() {
+        threadPool = new TestThreadPool(getTestName());
+        clusterService = ClusterServiceUtils.createClusterService(threadPool);
+        taskManager = new TaskManager(Settings.EMPTY, threadPool, Collections.emptySet()) {
+            @Override
+            public void cancelTaskAndDescendants(
+                CancellableTask task,
+                String reason,
+                boolean waitForCompletion,
+                ActionListener<Void> listener
+            ) {
+                cancel(task, reason, () -> listener.onResponse(null));
+            }
+        };
+        deduplicator = new SearchRequestDeduplicator(clusterService, threadPool.getThreadContext(), taskManager);
+    }
+
+    @After
+    public void tearDownDeduplicator() {
+        clusterService.close();
+        terminate(threadPool);
+    }
+
+    public void testDisabledByDefault() {
+        final PlainActionFuture<SearchResponse> first = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> second = PlainActionFuture.newFuture();
+        deduplicator.execute(newTask(), newRequest(), first, execution);
+        deduplicator.execute(newTask(), newRequest(), second, execution);
+        assertThat(executions.size(), equalTo(2));
+        assertThat(deduplicator.inFlight(), equalTo(0));
+    }
+
+    public void testIdenticalRequestsShareExecution() {
+        enable(TimeValue.ZERO);
+        final PlainActionFuture<SearchResponse> first = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> second = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> other = PlainActionFuture.newFuture();
+        try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+            threadPool.getThreadContext().putHeader(Task.X_OPAQUE_ID, "first");
+            deduplicator.execute(newTask(), newRequest(), first, execution);
+        }
+        try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+            threadPool.getThreadContext().putHeader(Task.X_OPAQUE_ID, "second");
+            deduplicator.execute(newTask(), newRequest(), second, execution);
+        }
+        deduplicator.execute(newTask(), newRequest().source(new SearchSourceBuilder().size(1)), other, execution);
+        assertThat(executions.size(), equalTo(2));
+        assertThat(deduplicator.inFlight(), equalTo(2));
+
+        final SearchResponse response = newResponse();
+        executions.get(0).onResponse(response);
+        assertThat(first.actionGet().getInternalResponse(), sameInstance(response.getInternalResponse()));
+        assertThat(second.actionGet().getInternalResponse(), sameInstance(response.getInternalResponse()));
+        assertFalse(other.isDone());
+        assertThat(deduplicator.inFlight(), equalTo(1));
+        assertFalse(taskManager.getTasks().containsKey(executionTasks.get(0).getId()));
+
+        // the response isn't cached, so the same request executes again
+        deduplicator.execute(newTask(), newRequest(), PlainActionFuture.newFuture(), execution);
+        assertThat(executions.size(), equalTo(3));
+    }
+
+    public void testDifferentHeadersDoNotShareExecution() {
+        enable(TimeValue.ZERO);
+        for (String user : new String[] { "user1", "user2" }) {
+            try (ThreadContext.StoredContext ignored = threadPool.getThreadContext().stashContext()) {
+                threadPool.getThreadContext().putHeader("Authorization", user);
+                deduplicator.execute(newTask(), newRequest(), PlainActionFuture.newFuture(), execution);
+            }
+        }
+        assertThat(executions.size(), equalTo(2));
+    }
+
+    public void testStatefulRequestsAreNotDeduplicated() {
+        enable(TimeValue.timeValueMinutes(1));
+        for (int i = 0; i < 2; i++) {
+            deduplicator.execute(newTask(), newRequest().scroll(TimeValue.timeValueMinutes(1)), PlainActionFuture.newFuture(), execution);
+        }
+        assertThat(executions.size(), equalTo(2));
+        assertThat(deduplicator.inFlight(), equalTo(0));
+    }
+
+    public void testResponsesAreCachedUntilTheyExpire() {
+        enable(TimeValue.timeValueMinutes(1));
+        deduplicator.execute(newTask(), newRequest(), PlainActionFuture.newFuture(), execution);
+        final SearchResponse response = newResponse();
+        executions.get(0).onResponse(response);
+
+        final PlainActionFuture<SearchResponse> cached = PlainActionFuture.newFuture();
+        deduplicator.execute(newTask(), newRequest(), cached, execution);
+        assertThat(cached.actionGet().getInternalResponse(), sameInstance(response.getInternalResponse()));
+        assertThat(executions.size(), equalTo(1));
+
+        // requests that opt out of the request cache skip the result cache too
+        deduplicator.execute(newTask(), newRequest().requestCache(false), PlainActionFuture.newFuture(), execution);
+        assertThat(executions.size(), equalTo(2));
+
+        clusterService.getClusterSettings()
+            .applySettings(Settings.builder().put(TransportSearchAction.DEDUPLICATE_REQUESTS_SETTING.getKey(), false).build());
+        deduplicator.execute(newTask(), newRequest(), PlainActionFuture.newFuture(), execution);
+        assertThat(executions.size(), equalTo(3));
+    }
+
+    public void testSharedExecutionRunsUnderItsOwnTask() {
+        enable(TimeValue.ZERO);
+        final SearchTask task = newTask();
+        deduplicator.execute(task, newRequest(), PlainActionFuture.newFuture(), execution);
+        assertThat(executions.size(), equalTo(1));
+        assertThat(executionTasks.get(0), not(sameInstance(task)));
+        assertThat(taskManager.getTasks().get(executionTasks.get(0).getId()), sameInstance(executionTasks.get(0)));
+    }
+
+    public void testCancellingCallersOnlyFailsThoseCallers() {
+        enable(TimeValue.ZERO);
+        final SearchTask leader = newTask();
+        final SearchTask follower = newTask();
+        final SearchTask other = newTask();
+        final PlainActionFuture<SearchResponse> leaderFuture = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> followerFuture = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> otherFuture = PlainActionFuture.newFuture();
+        deduplicator.execute(leader, newRequest(), leaderFuture, execution);
+        deduplicator.execute(follower, newRequest(), followerFuture, execution);
+        deduplicator.execute(other, newRequest(), otherFuture, execution);
+        assertThat(executions.size(), equalTo(1));
+        final SearchTask sharedTask = executionTasks.get(0);
+
+        taskManager.cancel(follower, "test", () -> {});
+        expectThrows(TaskCancelledException.class, followerFuture::actionGet);
+        assertFalse(leaderFuture.isDone());
+        assertFalse(sharedTask.isCancelled());
+
+        taskManager.cancel(leader, "test", () -> {});
+        expectThrows(TaskCancelledException.class, leaderFuture::actionGet);
+        assertFalse(otherFuture.isDone());
+        assertFalse(sharedTask.isCancelled());
+
+        final SearchResponse response = newResponse();
+        executions.get(0).onResponse(response);
+        assertThat(otherFuture.actionGet().getInternalResponse(), sameInstance(response.getInternalResponse()));
+        assertThat(deduplicator.inFlight(), equalTo(0));
+    }
+
+    public void testCancellingAllCallersCancelsSharedExecution() {
+        enable(TimeValue.ZERO);
+        final SearchTask first = newTask();
+        final SearchTask second = newTask();
+        final PlainActionFuture<SearchResponse> firstFuture = PlainActionFuture.newFuture();
+        final PlainActionFuture<SearchResponse> secondFuture = PlainActionFuture.newFuture();
+        deduplicator.execute(first, newRequest(), firstFuture, execution);
+        deduplicator.execute(second, newRequest(), secondFuture, execution);
+        final SearchTask sharedTask = executionTasks.get(0);
+
+        taskManager.cancel(first, "test", () -> {});
+        taskManager.cancel(second, "test", () -> {});
+        expectThrows(TaskCancelledException.class, firstFuture::actionGet);
+        expectThrows(TaskCancelledException.class, secondFuture::actionGet);
+        assertTrue(sharedTask.isCancelled());
+        assertThat(deduplicator.inFlight(), equalTo(0));
+
+        // a new identical request doesn't join the cancelled execution
+        deduplicator.execute(newTask(), newRequest(), PlainActionFuture.newFuture(), execution);
+        assertThat(executions.size(), equalTo(2));
+        assertFalse(executionTasks.get(1).isCancelled());
+
+        // the cancelled execution completes without completing any caller
+        executions.get(0).onFailure(new TaskCancelledException("cancelled"));
+        assertFalse(taskManager.getTasks().containsKey(sharedTask.getId()));
+        assertThat(deduplicator.inFlight(), equalTo(1));
+    }
+
+    public void testTookIsReportedPerCaller() throws Exception {
+        enable(TimeValue.ZERO);
+        final PlainActionFuture<SearchResponse> first = PlainActionFuture.newFuture();
+        deduplicator.execute(newTask(), newRequest(), first, execution);
+        final long sleepMillis = 50;
+        Thread.sleep(sleepMillis);
+        final PlainActionFuture<SearchResponse> second = PlainActionFuture.newFuture();
+        final long secondStartNanos = System.nanoTime();
+        deduplicator.execute(newTask(), newRequest(), second, execution);
+        executions.get(0).onResponse(newResponse());
+        final long secondElapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - secondStartNanos);
+
+        assertThat(first.actionGet().getTook().millis(), greaterThanOrEqualTo(sleepMillis));
+        assertThat(second.actionGet().getTook().millis(), lessThanOrEqualTo(secondElapsedMillis));
+    }
+
+    private void enable(TimeValue ttl) {
+        clusterService.getClusterSettings()
+            .applySettings(
+                Settings.builder()
+                    .put(TransportSearchAction.DEDUPLICATE_REQUESTS_SETTING.getKey(), true)
+                    .put(TransportSearchAction.RESULT_CACHE_TTL_SETTING.getKey(), ttl)
+                    .build()
+            );
+    }
+
+    private SearchTask newTask() {
+        return (SearchTask) taskManager.register("transport", SearchAction.NAME, newRequest());
+    }
+
+    private static SearchRequest newRequest() {
+        return new SearchRequest("index").source(new SearchSourceBuilder());
+    }
+
+    private static SearchResponse newResponse() {
+        final ShardSearchFailure[] failures = ShardSearchFailure.EMPTY_ARRAY;
+        return new SearchResponse(InternalSearchResponse.empty(), null, 1, 1, 0, 1, failures, SearchResponse.Clusters.EMPTY);
+    }
+}
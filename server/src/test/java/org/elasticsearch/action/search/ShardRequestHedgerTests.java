@@ -0,0 +1,209 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ShardRequestHedgerTests extends ESTestCase {
+
+    private final ShardId shardId = new ShardId(new Index("index", "_na_"), 0);
+    private final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+    private final Map<String, SearchActionListener<SearchPhaseResult>> sentRequests = new HashMap<>();
+    private final List<SearchPhaseResult> releasedResults = new ArrayList<>();
+    // nodes that have no room for another request
+    private final Set<String> busyNodes = new HashSet<>();
+    private final List<String> acquiredPermits = new ArrayList<>();
+    private final List<String> releasedPermits = new ArrayList<>();
+    private final AtomicReference<SearchPhaseResult> response = new AtomicReference<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private ResponseCollectorService collector;
+    private ShardRequestHedger hedger;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        Settings settings = Settings.builder().put(ResponseCollectorService.HEDGED_REQUESTS_BUDGET_SETTING.getKey(), 1.0).build();
+        ClusterService clusterService = new ClusterService(
+            settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            taskQueue.getThreadPool()
+        );
+        collector = new ResponseCollectorService(clusterService);
+        for (int i = 0; i < 100; i++) {
+            collector.addNodeStatistics("node1", 1, TimeValue.timeValueMillis(100).nanos(), 10);
+        }
+        hedger = new ShardRequestHedger(collector, taskQueue.getThreadPool());
+    }
+
+    public void testHedgesLateRequest() {
+        SearchShardIterator shardIt = shardIt("node1", "node2");
+        execute(shardIt);
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1")));
+
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1", "node2")));
+        assertNull(shardIt.nextOrNull());
+        assertThat(acquiredPermits, equalTo(List.of("node2")));
+
+        SearchPhaseResult hedgedResult = result();
+        sentRequests.get("node2").onResponse(hedgedResult);
+        assertThat(response.get(), sameInstance(hedgedResult));
+        // the request that was hedged is still in flight
+        assertThat(releasedPermits, equalTo(List.of()));
+        assertThat(hedgedResult.getSearchShardTarget().getNodeId(), equalTo("node2"));
+        assertThat(hedgedResult.getShardIndex(), equalTo(3));
+
+        // the late response is released rather than used
+        SearchPhaseResult lateResult = result();
+        sentRequests.get("node1").onResponse(lateResult);
+        assertThat(response.get(), sameInstance(hedgedResult));
+        assertThat(releasedResults, equalTo(List.of(lateResult)));
+        assertThat(lateResult.getSearchShardTarget().getNodeId(), equalTo("node1"));
+        assertThat(releasedPermits, equalTo(List.of("node2")));
+
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequests(), equalTo(1L));
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequestsWon(), equalTo(1L));
+    }
+
+    public void testDoesNotHedgeTimelyRequest() {
+        SearchShardIterator shardIt = shardIt("node1", "node2");
+        execute(shardIt);
+        SearchPhaseResult result = result();
+        sentRequests.get("node1").onResponse(result);
+        assertThat(response.get(), sameInstance(result));
+
+        taskQueue.runAllTasks();
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1")));
+        assertThat(shardIt.remaining(), equalTo(1));
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequests(), equalTo(0L));
+    }
+
+    public void testFailsOnceAllRequestsFailed() {
+        SearchShardIterator shardIt = shardIt("node1", "node2");
+        execute(shardIt);
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1", "node2")));
+
+        sentRequests.get("node2").onFailure(new IllegalStateException("node2"));
+        assertNull(failure.get());
+        sentRequests.get("node1").onFailure(new IllegalStateException("node1"));
+        assertThat(failure.get().getMessage(), equalTo("node1"));
+        assertThat(failure.get().getSuppressed(), arrayWithSize(1));
+        assertNull(response.get());
+        assertThat(releasedPermits, equalTo(List.of("node2")));
+    }
+
+    public void testDoesNotHedgeOnBusyNode() {
+        busyNodes.add("node2");
+        SearchShardIterator shardIt = shardIt("node1", "node2");
+        execute(shardIt);
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1")));
+        // the copy is left to fail over to
+        assertThat(shardIt.remaining(), equalTo(1));
+        assertThat(acquiredPermits, equalTo(List.of()));
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequests(), equalTo(0L));
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequestsOverBudget(), equalTo(0L));
+    }
+
+    public void testFailureBeforeHedgeMovesOnToNextCopy() {
+        SearchShardIterator shardIt = shardIt("node1", "node2");
+        execute(shardIt);
+        sentRequests.get("node1").onFailure(new IllegalStateException("node1"));
+        assertThat(failure.get().getMessage(), equalTo("node1"));
+
+        // the next copy is left to the caller
+        taskQueue.runAllTasks();
+        assertThat(sentRequests.keySet(), equalTo(Set.of("node1")));
+        assertThat(shardIt.remaining(), equalTo(1));
+    }
+
+    public void testDoesNotHedgeWithoutOtherCopy() {
+        SearchShardIterator shardIt = shardIt("node1");
+        SearchActionListener<SearchPhaseResult> listener = execute(shardIt);
+        assertThat(sentRequests.get("node1"), sameInstance(listener));
+        assertFalse(taskQueue.hasDeferredTasks());
+    }
+
+    public void testDoesNotHedgeUnknownNode() {
+        SearchShardIterator shardIt = shardIt("node3", "node1");
+        SearchActionListener<SearchPhaseResult> listener = execute(shardIt);
+        assertThat(sentRequests.get("node3"), sameInstance(listener));
+        assertFalse(taskQueue.hasDeferredTasks());
+    }
+
+    private SearchShardIterator shardIt(String... nodeIds) {
+        return new SearchShardIterator(null, shardId, List.of(nodeIds), OriginalIndices.NONE, null, null);
+    }
+
+    private SearchActionListener<SearchPhaseResult> execute(SearchShardIterator shardIt) {
+        SearchShardTarget shard = shardIt.nextOrNull();
+        SearchActionListener<SearchPhaseResult> listener = new SearchActionListener<>(shard, 3) {
+            @Override
+            protected void innerOnResponse(SearchPhaseResult result) {
+                assertTrue(response.compareAndSet(null, result));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                assertTrue(failure.compareAndSet(null, e));
+            }
+        };
+        hedger.execute(
+            shardIt,
+            shard,
+            listener,
+            (target, l) -> sentRequests.put(target.getNodeId(), l),
+            releasedResults::add,
+            this::tryAcquirePermit
+        );
+        return listener;
+    }
+
+    private Releasable tryAcquirePermit(String nodeId) {
+        if (busyNodes.contains(nodeId)) {
+            return null;
+        }
+        acquiredPermits.add(nodeId);
+        return () -> releasedPermits.add(nodeId);
+    }
+
+    private static SearchPhaseResult result() {
+        ShardSearchContextId contextId = new ShardSearchContextId(randomAlphaOfLength(10), randomNonNegativeLong());
+        return new SearchAsyncActionTests.TestSearchPhaseResult(contextId, null);
+    }
+}
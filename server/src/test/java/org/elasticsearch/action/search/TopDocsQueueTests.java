@@ -0,0 +1,79 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class TopDocsQueueTests extends ESTestCase {
+
+    public void testMergeByScore() {
+        int numShards = randomIntBetween(1, 20);
+        int topN = randomIntBetween(0, 50);
+        TopDocs[] shardTopDocs = new TopDocs[numShards];
+        TopDocsQueue queue = new TopDocsQueue(topN);
+        for (int shard = 0; shard < numShards; shard++) {
+            ScoreDoc[] scoreDocs = new ScoreDoc[randomIntBetween(0, topN)];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                // few distinct scores so that ties are broken on the shard index and the doc id
+                scoreDocs[i] = new ScoreDoc(i, randomIntBetween(0, 5), shard);
+            }
+            Arrays.sort(scoreDocs, Comparator.comparing((ScoreDoc d) -> -d.score).thenComparingInt(d -> d.doc));
+            shardTopDocs[shard] = new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+            queue.add(shardTopDocs[shard]);
+        }
+        TopDocs expected = TopDocs.merge(0, topN, shardTopDocs);
+        assertMerged(expected, queue.pop());
+    }
+
+    public void testMergeByField() {
+        int numShards = randomIntBetween(1, 20);
+        int topN = randomIntBetween(0, 50);
+        boolean reverse = randomBoolean();
+        SortField[] sortFields = new SortField[] { new SortField("field", SortField.Type.LONG, reverse) };
+        TopFieldDocs[] shardTopDocs = new TopFieldDocs[numShards];
+        TopDocsQueue queue = new TopDocsQueue(topN);
+        for (int shard = 0; shard < numShards; shard++) {
+            FieldDoc[] fieldDocs = new FieldDoc[randomIntBetween(0, topN)];
+            for (int i = 0; i < fieldDocs.length; i++) {
+                fieldDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { randomLongBetween(0, 5) }, shard);
+            }
+            Comparator<FieldDoc> comparator = Comparator.comparingLong(d -> (Long) d.fields[0]);
+            Arrays.sort(fieldDocs, (reverse ? comparator.reversed() : comparator).thenComparingInt(d -> d.doc));
+            TotalHits totalHits = new TotalHits(fieldDocs.length + randomIntBetween(0, 10), TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+            shardTopDocs[shard] = new TopFieldDocs(totalHits, fieldDocs, sortFields);
+            queue.add(shardTopDocs[shard]);
+        }
+        TopDocs expected = TopDocs.merge(new Sort(sortFields), 0, topN, shardTopDocs);
+        TopDocs merged = queue.pop();
+        assertThat(merged, instanceOf(TopFieldDocs.class));
+        assertArrayEquals(sortFields, ((TopFieldDocs) merged).fields);
+        assertMerged(expected, merged);
+    }
+
+    private static void assertMerged(TopDocs expected, TopDocs merged) {
+        assertThat(merged.totalHits, equalTo(expected.totalHits));
+        assertThat(merged.scoreDocs.length, equalTo(expected.scoreDocs.length));
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertSame(expected.scoreDocs[i], merged.scoreDocs[i]);
+        }
+    }
+}
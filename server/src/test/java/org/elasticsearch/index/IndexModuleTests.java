@@ -64,8 +64,10 @@ import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.NonNegativeScoresSimilarity;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesQueryCache;
+import org.elasticsearch.indices.IoBudget;
 import org.elasticsearch.indices.TestIndexNameExpressionResolver;
 import org.elasticsearch.indices.analysis.AnalysisModule;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -198,7 +200,9 @@ public class IndexModuleTests extends ESTestCase {
             IdFieldMapper.NO_FIELD_DATA,
             null,
             indexDeletionListener,
-            emptyMap()
+            emptyMap(),
+            TranslogSyncCoordinator.DIRECT,
+            new IoBudget(settings, clusterService.getClusterSettings())
         );
     }
 
@@ -330,6 +330,41 @@ public class IndexSettingsTests extends ESTestCase {
         );
     }
 
+    public void testAdaptiveRefreshMaxIntervalShorterThanRefreshInterval() {
+        IndexMetadata metadata = newIndexMeta(
+            "index",
+            Settings.builder()
+                .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), "10s")
+                .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_SETTING.getKey(), true)
+                .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), "5s")
+                .build()
+        );
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new IndexSettings(metadata, Settings.EMPTY));
+        assertThat(
+            e.getMessage(),
+            Matchers.containsString(
+                "index.refresh.adaptive.max_interval [5s] must be greater than or equal to index.refresh_interval [10s]"
+            )
+        );
+
+        // neither a disabled refresh interval nor disabled adaptive refreshes bound the max interval
+        final boolean adaptive = randomBoolean();
+        IndexSettings settings = new IndexSettings(
+            newIndexMeta(
+                "index",
+                Settings.builder()
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), adaptive ? "-1" : "10s")
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_SETTING.getKey(), adaptive)
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), "5s")
+                    .build()
+            ),
+            Settings.EMPTY
+        );
+        assertEquals(TimeValue.timeValueSeconds(5), settings.getAdaptiveRefreshMaxInterval());
+    }
+
     private String getRandomTimeString() {
         int refreshIntervalInt = randomFrom(-1, Math.abs(randomInt()));
         String refreshInterval = Integer.toString(refreshIntervalInt);
@@ -7,6 +7,7 @@
  */
 package org.elasticsearch.index;
 
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
@@ -19,6 +20,7 @@ import java.io.IOException;
 import static org.elasticsearch.index.IndexSettingsTests.newIndexMeta;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class MergePolicySettingsTests extends ESTestCase {
     protected final ShardId shardId = new ShardId("index", "_na_", 1);
@@ -231,6 +233,79 @@ public class MergePolicySettingsTests extends ESTestCase {
         );
     }
 
+    public void testMergePolicyType() {
+        IndexSettings indexSettings = indexSettings(Settings.EMPTY);
+        assertThat(indexSettings.getMergePolicy(), instanceOf(EsTieredMergePolicy.class));
+
+        // time-based indices keep the tiered merge policy unless they opt into the log byte size merge policy
+        indexSettings = indexSettings(Settings.builder().put(IndexSortConfig.INDEX_SORT_FIELD_SETTING.getKey(), "@timestamp").build());
+        assertThat(indexSettings.getMergePolicy(), instanceOf(EsTieredMergePolicy.class));
+
+        indexSettings = indexSettings(Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "tiered").build());
+        assertThat(indexSettings.getMergePolicy(), instanceOf(EsTieredMergePolicy.class));
+
+        indexSettings = indexSettings(
+            Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_byte_size").build()
+        );
+        assertThat(indexSettings.getMergePolicy(), instanceOf(LogByteSizeMergePolicy.class));
+    }
+
+    public void testLogByteSizeMergePolicyRejectsDeletesPctAllowed() {
+        final Settings settings = Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_byte_size")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING.getKey(), 25.0d)
+            .build();
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.get(settings)
+        );
+        assertThat(
+            e.getMessage(),
+            containsString("[index.merge.policy.deletes_pct_allowed] is not supported by the [log_byte_size] merge policy")
+        );
+
+        // the default is fine, and so is any value for the tiered merge policy, which is also used when the type is unset
+        final Settings defaultDeletesPctAllowed = Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_byte_size")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING.getKey(), MergePolicyConfig.DEFAULT_DELETES_PCT_ALLOWED)
+            .build();
+        assertEquals(MergePolicyConfig.Type.LOG_BYTE_SIZE, MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.get(defaultDeletesPctAllowed));
+        final Settings tiered = Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "tiered")
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING.getKey(), 25.0d)
+            .build();
+        assertEquals(MergePolicyConfig.Type.TIERED, MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.get(tiered));
+        final Settings unset = Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING.getKey(), 25.0d)
+            .build();
+        assertEquals(MergePolicyConfig.Type.TIERED, MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.get(unset));
+    }
+
+    public void testLogByteSizeMergePolicySettingsUpdate() {
+        IndexSettings indexSettings = indexSettings(
+            Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_byte_size").build()
+        );
+        LogByteSizeMergePolicy mergePolicy = (LogByteSizeMergePolicy) indexSettings.getMergePolicy();
+        assertEquals(MergePolicyConfig.DEFAULT_MERGE_FACTOR, mergePolicy.getMergeFactor());
+        assertEquals(MergePolicyConfig.DEFAULT_FLOOR_SEGMENT.getMbFrac(), mergePolicy.getMinMergeMB(), 0.0d);
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGED_SEGMENT.getMbFrac(), mergePolicy.getMaxMergeMB(), 0.0d);
+
+        indexSettings.updateIndexMetadata(
+            newIndexMeta(
+                "index",
+                Settings.builder()
+                    .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_byte_size")
+                    .put(MergePolicyConfig.INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING.getKey(), 4)
+                    .put(MergePolicyConfig.INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING.getKey(), "1mb")
+                    .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING.getKey(), "1gb")
+                    .build()
+            )
+        );
+        assertEquals(4, mergePolicy.getMergeFactor());
+        assertEquals(ByteSizeValue.ofMb(1).getMbFrac(), mergePolicy.getMinMergeMB(), 0.0d);
+        assertEquals(ByteSizeValue.ofGb(1).getMbFrac(), mergePolicy.getMaxMergeMB(), 0.0d);
+    }
+
     public Settings build(String value) {
         return Settings.builder().put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), value).build();
     }
@@ -0,0 +1,199 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.storedfields;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class StoredFieldsCacheTests extends ESTestCase {
+
+    private final AtomicLong breakerUsed = new AtomicLong();
+    private volatile long breakerLimit = Long.MAX_VALUE;
+    private final CircuitBreaker breaker = new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (breakerUsed.get() + bytes > breakerLimit) {
+                throw new CircuitBreakingException("broken", getDurability());
+            }
+            breakerUsed.addAndGet(bytes);
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            breakerUsed.addAndGet(bytes);
+        }
+    };
+
+    public void testDisabledByDefault() throws IOException {
+        StoredFieldsCache cache = new StoredFieldsCache(IndexSettingsModule.newIndexSettings("test", Settings.EMPTY), breaker);
+        assertFalse(cache.isEnabled());
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(new Document());
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertSame(reader, cache.wrap(reader, new ShardStoredFieldsCache()));
+            }
+        }
+    }
+
+    public void testCachesStoredFields() throws IOException {
+        StoredFieldsCache cache = new StoredFieldsCache(indexSettings("1mb"), breaker);
+        assertTrue(cache.isEnabled());
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        int numDocs = between(1, 20);
+        for (int i = 0; i < numDocs; i++) {
+            writer.addDocument(document(i));
+        }
+        ShardId shardId = new ShardId("test", "_na_", 0);
+        ShardStoredFieldsCache shardCache = new ShardStoredFieldsCache();
+        DirectoryReader reader = cache.wrap(ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId), shardCache);
+
+        for (int i = 0; i < numDocs; i++) {
+            assertDocument(reader.document(i));
+        }
+        assertThat(shardCache.stats().getMissCount(), equalTo((long) numDocs));
+        assertThat(shardCache.stats().getHitCount(), equalTo(0L));
+        assertThat(cache.getMemorySizeInBytes(), greaterThan(0L));
+        assertThat(shardCache.stats().getMemorySizeInBytes(), equalTo(cache.getMemorySizeInBytes()));
+        assertThat(breakerUsed.get(), equalTo(cache.getMemorySizeInBytes()));
+
+        for (int i = 0; i < numDocs; i++) {
+            assertDocument(reader.document(i));
+        }
+        assertThat(shardCache.stats().getMissCount(), equalTo((long) numDocs));
+        assertThat(shardCache.stats().getHitCount(), equalTo((long) numDocs));
+
+        // visitors only get the fields they ask for
+        DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor("id");
+        reader.document(0, visitor);
+        assertThat(visitor.getDocument().getFields().size(), equalTo(1));
+        assertThat(visitor.getDocument().get("id"), equalTo(reader.document(0).get("id")));
+
+        // closing the segments drops their documents from the cache
+        IOUtils.close(reader, writer, dir);
+        assertThat(cache.getMemorySizeInBytes(), equalTo(0L));
+        assertThat(shardCache.stats().getMemorySizeInBytes(), equalTo(0L));
+        assertThat(breakerUsed.get(), equalTo(0L));
+    }
+
+    public void testClosingSegmentOnlyDropsItsDocuments() throws IOException {
+        StoredFieldsCache cache = new StoredFieldsCache(indexSettings("1mb"), breaker);
+        ShardStoredFieldsCache closedShardCache = new ShardStoredFieldsCache();
+        ShardStoredFieldsCache openShardCache = new ShardStoredFieldsCache();
+        try (Directory openDir = newDirectory(); IndexWriter openWriter = new IndexWriter(openDir, newIndexWriterConfig())) {
+            openWriter.addDocument(document(0));
+            try (DirectoryReader openReader = cache.wrap(DirectoryReader.open(openWriter), openShardCache)) {
+                assertDocument(openReader.document(0));
+                try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                    writer.addDocument(document(1));
+                    try (DirectoryReader reader = cache.wrap(DirectoryReader.open(writer), closedShardCache)) {
+                        assertDocument(reader.document(0));
+                    }
+                }
+                assertThat(closedShardCache.stats().getMemorySizeInBytes(), equalTo(0L));
+                assertThat(openShardCache.stats().getMemorySizeInBytes(), greaterThan(0L));
+                assertThat(cache.getMemorySizeInBytes(), equalTo(openShardCache.stats().getMemorySizeInBytes()));
+
+                // the document of the open segment is still cached
+                assertDocument(openReader.document(0));
+                assertThat(openShardCache.stats().getHitCount(), equalTo(1L));
+            }
+        }
+        assertThat(cache.getMemorySizeInBytes(), equalTo(0L));
+        assertThat(breakerUsed.get(), equalTo(0L));
+    }
+
+    public void testEvictions() throws IOException {
+        StoredFieldsCache cache = new StoredFieldsCache(indexSettings("1b"), breaker);
+        ShardStoredFieldsCache shardCache = new ShardStoredFieldsCache();
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(document(0));
+            try (DirectoryReader reader = cache.wrap(DirectoryReader.open(writer), shardCache)) {
+                assertDocument(reader.document(0));
+                // no document fits in the cache, so it is evicted right away
+                assertThat(shardCache.stats().getEvictions(), equalTo(1L));
+                assertThat(shardCache.stats().getMemorySizeInBytes(), equalTo(0L));
+                assertThat(breakerUsed.get(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testDoesNotCacheWhenBreakerTrips() throws IOException {
+        breakerLimit = 0;
+        StoredFieldsCache cache = new StoredFieldsCache(indexSettings("1mb"), breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(document(0));
+            ShardStoredFieldsCache shardCache = new ShardStoredFieldsCache();
+            try (DirectoryReader reader = cache.wrap(DirectoryReader.open(writer), shardCache)) {
+                assertDocument(reader.document(0));
+                assertDocument(reader.document(0));
+                assertThat(shardCache.stats().getMissCount(), equalTo(2L));
+                assertThat(cache.getMemorySizeInBytes(), equalTo(0L));
+                assertThat(breakerUsed.get(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testClear() throws IOException {
+        StoredFieldsCache cache = new StoredFieldsCache(indexSettings("1mb"), breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(document(0));
+            try (DirectoryReader reader = cache.wrap(DirectoryReader.open(writer), new ShardStoredFieldsCache())) {
+                assertDocument(reader.document(0));
+                assertThat(breakerUsed.get(), greaterThan(0L));
+                cache.clear("test");
+                assertThat(cache.getMemorySizeInBytes(), equalTo(0L));
+                assertThat(breakerUsed.get(), equalTo(0L));
+            }
+        }
+    }
+
+    private static IndexSettings indexSettings(String cacheSize) {
+        Settings settings = Settings.builder().put(StoredFieldsCache.INDEX_STORED_FIELDS_CACHE_SIZE_SETTING.getKey(), cacheSize).build();
+        return IndexSettingsModule.newIndexSettings("test", settings);
+    }
+
+    private static Document document(int i) {
+        Document document = new Document();
+        document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+        document.add(new StoredField("bytes", new BytesRef("value" + i)));
+        document.add(new StoredField("number", i));
+        return document;
+    }
+
+    private static void assertDocument(Document document) {
+        // merges may reorder the documents
+        int i = Integer.parseInt(document.get("id"));
+        assertThat(document.getBinaryValue("bytes"), equalTo(new BytesRef("value" + i)));
+        assertThat(document.getField("number").numericValue(), equalTo(i));
+    }
+}
@@ -4267,6 +4267,51 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testIndexBatchAppendOnly() throws IOException {
+        final int numDocs = randomIntBetween(2, 32);
+        final List<Engine.Index> operations = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            final ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocumentWithTextField(), B_1, null);
+            operations.add(appendOnlyPrimary(doc, false, i));
+        }
+        final List<Engine.IndexResult> results = engine.indexBatch(operations);
+        assertThat(results, hasSize(numDocs));
+        assertLuceneOperations(engine, numDocs, 0, 0);
+        assertEquals(0, engine.getNumVersionLookups());
+        for (int i = 0; i < numDocs; i++) {
+            final Engine.IndexResult result = results.get(i);
+            assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            assertThat(result.getSeqNo(), equalTo((long) i));
+            assertTrue(result.isCreated());
+            assertNotNull(result.getTranslogLocation());
+            final Translog.Operation op = getTranslog(engine).readOperation(result.getTranslogLocation());
+            assertThat(op.seqNo(), equalTo((long) i));
+            assertThat(((Translog.Index) op).id(), equalTo(Integer.toString(i)));
+        }
+        assertThat(engine.getProcessedLocalCheckpoint(), equalTo((long) numDocs - 1));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertEquals(numDocs, searcher.getIndexReader().numDocs());
+        }
+    }
+
+    public void testIndexBatchFallsBackOnRetry() throws IOException {
+        final ParsedDocument doc1 = testParsedDocument("1", null, testDocumentWithTextField(), B_1, null);
+        final ParsedDocument doc2 = testParsedDocument("2", null, testDocumentWithTextField(), B_1, null);
+        engine.index(appendOnlyPrimary(doc1, false, 1, false));
+        final List<Engine.IndexResult> results = engine.indexBatch(
+            List.of(appendOnlyPrimary(doc1, true, 1, false), appendOnlyPrimary(doc2, false, 2, false))
+        );
+        assertThat(results, hasSize(2));
+        assertLuceneOperations(engine, 2, 1, 0);
+        assertFalse(results.get(0).isCreated());
+        assertTrue(results.get(1).isCreated());
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertEquals(2, searcher.getIndexReader().numDocs());
+        }
+    }
+
     public Engine.Index appendOnlyPrimary(ParsedDocument doc, boolean retry, final long autoGeneratedIdTimestamp, boolean create) {
         return new Engine.Index(
             newUid(doc),
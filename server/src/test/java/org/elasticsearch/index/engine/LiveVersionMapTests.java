@@ -13,8 +13,13 @@ import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
@@ -102,7 +107,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testBasics() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         try (Releasable r = map.acquireLock(uid("test"))) {
             Translog.Location tlogLoc = randomTranslogLocation();
             map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
@@ -123,6 +128,7 @@ public class LiveVersionMapTests extends ESTestCase {
             map.pruneTombstones(2, 1);
             assertNull(map.getUnderLock(uid("test")));
         }
+        map.clear();
     }
 
     public void testConcurrently() throws IOException, InterruptedException {
@@ -134,7 +140,7 @@ public class LiveVersionMapTests extends ESTestCase {
         List<BytesRef> keyList = new ArrayList<>(keySet);
         ConcurrentHashMap<BytesRef, VersionValue> values = new ConcurrentHashMap<>();
         ConcurrentHashMap<BytesRef, DeleteVersionValue> deletes = new ConcurrentHashMap<>();
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         int numThreads = randomIntBetween(2, 5);
 
         Thread[] threads = new Thread[numThreads];
@@ -269,6 +275,7 @@ public class LiveVersionMapTests extends ESTestCase {
         });
         map.pruneTombstones(clock.incrementAndGet(), maxSeqNo.get());
         assertThat(map.getAllTombstones().entrySet(), empty());
+        map.clear();
     }
 
     public void testCarryOnSafeAccess() throws IOException {
@@ -408,7 +415,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
-        final LiveVersionMap versionMap = new LiveVersionMap();
+        final LiveVersionMap versionMap = newLiveVersionMap();
         final BytesRef uid = uid("1");
         final long versions = between(10, 1000);
         VersionValue latestVersion = null;
@@ -439,6 +446,49 @@ public class LiveVersionMapTests extends ESTestCase {
                 }
             }
         }
+        versionMap.clear();
+    }
+
+    public void testPagedStorageReleasesMapsOnRefresh() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(bigArrays());
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            map.putIndexUnderLock(uid("test"), randomIndexVersionValue());
+        }
+        assertThat(map.ramBytesUsedForRefresh(), greaterThan(0L));
+        map.beforeRefresh();
+        assertThat(map.getRefreshingBytes(), greaterThan(0L));
+        map.afterRefresh(randomBoolean());
+        assertThat(map.getRefreshingBytes(), equalTo(0L));
+        map.clear();
+        // MockBigArrays verifies that all pages were released once the test completes
+    }
+
+    public void testPagedStorageSurvivesClear() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(bigArrays());
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            map.putIndexUnderLock(uid("test"), randomIndexVersionValue());
+        }
+        map.clear();
+        assertTrue(map.usesPagedLookupMaps());
+        assertThat(map.ramBytesUsedForRefresh(), equalTo(0L));
+        assertNull(map.getUnderLock(uid("test")));
+        // writing after a clear allocates again, the next refresh and clear release the pages
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            map.putIndexUnderLock(uid("test"), randomIndexVersionValue());
+        }
+        assertThat(map.ramBytesUsedForRefresh(), greaterThan(0L));
+        map.beforeRefresh();
+        map.afterRefresh(randomBoolean());
+        map.clear();
+        assertTrue(map.usesPagedLookupMaps());
+    }
+
+    private LiveVersionMap newLiveVersionMap() {
+        return randomBoolean() ? new LiveVersionMap() : new LiveVersionMap(bigArrays());
+    }
+
+    private static BigArrays bigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
     }
 
     IndexVersionValue randomIndexVersionValue() {
@@ -0,0 +1,158 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    private BigArrays bigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    public void testPutGetRemove() {
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays(), randomIntBetween(0, 100))) {
+            final Map<BytesRef, VersionValue> expected = new HashMap<>();
+            final int numOps = randomIntBetween(1, 5000);
+            for (int i = 0; i < numOps; i++) {
+                final BytesRef uid = new BytesRef(Integer.toString(randomIntBetween(0, 500)));
+                switch (randomIntBetween(0, 2)) {
+                    case 0:
+                        final VersionValue value = randomVersionValue();
+                        assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+                        break;
+                    case 1:
+                        assertThat(map.remove(uid), equalTo(expected.remove(uid)));
+                        break;
+                    default:
+                        assertThat(map.get(uid), equalTo(expected.get(uid)));
+                }
+                assertThat(map.size(), equalTo(expected.size()));
+            }
+            assertThat(map, equalTo(expected));
+            assertThat(map.ramBytesUsed(), greaterThan(0L));
+        }
+    }
+
+    public void testRamBytesUsedGrows() {
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays(), 0)) {
+            final long initialRamBytesUsed = map.ramBytesUsed();
+            for (int i = 0; i < 10000; i++) {
+                map.put(new BytesRef(Integer.toString(i)), randomVersionValue());
+            }
+            assertThat(map.ramBytesUsed(), greaterThan(initialRamBytesUsed));
+        }
+    }
+
+    public void testGetRebuildsValue() {
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays(), randomIntBetween(0, 100))) {
+            final BytesRef uid = new BytesRef("1");
+            final VersionValue value = randomVersionValue();
+            map.put(uid, value);
+            assertThat(map.get(uid), equalTo(value));
+            assertThat(map.get(new BytesRef("1")), equalTo(value));
+            assertThat(map.remove(uid), equalTo(value));
+            assertThat(map.get(uid), nullValue());
+        }
+    }
+
+    public void testConcurrentReadsAndWrites() throws Exception {
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays(), 0)) {
+            final int numUids = randomIntBetween(100, 5000);
+            final int numReaders = randomIntBetween(1, 4);
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final AtomicBoolean done = new AtomicBoolean();
+            final Thread[] readers = new Thread[numReaders];
+            final AtomicReference<AssertionError> failure = new AtomicReference<>();
+            for (int i = 0; i < numReaders; i++) {
+                readers[i] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                        while (done.get() == false) {
+                            final int id = randomIntBetween(0, numUids - 1);
+                            final VersionValue value = map.get(new BytesRef(Integer.toString(id)));
+                            // the writer only ever puts values whose version is the id of the uid
+                            if (value != null && value.version != id) {
+                                throw new AssertionError("expected version [" + id + "] but got " + value);
+                            }
+                        }
+                    } catch (AssertionError e) {
+                        failure.set(e);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                readers[i].start();
+            }
+            startLatch.countDown();
+            for (int id = 0; id < numUids; id++) {
+                final VersionValue value = new IndexVersionValue(null, id, randomNonNegativeLong(), randomNonNegativeLong());
+                map.put(new BytesRef(Integer.toString(id)), value);
+            }
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            assertNull(failure.get());
+            assertThat(map.size(), equalTo(numUids));
+            for (int id = 0; id < numUids; id++) {
+                assertThat(map.get(new BytesRef(Integer.toString(id))).version, equalTo((long) id));
+            }
+        }
+    }
+
+    public void testEmptyMapHoldsNoPages() {
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays(), randomIntBetween(0, 100000))) {
+            assertThat(map.ramBytesUsed(), equalTo(0L));
+            assertThat(map.get(new BytesRef("1")), nullValue());
+            assertThat(map.remove(new BytesRef("1")), nullValue());
+            assertThat(map.ramBytesUsed(), equalTo(0L));
+        }
+    }
+
+    public void testClosedMapIsEmpty() {
+        final PagedVersionMap map = new PagedVersionMap(bigArrays(), randomIntBetween(0, 100));
+        final BytesRef uid = new BytesRef("1");
+        map.put(uid, randomVersionValue());
+        map.close();
+        assertThat(map.get(uid), nullValue());
+        assertThat(map.remove(uid), nullValue());
+        assertThat(map.put(uid, randomVersionValue()), nullValue());
+        assertThat(map.get(uid), nullValue());
+        // closing twice is a noop
+        map.close();
+    }
+
+    private static VersionValue randomVersionValue() {
+        if (randomBoolean()) {
+            return new DeleteVersionValue(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomLong());
+        }
+        final Translog.Location location = randomBoolean()
+            ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
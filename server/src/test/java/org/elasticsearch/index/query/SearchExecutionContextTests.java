@@ -394,6 +394,42 @@ public class SearchExecutionContextTests extends ESTestCase {
         assertEquals("Runtime field [field] was set to null but its removal is not supported in this context", exception.getMessage());
     }
 
+    public void testNowRounding() {
+        SearchExecutionContext context = createSearchExecutionContext("uuid", null);
+        context.setNowRounding(60_000);
+        SearchExecutionContext copy = new SearchExecutionContext(context);
+        long now = context.nowInMillis();
+        assertEquals(0, now % 60_000);
+        assertTrue(context.usesRoundedNow());
+        assertTrue(context.isCacheable());
+        context.freezeContext();
+        // the rounded now was used before the context was frozen, so it can still be used
+        assertEquals(now, context.nowInMillis());
+
+        assertEquals(now, copy.nowInMillis());
+        assertTrue(copy.isCacheable());
+
+        SearchExecutionContext unused = createSearchExecutionContext("uuid", null);
+        unused.setNowRounding(60_000);
+        unused.freezeContext();
+        expectThrows(IllegalArgumentException.class, unused::nowInMillis);
+    }
+
+    public void testAddRoundedNowUsage() {
+        SearchExecutionContext context = createSearchExecutionContext("uuid", null);
+        context.setNowRounding(60_000);
+        SearchExecutionContext copy = new SearchExecutionContext(context);
+        context.addRoundedNowUsage(copy);
+        assertFalse(context.usesRoundedNow());
+
+        copy.nowInMillis();
+        assertFalse(context.usesRoundedNow());
+        context.addRoundedNowUsage(copy);
+        assertTrue(context.usesRoundedNow());
+        context.freezeContext();
+        assertEquals(copy.nowInMillis(), context.nowInMillis());
+    }
+
     public static SearchExecutionContext createSearchExecutionContext(String indexUuid, String clusterAlias) {
         return createSearchExecutionContext(indexUuid, clusterAlias, MappingLookup.EMPTY, Map.of());
     }
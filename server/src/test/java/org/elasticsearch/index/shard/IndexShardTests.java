@@ -53,6 +53,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
@@ -66,6 +67,9 @@ import org.elasticsearch.core.Tuple;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCache;
+import org.elasticsearch.index.cache.storedfields.StoredFieldsCacheStats;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.DocIdSeqNoAndSource;
@@ -76,6 +80,7 @@ import org.elasticsearch.index.engine.InternalEngine;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.engine.ReadOnlyEngine;
 import org.elasticsearch.index.engine.Segment;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
@@ -364,6 +369,86 @@ public class IndexShardTests extends IndexShardTestCase {
         }
     }
 
+    public void testApplyAppendOnlyIndexOperationsOnPrimary() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING.getKey(), randomBoolean())
+            .build();
+        final IndexShard indexShard = newStartedShard(true, settings);
+        try {
+            indexDoc(indexShard, "_doc", "0", "{\"foo\":\"bar\"}");
+            final int numDocs = randomIntBetween(2, 300);
+            final int firstNewField = randomBoolean() ? numDocs : randomIntBetween(0, numDocs - 1);
+            final List<SourceToParse> sources = new ArrayList<>(numDocs);
+            final long[] versions = new long[numDocs];
+            final VersionType[] versionTypes = new VersionType[numDocs];
+            final long[] autoGeneratedTimestamps = new long[numDocs];
+            for (int i = 0; i < numDocs; i++) {
+                final String source = i == firstNewField ? "{\"baz\":\"bar\"}" : "{\"foo\":\"bar\"}";
+                sources.add(new SourceToParse(UUIDs.base64UUID(), new BytesArray(source), XContentType.JSON, null, Map.of()));
+                versions[i] = randomFrom(Versions.MATCH_ANY, Versions.MATCH_DELETED);
+                versionTypes[i] = VersionType.INTERNAL;
+                autoGeneratedTimestamps[i] = i;
+            }
+            final List<Engine.IndexResult> results = indexShard.applyAppendOnlyIndexOperationsOnPrimary(
+                sources,
+                versions,
+                versionTypes,
+                autoGeneratedTimestamps
+            );
+            // the batch stops at the first document that requires a mapping update
+            assertThat(results, hasSize(firstNewField));
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+                assertThat(results.get(i).getSeqNo(), equalTo(i + 1L));
+            }
+        } finally {
+            closeShards(indexShard);
+        }
+    }
+
+    public void testApplyAppendOnlyIndexOperationsOnPrimaryWithConflictsAndFailures() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING.getKey(), randomBoolean())
+            .build();
+        final IndexShard indexShard = newStartedShard(true, settings);
+        try {
+            indexDoc(indexShard, "_doc", "0", "{\"foo\":\"bar\"}");
+            // a retry makes the engine look up the ids of the following append-only operations
+            indexShard.applyIndexOperationOnPrimary(
+                Versions.MATCH_ANY,
+                VersionType.INTERNAL,
+                new SourceToParse("1", new BytesArray("{\"foo\":\"bar\"}"), XContentType.JSON),
+                UNASSIGNED_SEQ_NO,
+                0,
+                100,
+                true
+            );
+            final List<SourceToParse> sources = List.of(
+                new SourceToParse("0", new BytesArray("{\"foo\":\"baz\"}"), XContentType.JSON),
+                new SourceToParse(UUIDs.base64UUID(), new BytesArray("{\"foo\":\"bar\"}"), XContentType.JSON),
+                new SourceToParse(UUIDs.base64UUID(), new BytesArray("{\"foo\":"), XContentType.JSON),
+                new SourceToParse(UUIDs.base64UUID(), new BytesArray("{\"foo\":\"bar\"}"), XContentType.JSON)
+            );
+            final List<Engine.IndexResult> results = indexShard.applyAppendOnlyIndexOperationsOnPrimary(
+                sources,
+                new long[] { Versions.MATCH_DELETED, Versions.MATCH_DELETED, Versions.MATCH_ANY, Versions.MATCH_ANY },
+                new VersionType[] { VersionType.INTERNAL, VersionType.INTERNAL, VersionType.INTERNAL, VersionType.INTERNAL },
+                new long[] { 1, 2, 3, 4 }
+            );
+            // the create of an existing document conflicts instead of overwriting it
+            assertThat(results, hasSize(3));
+            assertThat(results.get(0).getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(results.get(0).getFailure(), instanceOf(VersionConflictEngineException.class));
+            assertThat(results.get(1).getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            // the batch ends with the failure of the source that doesn't parse
+            assertThat(results.get(2).getResultType(), equalTo(Engine.Result.Type.FAILURE));
+            assertThat(results.get(2).getFailure(), instanceOf(MapperParsingException.class));
+            assertThat(results.get(2).getSeqNo(), equalTo(UNASSIGNED_SEQ_NO));
+        } finally {
+            closeShards(indexShard);
+        }
+    }
+
     public void testRunUnderPrimaryPermitOnFailure() throws IOException {
         final IndexShard indexShard = newStartedShard(true);
         final AtomicBoolean invoked = new AtomicBoolean();
@@ -2694,6 +2779,47 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testStoredFieldsCache() throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(StoredFieldsCache.INDEX_STORED_FIELDS_CACHE_SIZE_SETTING.getKey(), "1mb")
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("test")
+            .putMapping("{ \"properties\": { \"foo\":  { \"type\": \"text\" }}}")
+            .settings(settings)
+            .primaryTerm(0, 1)
+            .build();
+        IndexShard shard = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(shard);
+        indexDoc(shard, "_doc", "0", "{\"foo\" : \"bar\"}");
+        shard.refresh("test");
+
+        try (Engine.Searcher searcher = shard.acquireSearcher("test")) {
+            BytesRef source = searcher.getIndexReader().document(0).getBinaryValue(SourceFieldMapper.NAME);
+            StoredFieldsCacheStats stats = shard.storedFieldsCache().stats();
+            assertEquals(0, stats.getHitCount());
+            assertEquals(1, stats.getMissCount());
+            assertThat(stats.getMemorySizeInBytes(), greaterThan(0L));
+
+            assertEquals(source, searcher.getIndexReader().document(0).getBinaryValue(SourceFieldMapper.NAME));
+            stats = shard.storedFieldsCache().stats();
+            assertEquals(1, stats.getHitCount());
+            assertEquals(1, stats.getMissCount());
+        }
+
+        CommonStats stats = new CommonStats(
+            new IndicesQueryCache(Settings.EMPTY),
+            shard,
+            new CommonStatsFlags(CommonStatsFlags.Flag.StoredFieldsCache)
+        );
+        assertEquals(1, stats.getStoredFieldsCache().getHitCount());
+        assertEquals(1, stats.getStoredFieldsCache().getMissCount());
+
+        closeShards(shard);
+    }
+
     public void testIndexingOperationListenersIsInvokedOnRecovery() throws IOException {
         IndexShard shard = newStartedShard(true);
         indexDoc(shard, "_doc", "0", "{\"foo\" : \"bar\"}");
@@ -3819,6 +3945,52 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(primary);
     }
 
+    public void testAdaptiveScheduledRefresh() throws Exception {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), TimeValue.timeValueHours(1))
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_SETTING.getKey(), true)
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), TimeValue.timeValueHours(2))
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("test")
+            .putMapping("{ \"properties\": { \"foo\":  { \"type\": \"text\"}}}")
+            .settings(settings)
+            .primaryTerm(0, 1)
+            .build();
+        IndexShard primary = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(primary);
+        long lastSearchAccess = primary.getLastSearcherAccess();
+        // wait until the thread-pool has moved the timestamp so that the refreshes below happen after the last search
+        assertBusy(() -> assertThat(primary.getThreadPool().relativeTimeInMillis(), greaterThan(lastSearchAccess)));
+
+        indexDoc(primary, "_doc", "0", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.scheduledRefresh());
+        assertEquals(0L, primary.getAdaptiveRefreshIntervalMillis());
+
+        // no search since the last refresh, the next refresh happens but widens the interval
+        indexDoc(primary, "_doc", "1", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.scheduledRefresh());
+        assertEquals(TimeValue.timeValueHours(1).millis(), primary.getAdaptiveRefreshIntervalMillis());
+
+        indexDoc(primary, "_doc", "2", "{\"foo\" : \"bar\"}");
+        assertFalse(primary.scheduledRefresh());
+        assertTrue(primary.getEngine().refreshNeeded());
+        assertTrue(primary.hasRefreshPending());
+        assertEquals(1L, primary.refreshStats().getAdaptiveSkipped());
+        assertEquals(TimeValue.timeValueHours(1).millis(), primary.refreshStats().getAdaptiveIntervalInMillis());
+
+        // a search brings the interval back down
+        primary.acquireSearcher("test").close();
+        assertTrue(primary.scheduledRefresh());
+        assertEquals(0L, primary.getAdaptiveRefreshIntervalMillis());
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(3, searcher.getIndexReader().numDocs());
+        }
+        closeShards(primary);
+    }
+
     public void testRefreshIsNeededWithRefreshListeners() throws IOException, InterruptedException {
         Settings settings = Settings.builder()
             .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
@@ -44,6 +44,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -495,7 +496,11 @@ public class TranslogTests extends ESTestCase {
                             + 271
                             + ",\"earliest_last_modified_age\":"
                             + stats.getEarliestLastModifiedAge()
-                            + "}}"
+                            + ",\"sync\":{\"total\":"
+                            + copy.getSyncCount()
+                            + ",\"total_time_in_millis\":"
+                            + copy.getSyncTimeInMillis()
+                            + ",\"group_commit_total\":0,\"group_commit_batch_size_total\":0}}}"
                     )
                 );
             }
@@ -513,6 +518,73 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testGroupCommitSyncsTranslogsSharingADataPath() throws Exception {
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(
+            true,
+            randomFrom(TimeValue.ZERO, TimeValue.timeValueMillis(between(1, 5)))
+        );
+        final Path dataPath = createTempDir();
+        final TranslogSyncCoordinator.SyncGroup syncGroup = coordinator.groupFor(dataPath);
+        assertSame(syncGroup, coordinator.groupFor(dataPath));
+        assertSame(TranslogSyncCoordinator.SyncGroup.DIRECT, TranslogSyncCoordinator.DIRECT.groupFor(dataPath));
+
+        final int numTranslogs = between(2, 5);
+        final List<Translog> translogs = new ArrayList<>();
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings(shardId.getIndex(), Settings.EMPTY);
+        try {
+            for (int i = 0; i < numTranslogs; i++) {
+                final Path translogPath = dataPath.resolve("translog-" + i);
+                Files.createDirectories(translogPath);
+                translogs.add(
+                    createTranslog(
+                        new TranslogConfig(
+                            shardId,
+                            translogPath,
+                            indexSettings,
+                            NON_RECYCLING_INSTANCE,
+                            TranslogConfig.DEFAULT_BUFFER_SIZE,
+                            syncGroup
+                        )
+                    )
+                );
+            }
+            final int opsPerThread = between(10, 50);
+            final CyclicBarrier barrier = new CyclicBarrier(numTranslogs);
+            final Thread[] threads = new Thread[numTranslogs];
+            for (int i = 0; i < numTranslogs; i++) {
+                final Translog threadTranslog = translogs.get(i);
+                threads[i] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        for (int op = 0; op < opsPerThread; op++) {
+                            final Location location = threadTranslog.add(
+                                new Translog.Index(Integer.toString(op), op, primaryTerm.get(), new byte[] { 1 })
+                            );
+                            threadTranslog.ensureSynced(location);
+                            assertFalse(threadTranslog.syncNeeded());
+                        }
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (Translog groupTranslog : translogs) {
+                final TranslogStats stats = groupTranslog.stats();
+                assertThat(stats.estimatedNumberOfOperations(), equalTo(opsPerThread));
+                assertThat(stats.getSyncCount(), greaterThan(0L));
+                assertThat(stats.getSyncCount(), lessThanOrEqualTo((long) opsPerThread));
+                assertThat(stats.getGroupCommitBatchSizeTotal(), greaterThanOrEqualTo(2 * stats.getGroupCommitCount()));
+                assertThat(stats.getGroupCommitBatchSizeTotal(), lessThanOrEqualTo(numTranslogs * stats.getGroupCommitCount()));
+            }
+        } finally {
+            IOUtils.close(translogs);
+        }
+    }
+
     public void testUncommittedOperations() throws Exception {
         final TranslogDeletionPolicy deletionPolicy = translog.getDeletionPolicy();
         final int operations = scaledRandomIntBetween(10, 100);
@@ -632,6 +704,69 @@ public class TranslogTests extends ESTestCase {
         assertNull(translog.readOperation(new Location(100, 0, 0)));
     }
 
+    public void testAddBatch() throws IOException {
+        final int numOps = randomIntBetween(1, 16);
+        final List<Translog.Operation> ops = new ArrayList<>(numOps);
+        for (int i = 0; i < numOps; i++) {
+            ops.add(new Translog.Index(Integer.toString(i), i, primaryTerm.get(), new byte[] { (byte) i }));
+        }
+        final Translog.Location[] locations = translog.add(ops);
+        assertThat(locations.length, equalTo(numOps));
+        for (int i = 0; i < numOps; i++) {
+            assertEquals(ops.get(i), translog.readOperation(locations[i]));
+            if (i > 0) {
+                assertThat(locations[i], greaterThan(locations[i - 1]));
+            }
+        }
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+        }
+    }
+
+    public void testCompressedOperations() throws IOException {
+        final Path path = createTempDir();
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_COMPRESS_SETTING.getKey(), true)
+            .build();
+        final TranslogConfig config = getTranslogConfig(path, settings);
+        final String translogUUID = Translog.createEmptyTranslog(path, SequenceNumbers.NO_OPS_PERFORMED, shardId, primaryTerm.get());
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final List<Translog.Location> locations = new ArrayList<>();
+        try (Translog compressed = openTranslog(config, translogUUID)) {
+            final int numOps = randomIntBetween(1, 32);
+            for (int i = 0; i < numOps; i++) {
+                final byte[] source;
+                switch (between(0, 2)) {
+                    case 0:
+                        // large operations span several pages of the output they are serialized to
+                        source = new byte[randomBoolean() ? randomIntBetween(256, 4096) : randomIntBetween(16 * 1024, 64 * 1024)];
+                        Arrays.fill(source, (byte) randomIntBetween('a', 'z'));
+                        break;
+                    case 1:
+                        // operations that don't shrink are left uncompressed
+                        source = randomByteArrayOfLength(randomIntBetween(256, 1024));
+                        break;
+                    default:
+                        source = randomByteArrayOfLength(randomIntBetween(1, 64));
+                        break;
+                }
+                locations.add(addToTranslogAndList(compressed, ops, new Translog.Index(Integer.toString(i), i, primaryTerm.get(), source)));
+            }
+            for (int i = 0; i < numOps; i++) {
+                assertEquals(ops.get(i), compressed.readOperation(locations.get(i)));
+            }
+            try (Translog.Snapshot snapshot = compressed.newSnapshot()) {
+                assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+            }
+        }
+        try (Translog reopened = openTranslog(getTranslogConfig(path), translogUUID)) {
+            try (Translog.Snapshot snapshot = reopened.newSnapshot()) {
+                assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+            }
+        }
+    }
+
     public void testSnapshotWithNewTranslog() throws IOException {
         List<Closeable> toClose = new ArrayList<>();
         try {
@@ -15,6 +15,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -23,6 +24,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.AbstractBytesReference;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -30,11 +32,13 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesRequestCache.Mode;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentType;
 
@@ -42,6 +46,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Collections.emptyList;
@@ -308,7 +313,13 @@ public class IndicesRequestCacheTests extends ESTestCase {
             IOUtils.close(reader, secondReader, writer, dir, cache);
         }
         IndicesRequestCache cache = new IndicesRequestCache(
-            Settings.builder().put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), size.getBytes() + 1 + "b").build()
+            Settings.builder()
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), size.getBytes() + 1 + "b")
+                // leave the whole budget to the default mode
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_ROUNDED_NOW_SIZE.getKey(), "0b")
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_HITS_SIZE.getKey(), "0b")
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_SEGMENT_AGGS_SIZE.getKey(), "0b")
+                .build()
         );
         AtomicBoolean indexShard = new AtomicBoolean(true);
         ShardRequestCache requestCacheStats = new ShardRequestCache();
@@ -403,6 +414,140 @@ public class IndicesRequestCacheTests extends ESTestCase {
         );
     }
 
+    public void testModeSizes() {
+        Map<IndicesRequestCache.Mode, Long> sizes = IndicesRequestCache.modeSizes(
+            Settings.builder().put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), "100mb").build()
+        );
+        long mb = ByteSizeValue.ofMb(1).getBytes();
+        assertEquals(Map.of(Mode.DEFAULT, 70 * mb, Mode.ROUNDED_NOW, 10 * mb, Mode.HITS, 10 * mb, Mode.SEGMENT_AGGS, 10 * mb), sizes);
+
+        sizes = IndicesRequestCache.modeSizes(
+            Settings.builder()
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), "100mb")
+                .put(IndicesRequestCache.INDICES_CACHE_QUERY_HITS_SIZE.getKey(), "50mb")
+                .build()
+        );
+        assertEquals(Map.of(Mode.DEFAULT, 30 * mb, Mode.ROUNDED_NOW, 10 * mb, Mode.HITS, 50 * mb, Mode.SEGMENT_AGGS, 10 * mb), sizes);
+
+        // the modes share the budget of the cache
+        long total = IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.get(Settings.EMPTY).getBytes();
+        assertEquals(total, IndicesRequestCache.modeSizes(Settings.EMPTY).values().stream().mapToLong(Long::longValue).sum());
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> IndicesRequestCache.modeSizes(
+                Settings.builder()
+                    .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), "100mb")
+                    .put(IndicesRequestCache.INDICES_CACHE_QUERY_SEGMENT_AGGS_SIZE.getKey(), "90mb")
+                    .build()
+            )
+        );
+        assertEquals(
+            "the sizes of the request cache modes add up to [110mb] which is more than [indices.requests.cache.size] [100mb]",
+            e.getMessage()
+        );
+    }
+
+    public void testModesAreCachedSeparately() throws Exception {
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        TermQueryBuilder termQuery = new TermQueryBuilder("id", "0");
+        BytesReference termBytes = XContentHelper.toXContent(termQuery, XContentType.JSON, false);
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+
+        for (IndicesRequestCache.Mode mode : IndicesRequestCache.Mode.values()) {
+            Loader loader = new Loader(reader, 0);
+            BytesReference value = cache.getOrCompute(mode, entity, loader, mappingKey, reader, termBytes);
+            assertEquals("foo", value.streamInput().readString());
+            assertFalse(loader.loadedFromCache);
+            assertEquals(1, cache.count(mode));
+        }
+        assertEquals(IndicesRequestCache.Mode.values().length, cache.count());
+
+        Loader loader = new Loader(reader, 0);
+        cache.getOrCompute(IndicesRequestCache.Mode.HITS, entity, loader, mappingKey, reader, termBytes);
+        assertTrue(loader.loadedFromCache);
+
+        RequestCacheStats stats = requestCacheStats.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(IndicesRequestCache.Mode.values().length, stats.getMissCount());
+        RequestCacheStats hitsStats = stats.getModes().get(IndicesRequestCache.Mode.HITS.displayName());
+        assertEquals(1, hitsStats.getHitCount());
+        assertEquals(1, hitsStats.getMissCount());
+        RequestCacheStats roundedNowStats = stats.getModes().get(IndicesRequestCache.Mode.ROUNDED_NOW.displayName());
+        assertEquals(0, roundedNowStats.getHitCount());
+        assertEquals(1, roundedNowStats.getMissCount());
+        assertTrue(roundedNowStats.getMemorySizeInBytes() > 0);
+
+        cache.invalidate(IndicesRequestCache.Mode.ROUNDED_NOW, entity, mappingKey, reader, termBytes);
+        assertEquals(0, cache.count(IndicesRequestCache.Mode.ROUNDED_NOW));
+        assertEquals(1, cache.count(IndicesRequestCache.Mode.DEFAULT));
+        roundedNowStats = requestCacheStats.stats().getModes().get(IndicesRequestCache.Mode.ROUNDED_NOW.displayName());
+        assertEquals(0, roundedNowStats.getMemorySizeInBytes());
+
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    public void testSegmentResults() throws Exception {
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+
+        writer.addDocument(newDoc(0, "foo"));
+        writer.commit();
+        writer.addDocument(newDoc(1, "bar"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(2, reader.leaves().size());
+        IndexReader.CacheHelper first = reader.leaves().get(0).reader().getReaderCacheHelper();
+        IndexReader.CacheHelper second = reader.leaves().get(1).reader().getReaderCacheHelper();
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+
+        assertNull(cache.getSegment(entity, mappingKey, first, termBytes));
+        cache.putSegment(entity, mappingKey, first, termBytes, new BytesArray("first"));
+        assertEquals(new BytesArray("first"), cache.getSegment(entity, mappingKey, first, termBytes));
+        assertNull(cache.getSegment(entity, mappingKey, second, termBytes));
+        cache.putSegment(entity, mappingKey, second, termBytes, new BytesArray("second"));
+        assertEquals(new BytesArray("second"), cache.getSegment(entity, mappingKey, second, termBytes));
+        assertEquals(2, cache.count(IndicesRequestCache.Mode.SEGMENT_AGGS));
+        assertEquals(2, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+
+        RequestCacheStats segmentStats = requestCacheStats.stats().getModes().get(IndicesRequestCache.Mode.SEGMENT_AGGS.displayName());
+        assertEquals(2, segmentStats.getHitCount());
+        assertEquals(2, segmentStats.getMissCount());
+        assertTrue(segmentStats.getMemorySizeInBytes() > 0);
+
+        // a new reader shares the unchanged segments
+        writer.addDocument(newDoc(2, "baz"));
+        DirectoryReader secondReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(3, secondReader.leaves().size());
+        IndexReader.CacheHelper shared = secondReader.leaves().get(0).reader().getReaderCacheHelper();
+        assertEquals(new BytesArray("first"), cache.getSegment(entity, mappingKey, shared, termBytes));
+
+        // the entries are removed once the segments are closed by all readers, including those pooled by the writer
+        reader.close();
+        cache.cleanCache();
+        assertEquals(2, cache.count());
+        IOUtils.close(secondReader, writer);
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        assertEquals(0, requestCacheStats.stats().getMemorySizeInBytes());
+
+        IOUtils.close(dir, cache);
+    }
+
     private static class Loader implements CheckedSupplier<BytesReference, IOException> {
 
         private final DirectoryReader reader;
@@ -14,6 +14,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.admin.indices.stats.IndexShardStats;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.AliasMetadata;
@@ -37,6 +38,8 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineFactory;
@@ -57,6 +60,8 @@ import org.elasticsearch.indices.IndicesService.ShardDeletionCheckResult;
 import org.elasticsearch.plugins.EnginePlugin;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
@@ -81,6 +86,7 @@ import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createTime
 import static org.elasticsearch.cluster.metadata.IndexNameExpressionResolverTests.indexBuilder;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
@@ -683,4 +689,64 @@ public class IndicesServiceTests extends ESSingleNodeTestCase {
             assertThat(filter.should(), containsInAnyOrder(QueryBuilders.termQuery("foo", "baz"), QueryBuilders.termQuery("foo", "bar")));
         }
     }
+
+    public void testLoadIntoContextReusesAggregationsOfUnchangedSegments() {
+        IndexService indexService = createIndex(
+            "test",
+            Settings.builder()
+                .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), -1)
+                .put(MergePolicyConfig.INDEX_MERGE_ENABLED, false)
+                .put(IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENT_AGGS_SETTING.getKey(), true)
+                .build(),
+            "_doc",
+            "number",
+            "type=long"
+        );
+        // three segments holding 0 to 29
+        indexAndRefresh(0, 30, 10);
+        assertThat(sumOfNumbers(), equalTo(435.0));
+        RequestCacheStats stats = segmentAggsStats(indexService);
+        assertThat(stats.getHitCount(), equalTo(0L));
+        assertThat(stats.getMissCount(), equalTo(3L));
+
+        // a refresh that adds a segment holding 30 to 39 only aggregates the new segment
+        indexAndRefresh(30, 40, 10);
+        assertThat(sumOfNumbers(), equalTo(780.0));
+        stats = segmentAggsStats(indexService);
+        assertThat(stats.getHitCount(), equalTo(3L));
+        assertThat(stats.getMissCount(), equalTo(4L));
+
+        // without a refresh the results of the whole shard come from the cache
+        assertThat(sumOfNumbers(), equalTo(780.0));
+        stats = segmentAggsStats(indexService);
+        assertThat(stats.getHitCount(), equalTo(3L));
+        assertThat(stats.getMissCount(), equalTo(4L));
+    }
+
+    private void indexAndRefresh(int from, int to, int docsPerSegment) {
+        for (int i = from; i < to; i++) {
+            client().prepareIndex("test").setSource("number", i).get();
+            if ((i + 1 - from) % docsPerSegment == 0) {
+                client().admin().indices().prepareRefresh("test").get();
+            }
+        }
+    }
+
+    private double sumOfNumbers() {
+        SearchResponse response = client().prepareSearch("test")
+            .setSize(0)
+            .setRequestCache(true)
+            .addAggregation(new SumAggregationBuilder("sum").field("number"))
+            .get();
+        assertSearchResponse(response);
+        Sum sum = response.getAggregations().get("sum");
+        return sum.getValue();
+    }
+
+    private static RequestCacheStats segmentAggsStats(IndexService indexService) {
+        RequestCacheStats stats = indexService.getShard(0).requestCache().stats();
+        return stats.getModes().get(IndicesRequestCache.Mode.SEGMENT_AGGS.displayName());
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.MergeInfo;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+
+public class IoBudgetTests extends ESTestCase {
+
+    private final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+
+    public void testDisabledByDefault() throws Exception {
+        final IoBudget ioBudget = new IoBudget(Settings.EMPTY, clusterSettings);
+        assertFalse(ioBudget.isEnabled());
+        final RateLimiter rateLimiter = ioBudget.rateLimiter(randomFrom(IoBudget.Consumer.values()), null);
+        assertThat(rateLimiter.getMBPerSec(), equalTo(Double.POSITIVE_INFINITY));
+        assertThat(rateLimiter.pause(ByteSizeValue.ofMb(between(1, 100)).getBytes()), equalTo(0L));
+        assertThat(ioBudget.stats().getLimitInBytesPerSec(), equalTo(0L));
+
+        clusterSettings.applySettings(Settings.builder().put(IoBudget.INDICES_IO_MAX_BYTES_PER_SEC_SETTING.getKey(), "10mb").build());
+        assertTrue(ioBudget.isEnabled());
+        assertThat(rateLimiter.getMBPerSec(), equalTo(10.0));
+        assertThat(ioBudget.stats().getLimitInBytesPerSec(), equalTo(ByteSizeValue.ofMb(10).getBytes()));
+    }
+
+    public void testLowerPriorityConsumersLeaveReserve() throws Exception {
+        final Settings settings = Settings.builder().put(IoBudget.INDICES_IO_MAX_BYTES_PER_SEC_SETTING.getKey(), "10mb").build();
+        final IoBudget ioBudget = new IoBudget(settings, clusterSettings);
+        final RateLimiter recovery = ioBudget.rateLimiter(IoBudget.Consumer.RECOVERY, null);
+        final RateLimiter snapshot = ioBudget.rateLimiter(IoBudget.Consumer.SNAPSHOT, null);
+
+        // the bucket starts full, so draining it doesn't wait
+        assertThat(recovery.pause(ByteSizeValue.ofMb(10).getBytes()), equalTo(0L));
+        // but snapshots have to wait until half of it has refilled
+        assertThat(snapshot.pause(1), greaterThan(0L));
+
+        final IoBudgetStats stats = ioBudget.stats();
+        final IoBudgetStats.ConsumerStats recoveryStats = stats.getConsumers().get(IoBudget.Consumer.RECOVERY.displayName());
+        assertThat(recoveryStats.getTotalInBytes(), equalTo(ByteSizeValue.ofMb(10).getBytes()));
+        assertThat(recoveryStats.getThrottledTimeInMillis(), equalTo(0L));
+        final IoBudgetStats.ConsumerStats snapshotStats = stats.getConsumers().get(IoBudget.Consumer.SNAPSHOT.displayName());
+        assertThat(snapshotStats.getTotalInBytes(), equalTo(1L));
+        assertThat(snapshotStats.getThrottledTimeInMillis(), greaterThan(0L));
+        assertThat(stats.getConsumers().get(IoBudget.Consumer.MERGE.displayName()).getTotalInBytes(), equalTo(0L));
+    }
+
+    public void testDebtIsCapped() {
+        final Settings settings = Settings.builder().put(IoBudget.INDICES_IO_MAX_BYTES_PER_SEC_SETTING.getKey(), "1mb").build();
+        final IoBudget ioBudget = new IoBudget(settings, clusterSettings);
+        // the bucket starts full and may go one second worth of bytes into debt, anything beyond that waits for the debt
+        // to be paid off rather than leaving it to the next consumers
+        assertThat(ioBudget.acquire(IoBudget.Consumer.RECOVERY, ByteSizeValue.ofMb(3).getBytes()), greaterThan(0L));
+    }
+
+    public void testSetMBPerSecUpdatesConsumerLimiter() {
+        final Settings settings = Settings.builder().put(IoBudget.INDICES_IO_MAX_BYTES_PER_SEC_SETTING.getKey(), "10mb").build();
+        final IoBudget ioBudget = new IoBudget(settings, clusterSettings);
+        final RateLimiter.SimpleRateLimiter consumerRateLimiter = new RateLimiter.SimpleRateLimiter(20);
+        final RateLimiter rateLimiter = ioBudget.rateLimiter(randomFrom(IoBudget.Consumer.values()), consumerRateLimiter);
+        assertThat(rateLimiter.getMBPerSec(), equalTo(10.0));
+        rateLimiter.setMBPerSec(5);
+        assertThat(consumerRateLimiter.getMBPerSec(), equalTo(5.0));
+        assertThat(rateLimiter.getMBPerSec(), equalTo(5.0));
+
+        // a consumer without a limiter of its own gets one
+        final RateLimiter mergeRateLimiter = ioBudget.rateLimiter(IoBudget.Consumer.MERGE, null);
+        assertThat(mergeRateLimiter.getMBPerSec(), equalTo(10.0));
+        mergeRateLimiter.setMBPerSec(5);
+        assertThat(mergeRateLimiter.getMBPerSec(), equalTo(5.0));
+        // but the budget is still controlled by its setting
+        assertThat(ioBudget.stats().getLimitInBytesPerSec(), equalTo(ByteSizeValue.ofMb(10).getBytes()));
+    }
+
+    public void testWrapForMerges() throws Exception {
+        final IoBudget ioBudget = new IoBudget(Settings.EMPTY, clusterSettings);
+        final IOContext mergeContext = new IOContext(new MergeInfo(1, 1L, false, 1));
+        try (Directory directory = ioBudget.wrapForMerges(newDirectory())) {
+            try (IndexOutput output = directory.createOutput("disabled", mergeContext)) {
+                assertThat(output, not(instanceOf(RateLimitedIndexOutput.class)));
+            }
+            clusterSettings.applySettings(Settings.builder().put(IoBudget.INDICES_IO_MAX_BYTES_PER_SEC_SETTING.getKey(), "10mb").build());
+            try (IndexOutput output = directory.createOutput("flush", IOContext.DEFAULT)) {
+                assertThat(output, not(instanceOf(RateLimitedIndexOutput.class)));
+            }
+            try (IndexOutput output = directory.createOutput("merge", mergeContext)) {
+                assertThat(output, instanceOf(RateLimitedIndexOutput.class));
+            }
+        }
+    }
+}
@@ -23,11 +23,15 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 public class ResponseCollectorServiceTests extends ESTestCase {
 
@@ -137,4 +141,83 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertTrue(nodeStats.containsKey("node1"));
         assertFalse(nodeStats.containsKey("node2"));
     }
+
+    public void testTailResponseTime() {
+        for (int i = 1; i <= ResponseCollectorService.MIN_RESPONSES_TO_HEDGE; i++) {
+            assertThat(collector.getNodeStatistics("node1").map(stats -> stats.tailResponseTime).orElse(0.0), lessThan((double) i));
+            collector.addNodeStatistics("node1", 1, i, 10);
+        }
+        assertThat(collector.getNodeStatistics("node1").get().tailResponseTime, equalTo(19.0));
+        // only the recent responses count
+        for (int i = 0; i < ResponseCollectorService.TAIL_WINDOW_SIZE; i++) {
+            collector.addNodeStatistics("node1", 1, 1000, 10);
+        }
+        assertThat(collector.getNodeStatistics("node1").get().tailResponseTime, equalTo(1000.0));
+        for (int i = 0; i < ResponseCollectorService.TAIL_WINDOW_SIZE; i++) {
+            collector.addNodeStatistics("node1", 1, i < 90 ? 10 : 500, 10);
+        }
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.tailResponseTime, equalTo(500.0));
+        assertFalse(stats.rankByTailLatency);
+
+        clusterService.getClusterSettings()
+            .applySettings(Settings.builder().put(ResponseCollectorService.RANK_BY_TAIL_LATENCY_SETTING.getKey(), true).build());
+        assertTrue(collector.getNodeStatistics("node1").get().rankByTailLatency);
+        assertTrue(collector.getAllNodeStatistics().get("node1").rankByTailLatency);
+    }
+
+    public void testTailResponseTimeMatchesSortedWindow() {
+        List<Long> responseTimes = new ArrayList<>();
+        int numResponses = between(1, 5 * ResponseCollectorService.TAIL_WINDOW_SIZE);
+        for (int i = 0; i < numResponses; i++) {
+            // few distinct values so that the window holds duplicates
+            long responseTime = randomBoolean() ? randomLongBetween(0, 10) : randomLongBetween(0, 100_000);
+            responseTimes.add(responseTime);
+            collector.addNodeStatistics("node1", 1, responseTime, 10);
+
+            List<Long> window = new ArrayList<>(
+                responseTimes.subList(Math.max(0, responseTimes.size() - ResponseCollectorService.TAIL_WINDOW_SIZE), responseTimes.size())
+            );
+            Collections.sort(window);
+            long expected = window.get((int) Math.ceil(ResponseCollectorService.TAIL_PERCENTILE * window.size()) - 1);
+            assertThat(collector.getNodeStatistics("node1").get().tailResponseTime, equalTo((double) expected));
+        }
+    }
+
+    public void testHedgingBudget() {
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        // hedging is disabled by default
+        assertThat(collector.getHedgeDelayNanos("node1"), equalTo(-1L));
+
+        clusterService.getClusterSettings()
+            .applySettings(Settings.builder().put(ResponseCollectorService.HEDGED_REQUESTS_BUDGET_SETTING.getKey(), 0.25).build());
+        // not enough responses yet
+        assertThat(collector.getHedgeDelayNanos("node1"), equalTo(-1L));
+        assertThat(collector.getHedgeDelayNanos("node2"), equalTo(-1L));
+        for (int i = 1; i < ResponseCollectorService.MIN_RESPONSES_TO_HEDGE; i++) {
+            collector.addNodeStatistics("node1", 1, 100, 10);
+        }
+        assertThat(collector.getHedgeDelayNanos("node1"), equalTo(100L));
+
+        assertFalse(collector.tryHedge());
+        for (int i = 0; i < 4; i++) {
+            collector.onShardRequest();
+        }
+        assertTrue(collector.tryHedge());
+        assertFalse(collector.tryHedge());
+        // the budget saves up for bursts, up to a limit
+        for (int i = 0; i < 1000; i++) {
+            collector.onShardRequest();
+        }
+        for (int i = 0; i < ResponseCollectorService.MAX_HEDGING_TOKENS; i++) {
+            assertTrue(collector.tryHedge());
+        }
+        assertFalse(collector.tryHedge());
+        collector.onHedgeWon();
+
+        AdaptiveSelectionStats stats = collector.getAdaptiveStats(Map.of());
+        assertThat(stats.getHedgedRequests(), equalTo(11L));
+        assertThat(stats.getHedgedRequestsWon(), equalTo(1L));
+        assertThat(stats.getHedgedRequestsOverBudget(), equalTo(3L));
+    }
 }
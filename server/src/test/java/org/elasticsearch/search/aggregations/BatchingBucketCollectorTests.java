@@ -0,0 +1,147 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BatchingBucketCollectorTests extends ESTestCase {
+
+    /**
+     * Records the blocks of documents it collects, as global doc ids, and when segments start.
+     */
+    private static class RecordingBucketCollector extends BucketCollector {
+        private final List<String> events = new ArrayList<>();
+        private final List<Integer> docs = new ArrayList<>();
+        private final int terminateAfter;
+        private boolean postCollected;
+
+        RecordingBucketCollector(int terminateAfter) {
+            this.terminateAfter = terminateAfter;
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            events.add("leaf " + ctx.ord);
+            return new LeafBucketCollector() {
+                int collected;
+
+                @Override
+                public void collect(int doc, long owningBucketOrd) {
+                    throw new AssertionError("documents must be collected in blocks");
+                }
+
+                @Override
+                public void collect(int[] docs, int count, long owningBucketOrd) {
+                    assertThat(owningBucketOrd, equalTo(0L));
+                    events.add("block " + count);
+                    for (int i = 0; i < count; i++) {
+                        if (collected++ == terminateAfter) {
+                            throw new CollectionTerminatedException();
+                        }
+                        RecordingBucketCollector.this.docs.add(ctx.docBase + docs[i]);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {
+            postCollected = true;
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    public void testCollectsInBlocks() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                // two segments of 5 and 3 documents
+                for (int numDocs : new int[] { 5, 3 }) {
+                    for (int i = 0; i < numDocs; i++) {
+                        writer.addDocument(new Document());
+                    }
+                    writer.flush();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                RecordingBucketCollector recording = new RecordingBucketCollector(Integer.MAX_VALUE);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording, 2);
+                searcher.search(new MatchAllDocsQuery(), collector);
+                // the last block of the first segment comes before the second segment starts
+                assertThat(recording.events, equalTo(List.of("leaf 0", "block 2", "block 2", "block 1", "leaf 1", "block 2")));
+                assertFalse(recording.postCollected);
+
+                collector.postCollection();
+                assertThat(recording.events.get(recording.events.size() - 1), equalTo("block 1"));
+                assertTrue(recording.postCollected);
+                assertThat(recording.docs, equalTo(List.of(0, 1, 2, 3, 4, 5, 6, 7)));
+            }
+        }
+    }
+
+    public void testTerminatedSegments() throws IOException {
+        try (Directory dir = newDirectory()) {
+            int blockSize = between(1, 4);
+            int terminateAfter = between(0, 10);
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int segment = 0; segment < 3; segment++) {
+                    for (int i = 0; i < 10; i++) {
+                        writer.addDocument(new Document());
+                    }
+                    writer.flush();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                RecordingBucketCollector recording = new RecordingBucketCollector(terminateAfter);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording, blockSize);
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.flush();
+                // each segment stops after the same number of documents
+                List<Integer> expected = new ArrayList<>();
+                for (int segment = 0; segment < 3; segment++) {
+                    for (int i = 0; i < terminateAfter; i++) {
+                        expected.add(segment * 10 + i);
+                    }
+                }
+                assertThat(recording.docs, equalTo(expected));
+                for (String event : recording.events) {
+                    if (event.startsWith("block ")) {
+                        assertThat(Integer.parseInt(event.substring("block ".length())), lessThanOrEqualTo(blockSize));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ParallelReducerTests extends ESTestCase {
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    private Executor executor() {
+        return threadPool.executor(ThreadPool.Names.SEARCH_WORKER);
+    }
+
+    public void testResultsInOrder() {
+        int parallelism = between(2, 8);
+        ParallelReducer reducer = new ParallelReducer(executor(), parallelism);
+        List<Integer> parts = IntStream.range(0, between(0, 1000)).boxed().collect(toList());
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> results = reducer.reduceEach(parts, i -> {
+            threads.add(Thread.currentThread());
+            return i * 2;
+        });
+        assertThat(results, equalTo(parts.stream().map(i -> i * 2).collect(toList())));
+        assertThat(threads.size(), lessThanOrEqualTo(parallelism));
+    }
+
+    public void testNestedReducesAreBounded() {
+        int parallelism = between(2, 4);
+        ParallelReducer reducer = new ParallelReducer(executor(), parallelism);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> outer = IntStream.range(0, 20).boxed().collect(toList());
+        List<Integer> inner = IntStream.range(0, 20).boxed().collect(toList());
+        List<Integer> results = reducer.reduceEach(outer, o -> {
+            List<Integer> sums = reducer.reduceEach(inner, i -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                try {
+                    return o * i;
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+            return sums.stream().mapToInt(Integer::intValue).sum();
+        });
+        for (int o = 0; o < outer.size(); o++) {
+            assertThat(results.get(o), equalTo(o * 190));
+        }
+        assertThat(maxRunning.get(), lessThanOrEqualTo(parallelism));
+    }
+
+    public void testRejectedPartsRunOnCallingThread() {
+        Executor rejecting = r -> { throw new RejectedExecutionException("full"); };
+        ParallelReducer reducer = new ParallelReducer(rejecting, between(2, 8));
+        List<Integer> parts = IntStream.range(0, 100).boxed().collect(toList());
+        Thread caller = Thread.currentThread();
+        List<Integer> results = reducer.reduceEach(parts, i -> {
+            assertThat(Thread.currentThread(), equalTo(caller));
+            return i + 1;
+        });
+        assertThat(results, equalTo(parts.stream().map(i -> i + 1).collect(toList())));
+        // the permits are given back so the next reduce can still fork
+        assertThat(reducer.reduceEach(parts, i -> i), equalTo(parts));
+    }
+
+    public void testFailure() {
+        ParallelReducer reducer = new ParallelReducer(executor(), between(2, 8));
+        List<Integer> parts = IntStream.range(0, 100).boxed().collect(toList());
+        int failing = between(0, 99);
+        IllegalStateException e = expectThrows(IllegalStateException.class, () -> reducer.reduceEach(parts, i -> {
+            if (i == failing) {
+                throw new IllegalStateException("failed on [" + i + "]");
+            }
+            return i;
+        }));
+        assertThat(e.getMessage(), equalTo("failed on [" + failing + "]"));
+        assertThat(reducer.reduceEach(parts, i -> i), equalTo(parts));
+    }
+
+    public void testBucketsOfAllThreadsAreCounted() {
+        MultiBucketConsumer consumer = new MultiBucketConsumer(Integer.MAX_VALUE, new NoopCircuitBreaker("test"));
+        InternalAggregation.ReduceContext context = InternalAggregation.ReduceContext.forFinalReduction(
+            BigArrays.NON_RECYCLING_INSTANCE,
+            null,
+            consumer,
+            PipelineTree.EMPTY,
+            () -> false,
+            executor(),
+            between(2, 8)
+        );
+        List<Integer> parts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            parts.add(between(0, 100));
+        }
+        context.reduceEach(parts, buckets -> {
+            for (int b = 0; b < buckets; b++) {
+                context.consumeBucketsAndMaybeBreak(1);
+            }
+            return null;
+        });
+        assertThat(consumer.getCount(), equalTo(parts.stream().mapToInt(Integer::intValue).sum()));
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SegmentResultsCollectorTests extends AggregatorTestCase {
+    private static final MappedFieldType NUMBER = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+
+    /**
+     * Caches the results on heap by the cache key of the segment's reader.
+     */
+    private class MapCache implements SegmentResultsCache {
+        private final Map<Object, InternalAggregations> results = new HashMap<>();
+        private AggregationContext context;
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) {
+            return results.get(ctx.reader().getReaderCacheHelper().getKey());
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations segmentResults) {
+            assertNull(results.put(ctx.reader().getReaderCacheHelper().getKey(), segmentResults));
+        }
+
+        @Override
+        public InternalAggregation.ReduceContext partialReduceContext() {
+            return InternalAggregation.ReduceContext.forPartialReduction(
+                context.bigArrays(),
+                getMockScriptService(),
+                () -> PipelineTree.EMPTY,
+                () -> false
+            );
+        }
+    }
+
+    public void testReusesResultsOfUnchangedSegments() throws IOException {
+        MapCache cache = new MapCache();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                // three segments holding 1 to 30
+                for (int segment = 0; segment < 3; segment++) {
+                    for (int i = 1; i <= 10; i++) {
+                        writer.addDocument(List.of(new SortedNumericDocValuesField("number", segment * 10 + i)));
+                    }
+                    writer.commit();
+                }
+                try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                    SegmentResultsCollector collector = collector(new IndexSearcher(reader), cache);
+                    InternalAggregations results = finish(collector, true);
+                    assertThat(collector.segmentsCollected(), equalTo(3));
+                    assertThat(collector.segmentsFromCache(), equalTo(0));
+                    assertThat(cache.results.size(), equalTo(3));
+                    assertThat(((Sum) results.get("sum")).getValue(), equalTo(465.0));
+                    assertThat(((Max) results.get("max")).getValue(), equalTo(30.0));
+
+                    // a new segment holding 31 to 35
+                    for (int i = 31; i <= 35; i++) {
+                        writer.addDocument(List.of(new SortedNumericDocValuesField("number", i)));
+                    }
+                    writer.commit();
+                    try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader)) {
+                        collector = collector(new IndexSearcher(newReader), cache);
+                        results = finish(collector, true);
+                        assertThat(collector.segmentsCollected(), equalTo(1));
+                        assertThat(collector.segmentsFromCache(), equalTo(3));
+                        assertThat(cache.results.size(), equalTo(4));
+                        assertThat(((Sum) results.get("sum")).getValue(), equalTo(630.0));
+                        assertThat(((Max) results.get("max")).getValue(), equalTo(35.0));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testDoesNotCacheLastSegmentIfIncomplete() throws IOException {
+        MapCache cache = new MapCache();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int segment = 0; segment < 2; segment++) {
+                    writer.addDocument(List.of(new SortedNumericDocValuesField("number", segment)));
+                    writer.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                SegmentResultsCollector collector = collector(new IndexSearcher(reader), cache);
+                finish(collector, false);
+                assertThat(collector.segmentsCollected(), equalTo(2));
+                assertThat(cache.results.size(), equalTo(1));
+                assertNotNull(cache.get(reader.leaves().get(0)));
+            }
+        }
+    }
+
+    public void testCountsBucketsOfReducedResultsOnce() throws IOException {
+        MapCache cache = new MapCache();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                // three segments that fall in the same five buckets
+                for (int segment = 0; segment < 3; segment++) {
+                    for (int i = 0; i < 5; i++) {
+                        writer.addDocument(List.of(new SortedNumericDocValuesField("number", i)));
+                    }
+                    writer.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                AggregatorFactories.Builder builder = new AggregatorFactories.Builder();
+                builder.addAggregator(new HistogramAggregationBuilder("histo").field("number").interval(1));
+                SegmentResultsCollector collector = collector(new IndexSearcher(reader), cache, builder);
+                InternalAggregations results = finish(collector, true);
+                assertThat(collector.segmentsCollected(), equalTo(3));
+                assertThat(((Histogram) results.get("histo")).getBuckets().size(), equalTo(5));
+                assertThat(cache.context.multiBucketConsumer().getCount(), equalTo(5));
+            }
+        }
+    }
+
+    public void testReleasesAggregatorsOfEachSegment() throws IOException {
+        AtomicLong used = new AtomicLong();
+        CircuitBreakerService breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CircuitBreaker.REQUEST)).thenReturn(new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                used.addAndGet(bytes);
+            }
+
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                used.addAndGet(bytes);
+            }
+
+            @Override
+            public long getUsed() {
+                return used.get();
+            }
+        });
+        MapCache cache = new MapCache();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int segment = 0; segment < 3; segment++) {
+                    for (int i = 0; i < 5; i++) {
+                        writer.addDocument(List.of(new SortedNumericDocValuesField("number", i)));
+                    }
+                    writer.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                AggregationContext context = createAggregationContext(
+                    searcher,
+                    createIndexSettings(),
+                    new MatchAllDocsQuery(),
+                    breakerService,
+                    0,
+                    DEFAULT_MAX_BUCKETS,
+                    NUMBER
+                );
+                cache.context = context;
+                AggregatorFactories.Builder builder = new AggregatorFactories.Builder();
+                builder.addAggregator(new HistogramAggregationBuilder("histo").field("number").interval(1));
+                AggregatorFactories factories = builder.build(context, null);
+                BucketCollector main = MultiBucketCollector.wrap(true, List.of(factories.createTopLevelAggregators()));
+                long usedByShardAggregators = used.get();
+                SegmentResultsCollector collector = new SegmentResultsCollector(main, factories, cache);
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                InternalAggregations results = finish(collector, true);
+                assertThat(collector.segmentsCollected(), equalTo(3));
+                assertThat(((Histogram) results.get("histo")).getBuckets().size(), equalTo(5));
+                // the aggregators of each segment were released once their results were built
+                assertThat(used.get(), equalTo(usedByShardAggregators));
+            }
+        }
+    }
+
+    private SegmentResultsCollector collector(IndexSearcher searcher, MapCache cache) throws IOException {
+        AggregatorFactories.Builder builder = new AggregatorFactories.Builder();
+        builder.addAggregator(new SumAggregationBuilder("sum").field("number"));
+        builder.addAggregator(new MaxAggregationBuilder("max").field("number"));
+        return collector(searcher, cache, builder);
+    }
+
+    private SegmentResultsCollector collector(IndexSearcher searcher, MapCache cache, AggregatorFactories.Builder builder)
+        throws IOException {
+        AggregationContext context = createAggregationContext(searcher, new MatchAllDocsQuery(), NUMBER);
+        cache.context = context;
+        assertTrue(builder.supportsSegmentLevelResults());
+        AggregatorFactories factories = builder.build(context, null);
+        BucketCollector main = MultiBucketCollector.wrap(true, List.of(factories.createTopLevelAggregators()));
+        SegmentResultsCollector collector = new SegmentResultsCollector(main, factories, cache);
+        collector.preCollection();
+        searcher.search(new MatchAllDocsQuery(), collector);
+        return collector;
+    }
+
+    private InternalAggregations finish(SegmentResultsCollector collector, boolean cacheLast) throws IOException {
+        return collector.reduce(collector.finish(cacheLast));
+    }
+}
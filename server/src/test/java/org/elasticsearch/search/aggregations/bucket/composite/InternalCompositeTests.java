@@ -238,6 +238,11 @@ public class InternalCompositeTests extends InternalMultiBucketAggregationTestCa
         );
     }
 
+    @Override
+    protected boolean reducesInParallel() {
+        return true;
+    }
+
     @Override
     protected void assertReduced(InternalComposite reduced, List<InternalComposite> inputs) {
         List<CompositeKey> expectedKeys = inputs.stream()
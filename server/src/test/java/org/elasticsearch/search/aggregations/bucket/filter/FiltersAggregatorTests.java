@@ -18,8 +18,11 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -78,6 +81,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -388,12 +392,159 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                         .entry("segments_with_deleted_docs", 0)
                         .entry("segments_collected", 0)
                         .entry("segments_counted", greaterThanOrEqualTo(1))
-                        .entry("filters", matchesList().item(matchesMap().entry("query", "test:[1577836800000 TO 1583020799999]")))
+                        .entry(
+                            "filters",
+                            matchesList().item(
+                                matchesMap().entry("query", "test:[1577836800000 TO 1583020799999]")
+                                    .entry("specialized_for", "point_range")
+                                    .entry("results_from_metadata", greaterThanOrEqualTo(0))
+                                    .entry("results_from_points", greaterThanOrEqualTo(0))
+                            )
+                        )
                 )
             );
         }, ft);
     }
 
+    public void testRangeFilterCountsFromPoints() throws IOException {
+        AggregationBuilder builder = new FiltersAggregationBuilder(
+            "test",
+            new KeyedFilter("jan", new RangeQueryBuilder("test").from("2020-01-01").to("2020-02-01").includeUpper(false)),
+            new KeyedFilter("late_feb", new RangeQueryBuilder("test").from("2020-02-10").to("2020-03-01").includeUpper(false))
+        );
+        withMonthlySegments(
+            searcher -> debugTestCase(
+                builder,
+                new MatchAllDocsQuery(),
+                searcher,
+                (InternalFilters filters, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(filters.getBucketByKey("jan").getDocCount(), equalTo(10L));
+                    assertThat(filters.getBucketByKey("late_feb").getDocCount(), equalTo(12L));
+
+                    assertThat(impl, equalTo(FilterByFilterAggregator.class));
+                    assertMap(
+                        debug,
+                        matchesMap().entry(
+                            "test",
+                            matchesMap().entry("segments_with_doc_count_field", 0)
+                                .entry("segments_with_deleted_docs", 0)
+                                .entry("segments_collected", 0)
+                                .entry("segments_counted", 4)
+                                .entry(
+                                    "filters",
+                                    matchesList().item(
+                                        // January is inside the range, the other single valued segments are outside of it
+                                        matchesMap().entry("query", "test:[1577836800000 TO 1580515199999]")
+                                            .entry("specialized_for", "point_range")
+                                            .entry("results_from_metadata", 3)
+                                            .entry("results_from_points", 0)
+                                    )
+                                        .item(
+                                            // February crosses the range
+                                            matchesMap().entry("query", "test:[1581292800000 TO 1583020799999]")
+                                                .entry("specialized_for", "point_range")
+                                                .entry("results_from_metadata", 2)
+                                                .entry("results_from_points", 1)
+                                        )
+                                )
+                        )
+                    );
+                },
+                dateFieldType("test")
+            )
+        );
+    }
+
+    public void testRangeFilterCountsFromPointsWithTopLevelRange() throws IOException {
+        AggregationBuilder builder = new FiltersAggregationBuilder(
+            "test",
+            new KeyedFilter("jan", new RangeQueryBuilder("test").from("2020-01-01").to("2020-02-01").includeUpper(false)),
+            new KeyedFilter("late_feb", new RangeQueryBuilder("test").from("2020-02-10").to("2020-03-01").includeUpper(false))
+        );
+        Query topLevelQuery = LongPoint.newRangeQuery(
+            "test",
+            DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseMillis("2020-02-15"),
+            Long.MAX_VALUE
+        );
+        withMonthlySegments(
+            searcher -> debugTestCase(
+                builder,
+                topLevelQuery,
+                searcher,
+                (InternalFilters filters, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(filters.getBucketByKey("jan").getDocCount(), equalTo(0L));
+                    assertThat(filters.getBucketByKey("late_feb").getDocCount(), equalTo(6L));
+
+                    assertThat(impl, equalTo(FilterByFilterAggregator.class));
+                    assertMap(
+                        debug,
+                        matchesMap().entry(
+                            "test",
+                            matchesMap().entry("segments_with_doc_count_field", 0)
+                                .entry("segments_with_deleted_docs", 0)
+                                .entry("segments_collected", 0)
+                                .entry("segments_counted", 4)
+                                .entry(
+                                    "filters",
+                                    matchesList().item(
+                                        // Merging with the top level query leaves nothing to match in single valued segments
+                                        matchesMap().extraOk().entry("specialized_for", "point_range").entry("results_from_points", 0)
+                                    ).item(matchesMap().extraOk().entry("specialized_for", "point_range").entry("results_from_points", 1))
+                                )
+                        )
+                    );
+                },
+                dateFieldType("test")
+            )
+        );
+    }
+
+    private static MappedFieldType dateFieldType(String name) {
+        return new DateFieldMapper.DateFieldType(
+            name,
+            true,
+            false,
+            false,
+            DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER,
+            Resolution.MILLISECONDS,
+            null,
+            null,
+            Collections.emptyMap()
+        );
+    }
+
+    /**
+     * Build an index with a segment of documents from each of january,
+     * february, and march of 2020 and a segment with a document that has
+     * two points in february.
+     */
+    private void withMonthlySegments(CheckedConsumer<IndexSearcher, IOException> consumer) throws IOException {
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                for (String month : new String[] { "01", "02", "03" }) {
+                    int days = month.equals("02") ? 20 : 10;
+                    for (int day = 1; day <= days; day++) {
+                        long date = DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseMillis(
+                            String.format(Locale.ROOT, "2020-%s-%02d", month, day)
+                        );
+                        indexWriter.addDocument(List.of(new LongPoint("test", date)));
+                    }
+                    indexWriter.flush();
+                }
+                indexWriter.addDocument(
+                    List.of(
+                        new LongPoint("test", DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseMillis("2020-02-12")),
+                        new LongPoint("test", DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseMillis("2020-02-13"))
+                    )
+                );
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                consumer.accept(newIndexSearcher(reader));
+            }
+        }
+    }
+
     /**
      * Check that we don't accidentally find nested documents when the filter
      * matches it.
@@ -612,7 +763,15 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                 debug,
                 matchesMap().entry(
                     "test",
-                    matchesMap().entry("filters", matchesList().item(matchesMap().entry("query", "date:[1577836800000 TO 1583020799999]")))
+                    matchesMap().entry(
+                        "filters",
+                        matchesList().item(
+                            matchesMap().entry("query", "date:[1577836800000 TO 1583020799999]")
+                                .entry("specialized_for", "point_range")
+                                .entry("results_from_metadata", 0)
+                                .entry("results_from_points", 0)
+                        )
+                    )
                 )
             );
         }, dft, kft);
@@ -849,8 +1008,18 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
                             .entry("segments_counted", 0)
                             .entry(
                                 "filters",
-                                matchesList().item(matchesMap().entry("query", "test:[1262304000000 TO 1267401599999]"))
-                                    .item(matchesMap().entry("query", "test:[1577836800000 TO 1583020799999]"))
+                                matchesList().item(
+                                    matchesMap().entry("query", "test:[1262304000000 TO 1267401599999]")
+                                        .entry("specialized_for", "point_range")
+                                        .entry("results_from_metadata", 0)
+                                        .entry("results_from_points", 0)
+                                )
+                                    .item(
+                                        matchesMap().entry("query", "test:[1577836800000 TO 1583020799999]")
+                                            .entry("specialized_for", "point_range")
+                                            .entry("results_from_metadata", 0)
+                                            .entry("results_from_points", 0)
+                                    )
                             )
                     ).entry("test.s", matchesMap()).entry("test.m", matchesMap())
                 );
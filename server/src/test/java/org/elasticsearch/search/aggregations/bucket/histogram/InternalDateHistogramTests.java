@@ -106,6 +106,11 @@ public class InternalDateHistogramTests extends InternalMultiBucketAggregationTe
         return new InternalDateHistogram(name, buckets, order, minDocCount, 0L, emptyBucketInfo, format, keyed, metadata);
     }
 
+    @Override
+    protected boolean reducesInParallel() {
+        return true;
+    }
+
     @Override
     protected void assertReduced(InternalDateHistogram reduced, List<InternalDateHistogram> inputs) {
         TreeMap<Long, Long> expectedCounts = new TreeMap<>();
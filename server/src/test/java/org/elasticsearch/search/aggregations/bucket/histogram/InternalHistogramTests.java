@@ -114,6 +114,11 @@ public class InternalHistogramTests extends InternalMultiBucketAggregationTestCa
         );
     }
 
+    @Override
+    protected boolean reducesInParallel() {
+        return true;
+    }
+
     @Override
     protected void assertReduced(InternalHistogram reduced, List<InternalHistogram> inputs) {
         TreeMap<Double, Long> expectedCounts = new TreeMap<>();
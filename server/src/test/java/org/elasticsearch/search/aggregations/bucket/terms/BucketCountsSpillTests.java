@@ -0,0 +1,81 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class BucketCountsSpillTests extends ESTestCase {
+    public void testMerge() throws IOException {
+        Path path = createTempDir();
+        Map<BytesRef, Long> expected = new TreeMap<>();
+        try (BucketCountsSpill spill = new BucketCountsSpill(newFSDirectory(path), 0)) {
+            int count = between(0, 1000);
+            for (int i = 0; i < count; i++) {
+                BytesRef key = new BytesRef(randomUnicodeOfLengthBetween(0, 3));
+                long docCount = randomLongBetween(1, Integer.MAX_VALUE);
+                expected.merge(key, docCount, Long::sum);
+                spill.add(key, docCount);
+            }
+            assertThat(spill.size(), equalTo((long) count));
+
+            List<BytesRef> keys = new ArrayList<>();
+            List<Long> docCounts = new ArrayList<>();
+            try (BucketCountsSpill.Merged merged = spill.merge()) {
+                while (merged.next()) {
+                    keys.add(BytesRef.deepCopyOf(merged.key()));
+                    docCounts.add(merged.docCount());
+                }
+            }
+            assertThat(keys, equalTo(new ArrayList<>(expected.keySet())));
+            assertThat(docCounts, equalTo(new ArrayList<>(expected.values())));
+        }
+        assertThat(spillFiles(path), empty());
+    }
+
+    public void testCloseWithoutMerge() throws IOException {
+        Path path = createTempDir();
+        try (BucketCountsSpill spill = new BucketCountsSpill(newFSDirectory(path), 0)) {
+            spill.add(new BytesRef("a"), 1);
+            assertThat(spillFiles(path), hasSize(1));
+        }
+        assertThat(spillFiles(path), empty());
+    }
+
+    public void testNewBucket() {
+        BucketCountsSpill spill = new BucketCountsSpill(null, 3 * BucketCountsSpill.BYTES_PER_BUCKET);
+        assertFalse(spill.newBucket(0));
+        assertFalse(spill.newBucket(0));
+        assertFalse(spill.newBucket(0));
+        assertTrue(spill.newBucket(1));
+        // starts counting again once the buckets are spilled
+        assertFalse(spill.newBucket(0));
+        assertTrue(spill.newBucket(100));
+    }
+
+    private static List<Path> spillFiles(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("terms_spill")).collect(toList());
+        }
+    }
+}
@@ -52,6 +52,11 @@ public abstract class InternalTermsTestCase extends InternalMultiBucketAggregati
         return new UnmappedTerms(name, testInstance.order, testInstance.requiredSize, testInstance.minDocCount, metadata);
     }
 
+    @Override
+    protected boolean reducesInParallel() {
+        return true;
+    }
+
     @Override
     protected void assertReduced(InternalTerms<?, ?> reduced, List<InternalTerms<?, ?>> inputs) {
         final int requiredSize = inputs.get(0).requiredSize;
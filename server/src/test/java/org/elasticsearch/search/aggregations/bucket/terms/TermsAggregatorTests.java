@@ -143,13 +143,17 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
     private boolean randomizeAggregatorImpl = true;
 
+    private long termsSpillThreshold = -1;
+
     // Constants for a script that returns a string
     private static final String STRING_SCRIPT_NAME = "string_script";
     private static final String STRING_SCRIPT_OUTPUT = "Orange";
@@ -186,6 +190,11 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    @Override
+    protected long termsSpillThreshold() {
+        return termsSpillThreshold;
+    }
+
     @Override
     protected AggregationBuilder createAggBuilderForTypeTest(MappedFieldType fieldType, String fieldName) {
         return new TermsAggregationBuilder("foo").field(fieldName);
@@ -330,6 +339,66 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }, fieldType);
     }
 
+    public void testSpillsToDisk() throws IOException {
+        MappedFieldType kft = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        MappedFieldType lft = new NumberFieldType("long", NumberType.LONG);
+        MappedFieldType dft = new NumberFieldType("double", NumberType.DOUBLE);
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            for (int i = 0; i < 1000; i++) {
+                long value = randomLongBetween(0, 100);
+                iw.addDocument(
+                    List.of(
+                        new SortedSetDocValuesField("string", new BytesRef(Long.toString(value))),
+                        new SortedNumericDocValuesField("long", value),
+                        new SortedNumericDocValuesField("double", NumericUtils.doubleToSortableLong(value))
+                    )
+                );
+            }
+        };
+        withIndex(buildIndex, searcher -> {
+            for (String field : List.of("string", "long", "double")) {
+                TermsAggregationBuilder builder = new TermsAggregationBuilder("t").field(field)
+                    .executionHint("map")
+                    .size(between(1, 20))
+                    .order(randomFrom(BucketOrder.count(false), BucketOrder.count(true), BucketOrder.key(true)));
+                List<String> expected = new ArrayList<>();
+                termsSpillThreshold = -1;
+                debugTestCase(
+                    builder,
+                    new MatchAllDocsQuery(),
+                    searcher,
+                    (InternalTerms<?, ?> result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        expected.addAll(bucketsAndOtherDocCount(result));
+                        assertThat(debug.get("t"), not(hasKey("spilled_buckets")));
+                    },
+                    kft,
+                    lft,
+                    dft
+                );
+                // small enough to spill many times
+                termsSpillThreshold = between(0, 1024);
+                debugTestCase(
+                    builder,
+                    new MatchAllDocsQuery(),
+                    searcher,
+                    (InternalTerms<?, ?> result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        assertThat(bucketsAndOtherDocCount(result), equalTo(expected));
+                        assertThat((Long) debug.get("t").get("spilled_buckets"), greaterThan(0L));
+                    },
+                    kft,
+                    lft,
+                    dft
+                );
+            }
+        });
+    }
+
+    private static List<String> bucketsAndOtherDocCount(InternalTerms<?, ?> result) {
+        List<String> buckets = result.getBuckets().stream().map(b -> b.getKeyAsString() + "=" + b.getDocCount()).collect(toList());
+        buckets.add("other=" + result.getSumOfOtherDocCounts());
+        return buckets;
+    }
+
     public void testManyTermsOrderBySubAgg() throws Exception {
         MappedFieldType kft = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         MappedFieldType lft = new NumberFieldType("long", NumberType.LONG);
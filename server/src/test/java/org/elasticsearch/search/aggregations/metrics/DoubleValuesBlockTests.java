@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class DoubleValuesBlockTests extends ESTestCase {
+    public void testReadSingleValued() throws IOException {
+        double[][] values = randomValues(between(1, 2000), 1);
+        int[] docs = randomDocs(values.length);
+        int count = between(0, docs.length);
+        DoubleValuesBlock block = new DoubleValuesBlock();
+        block.read(FieldData.singleton(singleValued(values)), docs, count);
+        assertBlock(block, values, docs, count);
+    }
+
+    public void testReadMultiValued() throws IOException {
+        double[][] values = randomValues(between(1, 2000), 5);
+        int[] docs = randomDocs(values.length);
+        int count = between(0, docs.length);
+        DoubleValuesBlock block = new DoubleValuesBlock();
+        block.read(multiValued(values), docs, count);
+        assertBlock(block, values, docs, count);
+    }
+
+    public void testReuse() throws IOException {
+        DoubleValuesBlock block = new DoubleValuesBlock();
+        for (int i = 0; i < 10; i++) {
+            double[][] values = randomValues(between(1, 500), randomBoolean() ? 1 : 5);
+            int[] docs = randomDocs(values.length);
+            int count = between(0, docs.length);
+            block.read(multiValued(values), docs, count);
+            assertBlock(block, values, docs, count);
+        }
+    }
+
+    /**
+     * Check that the block holds the values of the first {@code count} documents, in order.
+     */
+    private static void assertBlock(DoubleValuesBlock block, double[][] values, int[] docs, int count) {
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            for (double value : values[docs[i]]) {
+                expected.add(value);
+            }
+        }
+        List<Double> actual = new ArrayList<>();
+        for (int i = 0; i < block.size(); i++) {
+            actual.add(block.values()[i]);
+        }
+        assertThat(actual, equalTo(expected));
+    }
+
+    /**
+     * Random values for each document, some documents without any.
+     */
+    private static double[][] randomValues(int maxDoc, int maxValuesPerDoc) {
+        double[][] values = new double[maxDoc][];
+        for (int doc = 0; doc < maxDoc; doc++) {
+            values[doc] = new double[between(0, maxValuesPerDoc)];
+            for (int i = 0; i < values[doc].length; i++) {
+                values[doc][i] = randomDouble();
+            }
+            Arrays.sort(values[doc]);
+        }
+        return values;
+    }
+
+    /**
+     * A random subset of the documents, in increasing order.
+     */
+    private static int[] randomDocs(int maxDoc) {
+        return IntStream.range(0, maxDoc).filter(doc -> randomBoolean()).toArray();
+    }
+
+    private static NumericDoubleValues singleValued(double[][] values) {
+        return new NumericDoubleValues() {
+            private int doc;
+
+            @Override
+            public boolean advanceExact(int target) {
+                doc = target;
+                return values[doc].length > 0;
+            }
+
+            @Override
+            public double doubleValue() {
+                return values[doc][0];
+            }
+        };
+    }
+
+    private static SortedNumericDoubleValues multiValued(double[][] values) {
+        return new SortedNumericDoubleValues() {
+            private int doc;
+            private int index;
+
+            @Override
+            public boolean advanceExact(int target) {
+                doc = target;
+                index = 0;
+                return values[doc].length > 0;
+            }
+
+            @Override
+            public double nextValue() {
+                return values[doc][index++];
+            }
+
+            @Override
+            public int docValueCount() {
+                return values[doc].length;
+            }
+        };
+    }
+}
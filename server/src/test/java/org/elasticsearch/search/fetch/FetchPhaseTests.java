@@ -18,14 +18,29 @@ public class FetchPhaseTests extends ESTestCase {
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
             ++start;
         }
-        assertTrue(FetchPhase.hasSequentialDocs(docs));
+        assertTrue(FetchPhase.hasCloseDocs(docs, 0, docs.length));
+        // too few docs to be worth it
+        assertFalse(FetchPhase.hasCloseDocs(docs, 1, docs.length));
 
-        int from = randomIntBetween(0, 9);
-        start = docs[from].docId;
-        for (int i = from; i < 10; i++) {
-            start += randomIntBetween(2, 10);
+        start = docs[0].docId;
+        for (int i = 1; i < 10; i++) {
+            start += randomIntBetween(FetchPhase.SEQUENTIAL_READER_MAX_AVERAGE_GAP + 1, 100);
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
         }
-        assertFalse(FetchPhase.hasSequentialDocs(docs));
+        assertFalse(FetchPhase.hasCloseDocs(docs, 0, docs.length));
+    }
+
+    public void testCloseDocs() {
+        FetchPhase.DocIdToIndex[] docs = new FetchPhase.DocIdToIndex[between(10, 100)];
+        int start = randomIntBetween(0, Short.MAX_VALUE);
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = new FetchPhase.DocIdToIndex(start, i);
+            start += randomIntBetween(1, FetchPhase.SEQUENTIAL_READER_MAX_AVERAGE_GAP);
+        }
+        assertTrue(FetchPhase.hasCloseDocs(docs, 0, docs.length));
+
+        // only the docs of the segment count
+        assertTrue(FetchPhase.hasCloseDocs(docs, 0, 10));
+        assertFalse(FetchPhase.hasCloseDocs(docs, 0, 9));
     }
 }
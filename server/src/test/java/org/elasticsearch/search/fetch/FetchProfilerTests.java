@@ -39,4 +39,19 @@ public class FetchProfilerTests extends ESTestCase {
         ProfileResult copy = copyWriteable(result, new NamedWriteableRegistry(List.of()), ProfileResult::new);
         assertMap(copy.getDebugInfo(), matchesMap().entry("stored_fields", List.of("_id", "_routing", "_source")));
     }
+
+    public void testStoredFieldsReaders() throws IOException {
+        FetchProfiler profiler = new FetchProfiler();
+        profiler.visitor(new CustomFieldsVisitor(Set.of(), false));
+        profiler.storedFieldsReader(true, 100);
+        profiler.storedFieldsReader(false, 3);
+        profiler.storedFieldsReader(true, 20);
+        ProfileResult result = profiler.finish();
+        assertMap(
+            result.getDebugInfo(),
+            matchesMap().entry("stored_fields", List.of("_id", "_routing"))
+                .entry("sequential_stored_fields_docs", 120)
+                .entry("random_access_stored_fields_docs", 3)
+        );
+    }
 }
@@ -8,22 +8,43 @@
 
 package org.elasticsearch.search.fetch.subphase;
 
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.LowercaseNormalizer;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperBuilderContext;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.script.ScriptCompiler;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.fetch.FetchContext;
 import org.elasticsearch.search.fetch.FetchSubPhase.HitContext;
 import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentFactory;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -129,6 +150,91 @@ public class FetchSourcePhaseTests extends ESTestCase {
         );
     }
 
+    public void testSourceFromDocValues() throws IOException {
+        MappedFieldType keyword = new KeywordFieldMapper.KeywordFieldType("obj.keyword");
+        MappedFieldType number = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        SearchExecutionContext sec = docValuesSearchExecutionContext(true, keyword, number);
+        FetchSourceContext fetchSourceContext = new FetchSourceContext(true, new String[] { "obj.keyword", "number" }, null);
+        assertEquals(List.of(keyword, number), FetchSourcePhase.docValueFieldTypes(fetchSourceContext, sec));
+
+        FetchContext fetchContext = mock(FetchContext.class);
+        when(fetchContext.fetchSourceContext()).thenReturn(fetchSourceContext);
+        when(fetchContext.getIndexName()).thenReturn("index");
+        when(fetchContext.getSearchExecutionContext()).thenReturn(sec);
+        when(fetchContext.searchLookup()).thenReturn(
+            new SearchLookup(
+                sec::getFieldType,
+                (ft, lookup) -> ft.fielddataBuilder("index", lookup).build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService())
+            )
+        );
+
+        // the stored _source isn't loaded at all, there is none in the index
+        MemoryIndex index = new MemoryIndex();
+        index.addField(new SortedSetDocValuesField("obj.keyword", new BytesRef("value")), null);
+        index.addField(new SortedNumericDocValuesField("number", 2), null);
+        index.addField(new SortedNumericDocValuesField("number", 1), null);
+        LeafReaderContext leafReaderContext = index.createSearcher().getIndexReader().leaves().get(0);
+        HitContext hitContext = new HitContext(new SearchHit(0), leafReaderContext, 0);
+
+        FetchSubPhaseProcessor processor = new FetchSourcePhase().getProcessor(fetchContext);
+        processor.setNextReader(leafReaderContext);
+        processor.process(hitContext);
+        assertEquals(Map.of("obj", Map.of("keyword", "value"), "number", List.of(1, 2)), hitContext.hit().getSourceAsMap());
+        assertEquals(1, processor.getDebugInfo().get("doc_values_path"));
+        assertEquals(0, processor.getDebugInfo().get("fast_path"));
+    }
+
+    public void testSourceFromDocValuesNotApplicable() {
+        MappedFieldType keyword = new KeywordFieldMapper.KeywordFieldType("keyword");
+        MappedFieldType noDocValues = new KeywordFieldMapper.KeywordFieldType("no_doc_values", true, false, Map.of());
+        SearchExecutionContext sec = docValuesSearchExecutionContext(true, keyword, noDocValues);
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true), sec));
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(false, new String[] { "keyword" }, null), sec));
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "key*" }, null), sec));
+        assertNull(
+            FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "keyword" }, new String[] { "x" }), sec)
+        );
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "no_doc_values" }, null), sec));
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "unmapped" }, null), sec));
+
+        // multi-fields and copy_to targets aren't in the _source under their own name
+        when(sec.sourcePath("keyword")).thenReturn(Set.of("text"));
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "keyword" }, null), sec));
+
+        sec = docValuesSearchExecutionContext(false, keyword);
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "keyword" }, null), sec));
+    }
+
+    public void testSourceFromDocValuesSkipsAlteredKeywords() {
+        MappedFieldType ignoreAbove = new KeywordFieldMapper.Builder("ignore_above").ignoreAbove(4)
+            .build(MapperBuilderContext.ROOT)
+            .fieldType();
+        IndexAnalyzers indexAnalyzers = new IndexAnalyzers(
+            Map.of("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer())),
+            Map.of("lowercase", new NamedAnalyzer("lowercase", AnalyzerScope.INDEX, new LowercaseNormalizer())),
+            Map.of()
+        );
+        MappedFieldType normalizer = new KeywordFieldMapper.Builder("normalizer", indexAnalyzers, ScriptCompiler.NONE).normalizer(
+            "lowercase"
+        ).build(MapperBuilderContext.ROOT).fieldType();
+        SearchExecutionContext sec = docValuesSearchExecutionContext(true, ignoreAbove, normalizer);
+        // doc values miss the values above ignore_above and only have the normalized values
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "ignore_above" }, null), sec));
+        assertNull(FetchSourcePhase.docValueFieldTypes(new FetchSourceContext(true, new String[] { "normalizer" }, null), sec));
+    }
+
+    private static SearchExecutionContext docValuesSearchExecutionContext(boolean enabled, MappedFieldType... fieldTypes) {
+        Settings settings = Settings.builder().put(IndexSettings.FETCH_SOURCE_FROM_DOC_VALUES_SETTING.getKey(), enabled).build();
+        SearchExecutionContext sec = mock(SearchExecutionContext.class);
+        when(sec.getIndexSettings()).thenReturn(IndexSettingsModule.newIndexSettings("index", settings));
+        when(sec.isSourceEnabled()).thenReturn(true);
+        for (MappedFieldType ft : fieldTypes) {
+            when(sec.getFieldType(ft.name())).thenReturn(ft);
+            when(sec.sourcePath(ft.name())).thenReturn(Set.of(ft.name()));
+        }
+        return sec;
+    }
+
     private HitContext hitExecute(XContentBuilder source, boolean fetchSource, String include, String exclude) throws IOException {
         return hitExecute(source, fetchSource, include, exclude, null);
     }
@@ -13,6 +13,7 @@ import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
@@ -25,8 +26,11 @@ import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -40,6 +44,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -58,13 +63,19 @@ import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
@@ -72,6 +83,7 @@ import static org.elasticsearch.search.internal.ExitableDirectoryReader.Exitable
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -271,6 +283,142 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testSkipLeavesOutOfTimestampRange() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                doc.add(new LongPoint("@timestamp", segment * 100 + i));
+                w.addDocument(doc);
+            }
+            w.flush();
+        }
+        // a segment without timestamps
+        w.addDocument(new Document());
+        DirectoryReader reader = DirectoryReader.open(w);
+        assertEquals(4, reader.leaves().size());
+
+        ContextIndexSearcher searcher = new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            false
+        );
+        QueryProfiler profiler = new QueryProfiler();
+        searcher.setProfiler(profiler);
+
+        Query range = LongPoint.newRangeQuery("@timestamp", 105, 205);
+        Query query = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(range, BooleanClause.Occur.FILTER)
+            .build();
+        assertEquals(11, searcher.search(query, 100).totalHits.value);
+        // the first segment and the one without timestamps can't match
+        assertEquals(2, profiler.getSkippedLeaves());
+
+        // the range isn't required, so all segments need to be searched
+        Query optionalRange = new BooleanQuery.Builder().add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD)
+            .add(range, BooleanClause.Occur.SHOULD)
+            .build();
+        assertEquals(31, searcher.search(optionalRange, 100).totalHits.value);
+        assertEquals(2, profiler.getSkippedLeaves());
+
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testComputeSlices() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int segment = 0; segment < 4; segment++) {
+            for (int i = 0; i < 10; i++) {
+                w.addDocument(new Document());
+            }
+            w.flush();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        List<LeafReaderContext> leaves = reader.leaves();
+        assertEquals(4, leaves.size());
+
+        assertEquals(List.of(leaves), ContextIndexSearcher.computeSlices(leaves, 1, 1));
+        // not enough documents for more than one slice
+        assertEquals(List.of(leaves), ContextIndexSearcher.computeSlices(leaves, 4, 40));
+        assertEquals(List.of(leaves.subList(0, 2), leaves.subList(2, 4)), ContextIndexSearcher.computeSlices(leaves, 4, 20));
+        assertEquals(List.of(leaves.subList(0, 2), leaves.subList(2, 4)), ContextIndexSearcher.computeSlices(leaves, 2, 1));
+        List<List<LeafReaderContext>> slices = ContextIndexSearcher.computeSlices(leaves, 10, 1);
+        assertEquals(4, slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            assertEquals(List.of(leaves.get(i)), slices.get(i));
+        }
+
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testSearchSlices() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(2, 6);
+        for (int segment = 0; segment < numSegments; segment++) {
+            int numDocs = randomIntBetween(1, 50);
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("field", randomFrom("a", "b", "c"), Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.flush();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                false
+            );
+            assertFalse(searcher.canSearchSlices());
+            searcher.setSliceExecutor(threadPool.executor(ThreadPool.Names.SEARCH_WORKER), numSegments);
+            searcher.setMinDocsPerSlice(1);
+            assertTrue(searcher.canSearchSlices());
+
+            Query query = new BooleanQuery.Builder().add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.SHOULD)
+                .add(new TermQuery(new Term("field", "b")), BooleanClause.Occur.SHOULD)
+                .build();
+            TopDocs expected = searcher.search(query, 10);
+
+            List<TopScoreDocCollector> collectors = new ArrayList<>();
+            searcher.searchSlices(query, new CollectorManager<TopScoreDocCollector, Void>() {
+                @Override
+                public TopScoreDocCollector newCollector() {
+                    TopScoreDocCollector collector = TopScoreDocCollector.create(10, Integer.MAX_VALUE);
+                    collectors.add(collector);
+                    return collector;
+                }
+
+                @Override
+                public Void reduce(Collection<TopScoreDocCollector> collectors) {
+                    return null;
+                }
+            });
+            assertThat(collectors.size(), greaterThan(1));
+            TopDocs[] sliceTopDocs = new TopDocs[collectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = collectors.get(i).topDocs();
+            }
+            TopDocs merged = TopDocs.merge(10, sliceTopDocs);
+            assertEquals(expected.totalHits, merged.totalHits);
+            assertEquals(expected.scoreDocs.length, merged.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, merged.scoreDocs[i].doc);
+                assertEquals(expected.scoreDocs[i].score, merged.scoreDocs[i].score, 0f);
+            }
+        } finally {
+            terminate(threadPool);
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LeafOrderTests extends ESTestCase {
+
+    public void testPointsLeafOrder() throws IOException {
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            // segment 0 holds [100, 199], segment 1 holds [0, 99] and segment 2 holds [200, 299] and a document without a value
+            for (long start : new long[] { 100, 0, 200 }) {
+                for (long value = start; value < start + 100; value++) {
+                    Document doc = new Document();
+                    doc.add(new LongPoint("field", value));
+                    writer.addDocument(doc);
+                }
+                if (start == 200) {
+                    writer.addDocument(new Document());
+                }
+                writer.flush();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                List<LeafReaderContext> leaves = reader.leaves();
+                assertThat(leaves.size(), equalTo(3));
+
+                PointsLeafOrder descending = new PointsLeafOrder("field", true, Long.MIN_VALUE, 150L, true);
+                assertThat(ords(descending.order(leaves)), equalTo(List.of(2, 0, 1)));
+                assertTrue(descending.canMatch(leaves.get(0)));
+                assertFalse(descending.canMatch(leaves.get(1)));
+                assertTrue(descending.canMatch(leaves.get(2)));
+
+                // the missing value makes the last segment compete with the smallest values
+                PointsLeafOrder ascending = new PointsLeafOrder("field", false, Long.MIN_VALUE, 50L, true);
+                assertThat(ords(ascending.order(leaves)), equalTo(List.of(2, 1, 0)));
+                assertFalse(ascending.canMatch(leaves.get(0)));
+                assertTrue(ascending.canMatch(leaves.get(1)));
+                assertTrue(ascending.canMatch(leaves.get(2)));
+
+                // without a bottom value, all segments can match
+                PointsLeafOrder noBottom = new PointsLeafOrder("field", false, Long.MAX_VALUE, null, true);
+                assertThat(ords(noBottom.order(leaves)), equalTo(List.of(1, 0, 2)));
+                for (LeafReaderContext leaf : leaves) {
+                    assertTrue(noBottom.canMatch(leaf));
+                }
+
+                // without a tiebreaker the leaves are searched in index order, but can still be skipped
+                PointsLeafOrder indexOrder = new PointsLeafOrder("field", true, Long.MIN_VALUE, 150L, false);
+                assertThat(ords(indexOrder.order(leaves)), equalTo(List.of(0, 1, 2)));
+                assertFalse(indexOrder.canMatch(leaves.get(1)));
+
+                // segments without the field hold the missing value only
+                PointsLeafOrder otherField = new PointsLeafOrder("other", true, 0L, 1L, true);
+                for (LeafReaderContext leaf : leaves) {
+                    assertFalse(otherField.canMatch(leaf));
+                }
+            }
+        }
+    }
+
+    public void testTermsLeafOrder() throws IOException {
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            // segment 0 holds [m, n], segment 1 holds [a, b] plus a document without a value and segment 2 has no value
+            for (String[] values : new String[][] { { "m", "n" }, { "a", "b", null }, { null } }) {
+                for (String value : values) {
+                    Document doc = new Document();
+                    if (value != null) {
+                        doc.add(new StringField("field", value, Field.Store.NO));
+                    }
+                    writer.addDocument(doc);
+                }
+                writer.flush();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                List<LeafReaderContext> leaves = reader.leaves();
+                assertThat(leaves.size(), equalTo(3));
+
+                TermsLeafOrder ascending = new TermsLeafOrder("field", false, new BytesRef("c"), true);
+                assertThat(ords(ascending.order(leaves)), equalTo(List.of(1, 0, 2)));
+                assertFalse(ascending.canMatch(leaves.get(0)));
+                assertTrue(ascending.canMatch(leaves.get(1)));
+                // the values of the segment are unknown
+                assertTrue(ascending.canMatch(leaves.get(2)));
+
+                TermsLeafOrder descending = new TermsLeafOrder("field", true, new BytesRef("n"), true);
+                assertThat(ords(descending.order(leaves)), equalTo(List.of(0, 1, 2)));
+                assertTrue(descending.canMatch(leaves.get(0)));
+                assertFalse(descending.canMatch(leaves.get(1)));
+            }
+        }
+    }
+
+    private static List<Integer> ords(List<LeafReaderContext> leaves) {
+        return leaves.stream().map(leaf -> leaf.ord).collect(Collectors.toList());
+    }
+}
@@ -33,7 +33,8 @@ public class QueryProfileShardResultTests extends AbstractSerializingTestCase<Qu
         if (randomBoolean()) {
             rewriteTime = rewriteTime % 1000; // make sure to often test this with small values too
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector);
+        long skippedLeaves = randomBoolean() ? 0 : randomNonNegativeLong();
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector, skippedLeaves);
     }
 
     @Override
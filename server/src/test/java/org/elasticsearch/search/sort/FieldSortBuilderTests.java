@@ -675,6 +675,50 @@ public class FieldSortBuilderTests extends AbstractSortTestCase<FieldSortBuilder
         }
     }
 
+    public void testIsBottomSortShardDisjointKeywordAndNumeric() throws Exception {
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir, new KeywordAnalyzer())) {
+                for (String value : new String[] { "b", "c", "d" }) {
+                    Document doc = new Document();
+                    doc.add(new TextField("custom-keyword", value, Field.Store.NO));
+                    doc.add(new LongPoint("custom-long", value.charAt(0)));
+                    writer.addDocument(doc);
+                }
+                try (DirectoryReader reader = writer.getReader()) {
+                    SearchExecutionContext context = createMockSearchExecutionContext(new IndexSearcher(reader));
+                    DocValueFormat[] formats = new DocValueFormat[] { DocValueFormat.RAW };
+
+                    FieldSortBuilder keywordSort = SortBuilders.fieldSort("custom-keyword");
+                    assertTrue(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("a"), formats)));
+                    assertFalse(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("b"), formats)));
+                    assertFalse(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("z"), formats)));
+                    keywordSort.order(SortOrder.DESC);
+                    assertTrue(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("e"), formats)));
+                    assertFalse(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("d"), formats)));
+                    // the bottom of an index that maps the field differently
+                    assertFalse(keywordSort.isBottomSortShardDisjoint(context, bottom(1000L, formats)));
+                    // documents without a value may beat the bottom
+                    keywordSort.missing("_first");
+                    assertFalse(keywordSort.isBottomSortShardDisjoint(context, bottom(new BytesRef("e"), formats)));
+
+                    FieldSortBuilder longSort = SortBuilders.fieldSort("custom-long");
+                    assertTrue(longSort.isBottomSortShardDisjoint(context, bottom((long) 'a', formats)));
+                    assertFalse(longSort.isBottomSortShardDisjoint(context, bottom((long) 'b', formats)));
+                    longSort.order(SortOrder.DESC);
+                    assertTrue(longSort.isBottomSortShardDisjoint(context, bottom((long) 'e', formats)));
+                    assertFalse(longSort.isBottomSortShardDisjoint(context, bottom((long) 'd', formats)));
+                    // sums of several values can go beyond the maximum value
+                    longSort.sortMode(SortMode.SUM);
+                    assertFalse(longSort.isBottomSortShardDisjoint(context, bottom((long) 'e', formats)));
+                }
+            }
+        }
+    }
+
+    private static SearchSortValuesAndFormats bottom(Object value, DocValueFormat[] formats) {
+        return new SearchSortValuesAndFormats(new Object[] { value }, formats);
+    }
+
     @Override
     protected FieldSortBuilder fromXContent(XContentParser parser, String fieldName) throws IOException {
         return FieldSortBuilder.fromXContent(parser, fieldName);
@@ -66,6 +66,7 @@ import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.xcontent.json.JsonXContent;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -462,6 +463,14 @@ public abstract class MapperServiceTestCase extends ESTestCase {
                 // TODO we'll have to handle this in the tests eventually
             }
 
+            @Override
+            public int releasableCount() {
+                return 0;
+            }
+
+            @Override
+            public void releaseAfter(int count) {}
+
             @Override
             public MultiBucketConsumer multiBucketConsumer() {
                 return multiBucketConsumer;
@@ -512,6 +521,16 @@ public abstract class MapperServiceTestCase extends ESTestCase {
                 throw new UnsupportedOperationException();
             }
 
+            @Override
+            public long termsSpillThreshold() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Path termsSpillPath() {
+                throw new UnsupportedOperationException();
+            }
+
             @Override
             public void close() {
                 throw new UnsupportedOperationException();
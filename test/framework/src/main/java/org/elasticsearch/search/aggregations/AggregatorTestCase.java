@@ -330,7 +330,9 @@ public abstract class AggregatorTestCase extends ESTestCase {
             () -> 0L,
             () -> false,
             q -> q,
-            true
+            true,
+            termsSpillThreshold(),
+            termsSpillThreshold() < 0 ? null : createTempDir()
         );
         releasables.add(context);
         return context;
@@ -344,6 +346,15 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return new MockFieldMapper(ft);
     }
 
+    /**
+     * The number of bytes of buckets that {@code terms} aggregations may hold
+     * on heap before spilling them. Defaults to {@code -1}, which never spills.
+     * {@code protected} so subclasses can spill.
+     */
+    protected long termsSpillThreshold() {
+        return -1;
+    }
+
     /**
      * {@link ObjectMapper}s to add to the lookup. By default we don't need
      * any {@link ObjectMapper}s but testing nested objects will require adding some.
@@ -570,7 +581,15 @@ public abstract class AggregatorTestCase extends ESTestCase {
             }
         } else {
             root.preCollection();
-            searcher.search(rewritten, MultiBucketCollector.wrap(true, List.of(root)));
+            BucketCollector collector = MultiBucketCollector.wrap(true, List.of(root));
+            if (randomBoolean() && collector.scoreMode().needsScores() == false) {
+                // sometimes hand the documents to the aggregator in blocks, like the aggregation phase does
+                collector = new BatchingBucketCollector(collector, between(1, 16));
+            }
+            searcher.search(rewritten, collector);
+            if (collector instanceof BatchingBucketCollector) {
+                ((BatchingBucketCollector) collector).flush();
+            }
             root.postCollection();
             aggs.add(root.buildTopLevel());
         }
@@ -134,6 +134,8 @@ import org.elasticsearch.search.aggregations.pipeline.PercentilesBucketPipelineA
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.pipeline.StatsBucketPipelineAggregationBuilder;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.ContextParser;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xcontent.ParseField;
@@ -417,6 +419,54 @@ public abstract class InternalAggregationTestCase<T extends InternalAggregation>
         assertReduced(reduced, inputs);
     }
 
+    /**
+     * Whether the final reduce of the aggregation reduces its parts with {@link ReduceContext#reduceEach}. Those aggregations are
+     * checked to build the same result whether the parts are reduced in parallel or not.
+     */
+    protected boolean reducesInParallel() {
+        return false;
+    }
+
+    public void testParallelReduceMatchesSequentialReduce() throws Exception {
+        assumeTrue("the aggregation doesn't reduce its parts in parallel", reducesInParallel());
+        String name = randomAlphaOfLength(5);
+        List<T> inputs = randomResultsToReduce(name, between(1, 200));
+        // Sort aggs so that unmapped come last. This mimicks the behavior of InternalAggregations.reduce()
+        inputs.sort(INTERNAL_AGG_COMPARATOR);
+        // each reduce gets its own copy of the inputs in case reducing modifies them
+        List<InternalAggregation> sequentialInputs = new ArrayList<>();
+        List<InternalAggregation> parallelInputs = new ArrayList<>();
+        for (T input : inputs) {
+            sequentialInputs.add(copyNamedWriteable(input, getNamedWriteableRegistry(), categoryClass()));
+            parallelInputs.add(copyNamedWriteable(input, getNamedWriteableRegistry(), categoryClass()));
+        }
+        MockBigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            InternalAggregation.ReduceContext sequentialContext = InternalAggregation.ReduceContext.forFinalReduction(
+                bigArrays,
+                mockScriptService(),
+                new MultiBucketConsumer(DEFAULT_MAX_BUCKETS, new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)),
+                PipelineTree.EMPTY,
+                () -> false
+            );
+            InternalAggregation.ReduceContext parallelContext = InternalAggregation.ReduceContext.forFinalReduction(
+                bigArrays,
+                mockScriptService(),
+                new MultiBucketConsumer(DEFAULT_MAX_BUCKETS, new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)),
+                PipelineTree.EMPTY,
+                () -> false,
+                threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+                between(2, 8)
+            );
+            InternalAggregation sequential = sequentialInputs.get(0).reduce(sequentialInputs, sequentialContext);
+            InternalAggregation parallel = parallelInputs.get(0).reduce(parallelInputs, parallelContext);
+            assertEquals(sequential, parallel);
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     protected void doAssertReducedMultiBucketConsumer(Aggregation agg, MultiBucketConsumerService.MultiBucketConsumer bucketConsumer) {
         InternalAggregationTestCase.assertMultiBucketConsumer(agg, bucketConsumer);
     }
@@ -838,6 +838,7 @@ public class MachineLearningInfoTransportActionTests extends ESTestCase {
             ingestStats,
             null,
             null,
+            null,
             null
         );
 